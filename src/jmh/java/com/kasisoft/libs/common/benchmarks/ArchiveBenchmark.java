@@ -0,0 +1,67 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Compares the sequential and the parallel creation and extraction of zip files.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArchiveBenchmark {
+
+    private Path source;
+    private Path zipFile;
+    private Path output;
+
+    @Setup
+    public void setup() throws IOException {
+        source  = Files.createTempDirectory("kcl-archive");
+        output  = Files.createTempDirectory("kcl-archive");
+        zipFile = output.resolve("archive.zip");
+        for (var i = 0; i < 100; i++) {
+            Files.writeString(source.resolve("file%d.txt".formatted(i)), BenchmarkData.text(64 * 1024, 20));
+        }
+        IoFunctions.zip(zipFile, source, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoFunctions.deleteDir(source);
+        IoFunctions.deleteDir(output);
+    }
+
+    @Benchmark
+    public void zipSequential() {
+        IoFunctions.zip(output.resolve("sequential.zip"), source, null);
+    }
+
+    @Benchmark
+    public void zipParallel() {
+        IoFunctions.zip(output.resolve("parallel.zip"), source, null, null);
+    }
+
+    @Benchmark
+    public void unzipSequential() {
+        IoFunctions.unzip(zipFile, output.resolve("sequential"));
+    }
+
+    @Benchmark
+    public void unzipParallel() {
+        IoFunctions.unzip(zipFile, output.resolve("parallel"), null, null, null);
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,65 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Compares durable writes of small files by concurrent writers with and without group commit.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class AtomicWriteBenchmark {
+
+    private Path             dir;
+    private byte[]           data;
+    private AtomicFileWriter single;
+    private AtomicFileWriter grouped;
+    private AtomicInteger    counter;
+
+    @Setup
+    public void setup() throws IOException {
+        dir     = Files.createTempDirectory("kcl-atomic");
+        data    = BenchmarkData.bytes(1024);
+        single  = new AtomicFileWriter();
+        grouped = new AtomicFileWriter();
+        grouped.setGroupCommit(true);
+        counter = new AtomicInteger();
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoFunctions.deleteDir(dir);
+    }
+
+    private Path nextFile() {
+        // a limited set of names, so the directory doesn't grow endlessly
+        return dir.resolve("file%d.bin".formatted(counter.incrementAndGet() % 256));
+    }
+
+    @Benchmark
+    public void writeSingle() {
+        single.saveBytes(nextFile(), data);
+    }
+
+    @Benchmark
+    public void writeGrouped() {
+        grouped.saveBytes(nextFile(), data);
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,139 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import jakarta.validation.constraints.*;
+
+import java.util.*;
+
+/**
+ * Generators for reproducible benchmark data.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class BenchmarkData {
+
+    private static final String[] WORDS = {
+        "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet",
+        "kilo", "lima", "mike", "november", "oscar", "papa", "quebec", "romeo", "sierra", "tango"
+    };
+
+    private BenchmarkData() {
+    }
+
+    @NotNull
+    public static Random random() {
+        return new Random(42L);
+    }
+
+    /**
+     * Creates a text containing placeholders like <code>${key7}</code> within ordinary words.
+     *
+     * @param length
+     *            The approximate length of the text.
+     * @param keys
+     *            The number of different placeholders.
+     * @return The text.
+     */
+    @NotNull
+    public static String text(@Min(1) int length, @Min(1) int keys) {
+        var random = random();
+        var result = new StringBuilder(length + 32);
+        while (result.length() < length) {
+            if (random.nextInt(8) == 0) {
+                result.append("${key").append(random.nextInt(keys)).append('}');
+            } else {
+                result.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            result.append(random.nextInt(12) == 0 ? '\n' : ' ');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates the replacements for the placeholders used by {@link #text(int, int)}.
+     *
+     * @param keys
+     *            The number of different placeholders.
+     * @return The replacements.
+     */
+    @NotNull
+    public static Map<String, String> replacements(@Min(1) int keys) {
+        var result = new HashMap<String, String>();
+        for (var i = 0; i < keys; i++) {
+            result.put("${key%d}".formatted(i), "value-%d".formatted(i));
+        }
+        return result;
+    }
+
+    /**
+     * Creates a csv document with a title row, quoted text cells and numerical cells.
+     *
+     * @param rows
+     *            The number of records.
+     * @return The csv document.
+     */
+    @NotNull
+    public static String csv(@Min(1) int rows) {
+        var random = random();
+        var result = new StringBuilder(rows * 48);
+        result.append("id,name,city,amount,ratio\n");
+        for (var i = 0; i < rows; i++) {
+            result.append(i).append(',');
+            result.append('"').append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(WORDS[random.nextInt(WORDS.length)]).append('"').append(',');
+            result.append(WORDS[random.nextInt(WORDS.length)]).append(',');
+            result.append(random.nextInt(100000)).append(',');
+            result.append(random.nextInt(1000) / 10.0).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates a csv document without a title row which only consists of numerical cells. The columns
+     * alternate between integers, longs and decimals.
+     *
+     * @param rows
+     *            The number of records.
+     * @param columns
+     *            The number of columns.
+     * @return The csv document.
+     */
+    @NotNull
+    public static String numericCsv(@Min(1) int rows, @Min(1) int columns) {
+        var random = random();
+        var result = new StringBuilder(rows * columns * 8);
+        for (var i = 0; i < rows; i++) {
+            for (var j = 0; j < columns; j++) {
+                if (j > 0) {
+                    result.append(',');
+                }
+                switch (j % 3) {
+                case 0:
+                    result.append(random.nextInt(1000000) - 500000);
+                    break;
+                case 1:
+                    result.append(random.nextLong() >> 16);
+                    break;
+                default:
+                    result.append(random.nextInt(10000000) / 1000.0);
+                    break;
+                }
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Creates binary data which is hard to compress.
+     *
+     * @param size
+     *            The number of bytes.
+     * @return The binary data.
+     */
+    @NotNull
+    public static byte[] bytes(@Min(1) int size) {
+        var result = new byte[size];
+        random().nextBytes(result);
+        return result;
+    }
+
+} /* ENDCLASS */
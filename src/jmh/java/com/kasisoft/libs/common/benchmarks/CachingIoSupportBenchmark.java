@@ -0,0 +1,55 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.impl.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Compares the repeated reading of a small configuration file with and without a cache.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachingIoSupportBenchmark {
+
+    private Path            file;
+    private IoSupport<Path> plain;
+    private IoSupport<Path> cached;
+
+    @Setup
+    public void setup() throws IOException {
+        file   = Files.createTempFile("kcl-cache", ".properties");
+        Files.writeString(file, BenchmarkData.text(16 * 1024, 20));
+        plain  = new PathIoSupport();
+        cached = new CachingIoSupport<>(new PathIoSupport(), new ResourceCache(1024 * 1024));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public String readTextPlain() {
+        return plain.readText(file);
+    }
+
+    @Benchmark
+    public String readTextCached() {
+        return cached.readText(file);
+    }
+
+} /* ENDCLASS */
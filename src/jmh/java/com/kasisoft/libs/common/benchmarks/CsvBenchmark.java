@@ -0,0 +1,205 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.csv.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.io.*;
+
+import java.nio.charset.*;
+
+import java.nio.file.*;
+
+/**
+ * Measures the loading of a csv document and the incremental growth of a model.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvBenchmark {
+
+    private byte[]         data;
+    private CsvOptions     options;
+    private Path           file;
+    private CsvTableModel  model;
+    private CsvTableModel  indexed;
+    private byte[]         numericData;
+    private CsvOptions     numericOptions;
+    private CsvTableModel  header;
+    private List<Object[]> rows;
+    private List<byte[]>   chunks;
+    private Path           tailed;
+
+    @Setup
+    public void setup() throws IOException {
+        data    = BenchmarkData.csv(5000).getBytes(StandardCharsets.UTF_8);
+        options = CsvOptions.builder().titleRow().build();
+        file    = Files.createTempFile("csv-benchmark", ".csv");
+        Files.write(file, data);
+        model   = new CsvTableModel(options);
+        model.load(new ByteArrayInputStream(data));
+        indexed        = model.snapshot();
+        indexed.createIndex("id", false);
+        numericData    = BenchmarkData.numericCsv(5000, 30).getBytes(StandardCharsets.UTF_8);
+        var builder    = CsvOptions.builder();
+        for (var i = 0; i < 30; i++) {
+            builder.column(numericColumn(i));
+        }
+        numericOptions = builder.build();
+        // removing rows by a predicate skips the first row if the options declare a title row
+        header         = model.snapshot();
+        header.removeRow($ -> false);
+        rows           = new ArrayList<>();
+        for (var i = 1; i < model.getRowCount(); i++) {
+            var row = new Object[model.getColumnCount()];
+            for (var j = 0; j < row.length; j++) {
+                row[j] = model.getValueAt(i, j);
+            }
+            rows.add(row);
+        }
+        chunks         = chunks(data, 50);
+        tailed         = Files.createTempFile("csv-tailed", ".csv");
+    }
+
+    /**
+     * Splits the supplied csv data at line breaks.
+     *
+     * @param content
+     *            The csv data.
+     * @param count
+     *            The approximate number of chunks.
+     * @return The chunks of the csv data.
+     */
+    @NotNull
+    private static List<byte[]> chunks(@NotNull byte[] content, int count) {
+        var result = new ArrayList<byte[]>();
+        var size   = content.length / count;
+        var start  = 0;
+        while (start < content.length) {
+            var end = Math.min(content.length, start + size);
+            while ((end < content.length) && (content[end - 1] != '\n')) {
+                end++;
+            }
+            result.add(Arrays.copyOfRange(content, start, end));
+            start = end;
+        }
+        return result;
+    }
+
+    @NotNull
+    private static CsvColumn<?> numericColumn(int index) {
+        var title = "c%d".formatted(index);
+        switch (index % 3) {
+        case 0:
+            return CsvColumn.<Integer>builder().type(Integer.class).title(title).build();
+        case 1:
+            return CsvColumn.<Long>builder().type(Long.class).title(title).build();
+        default:
+            return CsvColumn.<Double>builder().type(Double.class).title(title).build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(tailed);
+    }
+
+    @Benchmark
+    public int load() {
+        var model = new CsvTableModel(options);
+        model.load(new ByteArrayInputStream(data));
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    public int loadDeclared() {
+        // the declared columns are parsed from the field views of the reader
+        var model = new CsvTableModel(numericOptions);
+        model.load(new ByteArrayInputStream(numericData));
+        return model.getRowCount();
+    }
+
+    @Benchmark
+    public int readSequential() {
+        try (var reader = new CsvReader(options, file)) {
+            return (int) reader.stream().count();
+        }
+    }
+
+    @Benchmark
+    public int readObjects() {
+        try (var reader = new CsvReader(numericOptions, new ByteArrayInputStream(numericData))) {
+            return (int) reader.objects().count();
+        }
+    }
+
+    @Benchmark
+    public int readParallel() {
+        var reader = new CsvParallelReader(options, file);
+        reader.setChunkSize(64 * 1024);
+        var count  = new AtomicInteger();
+        reader.read($ -> count.incrementAndGet());
+        return count.get();
+    }
+
+    @Benchmark
+    public int lookupScan() {
+        return lookup(model);
+    }
+
+    @Benchmark
+    public int lookupIndexed() {
+        return lookup(indexed);
+    }
+
+    private int lookup(@NotNull CsvTableModel source) {
+        var result = 0;
+        for (var i = 0; i < 1000; i++) {
+            result += source.findRow("id", (i * 7) % 5000);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int addRow() {
+        // each row is published on it's own
+        var target = header.snapshot();
+        rows.forEach(target::addRow);
+        return target.getRowCount();
+    }
+
+    @Benchmark
+    public int tail() throws IOException {
+        Files.write(tailed, new byte[0]);
+        var tailer = new CsvTailer(options, tailed);
+        // the column types are known, so they aren't guessed from the first chunk
+        var target = header.snapshot();
+        for (var chunk : chunks) {
+            Files.write(tailed, chunk, StandardOpenOption.APPEND);
+            tailer.poll(target);
+        }
+        return target.getRowCount();
+    }
+
+    @Benchmark
+    public void write() {
+        try (var writer = new CsvWriter(options, Writer.nullWriter())) {
+            writer.writeAll(model, true);
+        }
+    }
+
+} /* ENDCLASS */
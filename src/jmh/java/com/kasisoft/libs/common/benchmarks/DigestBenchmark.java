@@ -0,0 +1,38 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the calculation of hashes.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigestBenchmark {
+
+    @Param({"MD5", "SHA256"})
+    public Digest digest;
+
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.bytes(64 * 1024);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String digestToString() {
+        return digest.digestToString(data);
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,59 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Measures the processing of a directory tree with many small files.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileTreeBenchmark {
+
+    @Param({"1", "8"})
+    public int   parallelism;
+
+    private Path source;
+    private Path destination;
+
+    @Setup
+    public void setup() throws IOException {
+        source      = Files.createTempDirectory("kcl-tree");
+        destination = Files.createTempDirectory("kcl-tree");
+        var content = BenchmarkData.bytes(512);
+        for (var i = 0; i < 50; i++) {
+            var dir = source.resolve("dir%d".formatted(i));
+            Files.createDirectories(dir);
+            for (var j = 0; j < 40; j++) {
+                Files.write(dir.resolve("file%d.bin".formatted(j)), content);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoFunctions.deleteDir(source, parallelism);
+        IoFunctions.deleteDir(destination, parallelism);
+    }
+
+    @Benchmark
+    public void copyAndDelete() {
+        var target = destination.resolve("copy");
+        IoFunctions.copyDir(source, target, parallelism);
+        IoFunctions.deleteDir(target, parallelism);
+    }
+
+} /* ENDCLASS */
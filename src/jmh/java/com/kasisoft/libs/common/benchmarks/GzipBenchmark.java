@@ -0,0 +1,51 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Compares the sequential and the parallel gzip compression of a file.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GzipBenchmark {
+
+    private Path dir;
+    private Path source;
+
+    @Setup
+    public void setup() throws IOException {
+        dir    = Files.createTempDirectory("kcl-gzip");
+        source = dir.resolve("source.txt");
+        Files.writeString(source, BenchmarkData.text(8 * 1024 * 1024, 20));
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoFunctions.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Path gzipSequential() {
+        return IoFunctions.gzip(source, dir.resolve("sequential.gz"));
+    }
+
+    @Benchmark
+    public Path gzipParallel() {
+        return IoFunctions.gzip(source, dir.resolve("parallel.gz"), null);
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,65 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Compares the sequential and the batched loading of many small files.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IoBatchBenchmark {
+
+    private Path       dir;
+    private List<Path> files;
+
+    @Setup
+    public void setup() throws IOException {
+        dir   = Files.createTempDirectory("kcl-batch");
+        files = new ArrayList<>();
+        for (var i = 0; i < 1000; i++) {
+            var file = dir.resolve("file%d.txt".formatted(i));
+            Files.writeString(file, BenchmarkData.text(2048, 10));
+            files.add(file);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        IoFunctions.deleteDir(dir);
+    }
+
+    @Benchmark
+    public int loadSequential() {
+        var result = 0;
+        for (var file : files) {
+            result += IoSupportFunctions.loadAllBytes(file).length;
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int loadBatch() throws Exception {
+        var result = 0;
+        for (var content : IoSupportFunctions.loadAllBytes(files).get().values().values()) {
+            result += content.length;
+        }
+        return result;
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,102 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Measures the copying and loading of streams and files. The secondary metric <code>bytes</code> provides the
+ * throughput in bytes per second.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IoFunctionsBenchmark {
+
+    private byte[] data;
+    private Path   source;
+    private Path   destination;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0L;
+        }
+
+    } /* ENDCLASS */
+
+    @Setup
+    public void setup() throws IOException {
+        data        = BenchmarkData.bytes(4 * 1024 * 1024);
+        source      = Files.createTempFile("kcl-copy", ".bin");
+        destination = Files.createTempFile("kcl-copy", ".bin");
+        Files.write(source, BenchmarkData.bytes(64 * 1024 * 1024));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(destination);
+    }
+
+    @Benchmark
+    public int copy(Throughput throughput) {
+        var output = new ByteArrayOutputStream(data.length);
+        IoFunctions.copy(new ByteArrayInputStream(data), output);
+        throughput.bytes += output.size();
+        return output.size();
+    }
+
+    @Benchmark
+    public long copyFileStreams(Throughput throughput) throws IOException {
+        // the buffered streams hide the files, so the data is pumped through the heap
+        try (var instream = new BufferedInputStream(new FileInputStream(source.toFile())); var outstream = new BufferedOutputStream(new FileOutputStream(destination.toFile()))) {
+            IoFunctions.copy(instream, outstream);
+        }
+        var result = Files.size(destination);
+        throughput.bytes += result;
+        return result;
+    }
+
+    @Benchmark
+    public long copyFileChannels(Throughput throughput) throws IOException {
+        try (var instream = new FileInputStream(source.toFile()); var outstream = new FileOutputStream(destination.toFile())) {
+            IoFunctions.copy(instream, outstream);
+        }
+        var result = Files.size(destination);
+        throughput.bytes += result;
+        return result;
+    }
+
+    @Benchmark
+    public int loadAllBytes(Throughput throughput) {
+        var result = IoSupportFunctions.loadAllBytes(source);
+        throughput.bytes += result.length;
+        return result.length;
+    }
+
+    @Benchmark
+    public int loadAllBytesGeneric(Throughput throughput) {
+        // the uri support loads through a growing buffer
+        var result = IoSupportFunctions.loadAllBytes(source.toUri());
+        throughput.bytes += result.length;
+        return result.length;
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,73 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.openjdk.jmh.infra.*;
+
+import com.kasisoft.libs.common.pools.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the allocate/free cycle of the pools under contention.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class BucketState {
+
+        @Param({"Synchronized", "Concurrent"})
+        public BucketType type;
+
+        Bucket<StringBuilder> bucket;
+
+        @Setup
+        public void setup() {
+            bucket = Bucket.newBucket(type, StringBuilder::new, $ -> $.setLength(0));
+        }
+
+    } /* ENDCLASS */
+
+    private void cycle(BucketState state, Blackhole blackhole) {
+        var sb = state.bucket.allocate();
+        sb.append("benchmark");
+        blackhole.consume(sb.length());
+        state.bucket.free(sb);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void bucket1Thread(BucketState state, Blackhole blackhole) {
+        cycle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void bucket8Threads(BucketState state, Blackhole blackhole) {
+        cycle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void bucket64Threads(BucketState state, Blackhole blackhole) {
+        cycle(state, blackhole);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void byteArrayBuffer(Blackhole blackhole) {
+        var buffer = Buffers.byteArray();
+        var data   = buffer.allocate(8192);
+        data[0] = 1;
+        blackhole.consume(data);
+        buffer.free(data);
+    }
+
+} /* ENDCLASS */
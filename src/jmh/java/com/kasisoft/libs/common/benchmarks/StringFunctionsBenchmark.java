@@ -0,0 +1,38 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.text.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+/**
+ * Measures the replacement of placeholders within a text.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringFunctionsBenchmark {
+
+    private String              text;
+    private Map<String, String> replacements;
+
+    @Setup
+    public void setup() {
+        text         = BenchmarkData.text(64 * 1024, 50);
+        replacements = BenchmarkData.replacements(50);
+    }
+
+    @Benchmark
+    public String replaceAll() {
+        return StringFunctions.replaceAll(text, replacements);
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,35 @@
+package com.kasisoft.libs.common.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.kasisoft.libs.common.xml.XmlGenerator.*;
+
+import java.util.concurrent.*;
+
+/**
+ * Measures the generation of an xml document.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlGeneratorBenchmark {
+
+    @Benchmark
+    public String toXml() {
+        var generator = new DefaultXmlGenerator().processingInstruction().openTag("records");
+        for (var i = 0; i < 1000; i++) {
+            generator
+                .openTagV("record", "id", i, "type", "entry")
+                    .tag("name", "name & <value> %d".formatted(i))
+                    .tagV("amount", null, "currency", "EUR", "value", i * 3)
+                .closeTag();
+        }
+        return generator.closeTag().toXml();
+    }
+
+} /* ENDCLASS */
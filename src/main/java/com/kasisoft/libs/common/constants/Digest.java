@@ -27,8 +27,8 @@ public enum Digest {
     SHA384("SHA-384"),
     SHA512("SHA-512");
 
-    private String                  algorithm;
-    private Bucket<MessageDigest>   bucket;
+    private String                algorithm;
+    private Bucket<MessageDigest> bucket;
 
     /**
      * Initializes this digest for the supplied algorithm.
@@ -41,7 +41,8 @@ public enum Digest {
     Digest(@NotBlank String algorithm) {
         this.algorithm = algorithm;
         // make sure to verify the existence of the algorithm
-         getInstance();
+        getInstance();
+        this.bucket = Bucket.newBucket(BucketType.Concurrent, this::getInstance, MessageDigest::reset);
     }
 
     @NotBlank
@@ -54,13 +55,6 @@ public enum Digest {
         return algorithm;
     }
 
-    private synchronized Bucket<MessageDigest> bucket() {
-        if (bucket == null) {
-            bucket = new Bucket<MessageDigest>(this::getInstance, MessageDigest::reset);
-        }
-        return bucket;
-    }
-
     @NotNull
     private MessageDigest getInstance() {
         try {
@@ -130,7 +124,7 @@ public enum Digest {
      */
     @NotNull
     public byte[] digest(@Min(1) int count, @NotNull byte[] ... data) {
-        return bucket().forInstance($digest -> {
+        return bucket.forInstance($digest -> {
             for (var i = 0; i < count; i++) {
                 for (var j = 0; j < data.length; j++) {
                     $digest.update(data[j]);
@@ -0,0 +1,46 @@
+package com.kasisoft.libs.common.csv;
+
+import jakarta.validation.constraints.*;
+
+import java.nio.channels.*;
+
+import java.nio.*;
+
+/**
+ * A channel providing the remaining content of a {@link ByteBuffer}, f.e. a memory mapped region.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+class ByteBufferChannel implements ReadableByteChannel {
+
+    private ByteBuffer data;
+    private boolean    open;
+
+    ByteBufferChannel(@NotNull ByteBuffer data) {
+        this.data = data;
+        this.open = true;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+        if (!data.hasRemaining()) {
+            return -1;
+        }
+        var count = Math.min(dst.remaining(), data.remaining());
+        dst.put(dst.position(), data, data.position(), count);
+        dst.position(dst.position() + count);
+        data.position(data.position() + count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,139 @@
+package com.kasisoft.libs.common.csv;
+
+import com.kasisoft.libs.common.constants.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.*;
+
+import java.nio.charset.*;
+
+import java.nio.*;
+
+/**
+ * Locates the ends of csv records within encoded data. It mirrors the states of the tokenizer used by
+ * {@link CsvReader}, so line breaks within quoted fields are not considered to be record boundaries.
+ * This requires an encoding which represents line breaks, quotes and the delimiter as single bytes
+ * which never occur within multibyte sequences (f.e. UTF-8 or ISO-8859-1).
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+class CsvBoundaryScanner {
+
+    private static final byte CR           = '\r';
+    private static final byte DQ           = '\"';
+    private static final byte LF           = '\n';
+    private static final byte SQ           = '\'';
+
+    private static final int  START        = 0;
+    private static final int  UNQUOTED     = 1;
+    private static final int  QUOTED       = 2;
+    private static final int  QUOTED_QUOTE = 3;
+    private static final int  AFTER_QUOTED = 4;
+    private static final int  EMBEDDED     = 5;
+
+    private byte    delimiter;
+    private boolean doubleQuotes;
+    private boolean singleQuotes;
+    private int     state;
+    private byte    quote;
+    private boolean content;
+
+    CsvBoundaryScanner(@NotNull CsvOptions options) {
+        delimiter    = (byte) options.delimiter();
+        doubleQuotes = options.consumeDoubleQuotes();
+        singleQuotes = options.consumeSingleQuotes();
+        state        = START;
+        quote        = 0;
+        content      = false;
+    }
+
+    /**
+     * Returns <code>true</code> if the encoding of the supplied options represents the structural
+     * characters as single bytes which cannot be part of multibyte sequences.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @return <code>true</code> <=> The encoded data can be scanned.
+     */
+    static boolean isSupported(@NotNull CsvOptions options) {
+        var charset = Encoding.getEncoding(options.encoding()).getCharset();
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1)) {
+            return true;
+        }
+        // a single byte charset must not remap the structural characters
+        var probe = "\r\n\"'" + options.delimiter();
+        return (charset.newEncoder().maxBytesPerChar() == 1.0f) && Arrays.equals(probe.getBytes(charset), probe.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private boolean isQuote(byte b) {
+        return ((b == DQ) && doubleQuotes) || ((b == SQ) && singleQuotes);
+    }
+
+    /**
+     * Scans the supplied data for the first record end at or after a certain offset. The state of this
+     * scanner is kept between the calls, so the data must be passed in sequence.
+     *
+     * @param data
+     *            The data which will be scanned from it's position to it's limit.
+     * @param from
+     *            The relative offset which the record end must not precede.
+     * @param requireContent
+     *            <code>true</code> <=> Skip the ends of records which only consist of whitespace.
+     * @return The relative offset after the record end or -1 if there's none.
+     */
+    int scan(@NotNull ByteBuffer data, int from, boolean requireContent) {
+        var limit = data.limit();
+        for (var i = data.position(); i < limit; i++) {
+            var b = data.get(i);
+            if (((b & 0xFF) > ' ') || (b == delimiter)) {
+                content = true;
+            }
+            switch (state) {
+            case QUOTED:
+                if (b == quote) {
+                    state = QUOTED_QUOTE;
+                }
+                continue;
+            case EMBEDDED:
+                if (b == quote) {
+                    state = UNQUOTED;
+                }
+                continue;
+            case QUOTED_QUOTE:
+                if (b == quote) {
+                    state = QUOTED;
+                    continue;
+                }
+                state = AFTER_QUOTED;
+                break;
+            default:
+                break;
+            }
+            if ((b == LF) || (b == CR)) {
+                state = START;
+                var accept = (i >= from) && (content || (!requireContent));
+                content    = false;
+                if (accept) {
+                    data.position(i + 1);
+                    return i + 1;
+                }
+            } else if (b == delimiter) {
+                state = START;
+            } else if (state == START) {
+                if (isQuote(b)) {
+                    quote = b;
+                    state = QUOTED;
+                } else if ((b & 0xFF) > ' ') {
+                    state = UNQUOTED;
+                }
+            } else if ((state == UNQUOTED) && isQuote(b)) {
+                quote = b;
+                state = EMBEDDED;
+            }
+        }
+        data.position(limit);
+        return -1;
+    }
+
+} /* ENDCLASS */
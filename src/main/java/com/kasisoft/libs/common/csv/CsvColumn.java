@@ -28,13 +28,31 @@ public record CsvColumn<T> (
     private static Map<Class<?>, Function<String, ?>> DEFAULT_ADAPTERS = new HashMap<>();
 
     static {
+        DEFAULT_ADAPTERS.put(Byte.class, TypeConverters::convertStringToByte);
+        DEFAULT_ADAPTERS.put(Short.class, TypeConverters::convertStringToShort);
         DEFAULT_ADAPTERS.put(Integer.class, TypeConverters::convertStringToInteger);
+        DEFAULT_ADAPTERS.put(Long.class, TypeConverters::convertStringToLong);
+        DEFAULT_ADAPTERS.put(Float.class, TypeConverters::convertStringToFloat);
+        DEFAULT_ADAPTERS.put(Double.class, TypeConverters::convertStringToDouble);
         DEFAULT_ADAPTERS.put(String.class, $ -> $);
         DEFAULT_ADAPTERS.put(Boolean.class, TypeConverters::convertStringToBoolean);
         DEFAULT_ADAPTERS.put(byte[].class, Encoding.UTF8::optEncode);
         DEFAULT_ADAPTERS.put(BigDecimal.class, BigDecimal::new);
     }
 
+    /**
+     * Returns the adapter which is used if a column of the supplied type doesn't declare one. Columns
+     * using these adapters for numerical types are parsed without intermediate Strings.
+     *
+     * @param type
+     *            The type of the column.
+     * @return The default adapter. <code>null</code> if there's none for this type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> Function<String, R> defaultAdapter(Class<R> type) {
+        return (Function<String, R>) DEFAULT_ADAPTERS.get(type);
+    }
+
     /**
      * Creates a copy of this instance.
      *
@@ -93,7 +111,7 @@ public record CsvColumn<T> (
         public CsvColumn<R> build() {
             type = type != null ? type : (Class<R>) String.class;
             if (adapter == null) {
-                adapter= (Function<String, R>) DEFAULT_ADAPTERS.get(type);
+                adapter = defaultAdapter(type);
             }
             return new CsvColumn<R>(title, type, nullable, defval, adapter);
         }
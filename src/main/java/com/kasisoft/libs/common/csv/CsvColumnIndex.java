@@ -0,0 +1,626 @@
+package com.kasisoft.libs.common.csv;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+/**
+ * An index on the values of a single column of a {@link CsvTableModel}. Row numbers are always provided
+ * in ascending order. Numerical values are compared by their value, so <code>12</code> finds a
+ * {@link Short} as well as a {@link Long} value.
+ *
+ * Published versions of the model get an immutable {@link #view()} of the index which shares it's
+ * content, so a change of the model only copies the parts of an index it touches. The lookups of a view
+ * are bound by the size of the supplied store.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+abstract class CsvColumnIndex {
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private boolean frozen;
+
+    CsvColumnIndex(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    /**
+     * Creates an index for the supplied column content.
+     *
+     * @param store
+     *            The values of the column.
+     * @param sorted
+     *            <code>true</code> <=> Create a sorted index which also supports range queries.
+     * @return The index for the column.
+     */
+    @NotNull
+    static CsvColumnIndex of(@NotNull CsvColumnStore store, boolean sorted) {
+        return sorted ? new SortedIndex(store) : new HashIndex(store);
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    abstract boolean isSorted();
+
+    /**
+     * Returns an immutable view on the current content.
+     *
+     * @return An immutable view on the current content.
+     */
+    @NotNull
+    abstract CsvColumnIndex view();
+
+    /**
+     * Creates an index that can be changed from this view.
+     *
+     * @param store
+     *            The values of the column as seen by this view.
+     * @return An index with the content of this view.
+     */
+    @NotNull
+    abstract CsvColumnIndex fork(@NotNull CsvColumnStore store);
+
+    /**
+     * Adds a row which value has already been stored.
+     *
+     * @param store
+     *            The values of the column.
+     * @param row
+     *            The row which shall be added.
+     */
+    abstract void insert(@NotNull CsvColumnStore store, int row);
+
+    /**
+     * Removes a row before it's value is being changed.
+     *
+     * @param store
+     *            The values of the column.
+     * @param row
+     *            The row which shall be removed.
+     */
+    abstract void remove(@NotNull CsvColumnStore store, int row);
+
+    /**
+     * Drops the supplied rows and renumbers the remaining ones accordingly.
+     *
+     * @param store
+     *            The values of the column after the rows have been removed.
+     * @param rows
+     *            The rows which have been removed.
+     * @param count
+     *            The number of rows before the removal.
+     */
+    abstract void removeAll(@NotNull CsvColumnStore store, @NotNull BitSet rows, int count);
+
+    /**
+     * Returns the rows with the supplied value.
+     *
+     * @param store
+     *            The values of the column.
+     * @param value
+     *            The value which is looked for.
+     * @return The rows in ascending order.
+     */
+    @NotNull
+    abstract int[] find(@NotNull CsvColumnStore store, Object value);
+
+    /**
+     * Returns the first row with the supplied value.
+     *
+     * @param store
+     *            The values of the column.
+     * @param value
+     *            The value which is looked for.
+     * @return The first row or -1 if there's none.
+     */
+    abstract int findFirst(@NotNull CsvColumnStore store, Object value);
+
+    /**
+     * Creates a mapping from the old row numbers to the new ones.
+     *
+     * @param rows
+     *            The rows which have been removed.
+     * @param count
+     *            The number of rows before the removal.
+     * @return The new row number per old row. -1 for removed rows.
+     */
+    @NotNull
+    static int[] renumbering(@NotNull BitSet rows, int count) {
+        var result = new int[count];
+        var next   = 0;
+        for (var i = 0; i < count; i++) {
+            result[i] = rows.get(i) ? -1 : next++;
+        }
+        return result;
+    }
+
+    /**
+     * Normalizes a value according to the type of it's column, so numerical values are equal if they
+     * represent the same number within that type (f.e. <code>12</code> finds <code>12.0</code> within a
+     * {@link Double} column).
+     *
+     * @param store
+     *            The values of the column.
+     * @param value
+     *            The value which shall be normalized.
+     * @return The normalized value.
+     */
+    static Object key(@NotNull CsvColumnStore store, Object value) {
+        if ((store instanceof CsvColumnStore.NumericStore numeric) && (value instanceof Number number)) {
+            if (numeric.type == Float.class) {
+                return Double.valueOf((float) number.doubleValue());
+            } else if (numeric.type == Double.class) {
+                return Double.valueOf(number.doubleValue());
+            } else if (!isIntegral(number)) {
+                // fractions never match an integral column
+                var decimal  = number.doubleValue();
+                var integral = (long) decimal;
+                if (integral == decimal) {
+                    return Long.valueOf(integral);
+                }
+                return Double.valueOf(decimal);
+            }
+        }
+        return key(value);
+    }
+
+    /**
+     * Normalizes a value by it's own type, so numerical values are equal if they represent the same
+     * number.
+     *
+     * @param value
+     *            The value which shall be normalized.
+     * @return The normalized value.
+     */
+    static Object key(Object value) {
+        if (isIntegral(value)) {
+            return Long.valueOf(((Number) value).longValue());
+        } else if ((value instanceof Double) || (value instanceof Float)) {
+            return Double.valueOf(((Number) value).doubleValue());
+        }
+        return value;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return (value instanceof Integer) || (value instanceof Long) || (value instanceof Short) || (value instanceof Byte);
+    }
+
+    /**
+     * Compares two cell values. <code>null</code> is lower than any other value, numbers are compared by
+     * their value and values of different types are ordered by their type names.
+     *
+     * @param left
+     *            The left value.
+     * @param right
+     *            The right value.
+     * @return The comparison result as specified by {@link Comparator#compare(Object, Object)}.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareValues(Object left, Object right) {
+        if ((left == null) || (right == null)) {
+            return left == right ? 0 : (left == null ? -1 : 1);
+        }
+        if (isIntegral(left) && isIntegral(right)) {
+            return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+        }
+        if ((left instanceof Number lnum) && (right instanceof Number rnum)) {
+            return Double.compare(lnum.doubleValue(), rnum.doubleValue());
+        }
+        if ((left.getClass() == right.getClass()) && (left instanceof Comparable comparable)) {
+            return comparable.compareTo(right);
+        }
+        return left.getClass().getName().compareTo(right.getClass().getName());
+    }
+
+    /**
+     * Keeps the rows per distinct value. The buckets are shared with the views: appended rows are added
+     * in place (views don't see them as they are beyond their size) while other changes replace a bucket.
+     * A changed row stays within the bucket of it's previous value as the views might still need it, so
+     * the lookups skip rows which don't have the value of their bucket anymore.
+     */
+    static final class HashIndex extends CsvColumnIndex {
+
+        private Map<Object, Bucket> buckets;
+
+        HashIndex(@NotNull CsvColumnStore store) {
+            this(new ConcurrentHashMap<>(), false);
+            for (var i = 0; i < store.size(); i++) {
+                insert(store, i);
+            }
+        }
+
+        private HashIndex(@NotNull Map<Object, Bucket> buckets, boolean frozen) {
+            super(frozen);
+            this.buckets = buckets;
+        }
+
+        @Override
+        boolean isSorted() {
+            return false;
+        }
+
+        @Override
+        @NotNull
+        CsvColumnIndex view() {
+            return isFrozen() ? this : new HashIndex(buckets, true);
+        }
+
+        @Override
+        @NotNull
+        CsvColumnIndex fork(@NotNull CsvColumnStore store) {
+            // the index which created this view still appends to the buckets
+            return new HashIndex(store);
+        }
+
+        @Override
+        void insert(@NotNull CsvColumnStore store, int row) {
+            var key    = key(store, store.get(row));
+            var bucket = buckets.get(key);
+            if (bucket == null) {
+                buckets.put(key, new Bucket(new int[] {row}, 1));
+            } else if (bucket.rows[bucket.size - 1] < row) {
+                // rows are usually appended
+                bucket.add(row);
+            } else {
+                var pos = Arrays.binarySearch(bucket.rows, 0, bucket.size, row);
+                if (pos < 0) {
+                    // the views might be reading the bucket, so it's replaced
+                    pos      = -(pos + 1);
+                    var rows = new int[bucket.size + 1];
+                    System.arraycopy(bucket.rows, 0, rows, 0, pos);
+                    System.arraycopy(bucket.rows, pos, rows, pos + 1, bucket.size - pos);
+                    rows[pos] = row;
+                    buckets.put(key, new Bucket(rows, rows.length));
+                }
+            }
+        }
+
+        @Override
+        void remove(@NotNull CsvColumnStore store, int row) {
+            // the row is skipped by the lookups as soon as it's value has changed
+        }
+
+        @Override
+        void removeAll(@NotNull CsvColumnStore store, @NotNull BitSet rows, int count) {
+            // the views keep the previous buckets as the rows are renumbered
+            var result = new HashIndex(store);
+            buckets    = result.buckets;
+        }
+
+        /**
+         * Returns the number of rows of a bucket which are visible for the supplied store.
+         *
+         * @param bucket
+         *            The bucket.
+         * @param rows
+         *            The rows of the bucket.
+         * @param store
+         *            The values of the column.
+         * @return The number of rows which belong to the store.
+         */
+        private static int visible(@NotNull Bucket bucket, @NotNull int[] rows, @NotNull CsvColumnStore store) {
+            var size = Math.min(bucket.size, rows.length);
+            if ((size > 0) && (rows[size - 1] >= store.size())) {
+                size = -(Arrays.binarySearch(rows, 0, size, store.size()) + 1);
+            }
+            return size;
+        }
+
+        @Override
+        @NotNull
+        int[] find(@NotNull CsvColumnStore store, Object value) {
+            var key    = key(store, value);
+            var bucket = buckets.get(key);
+            if (bucket == null) {
+                return NO_ROWS;
+            }
+            var rows   = bucket.rows;
+            var size   = visible(bucket, rows, store);
+            var result = new int[size];
+            var count  = 0;
+            for (var i = 0; i < size; i++) {
+                if (key.equals(key(store, store.get(rows[i])))) {
+                    result[count++] = rows[i];
+                }
+            }
+            return count == size ? result : Arrays.copyOf(result, count);
+        }
+
+        @Override
+        int findFirst(@NotNull CsvColumnStore store, Object value) {
+            var key    = key(store, value);
+            var bucket = buckets.get(key);
+            if (bucket != null) {
+                var rows = bucket.rows;
+                var size = visible(bucket, rows, store);
+                for (var i = 0; i < size; i++) {
+                    if (key.equals(key(store, store.get(rows[i])))) {
+                        return rows[i];
+                    }
+                }
+            }
+            return -1;
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * The ascending rows of a distinct value. Rows are only appended, so readers which get the size
+     * before the rows always see a consistent state.
+     */
+    private static final class Bucket {
+
+        private volatile int[] rows;
+        private volatile int   size;
+
+        Bucket(@NotNull int[] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        void add(int row) {
+            var current = rows;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, CsvColumnStore.grow(current.length, size + 1));
+                rows    = current;
+            }
+            current[size] = row;
+            size++;
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * Keeps the rows ordered by their values (rows with equal values are ordered by their row numbers).
+     * The rows are kept within immutable runs which are shared with the views. Each new row becomes a run
+     * of it's own and runs of a similar size are merged, so a run is only copied by a change if it
+     * contains the changed row.
+     */
+    static final class SortedIndex extends CsvColumnIndex {
+
+        private int[][] runs;
+
+        SortedIndex(@NotNull CsvColumnStore store) {
+            super(false);
+            var values = new Object[store.size()];
+            for (var i = 0; i < values.length; i++) {
+                values[i] = store.get(i);
+            }
+            // the sorting is stable, so equal values keep the order of their rows
+            var rows = IntStream.range(0, values.length)
+                .boxed()
+                .sorted(($a, $b) -> compareValues(values[$a], values[$b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+            runs = rows.length > 0 ? new int[][] {rows} : new int[0][];
+        }
+
+        private SortedIndex(@NotNull int[][] runs, boolean frozen) {
+            super(frozen);
+            this.runs = runs;
+        }
+
+        @Override
+        boolean isSorted() {
+            return true;
+        }
+
+        @Override
+        @NotNull
+        CsvColumnIndex view() {
+            return isFrozen() ? this : new SortedIndex(runs, true);
+        }
+
+        @Override
+        @NotNull
+        CsvColumnIndex fork(@NotNull CsvColumnStore store) {
+            // the runs are never changed, so they can be shared
+            return new SortedIndex(runs, false);
+        }
+
+        /**
+         * Compares two rows by their values and their row numbers.
+         */
+        private static int compareRows(@NotNull CsvColumnStore store, int left, int right) {
+            var result = compareValues(store.get(left), store.get(right));
+            return result != 0 ? result : Integer.compare(left, right);
+        }
+
+        /**
+         * Returns the position of a row within a run.
+         *
+         * @param store
+         *            The values of the column.
+         * @param run
+         *            The run.
+         * @param value
+         *            The value of the row.
+         * @param row
+         *            The row number.
+         * @return The position of the row if it's part of the run, otherwise the position where it would
+         *         be inserted.
+         */
+        private static int position(@NotNull CsvColumnStore store, @NotNull int[] run, Object value, int row) {
+            var low  = 0;
+            var high = run.length;
+            while (low < high) {
+                var mid    = (low + high) >>> 1;
+                var result = compareValues(store.get(run[mid]), value);
+                if ((result < 0) || ((result == 0) && (run[mid] < row))) {
+                    low  = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Returns the first position within a run with a value that is greater than the supplied one.
+         *
+         * @param store
+         *            The values of the column.
+         * @param run
+         *            The run.
+         * @param value
+         *            The value which is looked for.
+         * @param inclusive
+         *            <code>true</code> <=> Equal values are included, so the position of the first equal
+         *            value is returned.
+         * @return The position.
+         */
+        private static int bound(@NotNull CsvColumnStore store, @NotNull int[] run, Object value, boolean inclusive) {
+            var low  = 0;
+            var high = run.length;
+            while (low < high) {
+                var mid    = (low + high) >>> 1;
+                var result = compareValues(store.get(run[mid]), value);
+                if ((result < 0) || ((result == 0) && !inclusive)) {
+                    low  = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        void insert(@NotNull CsvColumnStore store, int row) {
+            var run = new int[] {row};
+            var end = runs.length;
+            // merging runs of a similar size keeps the number of runs logarithmic
+            while ((end > 0) && (runs[end - 1].length <= run.length * 2)) {
+                run = merge(store, runs[end - 1], run);
+                end--;
+            }
+            var result = Arrays.copyOf(runs, end + 1);
+            result[end] = run;
+            runs        = result;
+        }
+
+        @NotNull
+        private static int[] merge(@NotNull CsvColumnStore store, @NotNull int[] left, @NotNull int[] right) {
+            var result = new int[left.length + right.length];
+            var l      = 0;
+            var r      = 0;
+            for (var i = 0; i < result.length; i++) {
+                if ((r == right.length) || ((l < left.length) && (compareRows(store, left[l], right[r]) < 0))) {
+                    result[i] = left[l++];
+                } else {
+                    result[i] = right[r++];
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void remove(@NotNull CsvColumnStore store, int row) {
+            var value = store.get(row);
+            for (var i = 0; i < runs.length; i++) {
+                var run = runs[i];
+                var pos = position(store, run, value, row);
+                if ((pos < run.length) && (run[pos] == row)) {
+                    var result = runs.clone();
+                    if (run.length == 1) {
+                        result = new int[runs.length - 1][];
+                        System.arraycopy(runs, 0, result, 0, i);
+                        System.arraycopy(runs, i + 1, result, i, runs.length - i - 1);
+                    } else {
+                        var copy = new int[run.length - 1];
+                        System.arraycopy(run, 0, copy, 0, pos);
+                        System.arraycopy(run, pos + 1, copy, pos, run.length - pos - 1);
+                        result[i] = copy;
+                    }
+                    runs = result;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        void removeAll(@NotNull CsvColumnStore store, @NotNull BitSet removed, int count) {
+            // the renumbering keeps the order of the remaining rows
+            var mapping = renumbering(removed, count);
+            var result  = new ArrayList<int[]>(runs.length);
+            for (var run : runs) {
+                var kept = new int[run.length];
+                var size = 0;
+                for (var row : run) {
+                    if (mapping[row] != -1) {
+                        kept[size++] = mapping[row];
+                    }
+                }
+                if (size > 0) {
+                    result.add(Arrays.copyOf(kept, size));
+                }
+            }
+            runs = result.toArray(new int[result.size()][]);
+        }
+
+        @Override
+        @NotNull
+        int[] find(@NotNull CsvColumnStore store, Object value) {
+            return collect(store, value, false, value, false);
+        }
+
+        @Override
+        int findFirst(@NotNull CsvColumnStore store, Object value) {
+            var result = -1;
+            for (var run : runs) {
+                var pos = bound(store, run, value, true);
+                if ((pos < run.length) && (compareValues(store.get(run[pos]), value) == 0)) {
+                    // equal values are ordered by their rows
+                    result = result == -1 ? run[pos] : Math.min(result, run[pos]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the rows within the supplied range. <code>null</code> values are never part of the range.
+         *
+         * @param store
+         *            The values of the column.
+         * @param lower
+         *            The lower bound (inclusive). <code>null</code> if unbounded.
+         * @param upper
+         *            The upper bound (inclusive). <code>null</code> if unbounded.
+         * @return The rows in ascending order.
+         */
+        @NotNull
+        int[] range(@NotNull CsvColumnStore store, Object lower, Object upper) {
+            // null is the lowest value, so an unbounded range starts after them
+            return collect(store, lower, lower == null, upper, upper == null);
+        }
+
+        @NotNull
+        private int[] collect(@NotNull CsvColumnStore store, Object lower, boolean skipNulls, Object upper, boolean unbounded) {
+            var parts = new int[runs.length][];
+            var total = 0;
+            for (var i = 0; i < runs.length; i++) {
+                var run  = runs[i];
+                var from = skipNulls ? bound(store, run, null, false) : bound(store, run, lower, true);
+                var to   = unbounded ? run.length : bound(store, run, upper, false);
+                parts[i] = from < to ? Arrays.copyOfRange(run, from, to) : NO_ROWS;
+                total   += parts[i].length;
+            }
+            var result = new int[total];
+            var offset = 0;
+            for (var part : parts) {
+                System.arraycopy(part, 0, result, offset, part.length);
+                offset += part.length;
+            }
+            Arrays.sort(result);
+            return result;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
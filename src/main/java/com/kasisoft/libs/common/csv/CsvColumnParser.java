@@ -0,0 +1,379 @@
+package com.kasisoft.libs.common.csv;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+/**
+ * The compiled conversion of a {@link CsvColumn}. Columns using the default adapter of a numerical type
+ * are parsed directly from the character data and the values can be passed into the primitive stores
+ * of a {@link CsvTableModel} without boxing. All other columns delegate to their adapters.
+ *
+ * The parsers of a column list are cached, so loading data with the same columns again reuses them.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@SuppressWarnings("rawtypes")
+abstract class CsvColumnParser {
+
+    // the number of cached column lists before the cache is being dropped
+    private static final int MAX_CACHED = 256;
+
+    private static final Map<List<CsvColumn>, List<CsvColumnParser>> CACHE = new ConcurrentHashMap<>();
+
+    // the largest mantissa and scale which allow an exact computation
+    private static final long  MAX_DOUBLE_MANTISSA = 999_999_999_999_999L;
+    private static final long  MAX_FLOAT_MANTISSA  = 9_999_999L;
+
+    private static final double[] DOUBLE_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final float[] FLOAT_POWERS = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Returns the parsers for the supplied columns.
+     *
+     * @param columns
+     *            The column declarations. Elements might be <code>null</code>.
+     * @return The parsers per column. Not <code>null</code>.
+     */
+    @NotNull
+    static List<CsvColumnParser> compile(@NotNull List<CsvColumn> columns) {
+        var key    = new ArrayList<CsvColumn>(columns);
+        var result = CACHE.get(key);
+        if (result == null) {
+            var parsers = new ArrayList<CsvColumnParser>(key.size());
+            for (var column : key) {
+                parsers.add(of(column));
+            }
+            result = Collections.unmodifiableList(parsers);
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            CACHE.put(key, result);
+        }
+        return result;
+    }
+
+    @NotNull
+    private static CsvColumnParser of(CsvColumn<?> column) {
+        if ((column == null) || (column.adapter() == null)) {
+            return new TextParser();
+        }
+        var adapter = column.adapter();
+        if (adapter == CsvColumn.defaultAdapter(column.type())) {
+            var type = column.type();
+            if (type == Integer.class) {
+                return new IntParser(Integer.MIN_VALUE, Integer.MAX_VALUE, Integer::valueOf);
+            } else if (type == Short.class) {
+                return new IntParser(Short.MIN_VALUE, Short.MAX_VALUE, $ -> Short.valueOf((short) $));
+            } else if (type == Byte.class) {
+                return new IntParser(Byte.MIN_VALUE, Byte.MAX_VALUE, $ -> Byte.valueOf((byte) $));
+            } else if (type == Long.class) {
+                return new LongParser();
+            } else if (type == Double.class) {
+                return new DoubleParser(adapter);
+            } else if (type == Float.class) {
+                return new FloatParser(adapter);
+            }
+        }
+        return new AdapterParser(adapter);
+    }
+
+    /**
+     * Converts a textual value.
+     *
+     * @param text
+     *            The textual value.
+     * @return The converted value. Maybe <code>null</code>.
+     * @throws RuntimeException
+     *             The value is invalid.
+     */
+    abstract Object parse(CharSequence text);
+
+    /**
+     * Converts a textual value and appends it to the supplied store without boxing it.
+     *
+     * @param store
+     *            The store receiving the value.
+     * @param text
+     *            The textual value.
+     * @return <code>false</code> <=> The value hasn't been appended as the store or value needs the
+     *         generic processing.
+     * @throws RuntimeException
+     *             The value is invalid.
+     */
+    boolean parseInto(@NotNull CsvColumnStore store, CharSequence text) {
+        return false;
+    }
+
+    /**
+     * Parses an integral value without creating a String.
+     *
+     * @param text
+     *            The textual value.
+     * @param min
+     *            The smallest allowed value.
+     * @param max
+     *            The largest allowed value.
+     * @return The value.
+     * @throws NumberFormatException
+     *             The value is invalid or out of range.
+     */
+    static long parseLong(@NotNull CharSequence text, long min, long max) {
+        var end   = trimEnd(text);
+        var start = trimStart(text, end);
+        if (start == end) {
+            throw new NumberFormatException(text.toString());
+        }
+        var first    = text.charAt(start);
+        var negative = first == '-';
+        if ((negative || (first == '+')) && (++start == end)) {
+            throw new NumberFormatException(text.toString());
+        }
+        // accumulated negatively as the negative range is larger
+        var limit    = negative ? min : -max;
+        var multMin  = limit / 10;
+        var result   = 0L;
+        for (var i = start; i < end; i++) {
+            var digit = text.charAt(i) - '0';
+            if ((digit < 0) || (digit > 9) || (result < multMin)) {
+                throw new NumberFormatException(text.toString());
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException(text.toString());
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a plain decimal value like <code>-12.25</code> if it can be computed exactly.
+     *
+     * @param text
+     *            The textual value.
+     * @param maxMantissa
+     *            The largest mantissa which can be represented exactly.
+     * @param maxScale
+     *            The largest number of fraction digits.
+     * @return The mantissa and the number of fraction digits (upper 8 bits) or -1 if the value is not a
+     *         plain decimal or exceeds the limits. The sign is provided by {@link #isNegative(CharSequence)}.
+     */
+    private static long parseDecimal(@NotNull CharSequence text, long maxMantissa, int maxScale) {
+        var end   = trimEnd(text);
+        var start = trimStart(text, end);
+        if ((start < end) && ((text.charAt(start) == '-') || (text.charAt(start) == '+'))) {
+            start++;
+        }
+        var mantissa = 0L;
+        var scale    = -1;
+        var digits   = 0;
+        for (var i = start; i < end; i++) {
+            var ch = text.charAt(i);
+            if (ch == '.') {
+                if (scale != -1) {
+                    return -1L;
+                }
+                scale = 0;
+                continue;
+            }
+            var digit = ch - '0';
+            if ((digit < 0) || (digit > 9)) {
+                return -1L;
+            }
+            mantissa = mantissa * 10 + digit;
+            digits++;
+            if (scale != -1) {
+                scale++;
+            }
+            if ((mantissa > maxMantissa) || (scale > maxScale)) {
+                return -1L;
+            }
+        }
+        if ((digits == 0) || (scale == 0)) {
+            // variations like '1.' are left to the adapter
+            return -1L;
+        }
+        return ((long) Math.max(0, scale) << 56) | mantissa;
+    }
+
+    private static boolean isNegative(@NotNull CharSequence text) {
+        var end   = trimEnd(text);
+        var start = trimStart(text, end);
+        return (start < end) && (text.charAt(start) == '-');
+    }
+
+    private static int trimEnd(@NotNull CharSequence text) {
+        var result = text.length();
+        while ((result > 0) && (text.charAt(result - 1) <= ' ')) {
+            result--;
+        }
+        return result;
+    }
+
+    private static int trimStart(@NotNull CharSequence text, int end) {
+        var result = 0;
+        while ((result < end) && (text.charAt(result) <= ' ')) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values unchanged as Strings.
+     */
+    static final class TextParser extends CsvColumnParser {
+
+        @Override
+        Object parse(CharSequence text) {
+            return text != null ? text.toString() : null;
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * Delegates to the adapter of a column.
+     */
+    static final class AdapterParser extends CsvColumnParser {
+
+        private Function<String, ?> adapter;
+
+        AdapterParser(@NotNull Function<String, ?> adapter) {
+            this.adapter = adapter;
+        }
+
+        @Override
+        Object parse(CharSequence text) {
+            return adapter.apply(text != null ? text.toString() : null);
+        }
+
+    } /* ENDCLASS */
+
+    static final class IntParser extends CsvColumnParser {
+
+        private int                 min;
+        private int                 max;
+        private IntFunction<Object> boxer;
+
+        IntParser(int min, int max, @NotNull IntFunction<Object> boxer) {
+            this.min   = min;
+            this.max   = max;
+            this.boxer = boxer;
+        }
+
+        @Override
+        Object parse(CharSequence text) {
+            return text != null ? boxer.apply((int) parseLong(text, min, max)) : null;
+        }
+
+        @Override
+        boolean parseInto(@NotNull CsvColumnStore store, CharSequence text) {
+            if ((text != null) && (store instanceof CsvColumnStore.IntStore ints)) {
+                ints.addInt((int) parseLong(text, min, max));
+                return true;
+            }
+            return false;
+        }
+
+    } /* ENDCLASS */
+
+    static final class LongParser extends CsvColumnParser {
+
+        @Override
+        Object parse(CharSequence text) {
+            return text != null ? Long.valueOf(parseLong(text, Long.MIN_VALUE, Long.MAX_VALUE)) : null;
+        }
+
+        @Override
+        boolean parseInto(@NotNull CsvColumnStore store, CharSequence text) {
+            if ((text != null) && (store instanceof CsvColumnStore.LongStore longs)) {
+                longs.addLong(parseLong(text, Long.MIN_VALUE, Long.MAX_VALUE));
+                return true;
+            }
+            return false;
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * Computes plain decimals exactly and leaves other representations (exponents, special values like
+     * NaN, ...) to the adapter.
+     */
+    static final class DoubleParser extends CsvColumnParser {
+
+        private Function<String, ?> adapter;
+
+        DoubleParser(@NotNull Function<String, ?> adapter) {
+            this.adapter = adapter;
+        }
+
+        private double value(@NotNull CharSequence text) {
+            var decimal = parseDecimal(text, MAX_DOUBLE_MANTISSA, DOUBLE_POWERS.length - 1);
+            if (decimal == -1L) {
+                return ((Number) adapter.apply(text.toString())).doubleValue();
+            }
+            // both values are exact, so the division is rounded correctly
+            var result = (decimal & 0x00FFFFFFFFFFFFFFL) / DOUBLE_POWERS[(int) (decimal >>> 56)];
+            return isNegative(text) ? -result : result;
+        }
+
+        @Override
+        Object parse(CharSequence text) {
+            return text != null ? Double.valueOf(value(text)) : null;
+        }
+
+        @Override
+        boolean parseInto(@NotNull CsvColumnStore store, CharSequence text) {
+            if ((text != null) && (store instanceof CsvColumnStore.DoubleStore doubles)) {
+                doubles.addDouble(value(text));
+                return true;
+            }
+            return false;
+        }
+
+    } /* ENDCLASS */
+
+    static final class FloatParser extends CsvColumnParser {
+
+        private Function<String, ?> adapter;
+
+        FloatParser(@NotNull Function<String, ?> adapter) {
+            this.adapter = adapter;
+        }
+
+        private float value(@NotNull CharSequence text) {
+            var decimal = parseDecimal(text, MAX_FLOAT_MANTISSA, FLOAT_POWERS.length - 1);
+            if (decimal == -1L) {
+                return ((Number) adapter.apply(text.toString())).floatValue();
+            }
+            var result = (decimal & 0x00FFFFFFFFFFFFFFL) / FLOAT_POWERS[(int) (decimal >>> 56)];
+            return isNegative(text) ? -result : result;
+        }
+
+        @Override
+        Object parse(CharSequence text) {
+            return text != null ? Float.valueOf(value(text)) : null;
+        }
+
+        @Override
+        boolean parseInto(@NotNull CsvColumnStore store, CharSequence text) {
+            if ((text != null) && (store instanceof CsvColumnStore.DoubleStore doubles)) {
+                doubles.addDouble(value(text));
+                return true;
+            }
+            return false;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
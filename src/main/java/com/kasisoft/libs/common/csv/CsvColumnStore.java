@@ -0,0 +1,872 @@
+package com.kasisoft.libs.common.csv;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+/**
+ * The storage of a single column of a {@link CsvTableModel}. Numerical values are kept within primitive
+ * arrays and strings are dictionary encoded, so the cells don't cost an object each.
+ *
+ * The rows are kept in chunks of a fixed size. A published version of the model gets an immutable
+ * {@link #view()} which shares the chunks with the store. The store only copies a chunk before it changes
+ * rows which are visible to a view, so appending rows doesn't copy anything and changing a row only
+ * copies the chunk containing it. Views never see appended rows as they are bound by their own size.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+abstract class CsvColumnStore {
+
+    private static final int MIN_CAPACITY = 16;
+
+    static final int         CHUNK_SHIFT  = 12;
+    static final int         CHUNK_SIZE   = 1 << CHUNK_SHIFT;
+    static final int         CHUNK_MASK   = CHUNK_SIZE - 1;
+
+    // the number of longs for the null flags of a chunk
+    private static final int MASK_LENGTH  = CHUNK_SIZE >>> 6;
+
+    protected int            size;
+
+    // the chunks of the rows. entries beyond the last used chunk are null
+    protected Object[]       chunks;
+
+    // the null flags of the rows per chunk (primitive stores only)
+    protected long[][]       nulls;
+
+    // a frozen store is the view of a published version and never changes
+    private   boolean        frozen;
+
+    // the rows below this limit are visible to views, so their chunks are copied before they are changed
+    private   int            shared;
+
+    // the chunks which have been copied since the last view
+    private   BitSet         owned;
+
+    // false <=> the chunk array is shared with a view
+    private   boolean        directoryOwned;
+
+    // the current view as long as this store hasn't been changed
+    private   CsvColumnStore lastView;
+
+    CsvColumnStore(boolean withNulls) {
+        size           = 0;
+        chunks         = new Object[0];
+        nulls          = withNulls ? new long[0][] : null;
+        frozen         = false;
+        shared         = 0;
+        owned          = new BitSet();
+        directoryOwned = true;
+        lastView       = null;
+    }
+
+    /**
+     * Creates a store suitable for the type of the supplied column.
+     *
+     * @param column
+     *            The column declaration.
+     * @return A store for the values of this column.
+     */
+    @NotNull
+    static CsvColumnStore of(CsvColumn<?> column) {
+        var type = column != null ? column.type() : null;
+        if (type == Integer.class) {
+            return new IntStore(Integer.class, Integer::valueOf);
+        } else if (type == Short.class) {
+            return new IntStore(Short.class, $ -> Short.valueOf((short) $));
+        } else if (type == Byte.class) {
+            return new IntStore(Byte.class, $ -> Byte.valueOf((byte) $));
+        } else if (type == Long.class) {
+            return new LongStore();
+        } else if (type == Double.class) {
+            return new DoubleStore(Double.class, Double::valueOf);
+        } else if (type == Float.class) {
+            return new DoubleStore(Float.class, $ -> Float.valueOf((float) $));
+        } else if (type == String.class) {
+            return new StringStore();
+        }
+        return new ObjectStore();
+    }
+
+    static int grow(int capacity, int required) {
+        return Math.max(MIN_CAPACITY, Math.max(required, capacity + (capacity >> 1)));
+    }
+
+    /**
+     * Returns the number of chunks needed for the supplied number of rows.
+     *
+     * @param rows
+     *            The number of rows.
+     * @return The number of chunks.
+     */
+    static int chunkCount(int rows) {
+        return (rows + CHUNK_MASK) >>> CHUNK_SHIFT;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Creates an empty store of the same kind.
+     *
+     * @return An empty store of the same kind.
+     */
+    @NotNull
+    protected abstract CsvColumnStore newInstance();
+
+    /**
+     * Creates a chunk for {@link #CHUNK_SIZE} rows.
+     *
+     * @return A new chunk.
+     */
+    @NotNull
+    protected abstract Object newChunk();
+
+    /**
+     * Creates a copy of a chunk.
+     *
+     * @param chunk
+     *            The chunk which shall be copied.
+     * @return A copy of the chunk.
+     */
+    @NotNull
+    protected abstract Object copyChunk(@NotNull Object chunk);
+
+    /**
+     * Passes the state of a subclass to a view or a fork.
+     *
+     * @param target
+     *            The store receiving the state.
+     * @param fork
+     *            <code>true</code> <=> The target is a fork which will be changed.
+     */
+    protected void share(@NotNull CsvColumnStore target, boolean fork) {
+    }
+
+    /**
+     * Returns an immutable view on the current content. The view shares the chunks with this store which
+     * copies them before it changes rows being visible to the view.
+     *
+     * @return An immutable view on the current content.
+     */
+    @NotNull
+    CsvColumnStore view() {
+        if (frozen) {
+            return this;
+        }
+        if (lastView == null) {
+            var result      = newInstance();
+            result.frozen   = true;
+            result.size     = size;
+            result.chunks   = chunks;
+            result.nulls    = nulls;
+            share(result, false);
+            lastView        = result;
+            shared          = size;
+            directoryOwned  = false;
+            owned.clear();
+        }
+        return lastView;
+    }
+
+    /**
+     * Creates a store that can be changed from this view. Unlike the store which created this view a
+     * fork doesn't append rows in place, so it copies the chunk receiving the next rows.
+     *
+     * @return A store with the content of this view.
+     */
+    @NotNull
+    CsvColumnStore fork() {
+        var result    = newInstance();
+        var count     = chunkCount(size);
+        result.size   = size;
+        result.shared = size;
+        // the original store might have added chunks beyond this view
+        result.chunks = Arrays.copyOf(Arrays.copyOf(chunks, count), Math.max(count, MIN_CAPACITY));
+        result.nulls  = nulls != null ? Arrays.copyOf(Arrays.copyOf(nulls, count), result.chunks.length) : null;
+        if ((size & CHUNK_MASK) != 0) {
+            var last = count - 1;
+            result.chunks[last] = copyChunk(chunks[last]);
+            if (nulls != null) {
+                result.nulls[last] = nulls[last].clone();
+            }
+            result.owned.set(last);
+        }
+        share(result, true);
+        return result;
+    }
+
+    /**
+     * Returns the chunk receiving the value of a row, so it can be changed in place. Chunks are copied
+     * if the row is visible to a view.
+     *
+     * @param row
+     *            The row which shall be changed or appended.
+     * @return The chunk containing the row.
+     */
+    @NotNull
+    protected final Object writable(int row) {
+        lastView  = null;
+        var index = row >>> CHUNK_SHIFT;
+        if (index >= chunks.length) {
+            ensureCapacity(row + 1);
+        }
+        var chunk = chunks[index];
+        if ((chunk != null) && ((row >= shared) || owned.get(index))) {
+            return chunk;
+        }
+        if (index < chunkCount(shared)) {
+            // views are looking at this entry
+            ownDirectory();
+        }
+        chunks[index] = chunk != null ? copyChunk(chunk) : newChunk();
+        if (nulls != null) {
+            nulls[index] = chunk != null ? nulls[index].clone() : new long[MASK_LENGTH];
+        }
+        owned.set(index);
+        return chunks[index];
+    }
+
+    private void ownDirectory() {
+        if (!directoryOwned) {
+            chunks         = chunks.clone();
+            nulls          = nulls != null ? nulls.clone() : null;
+            directoryOwned = true;
+        }
+    }
+
+    /**
+     * Prepares all chunks starting with the supplied row for changes.
+     *
+     * @param row
+     *            The first row which will be changed.
+     */
+    private void ownFrom(int row) {
+        for (var i = row; i < size; i = (i | CHUNK_MASK) + 1) {
+            writable(i);
+        }
+    }
+
+    void ensureCapacity(int capacity) {
+        var count = chunkCount(capacity);
+        if (count > chunks.length) {
+            chunks         = Arrays.copyOf(chunks, grow(chunks.length, count));
+            nulls          = nulls != null ? Arrays.copyOf(nulls, chunks.length) : null;
+            directoryOwned = true;
+        }
+    }
+
+    boolean isNull(int row) {
+        return (nulls != null) && ((nulls[row >>> CHUNK_SHIFT][(row & CHUNK_MASK) >>> 6] & (1L << row)) != 0);
+    }
+
+    /**
+     * Changes the null flag of a row. The chunk of the row must have been made {@link #writable(int)}.
+     *
+     * @param row
+     *            The row index.
+     * @param isNull
+     *            <code>true</code> <=> The row has a null value.
+     */
+    protected void setNull(int row, boolean isNull) {
+        if (nulls != null) {
+            var mask = nulls[row >>> CHUNK_SHIFT];
+            var word = (row & CHUNK_MASK) >>> 6;
+            if (isNull) {
+                mask[word] |= 1L << row;
+            } else {
+                mask[word] &= ~(1L << row);
+            }
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the supplied value can be stored without loss.
+     *
+     * @param value
+     *            The value which shall be stored.
+     * @return <code>true</code> <=> The value can be stored.
+     */
+    abstract boolean accepts(Object value);
+
+    abstract Object get(int row);
+
+    /**
+     * Writes the value of a row as the next field.
+     *
+     * @param writer
+     *            The writer receiving the value.
+     * @param row
+     *            The row index.
+     */
+    void write(@NotNull CsvWriter writer, int row) {
+        writer.writeValue(get(row));
+    }
+
+    /**
+     * Changes the value of a row. The value must be accepted by this store.
+     *
+     * @param row
+     *            The row index.
+     * @param value
+     *            The new value.
+     */
+    abstract void set(int row, Object value);
+
+    /**
+     * Appends a value. The value must be accepted by this store.
+     *
+     * @param value
+     *            The new value.
+     */
+    void add(Object value) {
+        set(size, value);
+        size++;
+    }
+
+    /**
+     * Moves the value of a row to a preceding row. Both chunks must be writable.
+     *
+     * @param from
+     *            The row providing the value.
+     * @param to
+     *            The row receiving the value.
+     */
+    protected abstract void move(int from, int to);
+
+    /**
+     * Releases the references of rows which have been removed. The chunks must be writable.
+     *
+     * @param from
+     *            The first removed row.
+     * @param to
+     *            The end of the removed rows (exclusive).
+     */
+    protected void release(int from, int to) {
+    }
+
+    void remove(int row) {
+        var removed = new BitSet();
+        removed.set(row);
+        removeAll(removed);
+    }
+
+    /**
+     * Removes the supplied rows preserving the order of the remaining ones.
+     *
+     * @param rows
+     *            The rows which shall be removed.
+     */
+    void removeAll(@NotNull BitSet rows) {
+        var to = rows.nextSetBit(0);
+        if ((to == -1) || (to >= size)) {
+            return;
+        }
+        ownFrom(to);
+        for (var from = to + 1; from < size; from++) {
+            if (!rows.get(from)) {
+                move(from, to++);
+            }
+        }
+        release(to, size);
+        truncate(to);
+    }
+
+    private void truncate(int newSize) {
+        var count = chunkCount(newSize);
+        if (count < chunkCount(size)) {
+            // chunks beyond the content must not be reused as they might be visible to views
+            ownDirectory();
+            Arrays.fill(chunks, count, chunks.length, null);
+            if (nulls != null) {
+                Arrays.fill(nulls, count, nulls.length, null);
+            }
+        }
+        size = newSize;
+    }
+
+    /**
+     * Converts this store into a generic one.
+     *
+     * @return A store keeping the values as objects.
+     */
+    @NotNull
+    CsvColumnStore toObjectStore() {
+        var result = new ObjectStore();
+        result.ensureCapacity(size);
+        for (var i = 0; i < size; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    /**
+     * A store for numerical values providing primitive aggregations.
+     */
+    abstract static class NumericStore extends CsvColumnStore {
+
+        protected Class<?> type;
+
+        NumericStore(@NotNull Class<?> type) {
+            super(true);
+            this.type = type;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return (value == null) || type.isInstance(value);
+        }
+
+        abstract double doubleAt(int row);
+
+        @NotNull
+        DoubleSummaryStatistics statistics(int first) {
+            var result = new DoubleSummaryStatistics();
+            for (var i = first; i < size; i++) {
+                if (!isNull(i)) {
+                    result.accept(doubleAt(i));
+                }
+            }
+            return result;
+        }
+
+        @NotNull
+        int[] histogram(int first, double lower, double upper, int bins) {
+            var result = new int[bins];
+            var width  = (upper - lower) / bins;
+            for (var i = first; i < size; i++) {
+                if (isNull(i)) {
+                    continue;
+                }
+                var value = doubleAt(i);
+                if ((value >= lower) && (value <= upper)) {
+                    result[Math.min(bins - 1, (int) ((value - lower) / width))]++;
+                }
+            }
+            return result;
+        }
+
+    } /* ENDCLASS */
+
+    static final class IntStore extends NumericStore {
+
+        private IntFunction<Object> boxer;
+
+        IntStore(@NotNull Class<?> type, @NotNull IntFunction<Object> boxer) {
+            super(type);
+            this.boxer = boxer;
+        }
+
+        private int intAt(int row) {
+            return ((int[]) chunks[row >>> CHUNK_SHIFT])[row & CHUNK_MASK];
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : boxer.apply(intAt(row));
+        }
+
+        @Override
+        double doubleAt(int row) {
+            return intAt(row);
+        }
+
+        @Override
+        void write(@NotNull CsvWriter writer, int row) {
+            if (isNull(row)) {
+                writer.writeNull();
+            } else {
+                writer.writeField(intAt(row));
+            }
+        }
+
+        void addInt(int value) {
+            var chunk = (int[]) writable(size);
+            setNull(size, false);
+            chunk[size++ & CHUNK_MASK] = value;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            var chunk = (int[]) writable(row);
+            setNull(row, value == null);
+            chunk[row & CHUNK_MASK] = value != null ? ((Number) value).intValue() : 0;
+        }
+
+        @Override
+        @NotNull
+        protected CsvColumnStore newInstance() {
+            return new IntStore(type, boxer);
+        }
+
+        @Override
+        @NotNull
+        protected Object newChunk() {
+            return new int[CHUNK_SIZE];
+        }
+
+        @Override
+        @NotNull
+        protected Object copyChunk(@NotNull Object chunk) {
+            return ((int[]) chunk).clone();
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            ((int[]) chunks[to >>> CHUNK_SHIFT])[to & CHUNK_MASK] = intAt(from);
+            setNull(to, isNull(from));
+        }
+
+    } /* ENDCLASS */
+
+    static final class LongStore extends NumericStore {
+
+        LongStore() {
+            super(Long.class);
+        }
+
+        private long longAt(int row) {
+            return ((long[]) chunks[row >>> CHUNK_SHIFT])[row & CHUNK_MASK];
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : Long.valueOf(longAt(row));
+        }
+
+        @Override
+        double doubleAt(int row) {
+            return longAt(row);
+        }
+
+        @Override
+        void write(@NotNull CsvWriter writer, int row) {
+            if (isNull(row)) {
+                writer.writeNull();
+            } else {
+                writer.writeField(longAt(row));
+            }
+        }
+
+        void addLong(long value) {
+            var chunk = (long[]) writable(size);
+            setNull(size, false);
+            chunk[size++ & CHUNK_MASK] = value;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            var chunk = (long[]) writable(row);
+            setNull(row, value == null);
+            chunk[row & CHUNK_MASK] = value != null ? ((Long) value).longValue() : 0L;
+        }
+
+        @Override
+        @NotNull
+        protected CsvColumnStore newInstance() {
+            return new LongStore();
+        }
+
+        @Override
+        @NotNull
+        protected Object newChunk() {
+            return new long[CHUNK_SIZE];
+        }
+
+        @Override
+        @NotNull
+        protected Object copyChunk(@NotNull Object chunk) {
+            return ((long[]) chunk).clone();
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            ((long[]) chunks[to >>> CHUNK_SHIFT])[to & CHUNK_MASK] = longAt(from);
+            setNull(to, isNull(from));
+        }
+
+    } /* ENDCLASS */
+
+    static final class DoubleStore extends NumericStore {
+
+        private DoubleFunction<Object> boxer;
+
+        DoubleStore(@NotNull Class<?> type, @NotNull DoubleFunction<Object> boxer) {
+            super(type);
+            this.boxer = boxer;
+        }
+
+        @Override
+        Object get(int row) {
+            return isNull(row) ? null : boxer.apply(doubleAt(row));
+        }
+
+        @Override
+        double doubleAt(int row) {
+            return ((double[]) chunks[row >>> CHUNK_SHIFT])[row & CHUNK_MASK];
+        }
+
+        @Override
+        void write(@NotNull CsvWriter writer, int row) {
+            if (isNull(row)) {
+                writer.writeNull();
+            } else if (type == Float.class) {
+                writer.writeField((float) doubleAt(row));
+            } else {
+                writer.writeField(doubleAt(row));
+            }
+        }
+
+        void addDouble(double value) {
+            var chunk = (double[]) writable(size);
+            setNull(size, false);
+            chunk[size++ & CHUNK_MASK] = value;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            var chunk = (double[]) writable(row);
+            setNull(row, value == null);
+            chunk[row & CHUNK_MASK] = value != null ? ((Number) value).doubleValue() : 0.0;
+        }
+
+        @Override
+        @NotNull
+        protected CsvColumnStore newInstance() {
+            return new DoubleStore(type, boxer);
+        }
+
+        @Override
+        @NotNull
+        protected Object newChunk() {
+            return new double[CHUNK_SIZE];
+        }
+
+        @Override
+        @NotNull
+        protected Object copyChunk(@NotNull Object chunk) {
+            return ((double[]) chunk).clone();
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            ((double[]) chunks[to >>> CHUNK_SHIFT])[to & CHUNK_MASK] = doubleAt(from);
+            setNull(to, isNull(from));
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * Keeps an index per row referring to a dictionary of distinct strings. The dictionary only grows, so
+     * it's chunks are shared like the chunks of the rows. The lookup of the codes is only needed to
+     * change the store, so views don't get it.
+     */
+    static final class StringStore extends CsvColumnStore {
+
+        private Object[]             words;
+        private int                  wordCount;
+        private Map<String, Integer> lookup;
+
+        StringStore() {
+            super(false);
+            words     = new Object[0];
+            wordCount = 0;
+            lookup    = new HashMap<>();
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return (value == null) || (value instanceof String);
+        }
+
+        private int codeAt(int row) {
+            return ((int[]) chunks[row >>> CHUNK_SHIFT])[row & CHUNK_MASK];
+        }
+
+        private String word(int code) {
+            return ((String[]) words[code >>> CHUNK_SHIFT])[code & CHUNK_MASK];
+        }
+
+        @Override
+        Object get(int row) {
+            var code = codeAt(row);
+            return code == -1 ? null : word(code);
+        }
+
+        /**
+         * Returns the number of occurrences per distinct value.
+         *
+         * @param first
+         *            The first row to consider.
+         * @return The number of occurrences per distinct value. Doesn't include <code>null</code>.
+         */
+        @NotNull
+        Map<Object, Integer> frequencies(int first) {
+            var counts = new int[wordCount];
+            for (var i = first; i < size; i++) {
+                var code = codeAt(i);
+                if (code != -1) {
+                    counts[code]++;
+                }
+            }
+            var result = new HashMap<Object, Integer>();
+            for (var i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    result.put(word(i), counts[i]);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        void write(@NotNull CsvWriter writer, int row) {
+            var code = codeAt(row);
+            if (code == -1) {
+                writer.writeNull();
+            } else {
+                writer.writeField(word(code));
+            }
+        }
+
+        @Override
+        void set(int row, Object value) {
+            var chunk = (int[]) writable(row);
+            chunk[row & CHUNK_MASK] = value != null ? encode((String) value) : -1;
+        }
+
+        private int encode(@NotNull String value) {
+            if (lookup == null) {
+                // a fork builds it's lookup when it's needed for the first time
+                lookup = new HashMap<>(Math.max(16, wordCount * 4 / 3 + 1));
+                for (var i = 0; i < wordCount; i++) {
+                    lookup.put(word(i), i);
+                }
+            }
+            var result = lookup.get(value);
+            if (result == null) {
+                result = wordCount;
+                var index = result >>> CHUNK_SHIFT;
+                if (index == words.length) {
+                    words = Arrays.copyOf(words, grow(words.length, index + 1));
+                }
+                if (words[index] == null) {
+                    words[index] = new String[CHUNK_SIZE];
+                }
+                // views only know the words which have been added before them
+                ((String[]) words[index])[result & CHUNK_MASK] = value;
+                wordCount++;
+                lookup.put(value, result);
+            }
+            return result;
+        }
+
+        @Override
+        protected void share(@NotNull CsvColumnStore target, boolean fork) {
+            var strings = (StringStore) target;
+            if (fork) {
+                // the original store keeps adding words to the last chunk
+                var count         = chunkCount(wordCount);
+                strings.words     = Arrays.copyOf(words, Math.max(count, 1));
+                if ((wordCount & CHUNK_MASK) != 0) {
+                    strings.words[count - 1] = ((String[]) words[count - 1]).clone();
+                }
+                strings.lookup    = null;
+            } else {
+                strings.words     = words;
+                strings.lookup    = null;
+            }
+            strings.wordCount = wordCount;
+        }
+
+        @Override
+        @NotNull
+        protected CsvColumnStore newInstance() {
+            return new StringStore();
+        }
+
+        @Override
+        @NotNull
+        protected Object newChunk() {
+            return new int[CHUNK_SIZE];
+        }
+
+        @Override
+        @NotNull
+        protected Object copyChunk(@NotNull Object chunk) {
+            return ((int[]) chunk).clone();
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            ((int[]) chunks[to >>> CHUNK_SHIFT])[to & CHUNK_MASK] = codeAt(from);
+        }
+
+    } /* ENDCLASS */
+
+    static final class ObjectStore extends CsvColumnStore {
+
+        ObjectStore() {
+            super(false);
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        Object get(int row) {
+            return ((Object[]) chunks[row >>> CHUNK_SHIFT])[row & CHUNK_MASK];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            ((Object[]) writable(row))[row & CHUNK_MASK] = value;
+        }
+
+        @Override
+        @NotNull
+        protected CsvColumnStore newInstance() {
+            return new ObjectStore();
+        }
+
+        @Override
+        @NotNull
+        protected Object newChunk() {
+            return new Object[CHUNK_SIZE];
+        }
+
+        @Override
+        @NotNull
+        protected Object copyChunk(@NotNull Object chunk) {
+            return ((Object[]) chunk).clone();
+        }
+
+        @Override
+        protected void move(int from, int to) {
+            ((Object[]) chunks[to >>> CHUNK_SHIFT])[to & CHUNK_MASK] = get(from);
+        }
+
+        @Override
+        protected void release(int from, int to) {
+            for (var i = from; i < to; i++) {
+                ((Object[]) chunks[i >>> CHUNK_SHIFT])[i & CHUNK_MASK] = null;
+            }
+        }
+
+        @Override
+        @NotNull
+        CsvColumnStore toObjectStore() {
+            return this;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
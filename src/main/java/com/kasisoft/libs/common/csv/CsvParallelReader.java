@@ -0,0 +1,314 @@
+package com.kasisoft.libs.common.csv;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.file.*;
+
+import java.nio.*;
+
+import java.io.*;
+
+/**
+ * Loads a csv file using multiple threads. The file is split into chunks at record boundaries which are
+ * parsed concurrently by {@link CsvReader} instances on a {@link ForkJoinPool}. The boundaries are
+ * located by a sequential scan of the memory mapped file which respects quoted fields, so these may
+ * contain line breaks. The scan is much cheaper than the parsing, so it doesn't limit the throughput.
+ *
+ * The records can be delivered in order (the consumer is invoked by the calling thread) or unordered
+ * (the consumer is invoked concurrently by the workers, so it must be thread safe).
+ *
+ * The file is loaded sequentially if the encoding doesn't represent the structural characters as
+ * single bytes (f.e. UTF-16) or if the number of lines is limited. The same restrictions as for
+ * {@link CsvReader} apply. The record numbers within the error messages are relative to the chunks.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvParallelReader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    private static final int MIN_CHUNK_SIZE     = 1024;
+
+    // the size of the regions mapped while scanning for the chunk boundaries
+    private static final int SCAN_WINDOW        = 64 * 1024 * 1024;
+
+    private CsvOptions        options;
+    private CsvOptions        chunkOptions;
+    private Path              source;
+    private ForkJoinPool      pool;
+    private int               chunkSize;
+    private boolean           ordered;
+    private List<String>      titles;
+    private int               expectedColumns;
+    private List<Chunk>       chunks;
+    private Consumer<String>  ehInconsistentColumnCount;
+    private Consumer<String>  ehInvalidCellValue;
+
+    /**
+     * Initializes this reader.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param source
+     *            The file providing the csv data.
+     */
+    public CsvParallelReader(@NotNull CsvOptions options, @NotNull Path source) {
+        this.options                   = options;
+        this.chunkOptions              = CsvReader.fragmentOptions(options);
+        this.source                    = source;
+        this.pool                      = ForkJoinPool.commonPool();
+        this.chunkSize                 = DEFAULT_CHUNK_SIZE;
+        this.ordered                   = true;
+        this.titles                    = null;
+        this.expectedColumns           = -1;
+        this.chunks                    = null;
+        this.ehInconsistentColumnCount = null;
+        this.ehInvalidCellValue        = null;
+    }
+
+    /**
+     * Changes the pool used to parse the chunks.
+     *
+     * @param pool
+     *            The new pool. <code>null</code> selects the common pool.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Changes the minimum size of a chunk.
+     *
+     * @param chunkSize
+     *            The minimum number of bytes per chunk.
+     */
+    public void setChunkSize(@Min(MIN_CHUNK_SIZE) int chunkSize) {
+        this.chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize);
+        this.chunks    = null;
+    }
+
+    /**
+     * Enables/disables the delivery of the records in the order of the file.
+     *
+     * @param ordered
+     *            <code>true</code> <=> The records are delivered in order by the calling thread.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    /**
+     * Changes the error handler for records with an unexpected number of columns. The handler might be
+     * invoked concurrently.
+     *
+     * @param handler
+     *            The new error handler.
+     * @see CsvReader#setErrorHandlerForInconsistentColumnCount(Consumer)
+     */
+    public void setErrorHandlerForInconsistentColumnCount(Consumer<String> handler) {
+        ehInconsistentColumnCount = handler;
+    }
+
+    /**
+     * Changes the error handler for cell values that cannot be converted by the column adapters. The
+     * handler might be invoked concurrently.
+     *
+     * @param handler
+     *            The new error handler.
+     * @see CsvReader#setErrorHandlerForInvalidCellValue(Consumer)
+     */
+    public void setErrorHandlerForInvalidCellValue(Consumer<String> handler) {
+        ehInvalidCellValue = handler;
+    }
+
+    /**
+     * Returns the titles provided by the title row.
+     *
+     * @return The titles provided by the title row. Empty if the options don't declare a title row.
+     */
+    @NotNull
+    public List<String> getTitles() {
+        prepare();
+        return titles;
+    }
+
+    /**
+     * Passes all records to the supplied consumer.
+     *
+     * @param consumer
+     *            The consumer receiving the records.
+     */
+    public void read(@NotNull Consumer<String[]> consumer) {
+        process($ -> $.getRecord().toArray(), consumer);
+    }
+
+    /**
+     * Passes all records converted by the adapters of the configured columns to the supplied consumer.
+     * The conversion is performed by the workers.
+     *
+     * @param consumer
+     *            The consumer receiving the converted records.
+     * @see CsvReader#objects()
+     */
+    public void readObjects(@NotNull Consumer<Object[]> consumer) {
+        process($ -> $.toObjects($.getRecord()), consumer);
+    }
+
+    private <R> void process(@NotNull Function<CsvReader, R> mapper, @NotNull Consumer<R> consumer) {
+        prepare();
+        if (chunks.isEmpty()) {
+            processSequential(mapper, consumer);
+        } else if (ordered) {
+            processOrdered(mapper, consumer);
+        } else {
+            var tasks = chunks.stream().map($ -> ForkJoinTask.adapt(() -> parse($, mapper, consumer))).toList();
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+    }
+
+    private <R> void processSequential(@NotNull Function<CsvReader, R> mapper, @NotNull Consumer<R> consumer) {
+        try (var reader = newReader(options, openChannel())) {
+            while (reader.next()) {
+                consumer.accept(mapper.apply(reader));
+            }
+        }
+    }
+
+    private <R> void processOrdered(@NotNull Function<CsvReader, R> mapper, @NotNull Consumer<R> consumer) {
+        // limit the number of parsed chunks waiting for their delivery
+        var window  = Math.max(2, pool.getParallelism() * 2);
+        var pending = new ArrayDeque<ForkJoinTask<List<R>>>(window);
+        var next    = 0;
+        try {
+            while ((next < chunks.size()) || (!pending.isEmpty())) {
+                while ((next < chunks.size()) && (pending.size() < window)) {
+                    var chunk = chunks.get(next++);
+                    pending.add(pool.submit(() -> {
+                        var result = new ArrayList<R>();
+                        parse(chunk, mapper, result::add);
+                        return result;
+                    }));
+                }
+                pending.poll().join().forEach(consumer);
+            }
+        } finally {
+            pending.forEach($ -> $.cancel(false));
+        }
+    }
+
+    private <R> void parse(@NotNull Chunk chunk, @NotNull Function<CsvReader, R> mapper, @NotNull Consumer<R> consumer) {
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            var data   = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+            var reader = newReader(chunkOptions, new ByteBufferChannel(data));
+            reader.setExpectedColumns(expectedColumns);
+            while (reader.next()) {
+                consumer.accept(mapper.apply(reader));
+            }
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    @NotNull
+    private CsvReader newReader(@NotNull CsvOptions csvOptions, @NotNull ReadableByteChannel channel) {
+        var result = new CsvReader(csvOptions, channel);
+        result.setErrorHandlerForInconsistentColumnCount(ehInconsistentColumnCount);
+        result.setErrorHandlerForInvalidCellValue(ehInvalidCellValue);
+        return result;
+    }
+
+    @NotNull
+    private FileChannel openChannel() {
+        try {
+            return FileChannel.open(source, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    /**
+     * Determines the titles and the chunks. An empty list of chunks means that the file must be loaded
+     * sequentially.
+     */
+    private synchronized void prepare() {
+        if (chunks != null) {
+            return;
+        }
+        titles          = Collections.emptyList();
+        expectedColumns = options.columns().isEmpty() ? -1 : options.columns().size();
+        try (var channel = openChannel()) {
+            if (options.titleRow() && (!isSplittable())) {
+                titles = newReader(options, channel).getTitles();
+            }
+            chunks = isSplittable() ? split(channel) : Collections.emptyList();
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    private boolean isSplittable() {
+        return (options.maxLines() == -1) && CsvBoundaryScanner.isSupported(options);
+    }
+
+    @NotNull
+    private List<Chunk> split(@NotNull FileChannel channel) throws IOException {
+        var size     = channel.size();
+        var scanner  = new CsvBoundaryScanner(options);
+        var ends     = new ArrayList<Long>();
+        var target   = 0L;
+        for (var base = 0L; base < size; base += SCAN_WINDOW) {
+            var data = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(SCAN_WINDOW, size - base));
+            while (data.hasRemaining()) {
+                var from = (int) Math.min(Math.max(0L, target - base), Integer.MAX_VALUE);
+                var end  = scanner.scan(data, from, ends.isEmpty());
+                if (end != -1) {
+                    ends.add(base + end);
+                    target = base + end + chunkSize;
+                }
+            }
+        }
+        if (ends.isEmpty() || (!analyzeHead(channel, ends.get(0)))) {
+            // there's at most one record or the head is blank for the parser
+            return Collections.emptyList();
+        }
+        var result = new ArrayList<Chunk>();
+        var start  = options.titleRow() ? ends.get(0) : 0L;
+        for (var i = 1; i < ends.size(); i++) {
+            result.add(new Chunk(start, ends.get(i)));
+            start = ends.get(i);
+        }
+        if (start < size) {
+            result.add(new Chunk(start, size));
+        }
+        return result;
+    }
+
+    private boolean analyzeHead(@NotNull FileChannel channel, long end) throws IOException {
+        var data   = channel.map(FileChannel.MapMode.READ_ONLY, 0L, end);
+        var reader = new CsvReader(chunkOptions, new ByteBufferChannel(data));
+        if (!reader.nextRaw()) {
+            return false;
+        }
+        var head = reader.current().toArray();
+        if (options.titleRow()) {
+            titles = Collections.unmodifiableList(Arrays.asList(head));
+        }
+        if (expectedColumns == -1) {
+            expectedColumns = head.length;
+        }
+        return true;
+    }
+
+    private record Chunk(long start, long end) {
+    } /* ENDRECORD */
+
+} /* ENDCLASS */
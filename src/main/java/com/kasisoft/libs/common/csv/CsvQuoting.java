@@ -0,0 +1,18 @@
+package com.kasisoft.libs.common.csv;
+
+/**
+ * The quoting strategies of a {@link CsvWriter}.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public enum CsvQuoting {
+
+    /**
+     * Fields are only quoted if necessary, f.e. if they contain delimiters, quotes or line breaks.
+     */
+    Minimal,
+
+    /** Each non null field is quoted. */
+    Always;
+
+} /* ENDENUM */
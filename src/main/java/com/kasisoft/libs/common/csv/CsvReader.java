@@ -0,0 +1,615 @@
+package com.kasisoft.libs.common.csv;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * A pull based reader for csv data. Unlike {@link CsvTableModel} the data is never materialized as a
+ * whole, so the memory consumption is bound by the size of the buffer and the largest record. The
+ * {@link CsvOptions} are supported with the following restrictions:
+ *
+ * <ul>
+ * <li>fillMissingColumns: Records are filled up to the number of configured columns. If no columns are
+ * configured the title row or the first record determines the number of columns.</li>
+ * <li>simpleFormat: Not needed as the reader doesn't need to buffer the content.</li>
+ * </ul>
+ *
+ * Empty fields are treated as <code>null</code> values and blank lines are skipped. Fields are trimmed
+ * (even within quotes) and enclosing quotes are removed (doubled quotes within quoted fields are
+ * unescaped). A line which only consists of a quoted empty field is a record with a single
+ * <code>null</code> field.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvReader implements Iterable<String[]>, AutoCloseable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final char CR = '\r';
+    private static final char DQ = '\"';
+    private static final char LF = '\n';
+    private static final char SQ = '\'';
+
+    // the states of the tokenizer
+    private static final int  START         = 0;
+    private static final int  UNQUOTED      = 1;
+    private static final int  QUOTED        = 2;
+    private static final int  QUOTED_QUOTE  = 3;
+    private static final int  AFTER_QUOTED  = 4;
+    private static final int  EMBEDDED      = 5;
+
+    private CsvOptions            options;
+    private Reader                source;
+    private char[]                buffer;
+    private int                   pos;
+    private int                   limit;
+    private boolean               eof;
+    private char[]                record;
+    private int                   length;
+    private int[]                 starts;
+    private int[]                 ends;
+    private int                   fieldCount;
+    private int                   fieldStart;
+    // true <=> the current record contains a quoted field
+    private boolean               quoted;
+    private long                  linesRead;
+    private long                  recordsRead;
+    private int                   expectedColumns;
+    private List<String>          titles;
+    private CsvRecord             current;
+    private List<CsvColumnParser> parsers;
+    private Consumer<String>      ehInconsistentColumnCount;
+    private Consumer<String>      ehInvalidCellValue;
+
+    public CsvReader(@NotNull CsvOptions options, @NotNull Reader source) {
+        this(options, source, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Initializes this reader.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param source
+     *            The source providing the csv data.
+     * @param bufferSize
+     *            The number of characters read at once.
+     */
+    public CsvReader(@NotNull CsvOptions options, @NotNull Reader source, @Min(16) int bufferSize) {
+        this.options                   = options;
+        this.source                    = source;
+        this.buffer                    = new char[Math.max(16, bufferSize)];
+        this.pos                       = 0;
+        this.limit                     = 0;
+        this.eof                       = false;
+        this.record                    = new char[256];
+        this.length                    = 0;
+        this.starts                    = new int[16];
+        this.ends                      = new int[16];
+        this.fieldCount                = 0;
+        this.fieldStart                = 0;
+        this.linesRead                 = 0L;
+        this.recordsRead               = 0L;
+        this.expectedColumns           = options.columns().isEmpty() ? -1 : options.columns().size();
+        this.titles                    = null;
+        this.current                   = new CsvRecord();
+        this.parsers                   = null;
+        this.ehInconsistentColumnCount = this::ehDefault;
+        this.ehInvalidCellValue        = this::ehDefault;
+    }
+
+    /**
+     * Initializes this reader using the encoding of the supplied options.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param source
+     *            The source providing the csv data.
+     */
+    public CsvReader(@NotNull CsvOptions options, @NotNull InputStream source) {
+        this(options, new InputStreamReader(source, Encoding.getEncoding(options.encoding()).getCharset()));
+    }
+
+    /**
+     * Initializes this reader using the encoding of the supplied options.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param source
+     *            The source providing the csv data.
+     */
+    public CsvReader(@NotNull CsvOptions options, @NotNull ReadableByteChannel source) {
+        this(options, Channels.newReader(source, Encoding.getEncoding(options.encoding()).getCharset()));
+    }
+
+    /**
+     * Initializes this reader using the encoding of the supplied options.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param source
+     *            The file providing the csv data.
+     */
+    public CsvReader(@NotNull CsvOptions options, @NotNull Path source) {
+        this(options, openChannel(source));
+    }
+
+    @NotNull
+    private static ReadableByteChannel openChannel(@NotNull Path source) {
+        try {
+            return Files.newByteChannel(source, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    /**
+     * Changes the error handler for records with an unexpected number of columns. Unless the handler
+     * causes an exception such records are skipped.
+     *
+     * @param handler
+     *            The new error handler.
+     */
+    public void setErrorHandlerForInconsistentColumnCount(Consumer<String> handler) {
+        ehInconsistentColumnCount = handler != null ? handler : this::ehDefault;
+    }
+
+    /**
+     * Changes the error handler for cell values that cannot be converted by the column adapters. Unless
+     * the handler causes an exception the default value of the column is used.
+     *
+     * @param handler
+     *            The new error handler.
+     */
+    public void setErrorHandlerForInvalidCellValue(Consumer<String> handler) {
+        ehInvalidCellValue = handler != null ? handler : this::ehDefault;
+    }
+
+    private void ehDefault(String message) {
+        throw new KclException(message);
+    }
+
+    /**
+     * Returns the titles provided by the title row.
+     *
+     * @return The titles provided by the title row. Empty if the options don't declare a title row.
+     */
+    @NotNull
+    public List<String> getTitles() {
+        if (titles == null) {
+            titles = Collections.emptyList();
+            if (options.titleRow() && nextRaw()) {
+                titles = Collections.unmodifiableList(Arrays.asList(current().toArray()));
+                if (expectedColumns == -1) {
+                    expectedColumns = titles.size();
+                }
+            }
+        }
+        return titles;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return <code>true</code> <=> There's a record available through {@link #getRecord()}.
+     */
+    public boolean next() {
+        getTitles();
+        while (nextRaw()) {
+            if (validate()) {
+                current.setup(record, starts, ends, fieldCount, recordsRead++);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the view on the current record. It's content changes whenever the reader advances.
+     *
+     * @return The view on the current record.
+     */
+    @NotNull
+    public CsvRecord getRecord() {
+        return current;
+    }
+
+    /**
+     * Passes all remaining records to the supplied handler. The record view is reused for each call.
+     *
+     * @param handler
+     *            The handler receiving the records.
+     */
+    public void read(@NotNull Consumer<CsvRecord> handler) {
+        while (next()) {
+            handler.accept(current);
+        }
+    }
+
+    @Override
+    @NotNull
+    public Iterator<String[]> iterator() {
+        return new Iterator<>() {
+
+            String[] nextRow = null;
+
+            @Override
+            public boolean hasNext() {
+                if ((nextRow == null) && CsvReader.this.next()) {
+                    nextRow = current.toArray();
+                }
+                return nextRow != null;
+            }
+
+            @Override
+            public String[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var result = nextRow;
+                nextRow = null;
+                return result;
+            }
+
+        };
+    }
+
+    /**
+     * Returns the remaining records as a stream. Closing the stream closes this reader.
+     *
+     * @return The remaining records as a stream.
+     */
+    @NotNull
+    public Stream<String[]> stream() {
+        var spliterator = Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Returns the remaining records converted by the adapters of the configured columns. Missing values
+     * are replaced by the default values of their columns.
+     *
+     * @return The remaining converted records as a stream.
+     */
+    @NotNull
+    public Stream<Object[]> objects() {
+        var iterator    = new Iterator<Object[]>() {
+
+            Object[] nextRow = null;
+
+            @Override
+            public boolean hasNext() {
+                if ((nextRow == null) && CsvReader.this.next()) {
+                    nextRow = toObjects(current);
+                }
+                return nextRow != null;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var result = nextRow;
+                nextRow = null;
+                return result;
+            }
+
+        };
+        var spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    /**
+     * Converts the supplied record using the compiled parsers of the configured columns, so numerical
+     * fields don't need to be converted into Strings first.
+     *
+     * @param row
+     *            The record which shall be converted.
+     * @return The converted values.
+     */
+    @NotNull
+    Object[] toObjects(@NotNull CsvRecord row) {
+        if (parsers == null) {
+            parsers = CsvColumnParser.compile(options.columns());
+        }
+        var columns = options.columns();
+        var result  = new Object[row.size()];
+        for (var i = 0; i < result.length; i++) {
+            var column = i < columns.size() ? columns.get(i) : null;
+            if ((column == null) || (column.adapter() == null)) {
+                result[i] = row.get(i);
+                continue;
+            }
+            Object value = null;
+            if (!row.isNull(i)) {
+                try {
+                    value = parsers.get(i).parse(row.getField(i));
+                } catch (Exception ex) {
+                    ehInvalidCellValue.accept(error_csv_cannot_parse_cell_value.formatted(row.get(i), i));
+                }
+            }
+            result[i] = value != null ? value : column.defval();
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        try {
+            source.close();
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    private boolean validate() {
+        if (expectedColumns == -1) {
+            expectedColumns = fieldCount;
+        }
+        if (options.fillMissingColumns()) {
+            while (fieldCount < expectedColumns) {
+                fieldStart = length;
+                endField();
+            }
+        }
+        if (fieldCount != expectedColumns) {
+            ehInconsistentColumnCount.accept(error_csv_inconsistent_record.formatted(recordsRead, fieldCount, expectedColumns));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns options suitable to parse a fragment of a csv document which neither contains the title
+     * row nor is subject to the line limit.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @return The options for the fragments.
+     */
+    @NotNull
+    static CsvOptions fragmentOptions(@NotNull CsvOptions options) {
+        return new CsvOptions(
+            false,
+            options.delimiter(),
+            options.disableCr(),
+            options.fillMissingColumns(),
+            options.consumeSingleQuotes(),
+            options.consumeDoubleQuotes(),
+            false,
+            true,
+            -1,
+            options.encoding(),
+            options.columns()
+        );
+    }
+
+    /**
+     * Changes the number of columns each record must provide.
+     *
+     * @param columns
+     *            The number of columns each record must provide. -1 lets the first record decide.
+     */
+    void setExpectedColumns(int columns) {
+        expectedColumns = columns;
+    }
+
+    int getExpectedColumns() {
+        return expectedColumns;
+    }
+
+    /**
+     * Returns the raw record which has been read by {@link #nextRaw()}.
+     */
+    @NotNull
+    CsvRecord current() {
+        current.setup(record, starts, ends, fieldCount, linesRead - 1);
+        return current;
+    }
+
+    /**
+     * Reads the next non blank record without any validation.
+     *
+     * @return <code>true</code> <=> A record has been read.
+     */
+    boolean nextRaw() {
+        while ((options.maxLines() == -1) || (linesRead < options.maxLines())) {
+            if (!tokenize()) {
+                return false;
+            }
+            // a quoted empty field isn't a blank line
+            if ((fieldCount > 1) || (starts[0] != ends[0]) || quoted) {
+                linesRead++;
+                return true;
+            }
+            // blank lines are of no interest
+        }
+        return false;
+    }
+
+    private int nextChar() {
+        if (pos == limit) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+        try {
+            var count = 0;
+            while (count == 0) {
+                count = source.read(buffer, 0, buffer.length);
+            }
+            if (count == -1) {
+                eof = true;
+                return false;
+            }
+            pos   = 0;
+            limit = count;
+            return true;
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    private void append(char ch) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[length++] = ch;
+    }
+
+    private void endField() {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, starts.length * 2);
+            ends   = Arrays.copyOf(ends, ends.length * 2);
+        }
+        var start = fieldStart;
+        var end   = length;
+        while ((start < end) && (record[start] <= ' ')) {
+            start++;
+        }
+        while ((end > start) && (record[end - 1] <= ' ')) {
+            end--;
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount]   = end;
+        fieldCount++;
+        fieldStart         = length;
+    }
+
+    private boolean isQuote(int ch) {
+        return ((ch == DQ) && options.consumeDoubleQuotes()) || ((ch == SQ) && options.consumeSingleQuotes());
+    }
+
+    /**
+     * Reads the next record into the record buffer.
+     *
+     * @return <code>false</code> <=> There was no more record.
+     */
+    private boolean tokenize() {
+
+        var delimiter = options.delimiter();
+        var disableCr = options.disableCr();
+        var state     = START;
+        var quote     = (char) 0;
+        var afterCr   = false;
+        var consumed  = false;
+
+        length     = 0;
+        fieldCount = 0;
+        fieldStart = 0;
+        quoted     = false;
+
+        while (true) {
+
+            var ch = nextChar();
+            if (ch == -1) {
+                break;
+            }
+            consumed = true;
+
+            if ((state == QUOTED) || (state == EMBEDDED)) {
+                if (ch == quote) {
+                    if (state == EMBEDDED) {
+                        append(quote);
+                        state = UNQUOTED;
+                    } else {
+                        state = QUOTED_QUOTE;
+                    }
+                } else if (disableCr && (ch == CR)) {
+                    append(LF);
+                    afterCr = true;
+                } else if (disableCr && afterCr && (ch == LF)) {
+                    // CRLF has already been replaced by a LF
+                    afterCr = false;
+                } else {
+                    append((char) ch);
+                    afterCr = false;
+                }
+                continue;
+            }
+
+            if (state == QUOTED_QUOTE) {
+                if (ch == quote) {
+                    // escaped quote
+                    append(quote);
+                    state = QUOTED;
+                    continue;
+                }
+                state = AFTER_QUOTED;
+            }
+
+            if ((ch == LF) || (ch == CR)) {
+                endField();
+                return true;
+            }
+
+            if (ch == delimiter) {
+                endField();
+                state = START;
+                continue;
+            }
+
+            switch (state) {
+            case START:
+                if (isQuote(ch)) {
+                    quote  = (char) ch;
+                    state  = QUOTED;
+                    quoted = true;
+                } else if (ch > ' ') {
+                    append((char) ch);
+                    state = UNQUOTED;
+                }
+                break;
+            case UNQUOTED:
+                append((char) ch);
+                if (isQuote(ch)) {
+                    // a quoted section within unquoted text is taken literally
+                    quote = (char) ch;
+                    state = EMBEDDED;
+                }
+                break;
+            default:
+                // text following a closing quote
+                append((char) ch);
+                break;
+            }
+
+        }
+
+        if ((state == QUOTED) || (state == EMBEDDED)) {
+            throw new KclException(error_csv_missing_closing_quote.formatted(new String(record, fieldStart, length - fieldStart)));
+        }
+        if (!consumed) {
+            return false;
+        }
+        endField();
+        return true;
+
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,159 @@
+package com.kasisoft.libs.common.csv;
+
+import jakarta.validation.constraints.*;
+
+import java.util.*;
+
+/**
+ * A view on the record currently processed by a {@link CsvReader}. The fields are provided as
+ * {@link CharSequence}s which are backed by the internal buffer of the reader, so no Strings are being
+ * created unless requested. A view is only valid until the reader advances to the next record.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public final class CsvRecord {
+
+    private char[]  buffer;
+    private int[]   starts;
+    private int[]   ends;
+    private int     size;
+    private long    number;
+    private Field[] fields;
+
+    CsvRecord() {
+        buffer = new char[0];
+        starts = new int[16];
+        ends   = new int[16];
+        fields = new Field[16];
+        size   = 0;
+        number = -1;
+    }
+
+    void setup(@NotNull char[] data, @NotNull int[] fieldStarts, @NotNull int[] fieldEnds, int count, long recordNumber) {
+        buffer = data;
+        starts = fieldStarts;
+        ends   = fieldEnds;
+        size   = count;
+        number = recordNumber;
+        if (fields.length < count) {
+            fields = Arrays.copyOf(fields, Math.max(count, fields.length * 2));
+        }
+    }
+
+    /**
+     * Returns the index of this record. Skipped blank lines are not counted.
+     *
+     * @return The index of this record (0 based).
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the number of fields within this record.
+     *
+     * @return The number of fields within this record.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <code>true</code> if the desired field is empty or missing.
+     *
+     * @param column
+     *            The index of the field.
+     * @return <code>true</code> <=> The field is empty or missing.
+     */
+    public boolean isNull(@Min(0) int column) {
+        return (column >= size) || (starts[column] == ends[column]);
+    }
+
+    /**
+     * Returns the desired field without creating a String. The returned sequence is only valid until
+     * the reader advances.
+     *
+     * @param column
+     *            The index of the field.
+     * @return The content of the field. Empty if the field is missing.
+     */
+    @NotNull
+    public CharSequence getField(@Min(0) int column) {
+        if (column >= size) {
+            return "";
+        }
+        var result = fields[column];
+        if (result == null) {
+            result         = new Field(column);
+            fields[column] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the desired field.
+     *
+     * @param column
+     *            The index of the field.
+     * @return The content of the field. <code>null</code> if the field is empty or missing.
+     */
+    public String get(@Min(0) int column) {
+        if (isNull(column)) {
+            return null;
+        }
+        return new String(buffer, starts[column], ends[column] - starts[column]);
+    }
+
+    /**
+     * Returns all fields of this record.
+     *
+     * @return All fields of this record. Empty fields are <code>null</code>.
+     */
+    @NotNull
+    public String[] toArray() {
+        var result = new String[size];
+        for (var i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private final class Field implements CharSequence {
+
+        int column;
+
+        Field(int column) {
+            this.column = column;
+        }
+
+        @Override
+        public int length() {
+            return column < size ? ends[column] - starts[column] : 0;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((index < 0) || (index >= length())) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return buffer[starts[column] + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return column < size ? new String(buffer, starts[column], length()) : "";
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
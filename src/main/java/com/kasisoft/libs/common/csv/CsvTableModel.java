@@ -33,22 +33,22 @@ import java.nio.file.*;
 import java.io.*;
 
 /**
- * A TableModel implementation that can be fed by CSV data.
+ * A TableModel implementation that can be fed by CSV data. The data is stored per column: numerical
+ * columns use primitive arrays and string columns are dictionary encoded. Other types are stored as is.
+ * Storing a value which doesn't fit the type of it's column converts the column into a generic one.
+ *
+ * Reading doesn't require any locking: the content is provided by an immutable version which is
+ * replaced as a whole by each change. Changes are serialized and only copy the columns they modify, so
+ * bulk changes (f.e. {@link #load(InputStream)} or {@link #removeRow(Predicate)}) should be preferred
+ * over many changes of single rows or cells.
  *
  * @author daniel.kasmeroglu@kasisoft.com
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class CsvTableModel implements TableModel {
 
-    private static final char    CR             = '\r';
     private static final char    DQ             = '\"';
-    private static final char    LF             = '\n';
     private static final char    SQ             = '\'';
-    private static final String  CR_STR         = "\r";
-    private static final String  DQ_STR         = "\"";
-    private static final String  LF_STR         = "\n";
-    private static final String  SQ_STR         = "\'";
-    private static final String  CRLF_STR       = "\r\n";
     private static final String  DEFVAL_STRING  = "";
     private static final Double  DEFVAL_DOUBLE  = 0.;
     private static final Float   DEFVAL_FLOAT   = 0.f;
@@ -58,13 +58,20 @@ public class CsvTableModel implements TableModel {
     private static final Byte    DEFVAL_BYTE    = 0;
     private static final Boolean DEFVAL_BOOLEAN = false;
 
-    private enum ContentType {
-        LINE_DELIMITER, SEPARATOR, CONTENT;
-    } /* ENDENUM */
+    private CsvOptions            options;
+
+    // the working state of the writers which is published as a new version after each change
+    private List<String>          columnNames;
+    private List<CsvColumnStore>  stores;
+    private List<CsvColumnIndex>  indexes;
+    private int                   rowCount;
 
-    private CsvOptions        options;
-    private DefaultTableModel tableModel;
-    private EventListenerList listeners;
+    // the indexed columns by name (true <=> sorted)
+    private Map<String, Boolean>  indexedColumns;
+
+    private volatile Version      version;
+    private List<CsvColumnParser> parsers;
+    private EventListenerList     listeners;
     private Consumer<String>  ehInvalidCellValue;
     private Consumer<String>  ehColumnSpecWithoutAdapter;
     private Consumer<String>  ehInconsistentColumnCount;
@@ -76,14 +83,45 @@ public class CsvTableModel implements TableModel {
         ehInconsistentColumnCount  = this::ehDefault;
         ehInvalidAddRow            = this::ehDefault;
         listeners                  = new EventListenerList();
-        createNewDefaultTableModel();
+        columnNames                = new ArrayList<>();
+        stores                     = new ArrayList<>();
+        indexes                    = new ArrayList<>();
+        indexedColumns             = new HashMap<>();
+        parsers                    = Collections.emptyList();
+        rowCount                   = 0;
+        version                    = null;
     }
 
     public CsvTableModel(@NotNull CsvOptions csvOptions) {
         this();
         options = validateOptions(csvOptions);
         consolidateColumns(csvOptions.columns().size(), Collections.emptyList(), getTitles(csvOptions.columns().size(), Collections.emptyList()));
-        options.columns().forEach($ -> tableModel.addColumn($.title()));
+        options.columns().forEach(this::addColumn);
+        publish();
+    }
+
+    /**
+     * Returns a detached copy of the current content. No data is copied as long as neither model is
+     * being changed. Listeners are not copied.
+     *
+     * @return A detached copy of the current content.
+     */
+    @NotNull
+    public synchronized CsvTableModel snapshot() {
+        var current                       = version;
+        var result                        = new CsvTableModel();
+        result.options                    = options.deepCopy();
+        result.ehInvalidCellValue         = ehInvalidCellValue;
+        result.ehColumnSpecWithoutAdapter = ehColumnSpecWithoutAdapter;
+        result.ehInconsistentColumnCount  = ehInconsistentColumnCount;
+        result.ehInvalidAddRow            = ehInvalidAddRow;
+        result.columnNames.addAll(current.columnNames());
+        result.stores.addAll(current.stores());
+        result.indexes.addAll(current.indexes());
+        result.indexedColumns.putAll(indexedColumns);
+        result.rowCount                   = current.rowCount();
+        result.version                    = current;
+        return result;
     }
 
     @NotNull
@@ -91,121 +129,487 @@ public class CsvTableModel implements TableModel {
         return options;
     }
 
-    public synchronized void removeRow(int row) {
-        tableModel.removeRow(row);
+    private void addColumn(@NotNull CsvColumn<?> column) {
+        columnNames.add(column.title());
+        var store = CsvColumnStore.of(column);
+        store.ensureCapacity(rowCount);
+        for (var i = 0; i < rowCount; i++) {
+            store.add(null);
+        }
+        stores.add(store);
+        indexes.add(null);
     }
 
-    private int firstRow(boolean allRows) {
-        return allRows || !options.titleRow() ? 0 : 1;
+    /**
+     * Publishes the working state as the new version. The version gets immutable views of the stores
+     * and indexes which share their content with the working state, so publishing doesn't copy any rows.
+     */
+    private void publish() {
+        var previous = version;
+        var views    = new ArrayList<CsvColumnStore>(stores.size());
+        var indices  = new ArrayList<CsvColumnIndex>(indexes.size());
+        stores.forEach($ -> views.add($.view()));
+        indexes.forEach($ -> indices.add($ != null ? $.view() : null));
+        if ((previous != null) && sameElements(previous.columnNames(), columnNames) && sameElements(previous.columns(), options.columns())) {
+            // the header didn't change, so it can be shared
+            version = new Version(previous.columnNames(), previous.columnIndices(), previous.columns(), Collections.unmodifiableList(views), Collections.unmodifiableList(indices), rowCount);
+            return;
+        }
+        var columnIndices = new HashMap<String, Integer>();
+        for (var i = columnNames.size() - 1; i >= 0; i--) {
+            // the first column wins if names are used multiple times
+            columnIndices.put(columnNames.get(i), i);
+        }
+        version = new Version(
+            Collections.unmodifiableList(new ArrayList<>(columnNames)),
+            Collections.unmodifiableMap(columnIndices),
+            Collections.unmodifiableList(new ArrayList<>(options.columns())),
+            Collections.unmodifiableList(views),
+            Collections.unmodifiableList(indices),
+            rowCount
+        );
+    }
+
+    private static boolean sameElements(@NotNull List<?> published, @NotNull List<?> current) {
+        if (published.size() != current.size()) {
+            return false;
+        }
+        for (var i = 0; i < current.size(); i++) {
+            if (published.get(i) != current.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private void iterateRowsReverseDo(boolean allRows, Consumer<Integer> handleIdx) {
-        var start = firstRow(allRows);
-        for (var i = tableModel.getRowCount() - 1; i >= start; i--) {
-            handleIdx.accept(i);
+    /**
+     * Returns the store of a column which can be changed.
+     *
+     * @param column
+     *            The column index.
+     * @return The store of the column. Not a view of a published version.
+     */
+    @NotNull
+    private CsvColumnStore writable(int column) {
+        var result = stores.get(column);
+        if (result.isFrozen()) {
+            // the working state is a published version after a snapshot or a failed load
+            result = result.fork();
+            stores.set(column, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the index of a column which can be changed.
+     *
+     * @param column
+     *            The column index.
+     * @return The index of the column. Not a view of a published version. <code>null</code> if the
+     *         column isn't indexed.
+     */
+    private CsvColumnIndex writableIndex(int column) {
+        var result = indexes.get(column);
+        if ((result != null) && result.isFrozen()) {
+            result = result.fork(stores.get(column));
+            indexes.set(column, result);
         }
+        return result;
     }
 
-    private void iterateRowsDo(boolean allRows, Consumer<Integer> handleIdx) {
+    /**
+     * Removes the supplied rows from all stores and indexes.
+     *
+     * @param removed
+     *            The rows which are being removed.
+     */
+    private void removeRows(@NotNull BitSet removed) {
+        for (var i = 0; i < stores.size(); i++) {
+            writable(i).removeAll(removed);
+            var index = writableIndex(i);
+            if (index != null) {
+                index.removeAll(stores.get(i), removed, rowCount);
+            }
+        }
+        rowCount -= removed.cardinality();
+    }
+
+    public synchronized void removeRow(int row) {
+        var removed = new BitSet();
+        removed.set(row);
+        removeRows(removed);
+        publish();
+        fireTableChanged(new TableModelEvent(this, row, row, TableModelEvent.ALL_COLUMNS, TableModelEvent.DELETE));
+    }
+
+    private int firstRow(boolean allRows) {
+        return allRows || !options.titleRow() ? 0 : 1;
+    }
+
+    private void iterateRowsDo(@NotNull Version current, boolean allRows, IntConsumer handleIdx) {
         var start = firstRow(allRows);
-        for (var i = start; i < tableModel.getRowCount(); i++) {
+        for (var i = start; i < current.rowCount(); i++) {
             handleIdx.accept(i);
         }
     }
 
-    private <R> R iterateRows(boolean allRows, R initial, BiFunction<Integer, R, R> handleIdx) {
+    private <R> R iterateRows(@NotNull Version current, boolean allRows, R initial, BiFunction<Integer, R, R> handleIdx) {
         var result  = initial;
         var start   = firstRow(allRows);
-        for (var i = start; i < tableModel.getRowCount(); i++) {
+        for (var i = start; i < current.rowCount(); i++) {
             result = handleIdx.apply(i, result);
         }
         return result;
     }
 
     public synchronized void removeRow(Predicate<Object[]> isValid) {
-        iterateRowsReverseDo(false, $idx -> {
-            var row = tableModel.getDataVector().get($idx);
-            if (!isValid.test(row.toArray())) {
-                tableModel.removeRow($idx);
+        var current = version;
+        var mapRow  = getObjects(current);
+        var removed = new BitSet();
+        iterateRowsDo(current, false, $idx -> {
+            if (!isValid.test(mapRow.apply($idx))) {
+                removed.set($idx);
             }
         });
+        if (!removed.isEmpty()) {
+            removeRows(removed);
+            publish();
+            fireTableChanged(new TableModelEvent(this));
+        }
     }
 
-    public synchronized <I> void forEach(Consumer<I> rowConsumer, String column) {
+    public <I> void forEach(Consumer<I> rowConsumer, String column) {
         forEach(Functions.adaptConsumerToBiConsumer(rowConsumer), null, column);
     }
 
-    public synchronized <C, I> void forEach(BiConsumer<I, C> rowConsumer, C context, String column) {
-        var mapRow = getObjects(column);
-        iterateRowsDo(false, $idx -> {
-            var row = tableModel.getDataVector().get($idx);
-            rowConsumer.accept((I) mapRow.apply(row)[0], context);
-        });
+    public <C, I> void forEach(BiConsumer<I, C> rowConsumer, C context, String column) {
+        var current = version;
+        var mapRow  = getObjects(current, column);
+        iterateRowsDo(current, false, $idx -> rowConsumer.accept((I) mapRow.apply($idx)[0], context));
     }
 
-    public synchronized void forEach(Consumer<Object[]> rowConsumer, String ... columns) {
+    public void forEach(Consumer<Object[]> rowConsumer, String ... columns) {
         forEach(Functions.adaptConsumerToBiConsumer(rowConsumer), null, columns);
     }
 
-    public synchronized <C> void forEach(BiConsumer<Object[], C> rowConsumer, C context, String ... columns) {
-        var mapRow = getObjects(columns);
-        iterateRowsDo(false, $idx -> {
-            var row = tableModel.getDataVector().get($idx);
-            rowConsumer.accept(mapRow.apply(row), context);
-        });
+    public <C> void forEach(BiConsumer<Object[], C> rowConsumer, C context, String ... columns) {
+        var current = version;
+        var mapRow  = getObjects(current, columns);
+        iterateRowsDo(current, false, $idx -> rowConsumer.accept(mapRow.apply($idx), context));
     }
 
-    public synchronized <R, I> R reduce(R initial, BiFunction<R, I, R> operator, String column) {
-        var mapRow = getObjects(column);
-        return this.iterateRows(false, initial, ($idx, $result) -> {
-            var row = tableModel.getDataVector().get($idx);
-            $result = operator.apply($result, (I) mapRow.apply(row)[0]);
-            return $result;
-        });
+    public <R, I> R reduce(R initial, BiFunction<R, I, R> operator, String column) {
+        var current = version;
+        var mapRow  = getObjects(current, column);
+        return this.iterateRows(current, false, initial, ($idx, $result) -> operator.apply($result, (I) mapRow.apply($idx)[0]));
     }
 
-    public synchronized <R> R reduce(R initial, BiFunction<R, Object[], R> operator, String ... columns) {
-        var mapRow = getObjects(columns);
-        return this.iterateRows(false, initial, ($idx, $result) -> {
-            var row = tableModel.getDataVector().get($idx);
-            $result = operator.apply($result, mapRow.apply(row));
-            return $result;
-        });
+    public <R> R reduce(R initial, BiFunction<R, Object[], R> operator, String ... columns) {
+        var current = version;
+        var mapRow  = getObjects(current, columns);
+        return this.iterateRows(current, false, initial, ($idx, $result) -> operator.apply($result, mapRow.apply($idx)));
     }
 
+    /**
+     * Returns the statistics of a numerical column. <code>null</code> values are ignored.
+     *
+     * @param column
+     *            The name of the column.
+     * @return The statistics of the column.
+     */
     @NotNull
-    private Function<Vector, Object[]> getObjects(String ... columns) {
-        if ((columns == null) || (columns.length == 0)) {
-            return $ -> $.toArray();
-        } else {
-            var indices = new int[columns.length];
-            for (var i = 0; i < indices.length; i++) {
-                indices[i] = getColumnIndex(columns[i]);
+    public DoubleSummaryStatistics statistics(@NotBlank String column) {
+        return statistics(getColumnIndex(column));
+    }
+
+    /**
+     * Returns the statistics of a numerical column. <code>null</code> values are ignored.
+     *
+     * @param column
+     *            The index of the column.
+     * @return The statistics of the column.
+     */
+    @NotNull
+    public DoubleSummaryStatistics statistics(@Min(0) int column) {
+        return numericStore(version, column).statistics(0);
+    }
+
+    public double sum(@NotBlank String column) {
+        return sum(getColumnIndex(column));
+    }
+
+    public double sum(@Min(0) int column) {
+        return statistics(column).getSum();
+    }
+
+    @NotNull
+    public OptionalDouble min(@NotBlank String column) {
+        return min(getColumnIndex(column));
+    }
+
+    @NotNull
+    public OptionalDouble min(@Min(0) int column) {
+        var statistics = statistics(column);
+        return statistics.getCount() > 0 ? OptionalDouble.of(statistics.getMin()) : OptionalDouble.empty();
+    }
+
+    @NotNull
+    public OptionalDouble max(@NotBlank String column) {
+        return max(getColumnIndex(column));
+    }
+
+    @NotNull
+    public OptionalDouble max(@Min(0) int column) {
+        var statistics = statistics(column);
+        return statistics.getCount() > 0 ? OptionalDouble.of(statistics.getMax()) : OptionalDouble.empty();
+    }
+
+    @NotNull
+    public int[] histogram(@NotBlank String column, double lower, double upper, @Min(1) int bins) {
+        return histogram(getColumnIndex(column), lower, upper, bins);
+    }
+
+    /**
+     * Counts the values of a numerical column per bin. The range is split into bins of equal width while
+     * values outside of the range and <code>null</code> values are ignored.
+     *
+     * @param column
+     *            The index of the column.
+     * @param lower
+     *            The lower bound of the range (inclusive).
+     * @param upper
+     *            The upper bound of the range (inclusive).
+     * @param bins
+     *            The number of bins.
+     * @return The number of values per bin.
+     */
+    @NotNull
+    public int[] histogram(@Min(0) int column, double lower, double upper, @Min(1) int bins) {
+        return numericStore(version, column).histogram(0, lower, upper, Math.max(1, bins));
+    }
+
+    @NotNull
+    public Map<Object, Integer> frequencies(@NotBlank String column) {
+        return frequencies(getColumnIndex(column));
+    }
+
+    /**
+     * Returns the number of occurrences per distinct value of a column.
+     *
+     * @param column
+     *            The index of the column.
+     * @return The number of occurrences per distinct value. Doesn't include <code>null</code>.
+     */
+    @NotNull
+    public Map<Object, Integer> frequencies(@Min(0) int column) {
+        var current = version;
+        var store   = current.stores().get(column);
+        if (store instanceof CsvColumnStore.StringStore strings) {
+            return strings.frequencies(0);
+        }
+        var result  = new HashMap<Object, Integer>();
+        iterateRowsDo(current, true, $idx -> {
+            var value = store.get($idx);
+            if (value != null) {
+                result.merge(value, 1, Integer::sum);
             }
-            return $ -> {
-                var in  = $.toArray();
-                var out = new Object[indices.length];
-                for (var i = 0; i < indices.length; i++) {
-                    out[i] = in[indices[i]];
-                }
-                return out;
-            };
+        });
+        return result;
+    }
+
+    @NotNull
+    private CsvColumnStore.NumericStore numericStore(@NotNull Version current, @Min(0) int column) {
+        if ((column >= 0) && (column < current.stores().size()) && (current.stores().get(column) instanceof CsvColumnStore.NumericStore numeric)) {
+            return numeric;
+        }
+        throw new KclException(error_csv_not_numerical_column.formatted(column));
+    }
+
+    /**
+     * Creates a function which provides the values of the selected columns for a row.
+     *
+     * @param current
+     *            The version providing the values.
+     * @param columns
+     *            The selected columns. All columns if none are selected.
+     * @return A function which provides the values of the selected columns for a row.
+     */
+    @NotNull
+    private IntFunction<Object[]> getObjects(@NotNull Version current, String ... columns) {
+        var all      = (columns == null) || (columns.length == 0);
+        var selected = new CsvColumnStore[all ? current.stores().size() : columns.length];
+        for (var i = 0; i < selected.length; i++) {
+            selected[i] = current.stores().get(all ? i : column(current, columns[i]));
         }
+        return $ -> {
+            var out = new Object[selected.length];
+            for (var i = 0; i < selected.length; i++) {
+                out[i] = selected[i].get($);
+            }
+            return out;
+        };
     }
 
     @Min(0)
-    public synchronized int getColumnIndex(@NotBlank String columnName) {
-        for (int i = 0; i < getColumnCount(); i++) {
-            var colName = tableModel.getColumnName(i);
-            if (columnName.equals(colName)) {
+    public int getColumnIndex(@NotBlank String columnName) {
+        return version.columnIndices().getOrDefault(columnName, -1);
+    }
+
+    /**
+     * Returns the index of an existing column.
+     *
+     * @param current
+     *            The version providing the columns.
+     * @param columnName
+     *            The name of the column.
+     * @return The index of the column.
+     * @throws KclException
+     *             The column doesn't exist.
+     */
+    @Min(0)
+    private int column(@NotNull Version current, String columnName) {
+        var result = current.columnIndices().get(columnName);
+        if (result == null) {
+            throw new KclException(error_csv_unknown_column.formatted(columnName));
+        }
+        return result;
+    }
+
+    public boolean isValidColumn(@Min(0) int column) {
+        return (column >= 0) && (column < version.stores().size());
+    }
+
+    public synchronized void createIndex(@NotBlank String column, boolean sorted) {
+        createIndex(getColumnIndex(column), sorted);
+    }
+
+    /**
+     * Creates an index for a column which speeds up the lookups through {@link #findRow(int, Object)},
+     * {@link #findRows(int, Object)} and {@link #findRange(int, Object, Object)}. The index is maintained
+     * with each change and rebuilt when new content is being loaded. Numerical values are compared by
+     * their value within the type of the column, so f.e. <code>12L</code> finds the {@link Short} value
+     * <code>12</code> and <code>12</code> finds the {@link Double} value <code>12.0</code>.
+     *
+     * @param column
+     *            The index of the column.
+     * @param sorted
+     *            <code>true</code> <=> Create a sorted index which supports range queries. Otherwise a
+     *            hash based index is created which is faster for exact lookups.
+     */
+    public synchronized void createIndex(@Min(0) int column, boolean sorted) {
+        if (isValidColumn(column)) {
+            indexes.set(column, CsvColumnIndex.of(stores.get(column), sorted));
+            indexedColumns.put(columnNames.get(column), sorted);
+            publish();
+        }
+    }
+
+    public synchronized void dropIndex(@NotBlank String column) {
+        dropIndex(getColumnIndex(column));
+    }
+
+    public synchronized void dropIndex(@Min(0) int column) {
+        if (isValidColumn(column) && (indexes.get(column) != null)) {
+            indexes.set(column, null);
+            indexedColumns.remove(columnNames.get(column));
+            publish();
+        }
+    }
+
+    public boolean hasIndex(@NotBlank String column) {
+        return hasIndex(column(version, column));
+    }
+
+    public boolean hasIndex(@Min(0) int column) {
+        var current = version;
+        return (column >= 0) && (column < current.indexes().size()) && (current.indexes().get(column) != null);
+    }
+
+    public int findRow(@NotBlank String column, Object value) {
+        return findRow(column(version, column), value);
+    }
+
+    /**
+     * Returns the first row containing the supplied value.
+     *
+     * @param column
+     *            The index of the column.
+     * @param value
+     *            The value which is looked for.
+     * @return The first row containing the value or -1 if there's none.
+     */
+    public int findRow(@Min(0) int column, Object value) {
+        var current = version;
+        var store   = current.stores().get(column);
+        var index   = current.indexes().get(column);
+        if (index != null) {
+            return index.findFirst(store, value);
+        }
+        var key     = CsvColumnIndex.key(store, value);
+        for (var i = 0; i < current.rowCount(); i++) {
+            if (Objects.equals(key, CsvColumnIndex.key(store, store.get(i)))) {
                 return i;
             }
         }
         return -1;
     }
 
-    public synchronized boolean isValidColumn(@Min(0) int column) {
-        return (column >= 0) && (column < tableModel.getColumnCount());
+    @NotNull
+    public int[] findRows(@NotBlank String column, Object value) {
+        return findRows(column(version, column), value);
+    }
+
+    /**
+     * Returns all rows containing the supplied value.
+     *
+     * @param column
+     *            The index of the column.
+     * @param value
+     *            The value which is looked for.
+     * @return The rows containing the value in ascending order.
+     */
+    @NotNull
+    public int[] findRows(@Min(0) int column, Object value) {
+        var current = version;
+        var store   = current.stores().get(column);
+        var index   = current.indexes().get(column);
+        if (index != null) {
+            return index.find(store, value);
+        }
+        var key     = CsvColumnIndex.key(store, value);
+        return IntStream.range(0, current.rowCount()).filter($ -> Objects.equals(key, CsvColumnIndex.key(store, store.get($)))).toArray();
+    }
+
+    @NotNull
+    public int[] findRange(@NotBlank String column, Object lower, Object upper) {
+        return findRange(column(version, column), lower, upper);
+    }
+
+    /**
+     * Returns all rows with a value within the supplied range. <code>null</code> values are never part of
+     * the range. Without a sorted index each row is being tested.
+     *
+     * @param column
+     *            The index of the column.
+     * @param lower
+     *            The lower bound (inclusive). <code>null</code> if unbounded.
+     * @param upper
+     *            The upper bound (inclusive). <code>null</code> if unbounded.
+     * @return The rows in ascending order.
+     */
+    @NotNull
+    public int[] findRange(@Min(0) int column, Object lower, Object upper) {
+        var current = version;
+        var store   = current.stores().get(column);
+        if (current.indexes().get(column) instanceof CsvColumnIndex.SortedIndex sorted) {
+            return sorted.range(store, lower, upper);
+        }
+        return IntStream.range(0, current.rowCount()).filter($ -> {
+            var value = store.get($);
+            return (value != null)
+                && ((lower == null) || (CsvColumnIndex.compareValues(value, lower) >= 0))
+                && ((upper == null) || (CsvColumnIndex.compareValues(value, upper) <= 0));
+        }).toArray();
     }
 
     public synchronized <C> void removeRow(@NotNull Predicate<C> rowTest, @NotBlank String columnName) {
@@ -224,12 +628,12 @@ public class CsvTableModel implements TableModel {
 
     public synchronized void removeColumn(@Min(0) int column) {
         if (isValidColumn(column)) {
-            iterateRowsDo(true, $idx -> {
-                var rowData = tableModel.getDataVector().get($idx);
-                rowData.remove(column);
-
-            });
+            stores.remove(column);
+            indexes.remove(column);
+            indexedColumns.remove(columnNames.remove(column));
             options.columns().remove(column);
+            publish();
+            fireTableChanged(new TableModelEvent(this, TableModelEvent.HEADER_ROW));
         }
     }
 
@@ -253,41 +657,38 @@ public class CsvTableModel implements TableModel {
                 .defaultValue(defaultVal)
                 .build();
             options.columns().add(newColumn);
+            // the joiner might produce any kind of value
+            CsvColumnStore joined = new CsvColumnStore.ObjectStore();
+            joined.ensureCapacity(rowCount);
+            var left   = stores.get(column1);
+            var right  = stores.get(column2);
+            for (var i = 0; i < rowCount; i++) {
+                joined.add(joiner.apply((L) left.get(i), (R) right.get(i)));
+            }
+            stores.add(joined);
+            indexes.add(null);
+            columnNames.add(columnName);
             var idxMax = Math.max(column1, column2);
             var idxMin = Math.min(column1, column2);
-            iterateRowsDo(true, $idx -> {
-                var rowData = tableModel.getDataVector().get($idx);
-                var left    = (L) rowData.get(column1);
-                var right   = (R) rowData.get(column2);
-                var joined  = joiner.apply(left, right);
-                rowData.add(joined);
-                rowData.remove(idxMax);
-                rowData.remove(idxMin);
-            });
-            options.columns().remove(idxMax);
-            options.columns().remove(idxMin);
-        }
-    }
-
-    /**
-     * Creates a new DefaultTableModel instance used as the delegate.
-     */
-    private void createNewDefaultTableModel() {
-        if (tableModel != null) {
-            tableModel.removeTableModelListener(this::tableModelEventDelegator);
+            for (var idx : new int[] {idxMax, idxMin}) {
+                stores.remove(idx);
+                indexes.remove(idx);
+                indexedColumns.remove(columnNames.remove(idx));
+                options.columns().remove(idx);
+            }
+            publish();
+            fireTableChanged(new TableModelEvent(this, TableModelEvent.HEADER_ROW));
         }
-        tableModel = new DefaultTableModel();
-        tableModel.addTableModelListener(this::tableModelEventDelegator);
     }
 
     /**
-     * Dispatches each event to the registered listeners while replacing the original event source.
-     *
-     * @param evt
-     *            The event that shall be dispatched.
+     * Removes all columns and rows.
      */
-    private void tableModelEventDelegator(@NotNull TableModelEvent evt) {
-        fireTableChanged(new TableModelEvent(this, evt.getFirstRow(), evt.getLastRow(), evt.getColumn(), evt.getType()));
+    private void clearContent() {
+        columnNames.clear();
+        stores.clear();
+        indexes.clear();
+        rowCount = 0;
     }
 
     /**
@@ -344,29 +745,27 @@ public class CsvTableModel implements TableModel {
     }
 
     @NotNull
-    private List<List<String>> loadCellDataDefault(InputStream source) {
+    private List<List<String>> loadCellDataDefault(@NotNull InputStream source) {
 
         /*
          * The import follows these steps:
-         *      1. Read the complete csv as a single text.
-         *      2. Convert this text into a sequence of tokens.
-         *      3. Normalize these tokens.
-         *      4. Split these tokens across the lines.
-         *         Drops the line separator tokens.
-         *      5. Add missing column values (f.e. two succeeding separators).
-         *      6. Drop all separators.
-         *      7. Turn the remaining content cells into Strings again.
+         *      1. Read all non blank records using the tokenizer of the CsvReader.
+         *      2. Add missing column values if configured.
          */
 
-        var text        = readContent(source);
-        var tokenized   = tokenize(text).parallelStream().map(this::toContent).map(this::normalize).collect(Collectors.toList());
+        var result = new ArrayList<List<String>>();
+        try (var reader = new CsvReader(options, source)) {
+            while (reader.nextRaw()) {
+                result.add(new ArrayList<>(Arrays.asList(reader.current().toArray())));
+            }
+        }
 
-        // fetch all lines and add potentially missing column data
-        var partitioned = partition(tokenized);
-        artificialContent(partitioned);
+        if (options.fillMissingColumns()) {
+            var maxColumns = result.stream().mapToInt(List::size).reduce(0, Math::max);
+            result.forEach($ -> fillUp($, maxColumns, null));
+        }
 
-        // remove separators and get the texts only
-        return cleanup(partitioned);
+        return result;
 
     }
 
@@ -397,15 +796,15 @@ public class CsvTableModel implements TableModel {
 
         int maxCols = result.parallelStream().map($ -> $.size()).reduce(result.get(0).size(), Math::max).intValue();
 
-        result.parallelStream().filter($ -> $.size() < maxCols).forEach($ -> fillUp($, maxCols));
+        result.parallelStream().filter($ -> $.size() < maxCols).forEach($ -> fillUp($, maxCols, ""));
 
         return result;
 
     }
 
-    private void fillUp(@NotNull List<String> cells, int max) {
+    private void fillUp(@NotNull List<String> cells, int max, String value) {
         while (cells.size() < max) {
-            cells.add("");
+            cells.add(value);
         }
     }
 
@@ -423,23 +822,6 @@ public class CsvTableModel implements TableModel {
         return new StringBuilder(writer.toString());
     }
 
-    /**
-     * Converts the supplied text into sequence of tokens.
-     *
-     * @param text
-     *            The full text.
-     * @return A list of tokens.
-     */
-    @NotNull
-    private List<String> tokenize(@NotNull StringBuilder text) {
-        var result = new ArrayList<String>(Math.min(5, text.length() / 5));
-        while (text.length() > 0) {
-            consume(result, text);
-        }
-        dropEmptySequences(result);
-        return result;
-    }
-
     private List<String> tokenizeSimple(@NotNull String text) {
 
         var result = new ArrayList<String>(10);
@@ -478,406 +860,164 @@ public class CsvTableModel implements TableModel {
     }
 
     /**
-     * This method replaces sequences of LF, WHITESPACE*, LF to LF. Such sequences can occur if the csv
-     * contains empty lines where some lines contain whitespace characters. Those lines are of no
-     * interest for the csv content.
+     * Loads the csv data from the supplied location into this model.
      *
-     * @param result
-     *            The list of tokens that shall be altered.
+     * @param source
+     *            The source for the csv data.
      */
-    private void dropEmptySequences(@NotNull List<String> result) {
-        for (int i = result.size() - 1, j = result.size() - 2, k = result.size() - 3; k >= 0; i--, j--, k--) {
-            var current = result.get(i);
-            var between = result.get(j);
-            var before  = result.get(k);
-            if ((current.length() == 1) && (before.length() == 1) && (current.charAt(0) == LF) && (before.charAt(0) == LF)) {
-                if (between.isBlank()) {
-                    result.remove(i);
-                    result.remove(j);
-                    i = k;
-                    j = i - 1;
-                    k = i - 2;
-                }
-            }
-        }
+    public void load(@NotNull Path source) {
+        IoSupportFunctions.forInputStreamDo(source, this::load);
     }
 
     /**
-     * Consumes the next token.
+     * Loads the csv data from the supplied {@link InputStream} into this model. The current content is
+     * kept if the data cannot be loaded.
      *
-     * @param receiver
-     *            The receiver for the generated tokens.
-     * @param content
-     *            The current text to be processed.
+     * @param source
+     *            The {@link InputStream} providing the csv data.
      */
-    private void consume(@NotNull List<String> receiver, @NotNull StringBuilder content) {
-        var first = content.charAt(0);
-        if ((first == CR) || (first == LF)) {
-            consumeCRLF(receiver, content);
-        } else if (options.consumeDoubleQuotes() && (first == DQ)) {
-            consumeQuoted(receiver, content, first, DQ_STR);
-        } else if (options.consumeSingleQuotes() && (first == SQ)) {
-            consumeQuoted(receiver, content, first, SQ_STR);
-        } else if (first == options.delimiter()) {
-            consumeCellSeparator(receiver, content);
-        } else {
-            consumeNormal(receiver, content);
+    public synchronized void load(@NotNull InputStream source) {
+        var previous        = version;
+        var previousParsers = parsers;
+        try {
+            loadContent(source);
+        } catch (RuntimeException ex) {
+            restore(previous);
+            parsers = previousParsers;
+            throw ex;
         }
+        SwingUtilities.invokeLater(this::changeAll);
     }
 
     /**
-     * Consumes the next token which is a sequence of quoted text.
+     * Makes the supplied version the working state again. The published stores are immutable, so they
+     * are forked with the next change.
      *
-     * @param receiver
-     *            The receiver for the generated tokens.
-     * @param content
-     *            The current text to be processed.
-     * @param quote
-     *            The currently used quote.
-     * @param quoteAsStr
-     *            Same as quote but as a String.
+     * @param previous
+     *            The version which shall be restored.
      */
-    private void consumeQuoted(@NotNull List<String> receiver, @NotNull StringBuilder content, char quote, @NotNull String quoteAsStr) {
-        var pos = 1;
-        while (true) {
-            var idx1 = content.indexOf(quoteAsStr, pos);
-            if (idx1 == -1) {
-                // the format is invalid
-                throw new KclException(error_csv_missing_closing_quote.formatted(content));
-            }
-            if (idx1 == content.length() - 1) {
-                // this cell covers the full remaining content, so we're done here
-                receiver.add(content.toString());
-                content.setLength(0);
-                return;
-            }
-            if (content.charAt(idx1 + 1) == quote) {
-                // two immediately succeeding quotes, so it's not an actual closing quote (escaping quote) which
-                // means we need to skip this sequence and try to look for the next quote.
-                pos = idx1 + 2;
-                continue;
-            }
-            // we've got an ending for the current cell, so add it's content
-            receiver.add(content.substring(0, idx1 + 1));
-            content.delete(0, idx1 + 1);
-            break;
-        }
+    private void restore(@NotNull Version previous) {
+        clearContent();
+        columnNames.addAll(previous.columnNames());
+        stores.addAll(previous.stores());
+        indexes.addAll(previous.indexes());
+        rowCount = previous.rowCount();
+        options.columns().clear();
+        options.columns().addAll(previous.columns());
     }
 
-    /**
-     * Consumes the next token which is a simple unquote sequence.
-     *
-     * @param receiver
-     *            The receiver for the generated tokens.
-     * @param content
-     *            The current text to be processed.
-     */
-    private void consumeNormal(@NotNull List<String> receiver, @NotNull StringBuilder content) {
-        var idx = StringFunctions.indexOf(content.toString(), options.delimiter(), LF, CR, DQ, SQ);
-        if (idx == -1) {
-            // there's no other cell following, so the remaining text covers tghe complete cell
-            receiver.add(content.toString());
-            content.setLength(0);
-        } else {
-            var part = content.substring(0, idx);
-            content.delete(0, idx);
-            var ch = content.charAt(0);
-            if ((ch == DQ) || (ch == SQ)) {
-                // there is some quote text which is not separated so it's part of the previous text sequence
-                consumeQuoted(receiver, content, ch, String.valueOf(ch));
-                // prepend the text sequence to the recently added quote text
-                receiver.set(receiver.size() - 1, part + receiver.get(receiver.size() - 1));
-            } else {
-                // this is a new token
-                receiver.add(part);
-            }
-        }
-    }
+    private void loadContent(@NotNull InputStream source) {
 
-    /**
-     * Consumes the cell separator.
-     *
-     * @param receiver
-     *            The receiver for the generated tokens.
-     * @param content
-     *            The current text to be processed.
-     */
-    private void consumeCellSeparator(@NotNull List<String> receiver, @NotNull StringBuilder content) {
-        receiver.add(content.substring(0, 1));
-        content.deleteCharAt(0);
-    }
+        // the content is replaced by new stores which are only published if everything could be loaded
+        clearContent();
 
-    /**
-     * Consumes a seqeucne of cr and lf characters. These are represented by a lf only.
-     *
-     * @param receiver
-     *            The receiver for the generated tokens.
-     * @param content
-     *            The current text to be processed.
-     */
-    private void consumeCRLF(@NotNull List<String> receiver, @NotNull StringBuilder content) {
-        var idx = 1;
-        for (var i = 1; i < content.length(); i++) {
-            var current = content.charAt(i);
-            if ((current == LF) || (current == CR)) {
-                idx++;
-            } else {
-                break;
+        if (options.simpleFormat() || options.fillMissingColumns() || !isDeclared()) {
+            loadLines(loadCellData(source));
+        } else {
+            try (var reader = new CsvReader(options, source)) {
+                loadRecords(reader);
             }
         }
-        content.delete(0, idx);
-        receiver.add(LF_STR);
-    }
 
-    /**
-     * This function generates a simple token which allows to deal with the data more easily.
-     *
-     * @param data
-     *            The current token data.
-     * @return The tokenized content.
-     */
-    @NotNull
-    private Content toContent(String data) {
-        var type = ContentType.CONTENT;
-        if ((data != null) && (data.length() < 2)) {
-            if (data.charAt(0) == options.delimiter()) {
-                type = ContentType.SEPARATOR;
-            } else if (data.charAt(0) == LF) {
-                type = ContentType.LINE_DELIMITER;
+        // building the indexes at once is faster than maintaining them per row
+        indexedColumns.forEach(($name, $sorted) -> {
+            var column = columnNames.indexOf($name);
+            if (column != -1) {
+                indexes.set(column, CsvColumnIndex.of(stores.get(column), $sorted));
             }
-        }
-        return new Content(data, type);
-    }
+        });
+        publish();
 
-    /**
-     * This function normalizes the supplied content. Normalization means one/more of the following
-     * things:
-     * <ul>
-     * <li>the left/right side of the data will be trimmed (except for line delimiters)</li>
-     * <li>if the data is empty it will be nulled</li>
-     * <li>quotes around the content will be dropped</li>
-     * <li>duplicate double/single-quotes will be unescaped to one double/single-quote</li>
-     * <li>if cr's are discouraged they will be replaced by lf's</li>
-     * </ul>
-     *
-     * @param content
-     *            The content that will be normalized.
-     * @return The supplied {@link Content} instance.
-     */
-    @NotNull
-    private Content normalize(@NotNull Content content) {
-        var result = content;
-        if ((result.type == ContentType.CONTENT) && (result.data != null)) {
-            result.data = StringFunctions.trim(result.data, "\t ", null);
-            if (result.data.length() == 0) {
-                result.data = null;
-            }
-            if (result.data != null) {
-                var ch = result.data.charAt(0);
-                if (options.consumeDoubleQuotes() && (ch == DQ)) {
-                    result.data = result.data.substring(1, result.data.length() - 1);
-                    result.data = StringFunctions.replaceLiterallyAll(result.data, DQ_STR + DQ_STR, DQ_STR);
-                } else if (options.consumeSingleQuotes() && (ch == SQ)) {
-                    result.data = result.data.substring(1, result.data.length() - 1);
-                    result.data = StringFunctions.replaceLiterallyAll(result.data, SQ_STR + SQ_STR, SQ_STR);
-                }
-            }
-            if (options.disableCr() && (result.data != null)) {
-                result.data = StringFunctions.replaceLiterallyAll(result.data, CRLF_STR, LF_STR);
-                result.data = StringFunctions.replaceLiterallyAll(result.data, CR_STR, LF_STR);
-            }
-        }
-        return result;
     }
 
     /**
-     * Splits the sequence of content instances into separate lines while removing the line delimiter
-     * tokens.
+     * Returns <code>true</code> if each column has been declared, so the columns don't need to be guessed
+     * from the content.
      *
-     * @param content
-     *            The full sequence of tokens.
-     * @return A table structured sequence of tokens.
+     * @return <code>true</code> <=> Each column has been declared.
      */
-    @NotNull
-    private List<List<Content>> partition(@NotNull List<Content> content) {
-        var             result   = new ArrayList<List<Content>>();
-        var             line     = new ArrayList<Content>();
-        Predicate<List> isfilled = options.maxLines() != -1 ? $ -> $.size() >= options.maxLines() : $ -> false;
-        result.add(line);
-        while ((!content.isEmpty()) && (!isfilled.test(result))) {
-            var current = content.remove(0);
-            if (current.type == ContentType.LINE_DELIMITER) {
-                if (!line.isEmpty()) {
-                    line = new ArrayList<Content>();
-                }
-                result.add(line);
-            } else {
-                line.add(current);
-            }
-        }
-        for (var i = result.size() - 1; i >= 0; i--) {
-            if (result.get(i).isEmpty()) {
-                result.remove(i);
-            }
-        }
-        return result;
+    private boolean isDeclared() {
+        return !options.columns().isEmpty() && options.columns().stream().allMatch(Objects::nonNull);
     }
 
     /**
-     * This function generates some artificial tokens implied by the csv data. For example:
-     * <ul>
-     * <li>A line always starts with a cell, so if the first token is a separator we're inserting an
-     * empty column</li>
-     * <li>A line always ends with a cell, so if the last token is a separator we're adding an empty
-     * column</li>
-     * <li>If two separator are positioned in an immediate sequence, we're inserting an empty column in
-     * between</li>
-     * <li>If configured some rows are smaller than others they can be filled up with empty columns</li>
-     * </ul>
+     * Loads the supplied csv data which has been read as text.
      *
      * @param lines
-     *            The current table data.
+     *            The csv data.
      */
-    private void artificialContent(@NotNull List<List<Content>> lines) {
+    private void loadLines(@NotNull List<List<String>> lines) {
 
-        // there's always a first column, so if a line starts with a separator insert one at the first position
-        lines.parallelStream()
-            .filter($ -> $.get(0).type == ContentType.SEPARATOR)
-            .forEach($ -> $.add(0, new Content(null, ContentType.CONTENT)))
-            ;
-
-        // there's always a last column, so if a line ends with a separator insert one at the last position
-        lines.parallelStream()
-            .filter($ -> $.get($.size() - 1).type == ContentType.SEPARATOR)
-            // there's always a last column
-            .forEach($ -> $.add(new Content(null, ContentType.CONTENT)))
-            ;
-
-        // insert a column if there are subsequence separators
-        lines.forEach(this::extendDuplicateDelimiters);
-
-        if (options.fillMissingColumns()) {
-            var maxcolumns = lines.parallelStream().mapToInt($ -> $.size()).reduce(0, Math::max);
-            lines.parallelStream().forEach($ -> fillMissingColumns($, maxcolumns));
+        var columns  = determineColumnCount(lines);
+        var equalLen = equalLengthForEachLine(lines, columns);
+        if (!equalLen) {
+            ehInconsistentColumnCount.accept(error_csv_inconsistent_column_counts);
+            // if the error handler doesn't cause an exception we need to filter out each invalid row
+            lines = lines.stream().filter($ -> $.size() == columns).collect(Collectors.toList());
         }
 
-    }
+        consolidateColumns(columns, lines, getTitles(columns, lines));
 
-    /**
-     * Inserts an empty cell between two succeeding separators.
-     *
-     * @param line
-     *            The line that will be processed.
-     */
-    private void extendDuplicateDelimiters(@NotNull List<Content> line) {
-        for (int i = line.size() - 1, j = line.size() - 2; j >= 0; i--, j--) {
-            var current = line.get(i);
-            var before  = line.get(j);
-            if ((current.type == ContentType.SEPARATOR) && (before.type == ContentType.SEPARATOR)) {
-                line.add(i, new Content(null, ContentType.CONTENT));
-            }
-        }
-    }
+        // register each column
+        options.columns().forEach(this::addColumn);
 
-    /**
-     * Extends the supplied row with empty columns, so the number of cells per line is consistent.
-     *
-     * @param line
-     *            The line that will be extended.
-     * @param max
-     *            The maximum number of columns.
-     */
-    private void fillMissingColumns(@NotNull List<Content> line, int max) {
-        while (line.size() < max) {
-            var last = line.get(line.size() - 1).type;
-            if (last == ContentType.CONTENT) {
-                line.add(new Content(",", ContentType.SEPARATOR));
-            } else {
-                line.add(new Content(null, ContentType.CONTENT));
-            }
+        // load the table content
+        parsers = CsvColumnParser.compile(options.columns());
+        for (var store : stores) {
+            store.ensureCapacity(lines.size());
         }
-    }
+        lines.forEach(this::loadLine);
 
-    /**
-     * This function translates the tabular structured tokens into corresponding textual cells. This
-     * requires to remove all separators as they're no longer needed. Afterwards only the text of each
-     * token will be reused.
-     *
-     * @param lines
-     *            The tabular structured tokens.
-     * @return The textual tabular structure.
-     */
-    @NotNull
-    private List<List<String>> cleanup(@NotNull List<List<Content>> lines) {
-        lines.forEach(this::removeSeparators);
-        return lines.stream().map(this::unwrap).collect(Collectors.toList());
     }
 
     /**
-     * Unwraps the supplied line while just taking the textual data.
+     * Loads the records of a reader with declared columns. The fields are parsed from the views of the
+     * reader, so no text is created for the cells unless a column keeps it. Records which don't provide
+     * the declared number of fields are reported as inconsistent and skipped. If the title row refers to
+     * undeclared columns they need to be guessed, so the records are read as text instead.
      *
-     * @param line
-     *            The line providing the tokens.
-     * @return The line providing the corresponding textual cell values.
+     * @param reader
+     *            The reader providing the records.
      */
-    @NotNull
-    private List<String> unwrap(@NotNull List<Content> line) {
-        return line.stream().map($ -> $.data).map(StringFunctions::cleanup).collect(Collectors.toList());
-    }
+    private void loadRecords(@NotNull CsvReader reader) {
 
-    /**
-     * Removes all cell separators from the supplied line.
-     *
-     * @param lines
-     *            The line that get's freed from the cell separators.
-     */
-    private void removeSeparators(@NotNull List<Content> lines) {
-        for (var i = lines.size() - 1; i >= 0; i--) {
-            if (lines.get(i).type == ContentType.SEPARATOR) {
-                lines.remove(i);
+        var columns     = options.columns().size();
+        var titleRecord = options.titleRow() && reader.nextRaw() ? Arrays.asList(reader.current().toArray()) : null;
+        var content     = new ArrayList<List<String>>();
+        if (titleRecord != null) {
+            content.add(new ArrayList<>(titleRecord));
+        }
+        var titles      = getTitles(columns, content);
+        var declared    = options.columns().stream().map(CsvColumn::title).collect(Collectors.toSet());
+        if (((titleRecord != null) && (titleRecord.size() != columns)) || !declared.containsAll(titles)) {
+            var lines = new ArrayList<List<String>>();
+            if (titleRecord != null) {
+                lines.add(new ArrayList<>(titleRecord));
+            }
+            while (reader.nextRaw()) {
+                lines.add(new ArrayList<>(Arrays.asList(reader.current().toArray())));
             }
+            loadLines(lines);
+            return;
         }
-    }
 
-    /**
-     * Loads the csv data from the supplied location into this model.
-     *
-     * @param source
-     *            The source for the csv data.
-     */
-    public void load(@NotNull Path source) {
-        IoSupportFunctions.forInputStreamDo(source, this::load);
-    }
-
-    /**
-     * Loads the csv data from the supplied {@link InputStream} into this model.
-     *
-     * @param source
-     *            The {@link InputStream} providing the csv data.
-     */
-    public synchronized void load(@NotNull InputStream source) {
-
-        createNewDefaultTableModel();
-
-        var lines    = loadCellData(source);
-        var columns  = determineColumnCount(lines);
-        var equalLen = equalLengthForEachLine(lines, columns);
-        if (!equalLen) {
-            ehInconsistentColumnCount.accept(error_csv_inconsistent_column_counts);
-            // if the error handler doesn't cause an exception we need to filter out each invalid row
-            lines = lines.stream().filter($ -> $.size() == columns).collect(Collectors.toList());
+        consolidateColumns(columns, Collections.emptyList(), titles);
+        options.columns().forEach(this::addColumn);
+
+        parsers          = CsvColumnParser.compile(options.columns());
+        var consistent   = true;
+        while (reader.nextRaw()) {
+            var record = reader.current();
+            if (record.size() != columns) {
+                if (consistent) {
+                    ehInconsistentColumnCount.accept(error_csv_inconsistent_column_counts);
+                    consistent = false;
+                }
+                continue;
+            }
+            loadCells(columns, $ -> record.isNull($) ? null : record.getField($));
         }
 
-        consolidateColumns(columns, lines, getTitles(columns, lines));
-
-        // register each column
-        options.columns().forEach($ -> tableModel.addColumn($.title()));
-
-        // load the table content
-        lines.forEach(this::loadLine);
-
-        SwingUtilities.invokeLater(this::changeAll);
-
     }
 
     /**
@@ -886,7 +1026,7 @@ public class CsvTableModel implements TableModel {
      * @param dest
      *            The destination for the csv data.
      */
-    public synchronized void save(@NotNull Path dest, Encoding encoding) {
+    public void save(@NotNull Path dest, Encoding encoding) {
         IoSupportFunctions.forOutputStreamDo(dest, $ -> save($, encoding));
     }
 
@@ -896,7 +1036,7 @@ public class CsvTableModel implements TableModel {
      * @param dest
      *            The destination for the csv data.
      */
-    public synchronized void save(@NotNull Path dest, @NotNull Function<String, String> overrideName, Encoding encoding) {
+    public void save(@NotNull Path dest, @NotNull Function<String, String> overrideName, Encoding encoding) {
         IoSupportFunctions.forOutputStreamDo(dest, $ -> save($, overrideName, encoding));
     }
 
@@ -906,7 +1046,7 @@ public class CsvTableModel implements TableModel {
      * @param dest
      *            The {@link OutputStream} receceiving the csv data.
      */
-    public synchronized void save(@NotNull OutputStream dest, Encoding encoding) {
+    public void save(@NotNull OutputStream dest, Encoding encoding) {
         save(dest, null, encoding);
     }
 
@@ -916,42 +1056,38 @@ public class CsvTableModel implements TableModel {
      * @param dest
      *            The {@link OutputStream} receceiving the csv data.
      */
-    public synchronized void save(@NotNull OutputStream dest, @NotNull Function<String, String> overrideName, Encoding encoding) {
+    public void save(@NotNull OutputStream dest, @NotNull Function<String, String> overrideName, Encoding encoding) {
+        Function<String, String> change = overrideName != null ? overrideName : Function.identity();
         IoFunctions.forWriterDo(dest, encoding, $writer -> {
-            try (var printer = new PrintWriter($writer)) {
-                writeColumnTitles(printer, overrideName);
-                for (var i = 0; i < getRowCount(); i++) {
-                    writeRow(printer, i);
-                }
+            try (var writer = new CsvWriter(options, $writer)) {
+                writer.setQuoting(CsvQuoting.Always);
+                write(writer, true, change);
             }
         });
     }
 
-    private void writeColumnTitles(@NotNull PrintWriter writer, @NotNull Function<String, String> overrideName) {
-        var                      last   = getColumnCount() - 1;
-        var                      names  = new String[getColumnCount()];
-        Function<String, String> change = overrideName != null ? overrideName : Function.identity();
-        for (var i = 0; i < getColumnCount(); i++) {
-            names[i] = change.apply(getColumnName(i));
-        }
-        for (var i = 0; i < names.length; i++) {
-            writer.append("\"%s\"".formatted(names[i]));
-            if (i < last) {
-                writer.append(options.delimiter());
-            }
+    /**
+     * Writes the content of this model.
+     *
+     * @param writer
+     *            The writer receiving the content.
+     * @param titles
+     *            <code>true</code> <=> Write the column names as the first record.
+     * @param overrideName
+     *            A function allowing to change the column names.
+     */
+    void write(@NotNull CsvWriter writer, boolean titles, @NotNull Function<String, String> overrideName) {
+        var current = version;
+        if (titles) {
+            current.columnNames().forEach($ -> writer.writeField(overrideName.apply($)));
+            writer.endRow();
         }
-        writer.append("\n");
-    }
-
-    private void writeRow(@NotNull PrintWriter writer, int row) {
-        if (getColumnCount() > 0) {
-            writer.append("\"%s\"".formatted(getValueAt(row, 0)));
-            for (var i = 1; i < getColumnCount(); i++) {
-                writer.append("%s\"%s\"".formatted(options.delimiter(), getValueAt(row, i)));
+        for (var row = 0; row < current.rowCount(); row++) {
+            for (var store : current.stores()) {
+                store.write(writer, row);
             }
-
+            writer.endRow();
         }
-        writer.append("\n");
     }
 
     /**
@@ -1086,24 +1222,24 @@ public class CsvTableModel implements TableModel {
             nullable = values.contains(null);
             values.remove(null);
 
-            result = process(values, nullable, Predicates.IS_BOOLEAN, TypeConverters::convertStringToBoolean, Boolean.class, DEFVAL_BOOLEAN);
+            result = process(values, nullable, Predicates.IS_BOOLEAN, TypeConverters::convertStringToBoolean, Boolean.class, DEFVAL_BOOLEAN, title);
             if (result == null) {
-                result = process(values, nullable, Predicates.IS_BYTE, TypeConverters::convertStringToByte, Byte.class, DEFVAL_BYTE);
+                result = process(values, nullable, Predicates.IS_BYTE, CsvColumn.defaultAdapter(Byte.class), Byte.class, DEFVAL_BYTE, title);
             }
             if (result == null) {
-                result = process(values, nullable, Predicates.IS_SHORT, TypeConverters::convertStringToShort, Short.class, DEFVAL_SHORT);
+                result = process(values, nullable, Predicates.IS_SHORT, CsvColumn.defaultAdapter(Short.class), Short.class, DEFVAL_SHORT, title);
             }
             if (result == null) {
-                result = process(values, nullable, Predicates.IS_INTEGER, TypeConverters::convertStringToInteger, Integer.class, DEFVAL_INTEGER);
+                result = process(values, nullable, Predicates.IS_INTEGER, CsvColumn.defaultAdapter(Integer.class), Integer.class, DEFVAL_INTEGER, title);
             }
             if (result == null) {
-                result = process(values, nullable, Predicates.IS_LONG, TypeConverters::convertStringToLong, Long.class, DEFVAL_LONG);
+                result = process(values, nullable, Predicates.IS_LONG, CsvColumn.defaultAdapter(Long.class), Long.class, DEFVAL_LONG, title);
             }
             if (result == null) {
-                result = process(values, nullable, Predicates.IS_FLOAT, TypeConverters::convertStringToFloat, Float.class, DEFVAL_FLOAT);
+                result = process(values, nullable, Predicates.IS_FLOAT, CsvColumn.defaultAdapter(Float.class), Float.class, DEFVAL_FLOAT, title);
             }
             if (result == null) {
-                result = process(values, nullable, Predicates.IS_DOUBLE, TypeConverters::convertStringToDouble, Double.class, DEFVAL_DOUBLE);
+                result = process(values, nullable, Predicates.IS_DOUBLE, CsvColumn.defaultAdapter(Double.class), Double.class, DEFVAL_DOUBLE, title);
             }
 
         }
@@ -1138,9 +1274,11 @@ public class CsvTableModel implements TableModel {
      *            The destination type itself.
      * @param defValue
      *            A default value.
+     * @param title
+     *            The title of the column.
      * @return A column specification.
      */
-    private <T> CsvColumn<T> process(@NotNull Set<String> values, boolean nullable, @NotNull KPredicate<String> test, @NotNull Function<String, T> adapter, @NotNull Class<T> type, T defValue) {
+    private <T> CsvColumn<T> process(@NotNull Set<String> values, boolean nullable, @NotNull KPredicate<String> test, @NotNull Function<String, T> adapter, @NotNull Class<T> type, T defValue, String title) {
         var testP = test.protect();
         var is    = values.parallelStream().map($ -> testP.test($)).reduce(true, Boolean::logicalAnd);
         if (is) {
@@ -1149,6 +1287,7 @@ public class CsvTableModel implements TableModel {
                 .defaultValue(nullable ? null : defValue)
                 .nullable(nullable)
                 .type(type)
+                .title(title)
                 .build()
                 ;
         }
@@ -1162,35 +1301,142 @@ public class CsvTableModel implements TableModel {
      *            A single line
      */
     private void loadLine(@NotNull List<String> line) {
-        var data = new Object[line.size()];
-        for (var i = 0; i < line.size(); i++) {
-            var cellValue = line.get(i);
+        loadCells(line.size(), line::get);
+    }
+
+    /**
+     * Appends a single row.
+     *
+     * @param count
+     *            The number of cells.
+     * @param cells
+     *            Provides the textual value per cell. <code>null</code> for empty cells.
+     */
+    private void loadCells(int count, @NotNull IntFunction<CharSequence> cells) {
+        for (var i = 0; i < count; i++) {
+            var cellValue = cells.apply(i);
             var csvColumn = options.columns().get(i);
-            var value     = deserialize(csvColumn.adapter(), i, cellValue);
+            Object value  = null;
+            try {
+                if (parsers.get(i).parseInto(writable(i), cellValue)) {
+                    index(i);
+                    continue;
+                }
+                value = parsers.get(i).parse(cellValue);
+            } catch (Exception ex) {
+                ehInvalidCellValue.accept(error_csv_cannot_parse_cell_value.formatted(cellValue, i));
+            }
             if (value == null) {
                 value = csvColumn.defval();
             }
-            data[i] = value;
+            store(i, value).add(value);
+            index(i);
+        }
+        rowCount++;
+    }
+
+    /**
+     * Adds the row which is currently being appended to the index of a column (if there's one).
+     *
+     * @param column
+     *            The column index.
+     */
+    private void index(int column) {
+        var index = writableIndex(column);
+        if (index != null) {
+            index.insert(stores.get(column), rowCount);
         }
-        tableModel.addRow(data);
     }
 
     /**
-     * Adds the supplied row data to this model.
+     * Returns the store of a column which is capable to keep the supplied value.
+     *
+     * @param column
+     *            The column index.
+     * @param value
+     *            The value which shall be stored.
+     * @return The store of the column.
+     */
+    @NotNull
+    private CsvColumnStore store(int column, Object value) {
+        if (!stores.get(column).accepts(value)) {
+            stores.set(column, stores.get(column).toObjectStore());
+            var index = indexes.get(column);
+            if (index != null) {
+                // the keys of the index depend on the type of the store
+                indexes.set(column, CsvColumnIndex.of(stores.get(column), index.isSorted()));
+            }
+        }
+        return writable(column);
+    }
+
+    /**
+     * Appends the supplied records. The listeners receive a single event covering the new rows.
+     *
+     * @param titles
+     *            The titles of the records. Only used if this model doesn't have any columns yet.
+     * @param records
+     *            The records which shall be appended.
+     */
+    synchronized void append(@NotNull List<String> titles, @NotNull List<List<String>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (stores.isEmpty()) {
+            // the column declarations are derived from the first records
+            var columns = titles.isEmpty() ? records.get(0).size() : titles.size();
+            var content = new ArrayList<List<String>>();
+            if (options.titleRow()) {
+                content.add(new ArrayList<>(titles));
+            }
+            consolidateColumns(columns, records, getTitles(columns, content));
+            options.columns().forEach(this::addColumn);
+        }
+        var first = rowCount;
+        parsers   = CsvColumnParser.compile(options.columns());
+        for (var i = 0; i < stores.size(); i++) {
+            writable(i).ensureCapacity(rowCount + records.size());
+        }
+        records.forEach(this::loadLine);
+        publish();
+        fireTableChanged(new TableModelEvent(this, first, rowCount - 1, TableModelEvent.ALL_COLUMNS, TableModelEvent.INSERT));
+    }
+
+    /**
+     * Adds the supplied row data to this model. Missing or <code>null</code> values are replaced by the
+     * default values of their columns. The row is either added completely or not at all.
      *
      * @param rowData
      *            The row data that shall be added.
      */
-    public void addRow(Object[] rowData) {
+    public synchronized void addRow(Object[] rowData) {
         if (rowData != null) {
+            var previous = version;
             try {
-                for (var i = 0; i < rowData.length; i++) {
-                    var csvColumn = options.columns().get(i);
-                    if (rowData[i] == null) {
-                        rowData[i] = csvColumn.defval();
+                if (rowData.length > stores.size()) {
+                    throw new KclException(error_csv_inconsistent_record.formatted(rowCount, rowData.length, stores.size()));
+                }
+                // the values are determined before the working state is being changed
+                var values = new Object[stores.size()];
+                for (var i = 0; i < values.length; i++) {
+                    values[i] = i < rowData.length ? rowData[i] : null;
+                    if (values[i] == null) {
+                        values[i] = options.columns().get(i).defval();
                     }
                 }
-                tableModel.addRow(rowData);
+                try {
+                    for (var i = 0; i < values.length; i++) {
+                        store(i, values[i]).add(values[i]);
+                        index(i);
+                    }
+                } catch (RuntimeException ex) {
+                    // a partially added row (or a converted column) must not remain
+                    restore(previous);
+                    throw ex;
+                }
+                rowCount++;
+                publish();
+                fireTableChanged(new TableModelEvent(this, rowCount - 1, rowCount - 1, TableModelEvent.ALL_COLUMNS, TableModelEvent.INSERT));
             } catch (Exception ex) {
                 String message = error_csv_cannot_add_row.formatted(getRowCount(), StringFunctions.objectToString(rowData), ex.getLocalizedMessage());
                 ehInvalidAddRow.accept(message);
@@ -1198,26 +1444,6 @@ public class CsvTableModel implements TableModel {
         }
     }
 
-    /**
-     * A safe deserialization of a certain object representation.
-     *
-     * @param adapter
-     *            The function that is used to convert the text into a dedicated object.
-     * @param idx
-     *            The index of the column value which shall be deserialized.
-     * @param value
-     *            The textual value.
-     * @return The deserialized object.
-     */
-    private Object deserialize(@NotNull Function<String, ?> adapter, int idx, String value) {
-        try {
-            return adapter.apply(value);
-        } catch (Exception ex) {
-            ehInvalidCellValue.accept(error_csv_cannot_parse_cell_value.formatted(value, idx));
-            return null;
-        }
-    }
-
     /**
      * Default error handler for invalid cell values.
      *
@@ -1259,42 +1485,56 @@ public class CsvTableModel implements TableModel {
     }
 
     @Override
-    public synchronized int getRowCount() {
-        return tableModel.getRowCount();
+    public int getRowCount() {
+        return version.rowCount();
     }
 
     @Override
-    public synchronized int getColumnCount() {
-        return tableModel.getColumnCount();
+    public int getColumnCount() {
+        return version.stores().size();
     }
 
     @Override
-    public synchronized String getColumnName(@Min(0) int columnIndex) {
-        return tableModel.getColumnName(columnIndex);
+    public String getColumnName(@Min(0) int columnIndex) {
+        return version.columnNames().get(columnIndex);
     }
 
     @Override
-    public synchronized Class<?> getColumnClass(@Min(0) int columnIndex) {
-        return options.columns().get(columnIndex).type();
+    public Class<?> getColumnClass(@Min(0) int columnIndex) {
+        return version.columns().get(columnIndex).type();
     }
 
     @Override
-    public synchronized boolean isCellEditable(@Min(0) int rowIndex, @Min(0) int columnIndex) {
-        return tableModel.isCellEditable(rowIndex, columnIndex);
+    public boolean isCellEditable(@Min(0) int rowIndex, @Min(0) int columnIndex) {
+        return true;
     }
 
     @Override
-    public synchronized Object getValueAt(@Min(0) int rowIndex, @Min(0) int columnIndex) {
-        return tableModel.getValueAt(rowIndex, columnIndex);
+    public Object getValueAt(@Min(0) int rowIndex, @Min(0) int columnIndex) {
+        var current = version;
+        Objects.checkIndex(rowIndex, current.rowCount());
+        return current.stores().get(columnIndex).get(rowIndex);
     }
 
-    public synchronized Object getValueAt(@Min(0) int rowIndex, @Min(0) String columnName) {
-        return tableModel.getValueAt(rowIndex, getColumnIndex(columnName));
+    public Object getValueAt(@Min(0) int rowIndex, @Min(0) String columnName) {
+        var current = version;
+        Objects.checkIndex(rowIndex, current.rowCount());
+        return current.stores().get(column(current, columnName)).get(rowIndex);
     }
 
     @Override
     public synchronized void setValueAt(Object aValue, @Min(0) int rowIndex, @Min(0) int columnIndex) {
-        tableModel.setValueAt(aValue, rowIndex, columnIndex);
+        var index = writableIndex(columnIndex);
+        if (index != null) {
+            index.remove(stores.get(columnIndex), rowIndex);
+        }
+        var store = store(columnIndex, aValue);
+        store.set(rowIndex, aValue);
+        if (index != null) {
+            index.insert(store, rowIndex);
+        }
+        publish();
+        fireTableChanged(new TableModelEvent(this, rowIndex, rowIndex, columnIndex));
     }
 
     @Override
@@ -1307,22 +1547,18 @@ public class CsvTableModel implements TableModel {
         listeners.remove(TableModelListener.class, l);
     }
 
-    private static class Content {
-
-        String      data;
-
-        ContentType type;
-
-        public Content(String data, ContentType type) {
-            this.data = data;
-            this.type = type;
-        }
-
-        @Override
-        public String toString() {
-            return "Content [data=" + data + ", type=" + type + "]";
-        }
-
-    } /* ENDCLASS */
+    /**
+     * An immutable version of the content. Each change publishes a new version, so readers don't need to
+     * lock while they are processing one.
+     */
+    private record Version(
+        List<String>         columnNames,
+        Map<String, Integer> columnIndices,
+        List<CsvColumn>      columns,
+        List<CsvColumnStore> stores,
+        List<CsvColumnIndex> indexes,
+        int                  rowCount
+    ) {
+    } /* ENDRECORD */
 
 } /* ENDCLASS */
@@ -0,0 +1,244 @@
+package com.kasisoft.libs.common.csv;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.file.*;
+
+import java.nio.*;
+
+import java.io.*;
+
+/**
+ * Follows a csv file which is continuously appended to. Each poll only parses the bytes which have been
+ * appended since the previous one. A trailing record which hasn't been completed by a line break yet
+ * is kept back until the next poll, so records are never delivered partially.
+ *
+ * If the file shrinks (f.e. because it has been truncated or replaced) it's being followed from the
+ * beginning again. The encoding must represent the structural characters as single bytes (f.e. UTF-8
+ * or ISO-8859-1).
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvTailer {
+
+    // the number of bytes processed at once. it's only exceeded by larger records
+    private static final int MAX_REGION = 64 * 1024 * 1024;
+
+    private CsvOptions       options;
+    private CsvOptions       fragmentOptions;
+    private Path             source;
+    private long             offset;
+    private List<String>     titles;
+    private int              expectedColumns;
+    private Consumer<String> ehInconsistentColumnCount;
+    private Consumer<String> ehInvalidCellValue;
+
+    /**
+     * Initializes this tailer.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param source
+     *            The file which shall be followed.
+     * @throws KclException
+     *             The encoding of the options isn't supported.
+     */
+    public CsvTailer(@NotNull CsvOptions options, @NotNull Path source) {
+        if (!CsvBoundaryScanner.isSupported(options)) {
+            throw new KclException(error_csv_unsupported_encoding.formatted(options.encoding()));
+        }
+        this.options                   = options;
+        this.fragmentOptions           = CsvReader.fragmentOptions(options);
+        this.source                    = source;
+        this.ehInconsistentColumnCount = null;
+        this.ehInvalidCellValue        = null;
+        rewind();
+    }
+
+    /**
+     * Follows the file from the beginning again.
+     */
+    public synchronized void reset() {
+        rewind();
+    }
+
+    private void rewind() {
+        offset          = 0L;
+        titles          = null;
+        expectedColumns = options.columns().isEmpty() ? -1 : options.columns().size();
+    }
+
+    /**
+     * Changes the error handler for records with an unexpected number of columns.
+     *
+     * @param handler
+     *            The new error handler.
+     * @see CsvReader#setErrorHandlerForInconsistentColumnCount(Consumer)
+     */
+    public void setErrorHandlerForInconsistentColumnCount(Consumer<String> handler) {
+        ehInconsistentColumnCount = handler;
+    }
+
+    /**
+     * Changes the error handler for cell values that cannot be converted by the column adapters.
+     *
+     * @param handler
+     *            The new error handler.
+     * @see CsvReader#setErrorHandlerForInvalidCellValue(Consumer)
+     */
+    public void setErrorHandlerForInvalidCellValue(Consumer<String> handler) {
+        ehInvalidCellValue = handler;
+    }
+
+    /**
+     * Returns the byte offset after the last record which has been delivered.
+     *
+     * @return The byte offset after the last record which has been delivered.
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the titles provided by the title row.
+     *
+     * @return The titles provided by the title row. Empty if the options don't declare a title row or it
+     *         hasn't been read yet.
+     */
+    @NotNull
+    public synchronized List<String> getTitles() {
+        return titles != null ? titles : Collections.emptyList();
+    }
+
+    /**
+     * Passes the records which have been appended since the last poll to the supplied consumer.
+     *
+     * @param consumer
+     *            The consumer receiving the records.
+     * @return The number of records.
+     */
+    public int poll(@NotNull Consumer<String[]> consumer) {
+        return poll($ -> $.getRecord().toArray(), consumer);
+    }
+
+    /**
+     * Passes the records which have been appended since the last poll to the supplied consumer. The
+     * records are converted by the adapters of the configured columns.
+     *
+     * @param consumer
+     *            The consumer receiving the converted records.
+     * @return The number of records.
+     * @see CsvReader#objects()
+     */
+    public int pollObjects(@NotNull Consumer<Object[]> consumer) {
+        return poll($ -> $.toObjects($.getRecord()), consumer);
+    }
+
+    /**
+     * Appends the records which have been appended since the last poll to the supplied model. The
+     * listeners of the model receive a single event covering the new rows. If the model doesn't have
+     * any columns yet they are set up using the first records.
+     *
+     * @param model
+     *            The model receiving the records.
+     * @return The number of records.
+     */
+    public int poll(@NotNull CsvTableModel model) {
+        synchronized (this) {
+            if ((expectedColumns == -1) && (model.getColumnCount() > 0)) {
+                expectedColumns = model.getColumnCount();
+            }
+        }
+        var records = new ArrayList<List<String>>();
+        var result  = poll($ -> $.getRecord().toArray(), $ -> records.add(Arrays.asList($)));
+        model.append(getTitles(), records);
+        return result;
+    }
+
+    private synchronized <R> int poll(@NotNull Function<CsvReader, R> mapper, @NotNull Consumer<R> consumer) {
+        var result = 0;
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size < offset) {
+                rewind();
+            }
+            var region = MAX_REGION;
+            while (offset < size) {
+                var length = (int) Math.min(region, size - offset);
+                var data   = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                var end    = lastRecordEnd(data);
+                if (end == -1) {
+                    if (length == size - offset) {
+                        // incomplete record
+                        break;
+                    }
+                    if (region == Integer.MAX_VALUE) {
+                        throw new KclException(error_csv_record_too_large.formatted(offset, source, region));
+                    }
+                    // the region doesn't contain a complete record, so it has to grow
+                    region = (int) Math.min(Integer.MAX_VALUE, region * 2L);
+                    continue;
+                }
+                region = MAX_REGION;
+                data.position(0).limit(end);
+                result += parse(data, mapper, consumer);
+                offset += end;
+            }
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+        return result;
+    }
+
+    private int lastRecordEnd(@NotNull ByteBuffer data) {
+        var scanner = new CsvBoundaryScanner(options);
+        var result  = -1;
+        var end     = scanner.scan(data, 0, false);
+        while (end != -1) {
+            result = end;
+            end    = scanner.scan(data, 0, false);
+        }
+        return result;
+    }
+
+    private <R> int parse(@NotNull ByteBuffer data, @NotNull Function<CsvReader, R> mapper, @NotNull Consumer<R> consumer) {
+        var result = 0;
+        var reader = new CsvReader(fragmentOptions, new ByteBufferChannel(data));
+        reader.setErrorHandlerForInconsistentColumnCount(ehInconsistentColumnCount);
+        reader.setErrorHandlerForInvalidCellValue(ehInvalidCellValue);
+        if (titles == null) {
+            titles = Collections.emptyList();
+            if (options.titleRow()) {
+                if (!reader.nextRaw()) {
+                    // only blank lines so far
+                    titles = null;
+                    return 0;
+                }
+                titles = Collections.unmodifiableList(Arrays.asList(reader.current().toArray()));
+            }
+            if (expectedColumns == -1) {
+                expectedColumns = titles.isEmpty() ? -1 : titles.size();
+            }
+        }
+        reader.setExpectedColumns(expectedColumns);
+        while (reader.next()) {
+            consumer.accept(mapper.apply(reader));
+            result++;
+        }
+        if (expectedColumns == -1) {
+            expectedColumns = reader.getExpectedColumns();
+        }
+        return result;
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,493 @@
+package com.kasisoft.libs.common.csv;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.pools.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+import java.sql.*;
+
+/**
+ * A writer for csv data which assembles the records within a reusable character buffer. Numerical values
+ * are written without creating intermediate strings, so large exports don't cause garbage per cell. The
+ * following {@link CsvOptions} are used:
+ *
+ * <ul>
+ * <li>delimiter: Separates the fields.</li>
+ * <li>consumeDoubleQuotes/consumeSingleQuotes: Double quotes are used for quoting if enabled, otherwise
+ * single quotes. Quotes within fields are doubled. If both are disabled fields are never quoted, so
+ * values containing delimiters or line breaks are rejected.</li>
+ * <li>encoding: Used when writing into an {@link OutputStream} or a file.</li>
+ * </ul>
+ *
+ * <code>null</code> values and empty strings are written as empty fields. As {@link CsvReader} trims the
+ * fields (even within quotes) and reads empty fields as <code>null</code>, neither surrounding whitespace
+ * nor the difference between empty strings and <code>null</code> survive a round trip. A record which
+ * only consists of an empty field is written as a quoted empty field, so it's not skipped as a blank
+ * line.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvWriter implements AutoCloseable, Flushable {
+
+    private static final int    BUFFER_SIZE = 8192;
+
+    // enough for each long value including the sign
+    private static final int    MAX_DIGITS  = 20;
+
+    private static final char[] MIN_LONG    = Long.toString(Long.MIN_VALUE).toCharArray();
+    private static final char[] TRUE        = Boolean.TRUE.toString().toCharArray();
+    private static final char[] FALSE       = Boolean.FALSE.toString().toCharArray();
+
+    private CsvOptions    options;
+    private Writer        dest;
+    private char[]        buffer;
+    private int           pos;
+    private char          delimiter;
+    private char          quote;
+    private CsvQuoting    quoting;
+    private int           field;
+    private boolean       blank;
+    private StringBuilder decimals;
+
+    /**
+     * Initializes this writer.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param dest
+     *            The destination receiving the csv data.
+     */
+    public CsvWriter(@NotNull CsvOptions options, @NotNull Writer dest) {
+        this.options   = options;
+        this.dest      = dest;
+        this.buffer    = Buffers.charArray().allocate(BUFFER_SIZE);
+        this.pos       = 0;
+        this.delimiter = options.delimiter();
+        this.quote     = options.consumeDoubleQuotes() ? '\"' : (options.consumeSingleQuotes() ? '\'' : 0);
+        this.quoting   = CsvQuoting.Minimal;
+        this.field     = 0;
+        this.blank     = true;
+        this.decimals  = new StringBuilder(32);
+    }
+
+    /**
+     * Initializes this writer using the encoding of the supplied options.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param dest
+     *            The destination receiving the csv data.
+     */
+    public CsvWriter(@NotNull CsvOptions options, @NotNull OutputStream dest) {
+        this(options, new OutputStreamWriter(dest, Encoding.getEncoding(options.encoding()).getCharset()));
+    }
+
+    /**
+     * Initializes this writer using the encoding of the supplied options.
+     *
+     * @param options
+     *            The options controlling the csv format.
+     * @param dest
+     *            The file receiving the csv data.
+     */
+    public CsvWriter(@NotNull CsvOptions options, @NotNull Path dest) {
+        this(options, openStream(dest));
+    }
+
+    @NotNull
+    private static OutputStream openStream(@NotNull Path dest) {
+        try {
+            return Files.newOutputStream(dest);
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    /**
+     * Changes the quoting strategy.
+     *
+     * @param quoting
+     *            The new quoting strategy. <code>null</code> selects {@link CsvQuoting#Minimal}.
+     */
+    public void setQuoting(CsvQuoting quoting) {
+        this.quoting = quoting != null ? quoting : CsvQuoting.Minimal;
+    }
+
+    @NotNull
+    public CsvQuoting getQuoting() {
+        return quoting;
+    }
+
+    /**
+     * Writes a complete record.
+     *
+     * @param values
+     *            The values of the record.
+     */
+    public void writeRow(@NotNull Object ... values) {
+        for (var value : values) {
+            writeValue(value);
+        }
+        endRow();
+    }
+
+    /**
+     * Writes a complete record.
+     *
+     * @param values
+     *            The values of the record.
+     */
+    public void writeRow(@NotNull List<?> values) {
+        for (var i = 0; i < values.size(); i++) {
+            writeValue(values.get(i));
+        }
+        endRow();
+    }
+
+    /**
+     * Writes all records provided by the supplied iterator.
+     *
+     * @param rows
+     *            The records which shall be written.
+     */
+    public void writeAll(@NotNull Iterator<Object[]> rows) {
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+        }
+    }
+
+    /**
+     * Writes all remaining records of the supplied {@link ResultSet}. Integral and floating point columns
+     * are read as primitives.
+     *
+     * @param resultSet
+     *            The records which shall be written.
+     * @param titles
+     *            <code>true</code> <=> Write the column labels as the first record.
+     */
+    public void writeAll(@NotNull ResultSet resultSet, boolean titles) {
+        try {
+            var metadata = resultSet.getMetaData();
+            var types    = new int[metadata.getColumnCount()];
+            for (var i = 0; i < types.length; i++) {
+                types[i] = metadata.getColumnType(i + 1);
+                if (titles) {
+                    writeField(metadata.getColumnLabel(i + 1));
+                }
+            }
+            if (titles) {
+                endRow();
+            }
+            while (resultSet.next()) {
+                for (var i = 0; i < types.length; i++) {
+                    writeColumn(resultSet, i + 1, types[i]);
+                }
+                endRow();
+            }
+        } catch (SQLException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    private void writeColumn(@NotNull ResultSet resultSet, int column, int type) throws SQLException {
+        switch (type) {
+        case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT:
+            var longValue = resultSet.getLong(column);
+            if (resultSet.wasNull()) {
+                writeNull();
+            } else {
+                writeField(longValue);
+            }
+            break;
+        case Types.REAL:
+            var floatValue = resultSet.getFloat(column);
+            if (resultSet.wasNull()) {
+                writeNull();
+            } else {
+                writeField(floatValue);
+            }
+            break;
+        case Types.FLOAT, Types.DOUBLE:
+            var doubleValue = resultSet.getDouble(column);
+            if (resultSet.wasNull()) {
+                writeNull();
+            } else {
+                writeField(doubleValue);
+            }
+            break;
+        default:
+            writeValue(resultSet.getObject(column));
+            break;
+        }
+    }
+
+    /**
+     * Writes the column names and all records of the supplied model. Numerical columns are written
+     * without boxing their values.
+     *
+     * @param model
+     *            The model providing the records.
+     * @param titles
+     *            <code>true</code> <=> Write the column names as the first record.
+     */
+    public void writeAll(@NotNull CsvTableModel model, boolean titles) {
+        model.write(this, titles, Function.identity());
+    }
+
+    /**
+     * Writes an arbitrary value as the next field of the current record.
+     *
+     * @param value
+     *            The value which shall be written.
+     */
+    public void writeValue(Object value) {
+        if (value == null) {
+            writeNull();
+        } else if ((value instanceof Integer) || (value instanceof Long) || (value instanceof Short) || (value instanceof Byte)) {
+            writeField(((Number) value).longValue());
+        } else if (value instanceof Double number) {
+            writeField(number.doubleValue());
+        } else if (value instanceof Float number) {
+            writeField(number.floatValue());
+        } else if (value instanceof Boolean bool) {
+            writeField(bool.booleanValue());
+        } else if (value instanceof CharSequence text) {
+            writeField(text);
+        } else {
+            writeField(value.toString());
+        }
+    }
+
+    /**
+     * Writes an empty field representing a <code>null</code> value.
+     */
+    public void writeNull() {
+        separate();
+    }
+
+    /**
+     * Writes a textual field which is quoted according to the quoting strategy.
+     *
+     * @param value
+     *            The value which shall be written.
+     * @throws KclException
+     *             The value contains delimiters, quotes or line breaks while quoting is disabled.
+     */
+    public void writeField(CharSequence value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        var required = needsQuotes(value);
+        if (required && (quote == 0)) {
+            throw new KclException(error_csv_needs_quotes.formatted(value));
+        }
+        separate();
+        if ((quote == 0) || ((!required) && (quoting == CsvQuoting.Minimal))) {
+            for (var i = 0; i < value.length(); i++) {
+                put(value.charAt(i));
+            }
+            return;
+        }
+        put(quote);
+        for (var i = 0; i < value.length(); i++) {
+            var ch = value.charAt(i);
+            if (ch == quote) {
+                put(quote);
+            }
+            put(ch);
+        }
+        put(quote);
+    }
+
+    private boolean needsQuotes(@NotNull CharSequence value) {
+        for (var i = 0; i < value.length(); i++) {
+            var ch = value.charAt(i);
+            if ((ch == delimiter) || (ch == '\n') || (ch == '\r') || isQuote(ch)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isQuote(char ch) {
+        return ((ch == '\"') && options.consumeDoubleQuotes()) || ((ch == '\'') && options.consumeSingleQuotes());
+    }
+
+    public void writeField(boolean value) {
+        separate();
+        openQuote();
+        var chars = value ? TRUE : FALSE;
+        for (var ch : chars) {
+            put(ch);
+        }
+        closeQuote();
+    }
+
+    /**
+     * Writes an integral number without creating a string.
+     *
+     * @param value
+     *            The value which shall be written.
+     */
+    public void writeField(long value) {
+        separate();
+        openQuote();
+        if (value == Long.MIN_VALUE) {
+            for (var ch : MIN_LONG) {
+                put(ch);
+            }
+        } else {
+            ensureCapacity(MAX_DIGITS);
+            if (value < 0) {
+                buffer[pos++] = '-';
+                value         = -value;
+            }
+            var digits = 1;
+            for (var rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            for (var i = pos + digits - 1; i >= pos; i--) {
+                buffer[i] = (char) ('0' + (value % 10));
+                value    /= 10;
+            }
+            pos  += digits;
+            blank = false;
+        }
+        closeQuote();
+    }
+
+    /**
+     * Writes a floating point number without creating a string. The representation is the same as
+     * provided by {@link Double#toString(double)}.
+     *
+     * @param value
+     *            The value which shall be written.
+     */
+    public void writeField(double value) {
+        decimals.setLength(0);
+        decimals.append(value);
+        writeDecimals();
+    }
+
+    /**
+     * Writes a floating point number without creating a string. The representation is the same as
+     * provided by {@link Float#toString(float)}.
+     *
+     * @param value
+     *            The value which shall be written.
+     */
+    public void writeField(float value) {
+        decimals.setLength(0);
+        decimals.append(value);
+        writeDecimals();
+    }
+
+    private void writeDecimals() {
+        separate();
+        openQuote();
+        var length = decimals.length();
+        ensureCapacity(length);
+        decimals.getChars(0, length, buffer, pos);
+        pos  += length;
+        blank = false;
+        closeQuote();
+    }
+
+    /**
+     * Finishes the current record.
+     */
+    public void endRow() {
+        if ((field == 1) && blank) {
+            // the reader would skip the record as a blank line
+            if (quote == 0) {
+                throw new KclException(error_csv_needs_quotes.formatted(""));
+            }
+            put(quote);
+            put(quote);
+        }
+        put('\n');
+        field = 0;
+        blank = true;
+    }
+
+    private void separate() {
+        if (field++ > 0) {
+            put(delimiter);
+        }
+    }
+
+    private void openQuote() {
+        if ((quoting == CsvQuoting.Always) && (quote != 0)) {
+            put(quote);
+        }
+    }
+
+    private void closeQuote() {
+        openQuote();
+    }
+
+    private void put(char ch) {
+        if (pos == buffer.length) {
+            flushBuffer();
+        }
+        buffer[pos++] = ch;
+        blank         = false;
+    }
+
+    private void ensureCapacity(int count) {
+        if (pos + count > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() {
+        try {
+            dest.write(buffer, 0, pos);
+            pos = 0;
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    @Override
+    public void flush() {
+        flushBuffer();
+        try {
+            dest.flush();
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+            dest.close();
+        } catch (IOException ex) {
+            throw KclException.wrap(ex);
+        } finally {
+            Buffers.charArray().free(buffer);
+            buffer = null;
+        }
+    }
+
+} /* ENDCLASS */
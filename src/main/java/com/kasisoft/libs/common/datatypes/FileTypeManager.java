@@ -59,6 +59,17 @@ public class FileTypeManager {
         return data.map(this::identify).orElse(null);
     }
 
+    /**
+     * Identifies the FileType for the supplied mapped content. Only the leading bytes are being copied.
+     *
+     * @param view
+     *            The mapped content of the input which type shall be identified.
+     * @return The FileType if it could be identified.
+     */
+    public FileType identify(@NotNull MappedView view) {
+        return identify(view.read(0L, maxspace));
+    }
+
     /**
      * Identifies the FileType for the supplied data.
      *
@@ -33,12 +33,36 @@ public class Messages {
     @I18N("The number of columns for each line isn't consistent !")
     public static String     error_csv_inconsistent_column_counts;
 
+    @I18N("The record %d provides %d columns instead of %d !")
+    public static String     error_csv_inconsistent_record;
+
     @I18N("The closing quote for content '%s' is missing !")
     public static String     error_csv_missing_closing_quote;
 
+    @I18N("The value '%s' cannot be written without quotes !")
+    public static String     error_csv_needs_quotes;
+
+    @I18N("The column %d isn't numerical !")
+    public static String     error_csv_not_numerical_column;
+
+    @I18N("The record at offset %d of '%s' exceeds %d bytes !")
+    public static String     error_csv_record_too_large;
+
+    @I18N("The encoding %s isn't supported for this operation !")
+    public static String     error_csv_unsupported_encoding;
+
+    @I18N("The column '%s' doesn't exist !")
+    public static String     error_csv_unknown_column;
+
+    @I18N("Cannot allocate a direct buffer of %d bytes (allocated: %d, limit: %d) !")
+    public static String     error_direct_buffer_exhausted;
+
     @I18N("The directory '%s' does not exist!")
     public static String     error_directory_does_not_exist;
 
+    @I18N("The resource '%s' is contained more than once !")
+    public static String     error_duplicate_resource;
+
     @I18N("DOM Implementation doesn't support LS !")
     public static String     error_dom_impl_without_ls;
 
@@ -102,6 +126,9 @@ public class Messages {
     @I18N("The file '%s' does not exist!")
     public static String     error_file_does_not_exist;
 
+    @I18N("The file '%s' is too large to be loaded into memory (%d bytes) !")
+    public static String     error_file_too_large;
+
     @I18N("Invalid boolean value: '%s'")
     public static String     error_invalid_boolean_value;
 
@@ -117,21 +144,39 @@ public class Messages {
     @I18N("Invalid URI '%s'")
     public static String     error_invalid_uri;
 
+    @I18N("The mapped view has already been closed !")
+    public static String     error_mapped_view_closed;
+
     @I18N("Missing CSV Adapter for column %d")
     public static String     error_missing_csv_adapter;
 
     @I18N("The resource '%s' is missing !")
     public static String     error_missing_resource;
 
+    @I18N("There's no io support for '%s' !")
+    public static String     error_no_io_support;
+
+    @I18N("There's no memory mapping support for '%s' !")
+    public static String     error_no_mapping_support;
+
     @I18N("There's no write support for URLs (%s) !")
     public static String     error_no_write_support_for_urls;
 
+    @I18N("The pool has already been closed !")
+    public static String     error_pool_closed;
+
+    @I18N("The pooled object of type '%s' has not been freed !")
+    public static String     error_pool_object_not_freed;
+
     @I18N("Unknown digest algorithm '%s'!")
     public static String     error_unknown_digest_algorithm;
 
     @I18N("Cannot parse version '%s'")
     public static String     error_version_cannot_parse_version;
 
+    @I18N("The zip entry '%s' would be extracted outside of '%s' !")
+    public static String     error_zip_entry_outside_destination;
+
     static {
         I18NSupport.initialize(Locale.getDefault(), Messages.class);
     }
@@ -0,0 +1,335 @@
+package com.kasisoft.libs.common.io;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.functional.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.locks.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.file.attribute.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Writes files atomically. The content is written to a temporary file within the same directory which
+ * replaces the destination afterwards, so readers and crashes never see a partially written file. The
+ * {@link Durability} controls whether the content and the replacement are forced to the storage. The
+ * permissions, the owner and the ACL of an existing destination are applied to the temporary file before
+ * the content is written (changing the owner requires the corresponding privileges).
+ *
+ * A symbolic link to an existing file is resolved, so the link is kept and refers to the new content.
+ * Hard links of the destination are not updated as the replacement creates a new file. They keep the
+ * previous content.
+ *
+ * Forcing the directory after each replacement is expensive if many small files are being written
+ * concurrently. With group commit enabled writers of the same directory share these forces: one writer
+ * forces the directory for all replacements which happened so far while the others wait for it.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class AtomicFileWriter {
+
+    // shared by all writers, so concurrent writers can be grouped even with different configurations.
+    // a directory is only kept while writers are waiting for it's force.
+    private static final Map<Path, DirectorySync> DIRECTORIES = new ConcurrentHashMap<>();
+
+    private static final Set<OpenOption> TEMP_OPTIONS = Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+    private Durability durability;
+    private boolean    groupCommit;
+
+    public AtomicFileWriter() {
+        durability  = Durability.All;
+        groupCommit = false;
+    }
+
+    /**
+     * Changes the guarantees after a write has completed.
+     *
+     * @param durability
+     *            The new guarantees. <code>null</code> selects {@link Durability#All}.
+     */
+    public void setDurability(Durability durability) {
+        this.durability = durability != null ? durability : Durability.All;
+    }
+
+    /**
+     * Changes whether concurrent writers share the forces of their directory.
+     *
+     * @param groupCommit
+     *            <code>true</code> <=> Share the forces of a directory.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    /**
+     * Writes a file atomically.
+     *
+     * @param destination
+     *            The file which has to be written.
+     * @param action
+     *            The action providing the content. The stream must not be closed.
+     */
+    public void write(@NotNull Path destination, @NotNull KConsumer<@NotNull OutputStream> action) {
+        var target    = resolve(destination);
+        var directory = target.getParent();
+        var temp      = directory.resolve(".%s.%016x.tmp".formatted(target.getFileName(), ThreadLocalRandom.current().nextLong()));
+        try {
+            var existing = attributes(target);
+            try (var channel = FileChannel.open(temp, TEMP_OPTIONS, initialAttributes(existing))) {
+                // the content must not be accessible to more users than the destination
+                applyAttributes(existing, temp);
+                var outstream = new BufferedOutputStream(Channels.newOutputStream(channel));
+                action.accept(outstream);
+                outstream.flush();
+                if (durability != Durability.None) {
+                    channel.force(durability == Durability.All);
+                }
+            }
+            replace(temp, target);
+            if (durability == Durability.All) {
+                if (groupCommit) {
+                    groupForce(directory);
+                } else {
+                    force(directory);
+                }
+            }
+        } catch (Exception ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // the failure of the write is more important
+            }
+            throw KclException.wrap(ex, error_failed_to_write_to.formatted(destination));
+        }
+    }
+
+    /**
+     * Returns the file which is actually being replaced, so symbolic links are kept.
+     *
+     * @param destination
+     *            The file which has to be written.
+     * @return The absolute location of the file which is being replaced.
+     */
+    @NotNull
+    private static Path resolve(@NotNull Path destination) {
+        var result = destination.toAbsolutePath().normalize();
+        try {
+            return Files.exists(result) ? result.toRealPath() : result;
+        } catch (IOException ex) {
+            throw KclException.wrap(ex, error_failed_to_write_to.formatted(destination));
+        }
+    }
+
+    public void saveBytes(@NotNull Path destination, @NotNull byte[] data) {
+        saveBytes(destination, data, 0, data.length);
+    }
+
+    public void saveBytes(@NotNull Path destination, @NotNull byte[] data, @Min(0) int offset, @Min(0) int length) {
+        write(destination, $ -> $.write(data, offset, length));
+    }
+
+    public void saveChars(@NotNull Path destination, Encoding encoding, @NotNull char[] data) {
+        saveChars(destination, encoding, data, 0, data.length);
+    }
+
+    public void saveChars(@NotNull Path destination, Encoding encoding, @NotNull char[] data, @Min(0) int offset, @Min(0) int size) {
+        write(destination, $ -> {
+            var writer = new OutputStreamWriter($, Encoding.getEncoding(encoding).getCharset());
+            writer.write(data, offset, size);
+            writer.flush();
+        });
+    }
+
+    public void writeText(@NotNull Path destination, Encoding encoding, @NotNull String text) {
+        write(destination, $ -> {
+            var writer = new OutputStreamWriter($, Encoding.getEncoding(encoding).getCharset());
+            writer.write(text);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Returns the attributes of an existing destination.
+     *
+     * @param target
+     *            The destination.
+     * @return The posix and/or acl attributes. <code>null</code> if the destination doesn't exist.
+     */
+    private static ExistingAttributes attributes(@NotNull Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return null;
+        }
+        var posixView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        var aclView   = Files.getFileAttributeView(target, AclFileAttributeView.class);
+        return new ExistingAttributes(
+            posixView != null ? posixView.readAttributes() : null,
+            aclView   != null ? aclView.getAcl() : null,
+            aclView   != null ? aclView.getOwner() : null
+        );
+    }
+
+    private static FileAttribute<?>[] initialAttributes(ExistingAttributes existing) {
+        if ((existing != null) && (existing.posix() != null)) {
+            // the umask might remove some permissions but it never adds any
+            return new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(existing.posix().permissions())};
+        }
+        return new FileAttribute<?>[0];
+    }
+
+    private static void applyAttributes(ExistingAttributes existing, @NotNull Path temp) throws IOException {
+        if (existing == null) {
+            return;
+        }
+        if (existing.posix() != null) {
+            var view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+            view.setPermissions(existing.posix().permissions());
+            setOwnership(() -> view.setGroup(existing.posix().group()));
+            setOwnership(() -> view.setOwner(existing.posix().owner()));
+        }
+        if (existing.acl() != null) {
+            var view = Files.getFileAttributeView(temp, AclFileAttributeView.class);
+            setOwnership(() -> view.setOwner(existing.aclOwner()));
+            view.setAcl(existing.acl());
+        }
+    }
+
+    private static void setOwnership(@NotNull KRunnable action) throws IOException {
+        try {
+            action.run();
+        } catch (FileSystemException ex) {
+            // only privileged users are allowed to change the ownership
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    private static void groupForce(@NotNull Path directory) throws IOException, InterruptedException {
+        // the number of writers is only changed while the entry is locked by the map
+        var sync = DIRECTORIES.compute(directory, ($dir, $sync) -> {
+            var result = $sync != null ? $sync : new DirectorySync($dir);
+            result.writers++;
+            return result;
+        });
+        try {
+            sync.sync();
+        } finally {
+            DIRECTORIES.computeIfPresent(directory, ($dir, $sync) -> --$sync.writers == 0 ? null : $sync);
+        }
+    }
+
+    private static void replace(@NotNull Path source, @NotNull Path destination) throws IOException {
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void force(@NotNull Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException ex) {
+            // some platforms (f.e. windows) don't allow to open directories
+            return;
+        }
+        try (var opened = channel) {
+            opened.force(true);
+        }
+    }
+
+    /**
+     * Group commit for the forces of a directory. Each writer gets a ticket after it's replacement. A force
+     * covers all tickets which have been issued before it started.
+     */
+    private static class DirectorySync {
+
+        // a lock doesn't pin virtual threads to their carrier (unlike a monitor)
+        private ReentrantLock lock;
+        private Condition     finished;
+        private Path          directory;
+        private long          issued;
+        private long          synced;
+        private boolean       syncing;
+        private int           writers;
+
+        DirectorySync(@NotNull Path directory) {
+            this.lock      = new ReentrantLock();
+            this.finished  = lock.newCondition();
+            this.directory = directory;
+            this.issued    = 0L;
+            this.synced    = 0L;
+            this.syncing   = false;
+            this.writers   = 0;
+        }
+
+        void sync() throws IOException, InterruptedException {
+            long ticket;
+            lock.lock();
+            try {
+                ticket = ++issued;
+            } finally {
+                lock.unlock();
+            }
+            while (true) {
+                long covered;
+                lock.lock();
+                try {
+                    while (syncing && (synced < ticket)) {
+                        finished.await();
+                    }
+                    if (synced >= ticket) {
+                        return;
+                    }
+                    // this writer forces the directory for everyone who got a ticket so far
+                    syncing = true;
+                    covered = issued;
+                } finally {
+                    lock.unlock();
+                }
+                var success = false;
+                try {
+                    force(directory);
+                    success = true;
+                } finally {
+                    lock.lock();
+                    try {
+                        syncing = false;
+                        if (success) {
+                            synced = Math.max(synced, covered);
+                        }
+                        finished.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            }
+        }
+
+    } /* ENDCLASS */
+
+    private record ExistingAttributes(PosixFileAttributes posix, List<AclEntry> acl, UserPrincipal aclOwner) {
+    } /* ENDRECORD */
+
+} /* ENDCLASS */
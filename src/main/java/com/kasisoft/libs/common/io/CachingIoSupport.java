@@ -0,0 +1,114 @@
+package com.kasisoft.libs.common.io;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.io.*;
+
+/**
+ * Decorates an {@link IoSupport} while caching the results of {@link #loadAllBytes(Object, int)} and
+ * {@link #readText(Object, Encoding)}. A cached content is reused as long as the version of the resource
+ * (see {@link IoSupport#getVersion(Object)}) doesn't change, so checking a cached file only costs reading
+ * it's attributes. Resources without a version are never cached. Writing a resource through this
+ * decorator removes it's contents from the cache.
+ *
+ * Byte arrays are mutable, so each call returns a copy of the cached bytes.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ * @see IoSupportFunctions#enableCache(long)
+ */
+public class CachingIoSupport<T> implements IoSupport<T> {
+
+    private static final String VARIANT_BYTES = "bytes";
+
+    private IoSupport<T>  delegate;
+    private ResourceCache cache;
+
+    public CachingIoSupport(@NotNull IoSupport<T> delegate, @NotNull ResourceCache cache) {
+        this.delegate = delegate;
+        this.cache    = cache;
+    }
+
+    @NotNull
+    public IoSupport<T> getDelegate() {
+        return delegate;
+    }
+
+    @NotNull
+    public ResourceCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public InputStream newInputStreamImpl(@NotNull T source) throws Exception {
+        return delegate.newInputStreamImpl(source);
+    }
+
+    @Override
+    public OutputStream newOutputStreamImpl(@NotNull T destination) throws Exception {
+        cache.invalidate(destination);
+        return delegate.newOutputStreamImpl(destination);
+    }
+
+    @Override
+    public ReadableByteChannel newReadableChannelImpl(@NotNull T source) throws Exception {
+        return delegate.newReadableChannelImpl(source);
+    }
+
+    @Override
+    public WritableByteChannel newWritableChannelImpl(@NotNull T destination) throws Exception {
+        cache.invalidate(destination);
+        return delegate.newWritableChannelImpl(destination);
+    }
+
+    @Override
+    public Object getVersion(@NotNull T source) {
+        return delegate.getVersion(source);
+    }
+
+    @Override
+    @NotNull
+    public MappedView newMappedView(@NotNull T source) {
+        return delegate.newMappedView(source);
+    }
+
+    @Override
+    @NotNull
+    public byte[] loadAllBytes(@NotNull T source, @Min(0) int offset) {
+        byte[] content;
+        try {
+            content = cache.get(source, VARIANT_BYTES, delegate.getVersion(source), $ -> $.length, () -> delegate.loadAllBytes(source));
+        } catch (Exception ex) {
+            throw KclException.wrap(ex, error_failed_to_read_from.formatted(source));
+        }
+        return Arrays.copyOfRange(content, Math.min(offset, content.length), content.length);
+    }
+
+    @Override
+    @NotNull
+    public char[] loadAllChars(@NotNull T source, Encoding encoding, @Min(0) int offset) {
+        return delegate.loadAllChars(source, encoding, offset);
+    }
+
+    @Override
+    @NotNull
+    public String readText(@NotNull T source, Encoding encoding) {
+        var variant = Encoding.getEncoding(encoding).getEncoding();
+        try {
+            // two bytes per character unless the string can be stored compactly
+            return cache.get(source, variant, delegate.getVersion(source), $ -> 2L * $.length(), () -> delegate.readText(source, encoding));
+        } catch (Exception ex) {
+            throw KclException.wrap(ex, error_failed_to_read_from.formatted(source));
+        }
+    }
+
+} /* ENDCLASS */
@@ -6,6 +6,8 @@ import jakarta.validation.constraints.*;
 
 import java.util.function.*;
 
+import java.util.concurrent.atomic.*;
+
 import java.nio.file.*;
 
 /**
@@ -17,9 +19,10 @@ public class CopyingFileWalker implements Runnable {
 
     private Path                source;
     private CustomFileVisitor   fsWalker;
-    private long                fileCount;
-    private long                dirCount;
-    private long                totalSize;
+    private int                 parallelism;
+    private AtomicLong          fileCount;
+    private AtomicLong          dirCount;
+    private AtomicLong          totalSize;
 
     public CopyingFileWalker(@NotNull Path source, @NotNull Path destination) {
         this(source, destination, null);
@@ -29,32 +32,54 @@ public class CopyingFileWalker implements Runnable {
 
         this.source       = source;
         this.fsWalker     = new CustomFileVisitor();
+        this.parallelism  = 1;
+        this.fileCount    = new AtomicLong();
+        this.dirCount     = new AtomicLong();
+        this.totalSize    = new AtomicLong();
 
         fsWalker.setOnPreDirectory($ -> {
             var destDir = destination.resolve(source.relativize($));
             IoFunctions.mkDirs(destDir);
-            dirCount++;
+            dirCount.incrementAndGet();
         });
 
         fsWalker.setOnFile($ -> {
             var destFile = destination.resolve(source.relativize($));
             IoFunctions.copyFile($, destFile);
-            fileCount++;
-            totalSize += $.toFile().length();
+            fileCount.incrementAndGet();
+            totalSize.addAndGet($.toFile().length());
         });
 
         fsWalker.setErrorHandler(errorHandler != null ? errorHandler : ($ex -> FileVisitResult.TERMINATE));
 
     }
 
+    /**
+     * Changes the number of threads used to process the tree.
+     *
+     * @param parallelism
+     *            The number of threads. Values below 2 process the tree within the calling thread.
+     * @see ParallelFileWalker
+     */
+    public void setParallelism(@Min(1) int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
     public synchronized void reset() {
-        fileCount = 0L;
-        dirCount  = 0L;
-        totalSize = 0L;
+        fileCount.set(0L);
+        dirCount.set(0L);
+        totalSize.set(0L);
         fsWalker.reset();
     }
 
-    public synchronized void stop() {
+    /**
+     * Stops the processing. This can be called while {@link #run()} is still active.
+     */
+    public void stop() {
         fsWalker.stop();
     }
 
@@ -62,22 +87,22 @@ public class CopyingFileWalker implements Runnable {
     public synchronized void run() {
         try {
             reset();
-            Files.walkFileTree(source, fsWalker);
+            ParallelFileWalker.walk(source, fsWalker, parallelism);
         } catch (Exception ex) {
             throw KclException.wrap(ex);
         }
     }
 
     public long getFileCount() {
-        return fileCount;
+        return fileCount.get();
     }
 
     public long getDirCount() {
-        return dirCount;
+        return dirCount.get();
     }
 
     public long getTotalSize() {
-        return totalSize;
+        return totalSize.get();
     }
 
 } /* ENDCLASS */
@@ -10,6 +10,7 @@ import java.io.*;
 
 /**
  * A basic implementation of a FileVisitor which allows to use consumers as hooks and can be stopped.
+ * If it's used with a {@link ParallelFileWalker} the hooks are called concurrently.
  *
  * @author daniel.kasmeroglu@kasisoft.com
  */
@@ -20,7 +21,7 @@ public class CustomFileVisitor extends SimpleFileVisitor<Path> {
     private Consumer<Path>                       onPreDirectory;
     private Consumer<Path>                       onFile;
     private Consumer<Path>                       onFileFailed;
-    private boolean                              stop;
+    private volatile boolean                     stop;
 
     public CustomFileVisitor() {
         this.errorHandler    = $ -> FileVisitResult.TERMINATE;
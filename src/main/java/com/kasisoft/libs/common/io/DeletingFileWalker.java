@@ -1,11 +1,15 @@
 package com.kasisoft.libs.common.io;
 
+import static com.kasisoft.libs.common.internal.Messages.*;
+
 import com.kasisoft.libs.common.*;
 
 import jakarta.validation.constraints.*;
 
 import java.util.function.*;
 
+import java.util.concurrent.atomic.*;
+
 import java.nio.file.*;
 
 /**
@@ -15,9 +19,10 @@ public class DeletingFileWalker implements Runnable {
 
     private Path                source;
     private CustomFileVisitor   fsWalker;
-    private long                fileCount;
-    private long                dirCount;
-    private long                totalSize;
+    private int                 parallelism;
+    private AtomicLong          fileCount;
+    private AtomicLong          dirCount;
+    private AtomicLong          totalSize;
 
     public DeletingFileWalker(@NotNull Path source) {
         this(source, null);
@@ -27,30 +32,57 @@ public class DeletingFileWalker implements Runnable {
 
         this.source       = source;
         this.fsWalker     = new CustomFileVisitor();
+        this.parallelism  = 1;
+        this.fileCount    = new AtomicLong();
+        this.dirCount     = new AtomicLong();
+        this.totalSize    = new AtomicLong();
 
         fsWalker.setOnFile($ -> {
-            totalSize += $.toFile().length();
-            fileCount++;
+            totalSize.addAndGet($.toFile().length());
+            fileCount.incrementAndGet();
             IoFunctions.deleteFile($);
         });
 
         fsWalker.setOnPostDirectory($ -> {
-            IoFunctions.deleteDir($);
-            dirCount++;
+            // the content has been deleted already
+            try {
+                Files.delete($);
+            } catch (Exception ex) {
+                throw KclException.wrap(ex, error_failed_to_delete_directory.formatted($));
+            }
+            dirCount.incrementAndGet();
         });
 
         fsWalker.setErrorHandler(errorHandler != null ? errorHandler : ($ex -> FileVisitResult.TERMINATE));
 
     }
 
+    /**
+     * Changes the number of threads used to process the tree.
+     *
+     * @param parallelism
+     *            The number of threads. Values below 2 process the tree within the calling thread.
+     * @see ParallelFileWalker
+     */
+    public void setParallelism(@Min(1) int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
     public synchronized void reset() {
-        fileCount = 0L;
-        dirCount  = 0L;
-        totalSize = 0L;
+        fileCount.set(0L);
+        dirCount.set(0L);
+        totalSize.set(0L);
         fsWalker.reset();
     }
 
-    public synchronized void stop() {
+    /**
+     * Stops the processing. This can be called while {@link #run()} is still active.
+     */
+    public void stop() {
         fsWalker.stop();
     }
 
@@ -58,22 +90,22 @@ public class DeletingFileWalker implements Runnable {
     public synchronized void run() {
         try {
             reset();
-            Files.walkFileTree(source, fsWalker);
+            ParallelFileWalker.walk(source, fsWalker, parallelism);
         } catch (Exception ex) {
             throw KclException.wrap(ex);
         }
     }
 
     public long getFileCount() {
-        return fileCount;
+        return fileCount.get();
     }
 
     public long getDirCount() {
-        return dirCount;
+        return dirCount.get();
     }
 
     public long getTotalSize() {
-        return totalSize;
+        return totalSize.get();
     }
 
 } /* ENDCLASS */
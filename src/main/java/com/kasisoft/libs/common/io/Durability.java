@@ -0,0 +1,20 @@
+package com.kasisoft.libs.common.io;
+
+/**
+ * The guarantees of {@link AtomicFileWriter} after a write has completed. Files are never torn as they
+ * are written to a temporary file which replaces the destination atomically.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public enum Durability {
+
+    /** The data is left to the operating system, so a crash might lose the write. */
+    None,
+
+    /** The content is forced to the storage, but a crash might still lose the replacement. */
+    Data,
+
+    /** The content, the file metadata and the replacement within the directory are forced to the storage. */
+    All;
+
+} /* ENDENUM */
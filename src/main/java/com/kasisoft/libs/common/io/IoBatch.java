@@ -0,0 +1,273 @@
+package com.kasisoft.libs.common.io;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.functional.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+/**
+ * Processes batches of resources (f.e. {@link java.nio.file.Path}, {@link java.net.URI} or
+ * {@link java.net.URL}) asynchronously. Each resource is handled by it's own task which runs on virtual
+ * threads by default, so a batch of many small resources is limited by the I/O parallelism rather than
+ * by the latency of the single accesses. The number of resources which are accessed at the same time is
+ * limited by the concurrency.
+ *
+ * Failures don't abort a batch. They are collected per resource within the {@link Result}, so each
+ * resource may only be contained once. URLs are identified by their external form, so checking and
+ * mapping them doesn't resolve their hosts.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class IoBatch {
+
+    public static final int DEFAULT_CONCURRENCY = 64;
+
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Executor  executor;
+    private Semaphore permits;
+
+    public IoBatch() {
+        executor = VIRTUAL_THREADS;
+        permits  = new Semaphore(DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Changes the executor running the tasks.
+     *
+     * @param executor
+     *            The new executor. <code>null</code> selects virtual threads.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor != null ? executor : VIRTUAL_THREADS;
+    }
+
+    /**
+     * Changes the maximum number of resources which are accessed at the same time. This must not be
+     * changed while tasks are running.
+     *
+     * @param concurrency
+     *            The maximum number of resources which are accessed at the same time.
+     */
+    public void setConcurrency(@Min(1) int concurrency) {
+        permits = new Semaphore(Math.max(1, concurrency));
+    }
+
+    /**
+     * Processes a single resource asynchronously.
+     *
+     * @param source
+     *            The resource which has to be processed.
+     * @param function
+     *            The function processing the resource.
+     * @return The future providing the outcome of the function.
+     */
+    @NotNull
+    public <T, R> CompletableFuture<R> submit(@NotNull T source, @NotNull KFunction<@NotNull T, R> function) {
+        var semaphore = permits;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                semaphore.acquire();
+                try {
+                    return function.apply(source);
+                } finally {
+                    semaphore.release();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw KclException.wrap(ex);
+            } catch (Exception ex) {
+                throw KclException.wrap(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Processes a batch of resources asynchronously.
+     *
+     * @param sources
+     *            The resources which have to be processed.
+     * @param function
+     *            The function processing a single resource.
+     * @return The future providing the outcomes of all resources. It completes when all resources have
+     *         been processed.
+     * @throws KclException
+     *             A resource is contained more than once as the outcomes are associated with the resources.
+     */
+    @NotNull
+    public <T, R> CompletableFuture<Result<T, R>> run(@NotNull Collection<T> sources, @NotNull KFunction<@NotNull T, R> function) {
+        var inputs  = new ArrayList<T>(sources.size());
+        var unique  = new HashSet<Object>();
+        for (var source : sources) {
+            if (!unique.add(IoSupportFunctions.resourceKey(source))) {
+                throw new KclException(error_duplicate_resource.formatted(source));
+            }
+            inputs.add(source);
+        }
+        var futures = new ArrayList<CompletableFuture<R>>(inputs.size());
+        inputs.forEach($ -> futures.add(submit($, function)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).handle(($result, $ex) -> {
+            var values   = new ResourceMap<T, R>();
+            var failures = new ResourceMap<T, Exception>();
+            for (var i = 0; i < inputs.size(); i++) {
+                try {
+                    values.add(inputs.get(i), futures.get(i).join());
+                } catch (CompletionException ex) {
+                    failures.add(inputs.get(i), ex.getCause() instanceof Exception cause ? cause : ex);
+                } catch (CancellationException ex) {
+                    failures.add(inputs.get(i), ex);
+                }
+            }
+            return new Result<>(values, failures);
+        });
+    }
+
+    /**
+     * Loads the content of the supplied resources.
+     *
+     * @param sources
+     *            The resources which have to be loaded.
+     * @return The future providing the contents.
+     * @see IoSupport#loadAllBytes(Object)
+     */
+    @NotNull
+    public <T> CompletableFuture<Result<T, byte[]>> loadAllBytes(@NotNull Collection<T> sources) {
+        return run(sources, $ -> ioSupport($).loadAllBytes($));
+    }
+
+    /**
+     * Loads the text of the supplied resources.
+     *
+     * @param sources
+     *            The resources which have to be loaded.
+     * @param encoding
+     *            The encoding to use. <code>null</code> selects the default encoding.
+     * @return The future providing the texts.
+     * @see IoSupport#readText(Object, Encoding)
+     */
+    @NotNull
+    public <T> CompletableFuture<Result<T, String>> readText(@NotNull Collection<T> sources, Encoding encoding) {
+        return run(sources, $ -> ioSupport($).readText($, encoding));
+    }
+
+    /**
+     * Saves the supplied contents.
+     *
+     * @param contents
+     *            The contents per destination.
+     * @return The future providing the number of written bytes per destination.
+     * @see IoSupport#saveBytes(Object, byte[])
+     */
+    @NotNull
+    public <T> CompletableFuture<Result<T, Integer>> saveBytes(@NotNull Map<T, byte[]> contents) {
+        return run(contents.keySet(), $ -> {
+            var data = contents.get($);
+            ioSupport($).saveBytes($, data);
+            return data.length;
+        });
+    }
+
+    /**
+     * Saves the supplied texts.
+     *
+     * @param texts
+     *            The texts per destination.
+     * @param encoding
+     *            The encoding to use. <code>null</code> selects the default encoding.
+     * @return The future providing the number of written characters per destination.
+     * @see IoSupport#writeText(Object, Encoding, String)
+     */
+    @NotNull
+    public <T> CompletableFuture<Result<T, Integer>> writeText(@NotNull Map<T, String> texts, Encoding encoding) {
+        return run(texts.keySet(), $ -> {
+            var text = texts.get($);
+            ioSupport($).writeText($, encoding, text);
+            return text.length();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    @NotNull
+    private static <T> IoSupport<T> ioSupport(@NotNull T resource) {
+        var result = IoSupportFunctions.ioSupport(resource.getClass());
+        if (result == null) {
+            throw new KclException(error_no_io_support.formatted(resource));
+        }
+        return result;
+    }
+
+    /**
+     * An unmodifiable map which identifies it's resources by their keys, so URLs are not compared
+     * through their hosts.
+     *
+     * @see IoSupportFunctions#resourceKey(Object)
+     */
+    private static class ResourceMap<T, V> extends AbstractMap<T, V> {
+
+        private Map<Object, Map.Entry<T, V>> entries = new LinkedHashMap<>();
+
+        void add(@NotNull T resource, V value) {
+            entries.put(IoSupportFunctions.resourceKey(resource), new AbstractMap.SimpleImmutableEntry<>(resource, value));
+        }
+
+        @Override
+        public V get(Object resource) {
+            var entry = resource != null ? entries.get(IoSupportFunctions.resourceKey(resource)) : null;
+            return entry != null ? entry.getValue() : null;
+        }
+
+        @Override
+        public boolean containsKey(Object resource) {
+            return (resource != null) && entries.containsKey(IoSupportFunctions.resourceKey(resource));
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public Set<Map.Entry<T, V>> entrySet() {
+            return new AbstractSet<>() {
+
+                @Override
+                public Iterator<Map.Entry<T, V>> iterator() {
+                    return Collections.unmodifiableCollection(entries.values()).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+
+            };
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * The outcome of a batch in the order of the supplied resources.
+     *
+     * @param values
+     *            The values of the resources which have been processed successfully.
+     * @param failures
+     *            The causes for the resources which failed.
+     */
+    public record Result<T, R>(@NotNull Map<T, R> values, @NotNull Map<T, Exception> failures) {
+
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+    } /* ENDRECORD */
+
+} /* ENDCLASS */
@@ -14,14 +14,20 @@ import jakarta.validation.constraints.*;
 
 import java.util.stream.*;
 
+import java.util.concurrent.*;
+
 import java.util.regex.Pattern;
 
 import java.util.zip.*;
 
 import java.util.*;
 
+import java.nio.channels.*;
+
 import java.nio.file.*;
 
+import java.nio.*;
+
 import java.net.*;
 
 import java.io.*;
@@ -134,7 +140,30 @@ public class IoFunctions {
         copy(instream, outstream, 8192);
     }
 
+    /**
+     * Copies the content of a stream into another one. If one of the streams is backed by a file the
+     * channels are used, so the copying can be performed by the operating system.
+     *
+     * @param instream
+     *            The stream providing the data.
+     * @param outstream
+     *            The stream receiving the data.
+     * @param blockSize
+     *            The size of the buffer used if the data must be copied manually.
+     */
     public static void copy(@NotNull InputStream instream, @NotNull OutputStream outstream, @Min(1) int blockSize) {
+        if ((instream instanceof FileInputStream fileIn) && (outstream instanceof FileOutputStream fileOut)) {
+            copy(fileIn.getChannel(), fileOut.getChannel(), blockSize);
+        } else if (instream instanceof FileInputStream fileIn) {
+            copy(fileIn.getChannel(), Channels.newChannel(outstream), blockSize);
+        } else if (outstream instanceof FileOutputStream fileOut) {
+            copy(Channels.newChannel(instream), fileOut.getChannel(), blockSize);
+        } else {
+            copyStream(instream, outstream, blockSize);
+        }
+    }
+
+    private static void copyStream(@NotNull InputStream instream, @NotNull OutputStream outstream, @Min(1) int blockSize) {
         Buffers.byteArray().forInstanceDo(blockSize, $ -> {
             try {
                 int read = instream.read($);
@@ -150,6 +179,95 @@ public class IoFunctions {
         });
     }
 
+    public static long copy(@NotNull ReadableByteChannel source, @NotNull WritableByteChannel destination) {
+        return copy(source, destination, 8192);
+    }
+
+    /**
+     * Copies the remaining content of a channel into another one. If one of them is a {@link FileChannel}
+     * the data is transferred using {@link FileChannel#transferTo(long, long, WritableByteChannel)} or
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}, so the operating system can copy
+     * it without passing it through the heap (f.e. sendfile or copy_file_range). Files which don't report
+     * a size (f.e. procfs files, pipes or devices) are copied manually. The positions of file channels are
+     * advanced by the number of copied bytes. The channels must be in blocking mode.
+     *
+     * @param source
+     *            The channel providing the data.
+     * @param destination
+     *            The channel receiving the data.
+     * @param blockSize
+     *            The size of the buffer used if the data must be copied manually.
+     * @return The number of copied bytes.
+     */
+    public static long copy(@NotNull ReadableByteChannel source, @NotNull WritableByteChannel destination, @Min(1) int blockSize) {
+        try {
+            if (source instanceof FileChannel fileSource) {
+                return transferTo(fileSource, destination, blockSize);
+            } else if (destination instanceof FileChannel fileDestination) {
+                return transferFrom(source, fileDestination, blockSize);
+            } else {
+                return copyChannel(source, destination, blockSize);
+            }
+        } catch (Exception ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    private static long transferTo(@NotNull FileChannel source, @NotNull WritableByteChannel destination, int blockSize) throws IOException {
+        var size     = source.size();
+        if (size <= 0) {
+            // the content of pseudo files, pipes or devices is only known after reading it
+            return copyChannel(source, destination, blockSize);
+        }
+        var start    = source.position();
+        var position = start;
+        while (position < size) {
+            var transferred = source.transferTo(position, size - position, destination);
+            if (transferred <= 0) {
+                // the file has been truncated in the meantime
+                break;
+            }
+            position += transferred;
+        }
+        source.position(position);
+        // the file might have grown in the meantime or reported a wrong size
+        return (position - start) + copyChannel(source, destination, blockSize);
+    }
+
+    private static long transferFrom(@NotNull ReadableByteChannel source, @NotNull FileChannel destination, int blockSize) throws IOException {
+        var start       = destination.position();
+        var position    = start;
+        // the count is only an upper limit for each call, so large blocks reduce the number of calls
+        var count       = Math.max(blockSize, 1024 * 1024);
+        var transferred = destination.transferFrom(source, position, count);
+        while (transferred > 0) {
+            position   += transferred;
+            transferred = destination.transferFrom(source, position, count);
+        }
+        destination.position(position);
+        return position - start;
+    }
+
+    private static long copyChannel(@NotNull ReadableByteChannel source, @NotNull WritableByteChannel destination, int blockSize) {
+        return Buffers.byteArray().forInstance(blockSize, $ -> {
+            try {
+                var buffer = ByteBuffer.wrap($);
+                var result = 0L;
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    result += buffer.remaining();
+                    while (buffer.hasRemaining()) {
+                        destination.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                return result;
+            } catch (Exception ex) {
+                throw KclException.wrap(ex);
+            }
+        });
+    }
+
     public static void copy(@NotNull Reader reader, @NotNull Writer writer) {
         copy(reader, writer, 8192);
     }
@@ -325,6 +443,42 @@ public class IoFunctions {
         return result;
     }
 
+    /**
+     * GZIPs the supplied file while compressing blocks of it concurrently. Preexisting files will be
+     * overwritten.
+     *
+     * @param source
+     *            The file which has to be gzipped.
+     * @param destination
+     *            The gziped file. If null it's the input file plus a suffix '.gz'
+     * @param pool
+     *            The pool executing the workers. <code>null</code> selects the common pool.
+     * @return The gzipped file.
+     * @see ParallelGzipOutputStream
+     */
+    @NotNull
+    public static Path gzip(@NotNull Path source, Path destination, ForkJoinPool pool) {
+        source = source.normalize();
+        var result = destination;
+        if (result == null) {
+            result = buildDefaultGzippedPath(source);
+        }
+        result = result.normalize();
+        if (source.compareTo(result) == 0) {
+            // we need to do an inline compression
+            IoSupportFunctions.saveBytes(result, loadGzipped(source));
+        } else {
+            try (var instream = Files.newInputStream(source);
+                var rawstream = IoSupportFunctions.newOutputStream(result);
+                var outstream = new ParallelGzipOutputStream(rawstream, Deflater.DEFAULT_COMPRESSION, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, pool);) {
+                copy(instream, outstream, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+            } catch (Exception ex) {
+                throw KclException.wrap(ex, error_failed_to_gzip.formatted(source, result));
+            }
+        }
+        return result;
+    }
+
     @NotNull
     private static Path buildDefaultGzippedPath(@NotNull Path source) {
         var parentDir = source.toAbsolutePath().getParent();
@@ -404,6 +558,24 @@ public class IoFunctions {
         return parentDir.resolve(fileName).normalize();
     }
 
+    /**
+     * Opens a stream providing the decompressed content of a gzipped file. Unlike
+     * {@link #loadUngzipped(Path)} the content is decompressed while it's being read. Files consisting of
+     * several gzip members are supported.
+     *
+     * @param source
+     *            The gzipped file.
+     * @return The stream providing the decompressed content. Must be closed.
+     */
+    @NotNull
+    public static InputStream newUngzippedInputStream(@NotNull Path source) {
+        try {
+            return new GZIPInputStream(Files.newInputStream(source), 65536);
+        } catch (Exception ex) {
+            throw KclException.wrap(ex, error_failed_to_ungzip.formatted(source));
+        }
+    }
+
     @NotNull
     public static byte[] loadUngzipped(@NotNull Path source) {
         return Buckets.byteArrayOutputStream().forInstance($byteout -> {
@@ -469,12 +641,28 @@ public class IoFunctions {
     }
 
     public static void copyDir(@NotNull Path source, @NotNull Path destination) {
+        copyDir(source, destination, 1);
+    }
+
+    /**
+     * Copies a directory tree.
+     *
+     * @param source
+     *            The directory which shall be copied.
+     * @param destination
+     *            The destination directory.
+     * @param parallelism
+     *            The number of threads copying the tree. Values below 2 copy within the current thread.
+     */
+    public static void copyDir(@NotNull Path source, @NotNull Path destination, @Min(1) int parallelism) {
 
         if (!Files.isDirectory(source)) {
             throw new KclException(error_directory_does_not_exist.formatted(source));
         }
 
-        new CopyingFileWalker(source, destination).run();
+        var walker = new CopyingFileWalker(source, destination);
+        walker.setParallelism(parallelism);
+        walker.run();
 
     }
 
@@ -494,6 +682,20 @@ public class IoFunctions {
     }
 
     public static void moveDir(@NotNull Path source, @NotNull Path destination) {
+        moveDir(source, destination, 1);
+    }
+
+    /**
+     * Moves a directory tree. If both locations share the same root the directory is simply renamed.
+     *
+     * @param source
+     *            The directory which shall be moved.
+     * @param destination
+     *            The destination directory.
+     * @param parallelism
+     *            The number of threads moving the tree. Values below 2 move within the current thread.
+     */
+    public static void moveDir(@NotNull Path source, @NotNull Path destination, @Min(1) int parallelism) {
 
         try {
 
@@ -509,7 +711,9 @@ public class IoFunctions {
                 Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
 
             } else {
-                new MovingFileWalker(source, destination).run();
+                var walker = new MovingFileWalker(source, destination);
+                walker.setParallelism(parallelism);
+                walker.run();
             }
 
         } catch (Exception ex) {
@@ -545,8 +749,22 @@ public class IoFunctions {
     }
 
     public static void deleteDir(@NotNull Path dir) {
+        deleteDir(dir, 1);
+    }
+
+    /**
+     * Deletes a directory tree.
+     *
+     * @param dir
+     *            The directory which shall be deleted.
+     * @param parallelism
+     *            The number of threads deleting the tree. Values below 2 delete within the current thread.
+     */
+    public static void deleteDir(@NotNull Path dir, @Min(1) int parallelism) {
         if (Files.isDirectory(dir)) {
-            new DeletingFileWalker(dir).run();
+            var walker = new DeletingFileWalker(dir);
+            walker.setParallelism(parallelism);
+            walker.run();
         }
     }
 
@@ -609,6 +827,42 @@ public class IoFunctions {
 
     }
 
+    /**
+     * Lists all entries of a directory tree lazily.
+     *
+     * @param start
+     *            The base path.
+     * @return A lazily populated stream of the entries (directories precede their content). Must be
+     *         closed.
+     * @see StreamingFileWalker
+     */
+    @NotNull
+    public static Stream<@NotNull Path> streamPathes(@NotNull Path start) {
+        return streamPathes(start, null, true);
+    }
+
+    /**
+     * Lists the entries of a directory tree lazily.
+     *
+     * @param start
+     *            The base path.
+     * @param pattern
+     *            A filesystem pattern used to accept the relative path. Maybe <code>null</code>.
+     * @param includeDirs
+     *            <code>true</code> Include directories in the result.
+     * @return A lazily populated stream of the entries (directories precede their content). Must be
+     *         closed.
+     * @see StreamingFileWalker
+     * @see #compileFilesystemPattern(String)
+     */
+    @NotNull
+    public static Stream<@NotNull Path> streamPathes(@NotNull Path start, String pattern, boolean includeDirs) {
+        var walker = new StreamingFileWalker(start);
+        walker.setPattern(pattern);
+        walker.setIncludeDirs(includeDirs);
+        return walker.stream();
+    }
+
     /**
      * Executes some function per entry (unless rejected).
      *
@@ -716,6 +970,49 @@ public class IoFunctions {
         });
     }
 
+    /**
+     * Extracts a zip file using the workers of the supplied pool.
+     *
+     * @param zipFile
+     *            The zip file which shall be extracted.
+     * @param destination
+     *            The directory receiving the content.
+     * @param encoding
+     *            The encoding of the entry names. Maybe <code>null</code>.
+     * @param filter
+     *            A filter used to select the entries. Maybe <code>null</code>.
+     * @param pool
+     *            The pool executing the workers. <code>null</code> selects the common pool.
+     * @see ParallelArchiver
+     */
+    public static void unzip(@NotNull Path zipFile, @NotNull Path destination, Encoding encoding, KPredicate<@NotNull ZipEntry> filter, ForkJoinPool pool) {
+        var archiver = new ParallelArchiver();
+        archiver.setEncoding(encoding);
+        archiver.setFilter(filter);
+        archiver.setPool(pool);
+        archiver.unzip(zipFile, destination);
+    }
+
+    /**
+     * Creates a zip file using the workers of the supplied pool for the compression.
+     *
+     * @param zipFile
+     *            The zip file which shall be created.
+     * @param source
+     *            The directory providing the content.
+     * @param encoding
+     *            The encoding of the entry names. Maybe <code>null</code>.
+     * @param pool
+     *            The pool executing the workers. <code>null</code> selects the common pool.
+     * @see ParallelArchiver
+     */
+    public static void zip(@NotNull Path zipFile, @NotNull Path source, Encoding encoding, ForkJoinPool pool) {
+        var archiver = new ParallelArchiver();
+        archiver.setEncoding(encoding);
+        archiver.setPool(pool);
+        archiver.zip(zipFile, source);
+    }
+
     public static void zip(@NotNull Path zipFile, @NotNull Path source, Encoding encoding) {
         var charset = encoding != null ? encoding.getCharset() : Encoding.IBM437.getCharset();
         var pathes  = listPathes(source);
@@ -12,6 +12,8 @@ import com.kasisoft.libs.common.*;
 
 import jakarta.validation.constraints.*;
 
+import java.nio.channels.*;
+
 import java.io.*;
 
 /**
@@ -25,6 +27,24 @@ public interface IoSupport<T> {
     @NotNull
     OutputStream newOutputStreamImpl(@NotNull T destination) throws Exception;
 
+    /**
+     * Opens a channel for reading. Implementations backed by files should return a {@link FileChannel},
+     * so transfers can be performed by the operating system.
+     */
+    @NotNull
+    default ReadableByteChannel newReadableChannelImpl(@NotNull T source) throws Exception {
+        return Channels.newChannel(newInputStreamImpl(source));
+    }
+
+    /**
+     * Opens a channel for writing. Implementations backed by files should return a {@link FileChannel},
+     * so transfers can be performed by the operating system.
+     */
+    @NotNull
+    default WritableByteChannel newWritableChannelImpl(@NotNull T destination) throws Exception {
+        return Channels.newChannel(newOutputStreamImpl(destination));
+    }
+
     @NotNull
     default InputStream newInputStream(@NotNull T source) {
         try {
@@ -143,6 +163,94 @@ public interface IoSupport<T> {
         }
     }
 
+    /**
+     * Transfers the content of a resource into a channel (f.e. a socket).
+     *
+     * @param source
+     *            The resource providing the data.
+     * @param destination
+     *            The channel receiving the data. It's not being closed.
+     * @return The number of transferred bytes.
+     * @see IoFunctions#copy(ReadableByteChannel, WritableByteChannel)
+     */
+    default long transfer(@NotNull T source, @NotNull WritableByteChannel destination) {
+        try (var channel = newReadableChannelImpl(source)) {
+            return IoFunctions.copy(channel, destination);
+        } catch (Exception ex) {
+            throw new KclException(ex, error_failed_to_read_from.formatted(source));
+        }
+    }
+
+    /**
+     * Transfers the content of a channel into a resource.
+     *
+     * @param source
+     *            The channel providing the data. It's not being closed.
+     * @param destination
+     *            The resource receiving the data.
+     * @return The number of transferred bytes.
+     * @see IoFunctions#copy(ReadableByteChannel, WritableByteChannel)
+     */
+    default long transfer(@NotNull ReadableByteChannel source, @NotNull T destination) {
+        try (var channel = newWritableChannelImpl(destination)) {
+            return IoFunctions.copy(source, channel);
+        } catch (Exception ex) {
+            throw new KclException(ex, error_failed_to_write_to.formatted(destination));
+        }
+    }
+
+    /**
+     * Transfers the content of a resource into another one.
+     *
+     * @param source
+     *            The resource providing the data.
+     * @param destination
+     *            The resource receiving the data.
+     * @return The number of transferred bytes.
+     * @see IoFunctions#copy(ReadableByteChannel, WritableByteChannel)
+     */
+    default long transfer(@NotNull T source, @NotNull T destination) {
+        try (var channel = newReadableChannelImpl(source)) {
+            return transfer(channel, destination);
+        } catch (Exception ex) {
+            throw new KclException(ex, error_failed_to_read_from.formatted(source));
+        }
+    }
+
+    /**
+     * Returns a cheap indicator for the state of a resource which changes whenever it's content changes
+     * (f.e. the modification time and size of a file).
+     *
+     * @param source
+     *            The resource which version is requested.
+     * @return The version of the resource. <code>null</code> if it cannot be determined.
+     * @see CachingIoSupport
+     */
+    default Object getVersion(@NotNull T source) {
+        return null;
+    }
+
+    /**
+     * Maps the content of a resource into memory which allows random access without reopening the
+     * resource. Only resources located on a filesystem can be mapped.
+     *
+     * @param source
+     *            The resource providing the data.
+     * @return The mapped content. Must be closed.
+     * @see MappedView
+     */
+    @NotNull
+    default MappedView newMappedView(@NotNull T source) {
+        try (var channel = newReadableChannelImpl(source)) {
+            if (channel instanceof FileChannel fileChannel) {
+                return new MappedView(fileChannel, MappedView.DEFAULT_SEGMENT_SIZE);
+            }
+        } catch (Exception ex) {
+            throw new KclException(ex, error_failed_to_read_from.formatted(source));
+        }
+        throw new KclException(error_no_mapping_support.formatted(source));
+    }
+
     @NotNull
     default byte[] loadBytes(@NotNull T source, @Min(1) int size) {
         return loadBytes(source, 0, size);
@@ -8,6 +8,12 @@ import com.kasisoft.libs.common.io.impl.*;
 
 import jakarta.validation.constraints.*;
 
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
 import java.nio.file.*;
 
 import java.net.*;
@@ -25,6 +31,7 @@ public class IoSupportFunctions {
     private static IoSupport<File> IO_FILE;
     private static IoSupport<URI>  IO_URI;
     private static IoSupport<URL>  IO_URL;
+    private static ResourceCache   CACHE;
 
     private static synchronized IoSupport<Path> ioPath() {
         if (IO_PATH == null) {
@@ -54,6 +61,59 @@ public class IoSupportFunctions {
         return IO_URL;
     }
 
+    /**
+     * Returns a key which identifies a resource within hash based collections. The equality of a
+     * {@link URL} depends on the resolved host which might block, so it's identified by it's external
+     * form instead.
+     *
+     * @param resource
+     *            The resource which has to be identified.
+     * @return The key of the resource.
+     */
+    @NotNull
+    static Object resourceKey(@NotNull Object resource) {
+        return resource instanceof URL url ? new UrlKey(url.toExternalForm()) : resource;
+    }
+
+    /**
+     * Enables the caching of {@link IoSupport#loadAllBytes(Object)} and {@link IoSupport#readText(Object)}
+     * for all supported resources. A previously enabled cache is being replaced.
+     *
+     * @param maxSize
+     *            The maximum total size of all cached contents in bytes.
+     * @return The cache providing the statistics.
+     * @see CachingIoSupport
+     */
+    @NotNull
+    public static synchronized ResourceCache enableCache(@Min(1) long maxSize) {
+        CACHE   = new ResourceCache(maxSize);
+        IO_PATH = new CachingIoSupport<>(new PathIoSupport(), CACHE);
+        IO_FILE = new CachingIoSupport<>(new FileIoSupport(), CACHE);
+        IO_URI  = new CachingIoSupport<>(new URIIoSupport(), CACHE);
+        IO_URL  = new CachingIoSupport<>(new URLIoSupport(), CACHE);
+        return CACHE;
+    }
+
+    /**
+     * Disables the caching of contents.
+     */
+    public static synchronized void disableCache() {
+        CACHE   = null;
+        IO_PATH = null;
+        IO_FILE = null;
+        IO_URI  = null;
+        IO_URL  = null;
+    }
+
+    /**
+     * Returns the cache for contents if it has been enabled.
+     *
+     * @return The cache for contents. <code>null</code> if it's disabled.
+     */
+    public static synchronized ResourceCache getCache() {
+        return CACHE;
+    }
+
     @SuppressWarnings("rawtypes")
     public static IoSupport ioSupport(@NotNull Class<?> clazz) {
         if (File.class.isAssignableFrom(clazz)) {
@@ -1048,4 +1108,201 @@ public class IoSupportFunctions {
         ioURI().writeText(destination, encoding, text);
     }
 
+    /**
+     * @see IoSupport#transfer(Object, WritableByteChannel)
+     */
+    public static long transfer(@NotNull Path source, @NotNull WritableByteChannel destination) {
+        return ioPath().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(Object, WritableByteChannel)
+     */
+    public static long transfer(@NotNull File source, @NotNull WritableByteChannel destination) {
+        return ioFile().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(Object, WritableByteChannel)
+     */
+    public static long transfer(@NotNull URI source, @NotNull WritableByteChannel destination) {
+        return ioURI().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(Object, WritableByteChannel)
+     */
+    public static long transfer(@NotNull URL source, @NotNull WritableByteChannel destination) {
+        return ioURL().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(ReadableByteChannel, Object)
+     */
+    public static long transfer(@NotNull ReadableByteChannel source, @NotNull Path destination) {
+        return ioPath().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(ReadableByteChannel, Object)
+     */
+    public static long transfer(@NotNull ReadableByteChannel source, @NotNull File destination) {
+        return ioFile().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(ReadableByteChannel, Object)
+     */
+    public static long transfer(@NotNull ReadableByteChannel source, @NotNull URI destination) {
+        return ioURI().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(Object, Object)
+     */
+    public static long transfer(@NotNull Path source, @NotNull Path destination) {
+        return ioPath().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(Object, Object)
+     */
+    public static long transfer(@NotNull File source, @NotNull File destination) {
+        return ioFile().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#transfer(Object, Object)
+     */
+    public static long transfer(@NotNull URI source, @NotNull URI destination) {
+        return ioURI().transfer(source, destination);
+    }
+
+    /**
+     * @see IoSupport#newMappedView(Object)
+     */
+    public static MappedView newMappedView(@NotNull Path source) {
+        return ioPath().newMappedView(source);
+    }
+
+    /**
+     * @see IoSupport#newMappedView(Object)
+     */
+    public static MappedView newMappedView(@NotNull File source) {
+        return ioFile().newMappedView(source);
+    }
+
+    /**
+     * @see IoSupport#newMappedView(Object)
+     */
+    public static MappedView newMappedView(@NotNull URI source) {
+        return ioURI().newMappedView(source);
+    }
+
+    /**
+     * @see IoSupport#newMappedView(Object)
+     */
+    public static MappedView newMappedView(@NotNull URL source) {
+        return ioURL().newMappedView(source);
+    }
+
+    /**
+     * @see IoBatch#loadAllBytes(Collection)
+     */
+    public static <T> CompletableFuture<IoBatch.Result<T, byte[]>> loadAllBytes(@NotNull Collection<T> sources) {
+        return new IoBatch().loadAllBytes(sources);
+    }
+
+    /**
+     * @see IoBatch#readText(Collection, Encoding)
+     */
+    public static <T> CompletableFuture<IoBatch.Result<T, String>> readText(@NotNull Collection<T> sources, Encoding encoding) {
+        return new IoBatch().readText(sources, encoding);
+    }
+
+    /**
+     * @see IoBatch#saveBytes(Map)
+     */
+    public static <T> CompletableFuture<IoBatch.Result<T, Integer>> saveBytes(@NotNull Map<T, byte[]> contents) {
+        return new IoBatch().saveBytes(contents);
+    }
+
+    /**
+     * @see IoBatch#writeText(Map, Encoding)
+     */
+    public static <T> CompletableFuture<IoBatch.Result<T, Integer>> writeText(@NotNull Map<T, String> texts, Encoding encoding) {
+        return new IoBatch().writeText(texts, encoding);
+    }
+
+    /**
+     * Writes atomically. Symbolic links are kept while hard links of the destination keep the previous
+     * content.
+     *
+     * @see AtomicFileWriter#saveBytes(Path, byte[])
+     */
+    public static void saveBytes(@NotNull Path destination, @NotNull byte[] data, @NotNull Durability durability) {
+        atomicFileWriter(durability).saveBytes(destination, data);
+    }
+
+    /**
+     * Writes atomically. Symbolic links are kept while hard links of the destination keep the previous
+     * content.
+     *
+     * @see AtomicFileWriter#saveBytes(Path, byte[])
+     */
+    public static void saveBytes(@NotNull File destination, @NotNull byte[] data, @NotNull Durability durability) {
+        atomicFileWriter(durability).saveBytes(destination.toPath(), data);
+    }
+
+    /**
+     * Writes atomically. Symbolic links are kept while hard links of the destination keep the previous
+     * content.
+     *
+     * @see AtomicFileWriter#saveChars(Path, Encoding, char[])
+     */
+    public static void saveChars(@NotNull Path destination, Encoding encoding, @NotNull char[] data, @NotNull Durability durability) {
+        atomicFileWriter(durability).saveChars(destination, encoding, data);
+    }
+
+    /**
+     * Writes atomically. Symbolic links are kept while hard links of the destination keep the previous
+     * content.
+     *
+     * @see AtomicFileWriter#saveChars(Path, Encoding, char[])
+     */
+    public static void saveChars(@NotNull File destination, Encoding encoding, @NotNull char[] data, @NotNull Durability durability) {
+        atomicFileWriter(durability).saveChars(destination.toPath(), encoding, data);
+    }
+
+    /**
+     * Writes atomically. Symbolic links are kept while hard links of the destination keep the previous
+     * content.
+     *
+     * @see AtomicFileWriter#writeText(Path, Encoding, String)
+     */
+    public static void writeText(@NotNull Path destination, Encoding encoding, @NotNull String text, @NotNull Durability durability) {
+        atomicFileWriter(durability).writeText(destination, encoding, text);
+    }
+
+    /**
+     * Writes atomically. Symbolic links are kept while hard links of the destination keep the previous
+     * content.
+     *
+     * @see AtomicFileWriter#writeText(Path, Encoding, String)
+     */
+    public static void writeText(@NotNull File destination, Encoding encoding, @NotNull String text, @NotNull Durability durability) {
+        atomicFileWriter(durability).writeText(destination.toPath(), encoding, text);
+    }
+
+    // concurrent callers share the forces of their directories
+    private static AtomicFileWriter atomicFileWriter(@NotNull Durability durability) {
+        var result = new AtomicFileWriter();
+        result.setDurability(durability);
+        result.setGroupCommit(true);
+        return result;
+    }
+
+    private record UrlKey(@NotNull String externalForm) {
+    } /* ENDRECORD */
+
 } /* ENDCLASS */
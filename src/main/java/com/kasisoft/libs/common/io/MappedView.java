@@ -0,0 +1,248 @@
+package com.kasisoft.libs.common.io;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.file.*;
+
+import java.nio.*;
+
+import java.io.*;
+
+/**
+ * A long-lived read-only memory mapping of a file which allows random access without opening the file or
+ * skipping content for each read. Files exceeding the size of a single mapping (1GB by default) are split into
+ * several segments. All reads are positional, so a view can be shared between threads without any
+ * locking.
+ *
+ * The content is expected to be stable while it's mapped. Changes of the file size after the view has
+ * been created are not reflected.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class MappedView implements Closeable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private long                  size;
+    private int                   segmentSize;
+    private volatile ByteBuffer[] segments;
+
+    public MappedView(@NotNull Path path) {
+        this(path, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedView(@NotNull Path path, @Min(1) int segmentSize) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            map(channel, segmentSize);
+        } catch (IOException ex) {
+            throw new KclException(ex, error_failed_to_read_from.formatted(path));
+        }
+    }
+
+    /**
+     * Maps the content of the supplied channel.
+     *
+     * @param channel
+     *            The channel providing the content. It can be closed afterwards as the mapping stays
+     *            valid.
+     * @param segmentSize
+     *            The maximum size of a single mapping.
+     * @throws IOException
+     *             Mapping the content failed.
+     */
+    public MappedView(@NotNull FileChannel channel, @Min(1) int segmentSize) throws IOException {
+        map(channel, segmentSize);
+    }
+
+    private void map(@NotNull FileChannel channel, int segmentSize) throws IOException {
+        var length  = channel.size();
+        var segment = Math.max(1, segmentSize);
+        var count   = (int) ((length + segment - 1) / segment);
+        var mapped  = new ByteBuffer[count];
+        for (var i = 0; i < count; i++) {
+            var start = (long) i * segment;
+            mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(segment, length - start));
+        }
+        this.size        = length;
+        this.segmentSize = segment;
+        this.segments    = mapped;
+    }
+
+    /**
+     * Returns the size of the mapped content.
+     *
+     * @return The size of the mapped content.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of mappings used for the content.
+     *
+     * @return The number of mappings used for the content.
+     */
+    public int getSegmentCount() {
+        return segments().length;
+    }
+
+    /**
+     * Returns the byte at the supplied position.
+     *
+     * @param position
+     *            The location within the content.
+     * @return The byte at the supplied position.
+     */
+    public byte get(@Min(0) long position) {
+        Objects.checkIndex(position, size);
+        return segments()[(int) (position / segmentSize)].get((int) (position % segmentSize));
+    }
+
+    /**
+     * Returns the big endian int at the supplied position.
+     *
+     * @param position
+     *            The location within the content.
+     * @return The int at the supplied position.
+     */
+    public int getInt(@Min(0) long position) {
+        Objects.checkFromIndexSize(position, Integer.BYTES, size);
+        var segment = segments()[(int) (position / segmentSize)];
+        var index   = (int) (position % segmentSize);
+        if (index + Integer.BYTES <= segment.limit()) {
+            return segment.getInt(index);
+        }
+        return (int) getNumber(position, Integer.BYTES);
+    }
+
+    /**
+     * Returns the big endian long at the supplied position.
+     *
+     * @param position
+     *            The location within the content.
+     * @return The long at the supplied position.
+     */
+    public long getLong(@Min(0) long position) {
+        Objects.checkFromIndexSize(position, Long.BYTES, size);
+        var segment = segments()[(int) (position / segmentSize)];
+        var index   = (int) (position % segmentSize);
+        if (index + Long.BYTES <= segment.limit()) {
+            return segment.getLong(index);
+        }
+        return getNumber(position, Long.BYTES);
+    }
+
+    // values crossing the border of two segments
+    private long getNumber(long position, int bytes) {
+        var result = 0L;
+        for (var i = 0; i < bytes; i++) {
+            result = (result << 8) | (get(position + i) & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * Copies the content at the supplied position into a buffer.
+     *
+     * @param position
+     *            The location within the content.
+     * @param buffer
+     *            The buffer receiving the content.
+     * @param offset
+     *            The offset within the buffer.
+     * @param length
+     *            The maximum number of bytes to be copied.
+     * @return The number of copied bytes or -1 if the position is located at the end of the content.
+     */
+    public int read(@Min(0) long position, @NotNull byte[] buffer, @Min(0) int offset, @Min(0) int length) {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        var mapped = segments();
+        if (position < 0) {
+            throw new IndexOutOfBoundsException(String.valueOf(position));
+        }
+        if (position >= size) {
+            return length == 0 ? 0 : -1;
+        }
+        var result = (int) Math.min(length, size - position);
+        var copied = 0;
+        while (copied < result) {
+            var current = position + copied;
+            var segment = mapped[(int) (current / segmentSize)];
+            var index   = (int) (current % segmentSize);
+            var chunk   = Math.min(result - copied, segment.limit() - index);
+            // absolute bulk reads don't touch the position, so they don't interfere with other threads
+            segment.get(index, buffer, offset + copied, chunk);
+            copied     += chunk;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of the content at the supplied position.
+     *
+     * @param position
+     *            The location within the content.
+     * @param length
+     *            The number of bytes to be copied.
+     * @return The content. It's shorter if the end of the content has been reached.
+     */
+    @NotNull
+    public byte[] read(@Min(0) long position, @Min(0) int length) {
+        var available = (int) Math.max(0L, Math.min(length, size - position));
+        var result    = new byte[available];
+        read(position, result, 0, available);
+        return result;
+    }
+
+    /**
+     * Returns a read-only buffer for a part of the content. The buffer shares the mapped memory, so
+     * nothing is being copied unless the part spans two segments.
+     *
+     * @param position
+     *            The location within the content.
+     * @param length
+     *            The size of the part.
+     * @return The read-only buffer for the part of the content.
+     */
+    @NotNull
+    public ByteBuffer slice(@Min(0) long position, @Min(0) int length) {
+        Objects.checkFromIndexSize(position, length, size);
+        var mapped  = segments();
+        if (length == 0) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+        var segment = mapped[(int) (position / segmentSize)];
+        var index   = (int) (position % segmentSize);
+        if (index + length <= segment.limit()) {
+            return segment.slice(index, length).asReadOnlyBuffer();
+        }
+        return ByteBuffer.wrap(read(position, length)).asReadOnlyBuffer();
+    }
+
+    @NotNull
+    private ByteBuffer[] segments() {
+        var result = segments;
+        if (result == null) {
+            throw new IllegalStateException(error_mapped_view_closed);
+        }
+        return result;
+    }
+
+    /**
+     * Releases the mappings. The memory is unmapped as soon as the buffers are no longer referenced
+     * (including slices).
+     */
+    @Override
+    public void close() {
+        segments = null;
+    }
+
+} /* ENDCLASS */
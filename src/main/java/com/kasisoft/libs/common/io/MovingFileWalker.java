@@ -6,6 +6,8 @@ import jakarta.validation.constraints.*;
 
 import java.util.function.*;
 
+import java.util.concurrent.atomic.*;
+
 import java.nio.file.*;
 
 /**
@@ -13,11 +15,12 @@ import java.nio.file.*;
  */
 public class MovingFileWalker implements Runnable {
 
-    private Path                                 source;
-    private CustomFileVisitor                    fsWalker;
-    private long                                 fileCount;
-    private long                                 dirCount;
-    private long                                 totalSize;
+    private Path                source;
+    private CustomFileVisitor   fsWalker;
+    private int                 parallelism;
+    private AtomicLong          fileCount;
+    private AtomicLong          dirCount;
+    private AtomicLong          totalSize;
 
     public MovingFileWalker(@NotNull Path source, @NotNull Path destination) {
         this(source, destination, null);
@@ -27,31 +30,53 @@ public class MovingFileWalker implements Runnable {
 
         this.source       = source;
         this.fsWalker     = new CustomFileVisitor();
+        this.parallelism  = 1;
+        this.fileCount    = new AtomicLong();
+        this.dirCount     = new AtomicLong();
+        this.totalSize    = new AtomicLong();
 
         fsWalker.setOnPreDirectory($ -> {
             var destDir = destination.resolve(source.relativize($));
             IoFunctions.mkDirs(destDir);
-            dirCount++;
+            dirCount.incrementAndGet();
         });
 
         fsWalker.setOnFile($ -> {
             var destFile = destination.resolve(source.relativize($));
             IoFunctions.moveFile($, destFile);
-            fileCount++;
-            totalSize += destFile.toFile().length();
+            fileCount.incrementAndGet();
+            totalSize.addAndGet(destFile.toFile().length());
         });
 
         fsWalker.setErrorHandler(errorHandler != null ? errorHandler : ($ex -> FileVisitResult.TERMINATE));
     }
 
+    /**
+     * Changes the number of threads used to process the tree.
+     *
+     * @param parallelism
+     *            The number of threads. Values below 2 process the tree within the calling thread.
+     * @see ParallelFileWalker
+     */
+    public void setParallelism(@Min(1) int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
     public synchronized void reset() {
-        fileCount = 0L;
-        dirCount  = 0L;
-        totalSize = 0L;
+        fileCount.set(0L);
+        dirCount.set(0L);
+        totalSize.set(0L);
         fsWalker.reset();
     }
 
-    public synchronized void stop() {
+    /**
+     * Stops the processing. This can be called while {@link #run()} is still active.
+     */
+    public void stop() {
         fsWalker.stop();
     }
 
@@ -59,22 +84,22 @@ public class MovingFileWalker implements Runnable {
     public synchronized void run() {
         try {
             reset();
-            Files.walkFileTree(source, fsWalker);
+            ParallelFileWalker.walk(source, fsWalker, parallelism);
         } catch (Exception ex) {
             throw KclException.wrap(ex);
         }
     }
 
     public long getFileCount() {
-        return fileCount;
+        return fileCount.get();
     }
 
     public long getDirCount() {
-        return dirCount;
+        return dirCount.get();
     }
 
     public long getTotalSize() {
-        return totalSize;
+        return totalSize.get();
     }
 
 } /* ENDCLASS */
@@ -0,0 +1,493 @@
+package com.kasisoft.libs.common.io;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.functional.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.zip.*;
+
+import java.util.*;
+
+import java.nio.charset.*;
+
+import java.nio.file.attribute.*;
+
+import java.nio.file.*;
+
+import java.nio.*;
+
+import java.io.*;
+
+import java.time.*;
+
+/**
+ * Creates and extracts zip archives using several threads.
+ *
+ * <ul>
+ * <li>Creation: The entries are deflated concurrently into buffers (or temporary files for large entries)
+ * and appended to the archive in their order. The number of compressed entries waiting to be appended is
+ * limited. Archives exceeding the limits of the classic format use the ZIP64 extensions.</li>
+ * <li>Extraction: The entries are read concurrently from the archive using it's central directory.</li>
+ * </ul>
+ *
+ * The filter and the progress handler receive the entries in the same way as
+ * {@link IoFunctions#forZipFileDo(Path, Encoding, KPredicate, KBiConsumer)}. The progress handler is
+ * called concurrently while extracting.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ParallelArchiver {
+
+    // entries with more bytes are compressed into temporary files
+    private static final long MAX_MEMORY_ENTRY = 8L * 1024 * 1024;
+
+    private static final long ZIP64_LIMIT      = 0xFFFFFFFFL;
+    private static final int  ZIP64_ENTRIES    = 0xFFFF;
+
+    private static final int  VERSION          = 20;
+    private static final int  VERSION_ZIP64    = 45;
+
+    // general purpose flag: names are encoded using UTF-8
+    private static final int  FLAG_UTF8        = 1 << 11;
+
+    private ForkJoinPool                  pool;
+    private Encoding                      encoding;
+    private int                           level;
+    private KPredicate<ZipEntry>          filter;
+    private BiConsumer<ZipEntry, Integer> progress;
+
+    public ParallelArchiver() {
+        this.pool     = ForkJoinPool.commonPool();
+        this.encoding = Encoding.IBM437;
+        this.level    = Deflater.DEFAULT_COMPRESSION;
+        this.filter   = null;
+        this.progress = null;
+    }
+
+    /**
+     * Changes the pool executing the workers.
+     *
+     * @param pool
+     *            The pool executing the workers. <code>null</code> selects the common pool.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Changes the encoding of the entry names.
+     *
+     * @param encoding
+     *            The encoding of the entry names. <code>null</code> selects the default encoding for zip
+     *            files which is {@link Encoding#IBM437}.
+     */
+    public void setEncoding(Encoding encoding) {
+        this.encoding = encoding != null ? encoding : Encoding.IBM437;
+    }
+
+    /**
+     * Changes the compression level.
+     *
+     * @param level
+     *            The compression level between {@link Deflater#NO_COMPRESSION} and
+     *            {@link Deflater#BEST_COMPRESSION} or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public void setLevel(@Min(-1) @Max(9) int level) {
+        this.level = level;
+    }
+
+    /**
+     * Changes the filter selecting the entries.
+     *
+     * @param filter
+     *            The filter selecting the entries. <code>null</code> selects all entries.
+     */
+    public void setFilter(KPredicate<ZipEntry> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Changes the handler which is informed about each processed entry.
+     *
+     * @param progress
+     *            The handler receiving the processed entry and the number of processed entries so far.
+     */
+    public void setProgress(BiConsumer<ZipEntry, Integer> progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Creates a zip file from the content of a directory.
+     *
+     * @param zipFile
+     *            The zip file which shall be created.
+     * @param source
+     *            The directory providing the content.
+     * @return The number of entries within the zip file.
+     */
+    public int zip(@NotNull Path zipFile, @NotNull Path source) {
+        var pending = new ArrayDeque<ForkJoinTask<Compressed>>();
+        try {
+
+            var predicate = Predicates.acceptAllIfUnset(filter);
+            var entries   = new ArrayList<ZipEntry>();
+            for (var name : IoFunctions.listPathes(source)) {
+                var entry = new ZipEntry(name);
+                if (predicate.test(entry)) {
+                    entries.add(entry);
+                }
+            }
+
+            // the archive replaces the zip file once it's complete, so a failure doesn't leave a truncated one
+            var atomicWriter = new AtomicFileWriter();
+            atomicWriter.setDurability(Durability.None);
+            atomicWriter.write(zipFile, $ -> {
+                var writer = new ZipWriter($, encoding.getCharset());
+                write(writer, source, entries, pending);
+                writer.finish();
+            });
+            return entries.size();
+
+        } catch (Exception ex) {
+            discard(pending);
+            throw KclException.wrap(ex, error_failed_to_zip.formatted(zipFile));
+        }
+    }
+
+    private void write(@NotNull ZipWriter writer, @NotNull Path source, @NotNull List<ZipEntry> entries, @NotNull Queue<ForkJoinTask<Compressed>> pending) throws IOException {
+        // limit the number of compressed entries waiting to be written
+        var window = Math.max(2, pool.getParallelism() * 2);
+        var next   = 0;
+        while ((next < entries.size()) || (!pending.isEmpty())) {
+            while ((next < entries.size()) && (pending.size() < window)) {
+                var entry = entries.get(next++);
+                pending.add(pool.submit(() -> compress(source, entry)));
+            }
+            writer.write(pending.poll().join());
+            if (progress != null) {
+                progress.accept(entries.get(writer.getCount() - 1), writer.getCount());
+            }
+        }
+    }
+
+    private void discard(@NotNull Queue<ForkJoinTask<Compressed>> pending) {
+        while (!pending.isEmpty()) {
+            try {
+                pending.poll().join().delete();
+            } catch (Exception ex) {
+                // the entry failed as well, so there's nothing to clean up
+            }
+        }
+    }
+
+    @NotNull
+    private Compressed compress(@NotNull Path source, @NotNull ZipEntry entry) throws IOException {
+        var file    = source.resolve(entry.getName());
+        var dosTime = dosTime(Files.getLastModifiedTime(file));
+        if (entry.isDirectory()) {
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(0L);
+            entry.setCompressedSize(0L);
+            entry.setCrc(0L);
+            return new Compressed(entry, dosTime, new byte[0], null);
+        }
+        var    crc      = new CRC32();
+        var    deflater = new Deflater(level, true);
+        byte[] data     = null;
+        Path   temp     = null;
+        try {
+            if (Files.size(file) > MAX_MEMORY_ENTRY) {
+                temp = Files.createTempFile("kcl-zip", ".tmp");
+                try (var instream = new CheckedInputStream(Files.newInputStream(file), crc); var outstream = new DeflaterOutputStream(Files.newOutputStream(temp), deflater, 65536)) {
+                    IoFunctions.copy(instream, outstream, 65536);
+                }
+            } else {
+                var byteout = new ByteArrayOutputStream();
+                try (var instream = new CheckedInputStream(Files.newInputStream(file), crc); var outstream = new DeflaterOutputStream(byteout, deflater, 8192)) {
+                    IoFunctions.copy(instream, outstream);
+                }
+                data = byteout.toByteArray();
+            }
+            entry.setMethod(ZipEntry.DEFLATED);
+            entry.setSize(deflater.getBytesRead());
+            entry.setCompressedSize(deflater.getBytesWritten());
+            entry.setCrc(crc.getValue());
+            return new Compressed(entry, dosTime, data, temp);
+        } catch (IOException | RuntimeException ex) {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+            throw ex;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int dosTime(@NotNull FileTime time) {
+        var dateTime = LocalDateTime.ofInstant(time.toInstant(), ZoneId.systemDefault());
+        if (dateTime.getYear() < 1980) {
+            // the earliest representable date: 1980-01-01
+            return (1 << 21) | (1 << 16);
+        }
+        return ((dateTime.getYear() - 1980) << 25) | (dateTime.getMonthValue() << 21) | (dateTime.getDayOfMonth() << 16)
+            | (dateTime.getHour() << 11) | (dateTime.getMinute() << 5) | (dateTime.getSecond() >> 1);
+    }
+
+    /**
+     * Extracts the content of a zip file.
+     *
+     * @param zipFile
+     *            The zip file which shall be extracted.
+     * @param destination
+     *            The directory receiving the content.
+     * @return The number of extracted entries.
+     */
+    public int unzip(@NotNull Path zipFile, @NotNull Path destination) {
+        var root = destination.toAbsolutePath().normalize();
+        try (var zip = new ZipFile(zipFile.toFile(), encoding.getCharset())) {
+
+            var predicate = Predicates.acceptAllIfUnset(filter);
+            var count     = new AtomicInteger();
+            var dirs      = new HashSet<Path>();
+            var files     = new ArrayList<ZipEntry>();
+            var entries   = zip.entries();
+            while (entries.hasMoreElements()) {
+                var entry = entries.nextElement();
+                if (!predicate.test(entry)) {
+                    continue;
+                }
+                var dest = resolve(root, entry);
+                if (entry.isDirectory()) {
+                    createDirectory(dirs, dest);
+                    processed(entry, count);
+                } else {
+                    createDirectory(dirs, dest.getParent());
+                    files.add(entry);
+                }
+            }
+
+            var tasks = files.stream().map($ -> ForkJoinTask.adapt(() -> extract(zipFile, zip, $, resolve(root, $), count))).toList();
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+            return count.get();
+
+        } catch (Exception ex) {
+            throw KclException.wrap(ex, error_failed_to_process_zip.formatted(zipFile));
+        }
+    }
+
+    @NotNull
+    private Path resolve(@NotNull Path root, @NotNull ZipEntry entry) {
+        var result = root.resolve(entry.getName()).normalize();
+        if (!result.startsWith(root)) {
+            throw new KclException(error_zip_entry_outside_destination.formatted(entry.getName(), root));
+        }
+        return result;
+    }
+
+    private void createDirectory(@NotNull Set<Path> dirs, @NotNull Path dir) {
+        if (dirs.add(dir)) {
+            IoFunctions.mkDirs(dir);
+        }
+    }
+
+    private void extract(@NotNull Path zipFile, @NotNull ZipFile zip, @NotNull ZipEntry entry, @NotNull Path dest, @NotNull AtomicInteger count) {
+        try (var instream = zip.getInputStream(entry); var outstream = Files.newOutputStream(dest)) {
+            IoFunctions.copy(instream, outstream);
+        } catch (Exception ex) {
+            throw KclException.wrap(ex, error_failed_to_unzip.formatted(dest, zipFile, entry.getName()));
+        }
+        processed(entry, count);
+    }
+
+    private void processed(@NotNull ZipEntry entry, @NotNull AtomicInteger count) {
+        var processed = count.incrementAndGet();
+        if (progress != null) {
+            progress.accept(entry, processed);
+        }
+    }
+
+    /**
+     * A compressed entry which is waiting to be written.
+     */
+    private record Compressed(@NotNull ZipEntry entry, int dosTime, byte[] data, Path temp) {
+
+        void delete() throws IOException {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+    } /* ENDRECORD */
+
+    /**
+     * The data of an entry needed for the central directory.
+     */
+    private record CentralEntry(@NotNull byte[] name, int method, int dosTime, long crc, long size, long compressedSize, long offset, boolean directory) {
+    } /* ENDRECORD */
+
+    /**
+     * Writes the zip format using precompressed entries.
+     */
+    private static class ZipWriter {
+
+        private OutputStream       outstream;
+        private Charset            charset;
+        private int                flags;
+        private long               offset;
+        private List<CentralEntry> central;
+
+        ZipWriter(@NotNull OutputStream destination, @NotNull Charset charset) {
+            this.outstream = new BufferedOutputStream(destination, 65536);
+            this.charset   = charset;
+            this.flags     = StandardCharsets.UTF_8.equals(charset) ? FLAG_UTF8 : 0;
+            this.offset    = 0L;
+            this.central   = new ArrayList<>();
+        }
+
+        int getCount() {
+            return central.size();
+        }
+
+        void write(@NotNull Compressed compressed) throws IOException {
+            try {
+                var entry = compressed.entry();
+                var name  = entry.getName().getBytes(charset);
+                var zip64 = (entry.getSize() >= ZIP64_LIMIT) || (entry.getCompressedSize() >= ZIP64_LIMIT);
+                var local = ByteBuffer.allocate(30 + name.length + (zip64 ? 20 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+                local.putInt(0x04034b50);
+                local.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION));
+                local.putShort((short) flags);
+                local.putShort((short) entry.getMethod());
+                local.putInt(compressed.dosTime());
+                local.putInt((int) entry.getCrc());
+                local.putInt(zip64 ? -1 : (int) entry.getCompressedSize());
+                local.putInt(zip64 ? -1 : (int) entry.getSize());
+                local.putShort((short) name.length);
+                local.putShort((short) (zip64 ? 20 : 0));
+                local.put(name);
+                if (zip64) {
+                    local.putShort((short) 0x0001);
+                    local.putShort((short) 16);
+                    local.putLong(entry.getSize());
+                    local.putLong(entry.getCompressedSize());
+                }
+                central.add(new CentralEntry(name, entry.getMethod(), compressed.dosTime(), entry.getCrc(), entry.getSize(), entry.getCompressedSize(), offset, entry.isDirectory()));
+                write(local.array());
+                if (compressed.data() != null) {
+                    write(compressed.data());
+                } else {
+                    offset += Files.copy(compressed.temp(), outstream);
+                }
+            } finally {
+                compressed.delete();
+            }
+        }
+
+        private void write(@NotNull byte[] data) throws IOException {
+            outstream.write(data);
+            offset += data.length;
+        }
+
+        private void writeCentralEntry(@NotNull CentralEntry entry) throws IOException {
+            var extra = new ArrayList<Long>(3);
+            if (entry.size() >= ZIP64_LIMIT) {
+                extra.add(entry.size());
+            }
+            if (entry.compressedSize() >= ZIP64_LIMIT) {
+                extra.add(entry.compressedSize());
+            }
+            if (entry.offset() >= ZIP64_LIMIT) {
+                extra.add(entry.offset());
+            }
+            var extraLength = extra.isEmpty() ? 0 : 4 + 8 * extra.size();
+            var version     = extra.isEmpty() ? VERSION : VERSION_ZIP64;
+            var header      = ByteBuffer.allocate(46 + entry.name().length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0x02014b50);
+            header.putShort((short) version);
+            header.putShort((short) version);
+            header.putShort((short) flags);
+            header.putShort((short) entry.method());
+            header.putInt(entry.dosTime());
+            header.putInt((int) entry.crc());
+            header.putInt(entry.compressedSize() >= ZIP64_LIMIT ? -1 : (int) entry.compressedSize());
+            header.putInt(entry.size() >= ZIP64_LIMIT ? -1 : (int) entry.size());
+            header.putShort((short) entry.name().length);
+            header.putShort((short) extraLength);
+            // comment length, disk number and internal attributes
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            header.putShort((short) 0);
+            // external attributes: the MS-DOS directory flag
+            header.putInt(entry.directory() ? 0x10 : 0);
+            header.putInt(entry.offset() >= ZIP64_LIMIT ? -1 : (int) entry.offset());
+            header.put(entry.name());
+            if (!extra.isEmpty()) {
+                header.putShort((short) 0x0001);
+                header.putShort((short) (8 * extra.size()));
+                extra.forEach(header::putLong);
+            }
+            write(header.array());
+        }
+
+        private void writeEnd(long centralOffset, long centralSize) throws IOException {
+            var count = central.size();
+            if ((count >= ZIP64_ENTRIES) || (centralOffset >= ZIP64_LIMIT) || (centralSize >= ZIP64_LIMIT)) {
+                var end64Offset = offset;
+                var end64       = ByteBuffer.allocate(56 + 20).order(ByteOrder.LITTLE_ENDIAN);
+                end64.putInt(0x06064b50);
+                // the size of the remaining record
+                end64.putLong(44L);
+                end64.putShort((short) VERSION_ZIP64);
+                end64.putShort((short) VERSION_ZIP64);
+                end64.putInt(0);
+                end64.putInt(0);
+                end64.putLong(count);
+                end64.putLong(count);
+                end64.putLong(centralSize);
+                end64.putLong(centralOffset);
+                // the locator of the ZIP64 end record
+                end64.putInt(0x07064b50);
+                end64.putInt(0);
+                end64.putLong(end64Offset);
+                end64.putInt(1);
+                write(end64.array());
+            }
+            var end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(0x06054b50);
+            end.putShort((short) 0);
+            end.putShort((short) 0);
+            end.putShort((short) Math.min(count, ZIP64_ENTRIES));
+            end.putShort((short) Math.min(count, ZIP64_ENTRIES));
+            end.putInt(centralSize >= ZIP64_LIMIT ? -1 : (int) centralSize);
+            end.putInt(centralOffset >= ZIP64_LIMIT ? -1 : (int) centralOffset);
+            end.putShort((short) 0);
+            write(end.array());
+        }
+
+        /**
+         * Writes the central directory. The destination is flushed but not closed.
+         */
+        void finish() throws IOException {
+            var centralOffset = offset;
+            for (var entry : central) {
+                writeCentralEntry(entry);
+            }
+            writeEnd(centralOffset, offset - centralOffset);
+            outstream.flush();
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
@@ -0,0 +1,267 @@
+package com.kasisoft.libs.common.io;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.nio.file.attribute.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Walks a filesystem tree like {@link Files#walkFileTree(Path, FileVisitor)} but processes directories and
+ * files concurrently on a {@link ForkJoinPool}. This is useful for trees with many small files where the
+ * time is spent on the latency of the individual filesystem calls. The order required by tree operations
+ * is kept:
+ *
+ * <ul>
+ * <li>{@link FileVisitor#preVisitDirectory(Object, BasicFileAttributes)} is called before any entry of
+ * the directory is visited.</li>
+ * <li>{@link FileVisitor#postVisitDirectory(Object, IOException)} is called after all entries of the
+ * directory have been visited.</li>
+ * </ul>
+ *
+ * Entries of the same directory and entries of different directories are visited concurrently, so the
+ * visitor must be thread safe. {@link FileVisitResult#SKIP_SIBLINGS} is treated like
+ * {@link FileVisitResult#SKIP_SUBTREE} and links are not being followed. Like
+ * {@link Files#walkFileTree(Path, FileVisitor)} a directory which cannot be opened is passed to
+ * {@link FileVisitor#visitFileFailed(Object, IOException)} while a failure to read it's entries is
+ * passed to {@link FileVisitor#postVisitDirectory(Object, IOException)}.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ParallelFileWalker implements Runnable {
+
+    // the number of files of a directory which are visited by one task
+    private static final int BATCH_SIZE = 32;
+
+    private Path                 source;
+    private FileVisitor<Path>    visitor;
+    private int                  parallelism;
+    private volatile boolean     stopped;
+
+    public ParallelFileWalker(@NotNull Path source, @NotNull FileVisitor<Path> visitor) {
+        this.source      = source;
+        this.visitor     = visitor;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.stopped     = false;
+    }
+
+    /**
+     * Walks the supplied tree either sequentially or in parallel.
+     *
+     * @param source
+     *            The start of the walk.
+     * @param visitor
+     *            The visitor receiving the entries.
+     * @param parallelism
+     *            The number of threads. Values below 2 walk the tree within the current thread.
+     * @throws IOException
+     *             Walking the tree failed.
+     */
+    static void walk(@NotNull Path source, @NotNull FileVisitor<Path> visitor, int parallelism) throws IOException {
+        if (parallelism > 1) {
+            var walker = new ParallelFileWalker(source, visitor);
+            walker.setParallelism(parallelism);
+            walker.run();
+        } else {
+            Files.walkFileTree(source, visitor);
+        }
+    }
+
+    /**
+     * Changes the number of threads used for the walk. Filesystems with a high latency (f.e. network
+     * filesystems) usually benefit from more threads than processors.
+     *
+     * @param parallelism
+     *            The number of threads.
+     */
+    public void setParallelism(@Min(1) int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Stops the walk. Tasks which are currently running complete their current entry.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public synchronized void run() {
+        stopped  = false;
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new EntryTask(source));
+        } catch (UncheckedIOException ex) {
+            throw KclException.wrap(ex.getCause());
+        } catch (Exception ex) {
+            throw KclException.wrap(ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private boolean proceed(@NotNull FileVisitResult result) {
+        if (result == FileVisitResult.TERMINATE) {
+            stopped = true;
+        }
+        return !stopped;
+    }
+
+    private BasicFileAttributes attributes(@NotNull Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    private void visitFile(@NotNull Path file, BasicFileAttributes attributes) throws IOException {
+        if (attributes == null) {
+            try {
+                attributes = attributes(file);
+            } catch (IOException ex) {
+                proceed(visitor.visitFileFailed(file, ex));
+                return;
+            }
+        }
+        proceed(visitor.visitFile(file, attributes));
+    }
+
+    private void visitDirectory(@NotNull Path dir, @NotNull BasicFileAttributes attributes) throws IOException {
+
+        DirectoryStream<Path> entries;
+        try {
+            entries = Files.newDirectoryStream(dir);
+        } catch (IOException ex) {
+            proceed(visitor.visitFileFailed(dir, ex));
+            return;
+        }
+
+        var         subdirs = new ArrayList<Path>();
+        var         files   = new ArrayList<Path>();
+        IOException failure = null;
+        try {
+            var result = visitor.preVisitDirectory(dir, attributes);
+            if ((!proceed(result)) || (result == FileVisitResult.SKIP_SUBTREE) || (result == FileVisitResult.SKIP_SIBLINGS)) {
+                return;
+            }
+            for (var entry : entries) {
+                if (stopped) {
+                    return;
+                }
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    subdirs.add(entry);
+                } else {
+                    files.add(entry);
+                }
+            }
+        } catch (DirectoryIteratorException ex) {
+            // the entries which have been read so far are still visited
+            failure = ex.getCause();
+        } finally {
+            try {
+                entries.close();
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+
+        var tasks = new ArrayList<ForkJoinTask<?>>(subdirs.size() + files.size() / BATCH_SIZE + 1);
+        for (var subdir : subdirs) {
+            tasks.add(new EntryTask(subdir));
+        }
+        for (var i = 0; i < files.size(); i += BATCH_SIZE) {
+            tasks.add(new FilesTask(files.subList(i, Math.min(files.size(), i + BATCH_SIZE))));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        if (!stopped) {
+            proceed(visitor.postVisitDirectory(dir, failure));
+        }
+
+    }
+
+    /**
+     * Visits an entry which might be a directory.
+     */
+    private class EntryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient Path path;
+
+        EntryTask(@NotNull Path path) {
+            this.path = path;
+        }
+
+        @Override
+        protected void compute() {
+            if (stopped) {
+                return;
+            }
+            try {
+                BasicFileAttributes attributes = null;
+                try {
+                    attributes = attributes(path);
+                } catch (IOException ex) {
+                    proceed(visitor.visitFileFailed(path, ex));
+                    return;
+                }
+                if (attributes.isDirectory()) {
+                    visitDirectory(path, attributes);
+                } else {
+                    visitFile(path, attributes);
+                }
+            } catch (IOException ex) {
+                stopped = true;
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * Visits a batch of files from the same directory.
+     */
+    private class FilesTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient List<Path> files;
+
+        FilesTask(@NotNull List<Path> files) {
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (var file : files) {
+                    if (stopped) {
+                        return;
+                    }
+                    visitFile(file, null);
+                }
+            } catch (IOException ex) {
+                stopped = true;
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
@@ -0,0 +1,242 @@
+package com.kasisoft.libs.common.io;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.zip.*;
+
+import java.util.*;
+
+import java.io.*;
+
+/**
+ * An {@link OutputStream} producing gzip data while compressing blocks of the input concurrently (like
+ * pigz). Each block is deflated separately using the last 32KB of the preceding input as it's dictionary
+ * and ends at a byte boundary, so the blocks form a single deflate stream. The output is a regular gzip
+ * member which can be read by {@link GZIPInputStream} or any other gzip implementation. The compression
+ * ratio is close to the one of a {@link GZIPOutputStream}.
+ *
+ * The number of compressed blocks waiting to be written is limited, so the memory usage only depends on
+ * the block size and the parallelism of the pool.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    // the window size of the deflate algorithm
+    private static final int    DICTIONARY_SIZE = 32 * 1024;
+
+    // magic number, deflate, no flags, no modification time, no extra flags, unknown OS
+    private static final byte[] HEADER          = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private OutputStream                 outstream;
+    private int                          level;
+    private int                          blockSize;
+    private ForkJoinPool                 pool;
+    private int                          window;
+    private CRC32                        crc;
+    private long                         size;
+    private byte[]                       block;
+    private int                          count;
+    private byte[]                       dictionary;
+    private Deque<ForkJoinTask<Block>>   pending;
+    private Deque<byte[]>                available;
+    private boolean                      closed;
+
+    public ParallelGzipOutputStream(@NotNull OutputStream outstream) throws IOException {
+        this(outstream, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE, null);
+    }
+
+    /**
+     * Initializes this stream.
+     *
+     * @param outstream
+     *            The stream receiving the gzip data.
+     * @param level
+     *            The compression level between {@link Deflater#NO_COMPRESSION} and
+     *            {@link Deflater#BEST_COMPRESSION} or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param blockSize
+     *            The number of bytes which are compressed by a single worker.
+     * @param pool
+     *            The pool executing the workers. <code>null</code> selects the common pool.
+     * @throws IOException
+     *             Writing the header failed.
+     */
+    public ParallelGzipOutputStream(@NotNull OutputStream outstream, @Min(-1) @Max(9) int level, @Min(1) int blockSize, ForkJoinPool pool) throws IOException {
+        this.outstream  = outstream;
+        this.level      = level;
+        this.blockSize  = Math.max(1, blockSize);
+        this.pool       = pool != null ? pool : ForkJoinPool.commonPool();
+        this.window     = Math.max(2, this.pool.getParallelism() * 2);
+        this.crc        = new CRC32();
+        this.size       = 0L;
+        this.block      = new byte[this.blockSize];
+        this.count      = 0;
+        this.dictionary = null;
+        this.pending    = new ArrayDeque<>(window + 1);
+        this.available  = new ArrayDeque<>(window + 1);
+        this.closed     = false;
+        outstream.write(HEADER);
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) value;
+        crc.update(value);
+        size++;
+        if (count == blockSize) {
+            submit(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        ensureOpen();
+        Objects.checkFromIndexSize(offset, length, data.length);
+        crc.update(data, offset, length);
+        size += length;
+        while (length > 0) {
+            var chunk = Math.min(length, blockSize - count);
+            System.arraycopy(data, offset, block, count, chunk);
+            count  += chunk;
+            offset += chunk;
+            length -= chunk;
+            if (count == blockSize) {
+                submit(false);
+            }
+        }
+    }
+
+    /**
+     * Compresses the buffered input and writes all compressed blocks.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0) {
+            submit(false);
+        }
+        drain(0);
+        outstream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try (var output = outstream) {
+            submit(true);
+            drain(0);
+            var trailer = new byte[8];
+            writeInt(trailer, 0, (int) crc.getValue());
+            // the size modulo 2^32
+            writeInt(trailer, 4, (int) size);
+            output.write(trailer);
+        } finally {
+            closed = true;
+            pending.forEach($ -> $.cancel(false));
+            pending.clear();
+            available.clear();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static void writeInt(@NotNull byte[] data, int offset, int value) {
+        data[offset    ] = (byte) value;
+        data[offset + 1] = (byte) (value >>> 8);
+        data[offset + 2] = (byte) (value >>> 16);
+        data[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private void submit(boolean last) throws IOException {
+        var data   = block;
+        var length = count;
+        var dict   = dictionary;
+        pending.add(pool.submit(() -> compress(data, length, dict, last)));
+        dictionary = nextDictionary(dict, data, length);
+        block      = available.isEmpty() ? new byte[blockSize] : available.pop();
+        count      = 0;
+        drain(window);
+    }
+
+    private static byte[] nextDictionary(byte[] dict, @NotNull byte[] data, int length) {
+        if ((length >= DICTIONARY_SIZE) || (dict == null)) {
+            return Arrays.copyOfRange(data, Math.max(0, length - DICTIONARY_SIZE), length);
+        }
+        // small blocks: the dictionary also needs the tail of the previous one
+        var keep   = Math.min(dict.length, DICTIONARY_SIZE - length);
+        var result = new byte[keep + length];
+        System.arraycopy(dict, dict.length - keep, result, 0, keep);
+        System.arraycopy(data, 0, result, keep, length);
+        return result;
+    }
+
+    private void drain(int limit) throws IOException {
+        while (pending.size() > limit) {
+            Block compressed;
+            try {
+                compressed = pending.poll().join();
+            } catch (RuntimeException ex) {
+                throw new IOException(ex);
+            }
+            outstream.write(compressed.data(), 0, compressed.length());
+            if (available.size() < window) {
+                available.push(compressed.input());
+            }
+        }
+    }
+
+    @NotNull
+    private Block compress(@NotNull byte[] data, int length, byte[] dict, boolean last) {
+        var deflater = new Deflater(level, true);
+        try {
+            if (dict != null) {
+                deflater.setDictionary(dict);
+            }
+            deflater.setInput(data, 0, length);
+            var result   = new byte[Math.max(64, length / 2)];
+            var position = 0;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (position == result.length) {
+                        result = Arrays.copyOf(result, result.length * 2);
+                    }
+                    position += deflater.deflate(result, position, result.length - position);
+                }
+            } else {
+                // a sync flush ends the output at a byte boundary without finishing the stream
+                var space   = 0;
+                var written = 0;
+                do {
+                    if (position == result.length) {
+                        result = Arrays.copyOf(result, result.length * 2);
+                    }
+                    space     = result.length - position;
+                    written   = deflater.deflate(result, position, space, Deflater.SYNC_FLUSH);
+                    position += written;
+                } while (written == space);
+            }
+            return new Block(data, result, position);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * The compressed data of a block and the input buffer which can be reused afterwards.
+     */
+    private record Block(@NotNull byte[] input, @NotNull byte[] data, int length) {
+    } /* ENDRECORD */
+
+} /* ENDCLASS */
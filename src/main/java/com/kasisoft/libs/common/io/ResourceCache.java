@@ -0,0 +1,229 @@
+package com.kasisoft.libs.common.io;
+
+import com.kasisoft.libs.common.functional.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+/**
+ * A cache for the contents of resources which is bounded by the total size of the contents. The least
+ * recently used contents are evicted first. Each content is stored together with a version of the
+ * resource (f.e. the modification time and size of a file) and it's only being reused while the version
+ * doesn't change.
+ *
+ * Cached contents are looked up without locking, so a resource which is being loaded doesn't delay the
+ * accesses to other resources.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ * @see CachingIoSupport
+ */
+public class ResourceCache {
+
+    private long                                          maxSize;
+    // the state below is only changed while holding the lock
+    private long                                          size;
+    private int                                           count;
+    private ConcurrentHashMap<Object, Map<String, Entry>> entries;
+    private AtomicLong                                    clock;
+    private LongAdder                                     hits;
+    private LongAdder                                     misses;
+    private LongAdder                                     evictions;
+
+    /**
+     * Initializes this cache.
+     *
+     * @param maxSize
+     *            The maximum total size of all contents in bytes.
+     */
+    public ResourceCache(@Min(1) long maxSize) {
+        this.maxSize   = Math.max(1L, maxSize);
+        this.size      = 0L;
+        this.count     = 0;
+        this.entries   = new ConcurrentHashMap<>();
+        this.clock     = new AtomicLong();
+        this.hits      = new LongAdder();
+        this.misses    = new LongAdder();
+        this.evictions = new LongAdder();
+    }
+
+    /**
+     * Returns the content of a resource which will be loaded if necessary.
+     *
+     * @param resource
+     *            The resource providing the content.
+     * @param variant
+     *            The kind of content (f.e. the bytes or the text with a specific encoding).
+     * @param version
+     *            The current version of the resource. <code>null</code> if the resource can't be cached.
+     * @param weigher
+     *            Provides the size of a content in bytes.
+     * @param loader
+     *            Loads the content.
+     * @return The content of the resource.
+     * @throws Exception
+     *             Loading the content failed.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R get(@NotNull Object resource, @NotNull String variant, Object version, @NotNull ToLongFunction<R> weigher, @NotNull KSupplier<R> loader) throws Exception {
+        var key = IoSupportFunctions.resourceKey(resource);
+        if (version != null) {
+            var variants = entries.get(key);
+            var entry    = variants != null ? variants.get(variant) : null;
+            if ((entry != null) && entry.version.equals(version)) {
+                entry.used = clock.incrementAndGet();
+                hits.increment();
+                return (R) entry.value;
+            }
+        }
+        misses.increment();
+        var result = loader.get();
+        if (version != null) {
+            put(key, variant, new Entry(version, result, weigher.applyAsLong(result)));
+        }
+        return result;
+    }
+
+    private synchronized void put(@NotNull Object key, @NotNull String variant, @NotNull Entry entry) {
+        remove(key, variant);
+        if (entry.weight > maxSize) {
+            // the content would evict everything else
+            return;
+        }
+        entry.used = clock.incrementAndGet();
+        entries.computeIfAbsent(key, $ -> new ConcurrentHashMap<>()).put(variant, entry);
+        size += entry.weight;
+        count++;
+        while (size > maxSize) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Removes the content which hasn't been used for the longest time. The entries are scanned which is
+     * cheap compared to loading the content that caused the eviction.
+     */
+    private void evictLeastRecentlyUsed() {
+        Object key     = null;
+        String variant = null;
+        Entry  oldest  = null;
+        for (var resource : entries.entrySet()) {
+            for (var content : resource.getValue().entrySet()) {
+                if ((oldest == null) || (content.getValue().used < oldest.used)) {
+                    key     = resource.getKey();
+                    variant = content.getKey();
+                    oldest  = content.getValue();
+                }
+            }
+        }
+        remove(key, variant);
+        evictions.increment();
+    }
+
+    private void remove(@NotNull Object key, @NotNull String variant) {
+        var variants = entries.get(key);
+        if (variants != null) {
+            var removed = variants.remove(variant);
+            if (removed != null) {
+                size -= removed.weight;
+                count--;
+            }
+            if (variants.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all contents of a resource.
+     *
+     * @param resource
+     *            The resource which contents have to be removed.
+     */
+    public synchronized void invalidate(@NotNull Object resource) {
+        var variants = entries.remove(IoSupportFunctions.resourceKey(resource));
+        if (variants != null) {
+            for (var entry : variants.values()) {
+                size -= entry.weight;
+            }
+            count -= variants.size();
+        }
+    }
+
+    /**
+     * Removes all contents.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size  = 0L;
+        count = 0;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the total size of all contents.
+     *
+     * @return The total size of all contents in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of cached contents.
+     *
+     * @return The number of cached contents.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the ratio of requests which could be served from this cache.
+     *
+     * @return The ratio between 0.0 and 1.0 .
+     */
+    public double getHitRate() {
+        var hitCount = getHits();
+        var total    = hitCount + getMisses();
+        return total > 0 ? (double) hitCount / total : 0.0;
+    }
+
+    private static class Entry {
+
+        Object        version;
+        Object        value;
+        long          weight;
+        // the time of the last access (logical clock) which determines the eviction order
+        volatile long used;
+
+        Entry(Object version, Object value, long weight) {
+            this.version = version;
+            this.value   = value;
+            this.weight  = weight;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
@@ -0,0 +1,267 @@
+package com.kasisoft.libs.common.io;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.stream.*;
+
+import java.util.regex.Pattern;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Lists a directory tree lazily. Entries are read while the {@link Stream} is being consumed, so the
+ * first results are available immediately and the memory only depends on the depth of the tree (and the
+ * size of the directories if they are sorted). Directories are provided before their content. The stream
+ * must be closed in order to release the directory handles which are still open, f.e.:
+ *
+ * <pre>
+ * try (var pathes = new StreamingFileWalker(dir).stream()) {
+ *     pathes.filter(...).findFirst();
+ * }
+ * </pre>
+ *
+ * A pattern is matched against the relative path of an entry (separated by slashes, directories end with
+ * a slash) like the filters of {@link IoFunctions#listPathes(Path, com.kasisoft.libs.common.functional.KPredicate, boolean)}.
+ * Directories which cannot contain any matching entry are not being read at all.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class StreamingFileWalker {
+
+    private Path                                 source;
+    private boolean                              includeDirs;
+    private boolean                              sorted;
+    private Pattern                              pattern;
+    private Function<Exception, FileVisitResult> errorHandler;
+
+    public StreamingFileWalker(@NotNull Path source) {
+        this.source       = source;
+        this.includeDirs  = true;
+        this.sorted       = false;
+        this.pattern      = null;
+        this.errorHandler = $ -> FileVisitResult.TERMINATE;
+    }
+
+    /**
+     * Changes whether directories are part of the result.
+     *
+     * @param includeDirs
+     *            <code>true</code> <=> Provide directories, too.
+     */
+    public void setIncludeDirs(boolean includeDirs) {
+        this.includeDirs = includeDirs;
+    }
+
+    /**
+     * Changes whether the entries of each directory are ordered by their names. Each directory is read
+     * completely before it's content is provided.
+     *
+     * @param sorted
+     *            <code>true</code> <=> Order the entries of each directory.
+     */
+    public void setSorted(boolean sorted) {
+        this.sorted = sorted;
+    }
+
+    /**
+     * Changes the pattern used to select the relative pathes.
+     *
+     * @param pattern
+     *            The regular expression. <code>null</code> accepts all entries.
+     */
+    public void setPattern(Pattern pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Changes the pattern used to select the relative pathes.
+     *
+     * @param pattern
+     *            The filesystem pattern. <code>null</code> accepts all entries.
+     * @see IoFunctions#compileFilesystemPattern(String)
+     */
+    public void setPattern(String pattern) {
+        this.pattern = pattern != null ? IoFunctions.compileFilesystemPattern(pattern) : null;
+    }
+
+    /**
+     * Changes the handler for failures while reading directories. The result
+     * {@link FileVisitResult#TERMINATE} ends the stream while all other results skip the failing
+     * directory.
+     *
+     * @param errorHandler
+     *            The new error handler. <code>null</code> terminates on failures.
+     */
+    public void setErrorHandler(Function<Exception, FileVisitResult> errorHandler) {
+        this.errorHandler = errorHandler != null ? errorHandler : ($ -> FileVisitResult.TERMINATE);
+    }
+
+    /**
+     * Returns a lazily populated stream of the entries.
+     *
+     * @return A lazily populated stream of the entries. Must be closed.
+     */
+    @NotNull
+    public Stream<Path> stream() {
+        var iterator = new EntryIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+    }
+
+    /**
+     * The content of a directory which is currently being listed.
+     */
+    private class Frame implements Closeable {
+
+        private String                prefix;
+        private DirectoryStream<Path> directory;
+        private Iterator<Path>        entries;
+
+        Frame(@NotNull Path dir, @NotNull String prefix) throws IOException {
+            this.prefix    = prefix;
+            this.directory = Files.newDirectoryStream(dir);
+            if (sorted) {
+                var list = new ArrayList<Path>();
+                try (var stream = directory) {
+                    stream.forEach(list::add);
+                }
+                list.sort(Comparator.comparing($ -> $.getFileName().toString()));
+                directory = null;
+                entries   = list.iterator();
+            } else {
+                entries   = directory.iterator();
+            }
+        }
+
+        Path next() {
+            return entries.hasNext() ? entries.next() : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (directory != null) {
+                directory.close();
+                directory = null;
+            }
+        }
+
+    } /* ENDCLASS */
+
+    private class EntryIterator implements Iterator<Path> {
+
+        private Deque<Frame> frames;
+        private Path         next;
+        private boolean      done;
+
+        EntryIterator() {
+            frames = new ArrayDeque<>();
+            next   = null;
+            done   = false;
+            open(source, "");
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ((next == null) && (!done)) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public Path next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var result = next;
+            next       = null;
+            return result;
+        }
+
+        private Path advance() {
+            while ((!done) && (!frames.isEmpty())) {
+
+                var  frame = frames.peek();
+                Path entry = null;
+                try {
+                    entry = frame.next();
+                } catch (DirectoryIteratorException ex) {
+                    fail(ex.getCause());
+                    if (!done) {
+                        // the directory cannot be read any further
+                        closeFrame(frames.pop());
+                    }
+                    continue;
+                }
+                if (entry == null) {
+                    closeFrame(frames.pop());
+                    continue;
+                }
+
+                var directory = Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS);
+                var relative  = frame.prefix + entry.getFileName().toString();
+                if (directory) {
+                    relative += "/";
+                }
+
+                var accept    = true;
+                var descend   = directory;
+                if (pattern != null) {
+                    var matcher = pattern.matcher(relative);
+                    accept      = matcher.matches();
+                    // if the end hasn't been reached the mismatch can't be fixed by a longer path
+                    descend     = directory && (accept || matcher.hitEnd());
+                }
+
+                if (descend) {
+                    open(entry, relative);
+                }
+                if (accept && (includeDirs || (!directory)) && (!done)) {
+                    return entry;
+                }
+
+            }
+            done = true;
+            return null;
+        }
+
+        private void open(@NotNull Path dir, @NotNull String prefix) {
+            try {
+                frames.push(new Frame(dir, prefix));
+            } catch (Exception ex) {
+                fail(ex);
+            }
+        }
+
+        private void fail(@NotNull Exception ex) {
+            if (errorHandler.apply(ex) == FileVisitResult.TERMINATE) {
+                close();
+            }
+        }
+
+        private void closeFrame(@NotNull Frame frame) {
+            try {
+                frame.close();
+            } catch (IOException ex) {
+                throw KclException.wrap(ex);
+            }
+        }
+
+        void close() {
+            done = true;
+            next = null;
+            while (!frames.isEmpty()) {
+                closeFrame(frames.pop());
+            }
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
@@ -0,0 +1,214 @@
+package com.kasisoft.libs.common.io.impl;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.charset.*;
+
+import java.nio.file.attribute.*;
+
+import java.nio.file.*;
+
+import java.nio.*;
+
+import java.io.*;
+
+/**
+ * Loads the content of local files into arrays which are allocated once using the size of the file, so
+ * there are no intermediate buffers which need to grow. Files which don't report their size (f.e.
+ * procfs files) are read until their end as well.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+class FileContent {
+
+    // some vms reserve header words within an array
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private FileContent() {
+    }
+
+    /**
+     * Returns the version of a file.
+     *
+     * @param source
+     *            The file which version is requested.
+     * @return The modification time and size of the file. <code>null</code> if it cannot be accessed.
+     */
+    static Object getVersion(@NotNull Path source) {
+        try {
+            var attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            return List.of(attributes.lastModifiedTime(), attributes.size());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads the bytes of a file. Files which report their size are loaded into an array of that size and
+     * they are only read until the end of the file afterwards, so they don't need an additional copy unless
+     * their size changes meanwhile. Files without a size (f.e. procfs files, pipes or devices) are
+     * read sequentially.
+     *
+     * @param source
+     *            The file which has to be loaded.
+     * @param offset
+     *            The number of bytes to skip.
+     * @return The bytes of the file. Not <code>null</code>.
+     * @throws IOException
+     *             Loading failed or the file is too large for an array.
+     */
+    @NotNull
+    static byte[] loadAllBytes(@NotNull Path source, @Min(0) long offset) throws IOException {
+        try (var channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            var size = channel.size();
+            if (size == 0L) {
+                // such files might not support positional reads, so they're read like a stream
+                var content = Channels.newInputStream(channel).readAllBytes();
+                return offset > 0L ? Arrays.copyOfRange(content, (int) Math.min(offset, content.length), content.length) : content;
+            }
+            var remaining = Math.max(0L, size - offset);
+            if (remaining > MAX_ARRAY_SIZE) {
+                throw new KclException(error_file_too_large.formatted(source, size));
+            }
+            var result = new byte[(int) remaining];
+            var length = 0;
+            var probe  = ByteBuffer.allocate(1);
+            while (true) {
+                if (length == result.length) {
+                    // the file might have grown or reported a wrong size, so it's checked for more content
+                    probe.clear();
+                    if (channel.read(probe, offset + length) == -1) {
+                        break;
+                    }
+                    result           = grow(source, result, length + 1);
+                    result[length++] = probe.get(0);
+                    continue;
+                }
+                var read = channel.read(ByteBuffer.wrap(result, length, result.length - length), offset + length);
+                if (read == -1) {
+                    break;
+                }
+                length += read;
+            }
+            return length == result.length ? result : Arrays.copyOf(result, length);
+        }
+    }
+
+    @NotNull
+    private static byte[] grow(@NotNull Path source, @NotNull byte[] content, int minimum) {
+        if (minimum > MAX_ARRAY_SIZE) {
+            throw new KclException(error_file_too_large.formatted(source, (long) minimum));
+        }
+        var capacity = (int) Math.min(MAX_ARRAY_SIZE, Math.max(minimum, content.length + Math.max(content.length / 2L, 8192L)));
+        return Arrays.copyOf(content, capacity);
+    }
+
+    /**
+     * Loads the characters of a file into an array of the exact size. Single byte encodings produce one
+     * character per byte, so the bytes are decoded directly. Otherwise the characters are counted in a
+     * first pass which doesn't need to keep them.
+     *
+     * @param source
+     *            The file which has to be loaded.
+     * @param encoding
+     *            The encoding to use. <code>null</code> selects the default encoding.
+     * @param offset
+     *            The number of characters to skip.
+     * @return The characters of the file. Not <code>null</code>.
+     * @throws IOException
+     *             Loading failed or the file is too large for an array.
+     */
+    @NotNull
+    static char[] loadAllChars(@NotNull Path source, Encoding encoding, @Min(0) int offset) throws IOException {
+        var bytes   = loadAllBytes(source, 0L);
+        var charset = Encoding.getEncoding(encoding).getCharset();
+        var decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        long length = bytes.length;
+        if (!isSingleByte(charset)) {
+            length = decode(decoder, bytes, null, 0);
+            decoder.reset();
+        }
+        if (length > MAX_ARRAY_SIZE) {
+            throw new KclException(error_file_too_large.formatted(source, (long) bytes.length));
+        }
+        var start   = (int) Math.min(offset, length);
+        var result  = new char[(int) length - start];
+        decode(decoder, bytes, result, start);
+        return result;
+    }
+
+    private static boolean isSingleByte(@NotNull Charset charset) {
+        // a charset encoding each character with one byte decodes each byte into one character
+        return charset.canEncode() && (charset.newEncoder().maxBytesPerChar() == 1.0f);
+    }
+
+    /**
+     * Decodes the supplied bytes.
+     *
+     * @param decoder
+     *            The decoder to use.
+     * @param bytes
+     *            The bytes which have to be decoded.
+     * @param target
+     *            The receiver of the characters starting with the index <code>start</code>. If
+     *            <code>null</code> the characters are only counted.
+     * @param start
+     *            The index of the first character to be stored.
+     * @return The number of decoded characters.
+     * @throws CharacterCodingException
+     *             Decoding failed.
+     */
+    private static long decode(@NotNull CharsetDecoder decoder, @NotNull byte[] bytes, char[] target, int start) throws CharacterCodingException {
+        var input = ByteBuffer.wrap(bytes);
+        if ((target != null) && (start == 0)) {
+            // the target has the exact size, so the characters can be decoded directly
+            var output = CharBuffer.wrap(target);
+            complete(decoder.decode(input, output, true), decoder, output);
+            return output.position();
+        }
+        var chunk    = CharBuffer.allocate(8192);
+        var count    = 0L;
+        var flushing = false;
+        while (true) {
+            var coding = flushing ? decoder.flush(chunk) : decoder.decode(input, chunk, true);
+            if (coding.isError()) {
+                coding.throwException();
+            }
+            var produced = chunk.position();
+            if ((target != null) && (count + produced > start)) {
+                var skip = (int) Math.max(0L, start - count);
+                System.arraycopy(chunk.array(), skip, target, (int) (count + skip - start), produced - skip);
+            }
+            count += produced;
+            chunk.clear();
+            if (coding.isUnderflow()) {
+                if (flushing) {
+                    return count;
+                }
+                flushing = true;
+            }
+        }
+    }
+
+    private static void complete(@NotNull CoderResult coding, @NotNull CharsetDecoder decoder, @NotNull CharBuffer output) throws CharacterCodingException {
+        if (coding.isUnderflow()) {
+            coding = decoder.flush(output);
+        }
+        if (!coding.isUnderflow()) {
+            coding.throwException();
+        }
+    }
+
+} /* ENDCLASS */
@@ -10,6 +10,8 @@ import com.kasisoft.libs.common.*;
 
 import jakarta.validation.constraints.*;
 
+import java.nio.channels.*;
+
 import java.nio.charset.*;
 
 import java.nio.file.*;
@@ -33,16 +35,36 @@ public class FileIoSupport implements IoSupport<File> {
         return Files.newOutputStream(destination.toPath());
     }
 
+    @Override
+    public ReadableByteChannel newReadableChannelImpl(File source) throws Exception {
+        return FileChannel.open(source.toPath(), StandardOpenOption.READ);
+    }
+
+    @Override
+    public WritableByteChannel newWritableChannelImpl(File destination) throws Exception {
+        return FileChannel.open(destination.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public Object getVersion(@NotNull File source) {
+        return FileContent.getVersion(source.toPath());
+    }
+
     @Override
     @NotNull
-    public byte[] loadAllBytes(@NotNull File source) {
+    public byte[] loadAllBytes(@NotNull File source, @Min(0) int offset) {
         try {
-            var fileSize = source.length();
-            if (fileSize <= MB_16) {
-                return Files.readAllBytes(source.toPath());
-            } else {
-                return IoSupport.super.loadAllBytes(source);
-            }
+            return FileContent.loadAllBytes(source.toPath(), offset);
+        } catch (Exception ex) {
+            throw new KclException(ex, error_failed_to_read_from.formatted(source));
+        }
+    }
+
+    @Override
+    @NotNull
+    public char[] loadAllChars(@NotNull File source, Encoding encoding, @Min(0) int offset) {
+        try {
+            return FileContent.loadAllChars(source.toPath(), encoding, offset);
         } catch (Exception ex) {
             throw new KclException(ex, error_failed_to_read_from.formatted(source));
         }
@@ -57,7 +79,8 @@ public class FileIoSupport implements IoSupport<File> {
                 return Files.readString(source.toPath(), encoding != null ? encoding.getCharset()
                     : StandardCharsets.UTF_8);
             } else {
-                return IoSupport.super.readText(source, encoding);
+                // the bytes are decoded in a single pass into an exactly sized string
+                return new String(FileContent.loadAllBytes(source.toPath(), 0L), Encoding.getEncoding(encoding).getCharset());
             }
         } catch (Exception ex) {
             throw new KclException(ex, error_failed_to_read_from.formatted(source));
@@ -10,6 +10,8 @@ import com.kasisoft.libs.common.*;
 
 import jakarta.validation.constraints.*;
 
+import java.nio.channels.*;
+
 import java.nio.charset.*;
 
 import java.nio.file.*;
@@ -33,16 +35,36 @@ public class PathIoSupport implements IoSupport<Path> {
         return Files.newOutputStream(destination);
     }
 
+    @Override
+    public ReadableByteChannel newReadableChannelImpl(Path source) throws Exception {
+        return FileChannel.open(source, StandardOpenOption.READ);
+    }
+
+    @Override
+    public WritableByteChannel newWritableChannelImpl(Path destination) throws Exception {
+        return FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public Object getVersion(@NotNull Path source) {
+        return FileContent.getVersion(source);
+    }
+
     @Override
     @NotNull
-    public byte[] loadAllBytes(@NotNull Path source) {
+    public byte[] loadAllBytes(@NotNull Path source, @Min(0) int offset) {
         try {
-            var fileSize = Files.size(source);
-            if (fileSize <= MB_16) {
-                return Files.readAllBytes(source);
-            } else {
-                return IoSupport.super.loadAllBytes(source);
-            }
+            return FileContent.loadAllBytes(source, offset);
+        } catch (Exception ex) {
+            throw new KclException(ex, Messages.error_failed_to_read_from.formatted(source));
+        }
+    }
+
+    @Override
+    @NotNull
+    public char[] loadAllChars(@NotNull Path source, Encoding encoding, @Min(0) int offset) {
+        try {
+            return FileContent.loadAllChars(source, encoding, offset);
         } catch (Exception ex) {
             throw new KclException(ex, Messages.error_failed_to_read_from.formatted(source));
         }
@@ -56,7 +78,8 @@ public class PathIoSupport implements IoSupport<Path> {
             if (fileSize <= MB_16) {
                 return Files.readString(source, encoding != null ? encoding.getCharset() : StandardCharsets.UTF_8);
             } else {
-                return IoSupport.super.readText(source, encoding);
+                // the bytes are decoded in a single pass into an exactly sized string
+                return new String(FileContent.loadAllBytes(source, 0L), Encoding.getEncoding(encoding).getCharset());
             }
         } catch (Exception ex) {
             throw new KclException(ex, Messages.error_failed_to_read_from.formatted(source));
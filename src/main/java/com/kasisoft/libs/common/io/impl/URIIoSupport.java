@@ -2,6 +2,8 @@ package com.kasisoft.libs.common.io.impl;
 
 import com.kasisoft.libs.common.io.*;
 
+import java.nio.channels.*;
+
 import java.nio.file.*;
 
 import java.net.*;
@@ -23,4 +25,22 @@ public class URIIoSupport implements IoSupport<URI> {
         return Files.newOutputStream(Paths.get(destination));
     }
 
+    @Override
+    public ReadableByteChannel newReadableChannelImpl(URI source) throws Exception {
+        return FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+    }
+
+    @Override
+    public WritableByteChannel newWritableChannelImpl(URI destination) throws Exception {
+        return FileChannel.open(Paths.get(destination), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public Object getVersion(URI source) {
+        if ("file".equals(source.getScheme())) {
+            return FileContent.getVersion(Paths.get(source));
+        }
+        return null;
+    }
+
 } /* ENDCLASS */
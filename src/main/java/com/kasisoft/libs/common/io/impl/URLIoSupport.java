@@ -8,6 +8,10 @@ import com.kasisoft.libs.common.*;
 
 import jakarta.validation.constraints.*;
 
+import java.util.*;
+
+import java.nio.file.*;
+
 import java.net.*;
 
 import java.io.*;
@@ -27,4 +31,50 @@ public class URLIoSupport implements IoSupport<URL> {
         throw new KclException(error_no_write_support_for_urls.formatted(destination));
     }
 
+    @Override
+    @NotNull
+    public MappedView newMappedView(@NotNull URL source) {
+        // other protocols would open a connection (f.e. a network request) just to find out that the
+        // content can't be mapped
+        if (!"file".equals(source.getProtocol())) {
+            throw new KclException(error_no_mapping_support.formatted(source));
+        }
+        try {
+            return new MappedView(Paths.get(source.toURI()));
+        } catch (URISyntaxException ex) {
+            throw new KclException(ex, error_failed_to_read_from.formatted(source));
+        }
+    }
+
+    @Override
+    public Object getVersion(@NotNull URL source) {
+        try {
+            if ("file".equals(source.getProtocol())) {
+                return FileContent.getVersion(Paths.get(source.toURI()));
+            }
+            var connection = source.openConnection();
+            if (connection instanceof JarURLConnection jar) {
+                // the entries of a local jar only change together with the jar itself
+                var jarFile = jar.getJarFileURL();
+                if ("file".equals(jarFile.getProtocol())) {
+                    return FileContent.getVersion(Paths.get(jarFile.toURI()));
+                }
+            } else if (connection instanceof HttpURLConnection http) {
+                http.setRequestMethod("HEAD");
+                try {
+                    var etag     = http.getHeaderField("ETag");
+                    var modified = http.getLastModified();
+                    if ((etag != null) || (modified != 0L)) {
+                        return List.of(Objects.toString(etag, ""), modified, http.getContentLengthLong());
+                    }
+                } finally {
+                    http.disconnect();
+                }
+            }
+        } catch (Exception ex) {
+            // the version is unknown, so the resource won't be cached
+        }
+        return null;
+    }
+
 } /* ENDCLASS */
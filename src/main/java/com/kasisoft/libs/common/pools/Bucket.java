@@ -2,6 +2,8 @@ package com.kasisoft.libs.common.pools;
 
 import jakarta.validation.constraints.*;
 
+import java.util.concurrent.locks.*;
+
 import java.lang.ref.*;
 
 import java.util.function.*;
@@ -15,9 +17,15 @@ import java.util.*;
  */
 public class Bucket<T> {
 
-    private List<SoftReference<T>> references;
-    private Supplier<T>            creator;
-    private Consumer<T>            reset;
+    private LinkedList<PooledReference<T>> references;
+    // a lock doesn't pin virtual threads to their carrier (unlike a monitor)
+    private ReentrantLock                  lock;
+    private Supplier<T>                    creator;
+    private Consumer<T>                    reset;
+    private volatile RetentionPolicy<T>    policy;
+    private volatile long                  nextEviction;
+    private volatile PoolMetrics           metrics;
+    private volatile LeakDetector          leakDetector;
 
     /**
      * Initializes this bucket.
@@ -28,15 +36,250 @@ public class Bucket<T> {
      *            Cleaning function for elements.
      */
     public Bucket(@NotNull Supplier<T> producer, @NotNull Consumer<T> resetter) {
-        references = new LinkedList<>();
-        creator    = producer;
-        reset      = resetter;
+        references   = new LinkedList<>();
+        lock         = new ReentrantLock();
+        creator      = producer;
+        reset        = resetter;
+        policy       = RetentionPolicy.unbounded();
+        nextEviction = Long.MAX_VALUE;
+    }
+
+    /**
+     * Creates a new bucket using the desired implementation.
+     *
+     * @param type
+     *            The implementation used for the bucket.
+     * @param producer
+     *            Supplier for new elements.
+     * @param resetter
+     *            Cleaning function for elements.
+     * @return The new bucket.
+     */
+    @NotNull
+    public static <T> Bucket<T> newBucket(@NotNull BucketType type, @NotNull Supplier<T> producer, @NotNull Consumer<T> resetter) {
+        return switch (type) {
+            case Concurrent -> new ConcurrentBucket<>(producer, resetter);
+            default -> new Bucket<>(producer, resetter);
+        };
+    }
+
+    /**
+     * Creates a new element without consulting the pool.
+     *
+     * @return A new element.
+     */
+    @NotNull
+    protected T create() {
+        return creator.get();
+    }
+
+    /**
+     * Cleans the supplied element, so it can be reused.
+     *
+     * @param object
+     *            The element that shall be cleaned.
+     */
+    protected void resetObject(@NotNull T object) {
+        reset.accept(object);
+    }
+
+    @NotNull
+    public RetentionPolicy<T> getRetentionPolicy() {
+        return policy;
+    }
+
+    /**
+     * Changes the policy which controls the objects that are retained. Objects that are already pooled are
+     * not affected until they are being evicted.
+     *
+     * @param retentionPolicy
+     *            The new retention policy. <code>null</code> retains all objects.
+     */
+    public void setRetentionPolicy(RetentionPolicy<T> retentionPolicy) {
+        policy       = retentionPolicy != null ? retentionPolicy : RetentionPolicy.unbounded();
+        nextEviction = policy.maxIdle() != null ? System.nanoTime() + policy.maxIdle().toNanos() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Cleans the supplied object and applies the retention policy to it.
+     *
+     * @param object
+     *            The object which is about to be freed.
+     * @return <code>true</code> <=> The object can be retained.
+     */
+    protected boolean prepare(@NotNull T object) {
+        var retentionPolicy = policy;
+        var oversized       = retentionPolicy.isOversized(object);
+        if (oversized && (retentionPolicy.trimmer() == null)) {
+            return false;
+        }
+        reset.accept(object);
+        if (oversized) {
+            retentionPolicy.trimmer().accept(object);
+        }
+        return true;
+    }
+
+    /**
+     * Evicts idle objects if the policy requires it and the last eviction is long enough ago.
+     */
+    protected void evictIfDue() {
+        var now = System.nanoTime();
+        if (now - nextEviction >= 0) {
+            var maxIdle = policy.maxIdle();
+            if (maxIdle != null) {
+                // idle objects are checked twice per idle period
+                nextEviction = now + Math.max(1L, maxIdle.toNanos() / 2);
+                evict();
+            } else {
+                nextEviction = Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Drops all pooled objects which haven't been used for the idle time specified by the retention
+     * policy.
+     *
+     * @return The number of evicted objects.
+     */
+    public int evict() {
+        var maxIdle = policy.maxIdle();
+        if (maxIdle == null) {
+            return 0;
+        }
+        var result = 0;
+        var now    = System.nanoTime();
+        var nanos  = maxIdle.toNanos();
+        lock.lock();
+        try {
+            // the least recently pooled objects are located at the beginning
+            while ((!references.isEmpty()) && references.getFirst().isIdle(now, nanos)) {
+                references.removeFirst().clear();
+                result++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        evicted(result);
+        return result;
+    }
+
+    /**
+     * Informs the metrics about evicted objects.
+     *
+     * @param count
+     *            The number of evicted objects.
+     */
+    protected void evicted(int count) {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            for (var i = 0; i < count; i++) {
+                poolMetrics.onEvict(0L);
+            }
+        }
+    }
+
+    /**
+     * Returns the metrics of this bucket.
+     *
+     * @return The metrics of this bucket. <code>null</code> if disabled.
+     */
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables/disables the metrics for this bucket.
+     *
+     * @param newMetrics
+     *            The metrics to maintain. <code>null</code> disables the metrics.
+     */
+    public void setMetrics(PoolMetrics newMetrics) {
+        metrics = newMetrics;
+    }
+
+    public LeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    /**
+     * Enables/disables the tracking of objects which haven't been freed.
+     *
+     * @param detector
+     *            The detector recording the allocations. <code>null</code> disables the tracking.
+     */
+    public void setLeakDetector(LeakDetector detector) {
+        leakDetector = detector;
+    }
+
+    /**
+     * Informs the metrics and the leak detector about an allocation.
+     *
+     * @param object
+     *            The allocated object.
+     * @param hit
+     *            <code>true</code> The object has been taken from the pool.
+     */
+    protected void allocated(@NotNull T object, boolean hit) {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            if (hit) {
+                poolMetrics.onHit(0L);
+            } else {
+                poolMetrics.onMiss();
+            }
+        }
+        var detector = leakDetector;
+        if (detector != null) {
+            detector.track(object);
+        }
+    }
+
+    /**
+     * Informs the metrics and the leak detector that an object has been freed.
+     *
+     * @param object
+     *            The freed object.
+     * @param retained
+     *            <code>true</code> The object has been put into the pool.
+     */
+    protected void freed(@NotNull T object, boolean retained) {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            if (retained) {
+                poolMetrics.onRetain(0L);
+            } else {
+                poolMetrics.onDrop();
+            }
+        }
+        var detector = leakDetector;
+        if (detector != null) {
+            detector.untrack(object);
+        }
+    }
+
+    /**
+     * Informs the metrics that a pooled object has been collected by the garbage collector.
+     */
+    protected void collected() {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            poolMetrics.onGcClear(0L);
+        }
     }
 
     public void reset() {
-        synchronized (references) {
+        lock.lock();
+        try {
             references.forEach(SoftReference::clear);
             references.clear();
+        } finally {
+            lock.unlock();
+        }
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            poolMetrics.onReset();
         }
     }
 
@@ -57,16 +300,25 @@ public class Bucket<T> {
     @NotNull
     public T allocate() {
         T result = null;
-        synchronized (references) {
+        lock.lock();
+        try {
+            // the most recently pooled objects are preferred, so the surplus objects become idle
             while ((result == null) && (!references.isEmpty())) {
-                var reference = references.remove(0);
+                var reference = references.removeLast();
                 result = reference.get();
                 reference.clear();
+                if (result == null) {
+                    collected();
+                }
             }
+        } finally {
+            lock.unlock();
         }
-        if (result == null) {
+        var hit = result != null;
+        if (!hit) {
             result = creator.get();
         }
+        allocated(result, hit);
         return result;
     }
 
@@ -78,15 +330,38 @@ public class Bucket<T> {
      */
     public <R extends T> void free(R object) {
         if (object != null) {
-            synchronized (references) {
-                reset.accept(object);
-                references.add(new SoftReference<>(object));
+            freePrepared(object, prepare(object));
+        }
+    }
+
+    /**
+     * Frees an object which has already been passed to {@link #prepare(Object)}.
+     *
+     * @param object
+     *            The object that shall be freed.
+     * @param retainable
+     *            The outcome of {@link #prepare(Object)}.
+     */
+    protected void freePrepared(@NotNull T object, boolean retainable) {
+        var retained = retainable;
+        if (retained) {
+            lock.lock();
+            try {
+                retained = !policy.isFull(references.size());
+                if (retained) {
+                    references.addLast(new PooledReference<>(object));
+                }
+            } finally {
+                lock.unlock();
             }
         }
+        freed(object, retained);
+        evictIfDue();
     }
 
     /**
-     * Executes the supplied function with the desired instance.
+     * Executes the supplied function with the desired instance. Within a {@link PoolScope} the instance
+     * is reused by all subsequent calls of that scope.
      *
      * @param function
      *            The function that is supposed to be executed.
@@ -94,11 +369,16 @@ public class Bucket<T> {
      */
     @NotNull
     public <R> R forInstance(@NotNull Function<T, R> function) {
-        T instance = allocate();
+        var scope    = PoolScope.current();
+        T   instance = scope != null ? scope.borrow(this) : allocate();
         try {
             return function.apply(instance);
         } finally {
-            free(instance);
+            if (scope != null) {
+                scope.giveBack(this, instance);
+            } else {
+                free(instance);
+            }
         }
     }
 
@@ -113,12 +393,7 @@ public class Bucket<T> {
      */
     @NotNull
     public <R, P> R forInstance(@NotNull BiFunction<T, P, R> function, P param) {
-        T instance = allocate();
-        try {
-            return function.apply(instance, param);
-        } finally {
-            free(instance);
-        }
+        return forInstance($ -> function.apply($, param));
     }
 
     /**
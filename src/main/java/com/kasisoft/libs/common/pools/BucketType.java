@@ -0,0 +1,19 @@
+package com.kasisoft.libs.common.pools;
+
+/**
+ * The available implementations of a {@link Bucket}.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public enum BucketType {
+
+    /** A single list guarded by a lock. Simple but serializes all callers. */
+    Synchronized,
+
+    /**
+     * Per-thread magazines in front of a shared lock-free stack. Virtual threads are working against the
+     * shared stack only, so this is the preferred implementation for virtual threads.
+     */
+    Concurrent;
+
+} /* ENDENUM */
@@ -1,11 +1,17 @@
 package com.kasisoft.libs.common.pools;
 
+import jakarta.validation.constraints.*;
+
 import java.util.concurrent.*;
 
+import java.util.function.*;
+
 import java.util.zip.*;
 
 import java.util.*;
 
+import java.time.*;
+
 import java.io.*;
 
 /**
@@ -14,42 +20,134 @@ import java.io.*;
 @SuppressWarnings({"unchecked", "rawtypes"})
 public class Buckets {
 
+    private static final int      MAX_POOLED   = 64;
+    private static final int      MAX_CHARS    = 64 * 1024;
+    private static final int      MAX_BYTES    = 1024 * 1024;
+    private static final int      MAX_ELEMENTS = 4096;
+    private static final Duration MAX_IDLE     = Duration.ofMinutes(1);
+
     public static Map<Class, Bucket> BUCKETS = new ConcurrentHashMap<>(10);
 
+    private static BucketType   bucketType     = BucketType.Concurrent;
+    private static boolean      metricsEnabled = false;
+    private static LeakDetector leakDetector   = null;
+
+    /**
+     * Changes the implementation used for buckets which haven't been created yet.
+     *
+     * @param type
+     *            The implementation used for new buckets.
+     */
+    public static void setBucketType(@NotNull BucketType type) {
+        bucketType = type;
+    }
+
+    @NotNull
+    public static BucketType getBucketType() {
+        return bucketType;
+    }
+
+    /**
+     * Enables/disables the metrics for all buckets of this registry. Enabled metrics are published through
+     * the platform MBean server.
+     *
+     * @param enable
+     *            <code>true</code> Maintain the metrics.
+     */
+    public static synchronized void setMetricsEnabled(boolean enable) {
+        metricsEnabled = enable;
+        BUCKETS.forEach(($type, $bucket) -> configureMetrics($type, $bucket));
+    }
+
+    public static boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Changes the leak detector used for all buckets of this registry.
+     *
+     * @param detector
+     *            The detector recording the allocations. <code>null</code> disables the tracking.
+     */
+    public static synchronized void setLeakDetector(LeakDetector detector) {
+        leakDetector = detector;
+        BUCKETS.values().forEach($ -> $.setLeakDetector(detector));
+    }
+
+    public static LeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    private static void configureMetrics(@NotNull Class<?> type, @NotNull Bucket<?> bucket) {
+        var current = bucket.getMetrics();
+        if (metricsEnabled && (current == null)) {
+            var metrics = new PoolMetrics("Bucket<%s>".formatted(type.getSimpleName()));
+            metrics.register();
+            bucket.setMetrics(metrics);
+        } else if ((!metricsEnabled) && (current != null)) {
+            current.unregister();
+            bucket.setMetrics(null);
+        }
+    }
+
+    private static <T> RetentionPolicy<T> retention() {
+        return RetentionPolicy.<T>builder()
+            .maxPooled(MAX_POOLED)
+            .maxIdle(MAX_IDLE)
+            .build();
+    }
+
+    private static <T> RetentionPolicy<T> retention(int maxCapacity, @NotNull ToIntFunction<T> capacity, Consumer<T> trimmer) {
+        return RetentionPolicy.<T>builder()
+            .maxPooled(MAX_POOLED)
+            .maxCapacity(maxCapacity, capacity)
+            .trimmer(trimmer)
+            .maxIdle(MAX_IDLE)
+            .build();
+    }
+
+    private static <T> Bucket<T> newBucket(@NotNull Class<?> type, @NotNull Supplier<T> producer, @NotNull Consumer<T> resetter, @NotNull RetentionPolicy<T> policy) {
+        var result = Bucket.newBucket(bucketType, producer, resetter);
+        result.setRetentionPolicy(policy);
+        configureMetrics(type, result);
+        result.setLeakDetector(leakDetector);
+        return result;
+    }
+
     public static <R> Bucket<List<R>> arrayList() {
-        return BUCKETS.computeIfAbsent(ArrayList.class, $ -> new Bucket<ArrayList>(ArrayList::new, ArrayList::clear));
+        return BUCKETS.computeIfAbsent(ArrayList.class, $ -> Buckets.<ArrayList>newBucket($, ArrayList::new, ArrayList::clear, retention(MAX_ELEMENTS, ArrayList::size, ArrayList::trimToSize)));
     }
 
     public static <R> Bucket<List<R>> linkedList() {
-        return BUCKETS.computeIfAbsent(LinkedList.class, $ -> new Bucket<>(LinkedList::new, LinkedList::clear));
+        return BUCKETS.computeIfAbsent(LinkedList.class, $ -> newBucket($, LinkedList::new, LinkedList::clear, retention()));
     }
 
     public static Bucket<ByteArrayOutputStream> byteArrayOutputStream() {
-        return BUCKETS.computeIfAbsent(ByteArrayOutputStream.class, $ -> new Bucket<>(ByteArrayOutputStream::new, ByteArrayOutputStream::reset));
+        return BUCKETS.computeIfAbsent(ByteArrayOutputStream.class, $ -> newBucket($, ByteArrayOutputStream::new, ByteArrayOutputStream::reset, retention(MAX_BYTES, ByteArrayOutputStream::size, null)));
     }
 
     public static Bucket<CharArrayWriter> charArrayWriter() {
-        return BUCKETS.computeIfAbsent(CharArrayWriter.class, $ -> new Bucket<>(CharArrayWriter::new, CharArrayWriter::reset));
+        return BUCKETS.computeIfAbsent(CharArrayWriter.class, $ -> newBucket($, CharArrayWriter::new, CharArrayWriter::reset, retention(MAX_CHARS, CharArrayWriter::size, null)));
     }
 
     public static Bucket<StringBuilder> stringBuilder() {
-        return BUCKETS.computeIfAbsent(StringBuilder.class, $ -> new Bucket<>(StringBuilder::new, $sb -> $sb.setLength(0)));
+        return BUCKETS.computeIfAbsent(StringBuilder.class, $ -> newBucket($, StringBuilder::new, $sb -> $sb.setLength(0), retention(MAX_CHARS, StringBuilder::capacity, StringBuilder::trimToSize)));
     }
 
     public static Bucket<StringBuffer> stringBuffer() {
-        return BUCKETS.computeIfAbsent(StringBuffer.class, $ -> new Bucket<>(StringBuffer::new, $sb -> $sb.setLength(0)));
+        return BUCKETS.computeIfAbsent(StringBuffer.class, $ -> newBucket($, StringBuffer::new, $sb -> $sb.setLength(0), retention(MAX_CHARS, StringBuffer::capacity, StringBuffer::trimToSize)));
     }
 
     public static <K, V> Bucket<HashMap<K, V>> hashMap() {
-        return BUCKETS.computeIfAbsent(HashMap.class, $ -> new Bucket<>(HashMap::new, HashMap::clear));
+        return BUCKETS.computeIfAbsent(HashMap.class, $ -> newBucket($, HashMap::new, HashMap::clear, retention(MAX_ELEMENTS, HashMap::size, null)));
     }
 
     public static Bucket<CRC32> crc32() {
-        return BUCKETS.computeIfAbsent(CRC32.class, $ -> new Bucket<>(CRC32::new, CRC32::reset));
+        return BUCKETS.computeIfAbsent(CRC32.class, $ -> newBucket($, CRC32::new, CRC32::reset, retention()));
     }
 
     public static Bucket<StringWriter> stringWriter() {
-        return BUCKETS.computeIfAbsent(StringWriter.class, $ -> new Bucket<>(StringWriter::new, $sw -> $sw.getBuffer().setLength(0)));
+        return BUCKETS.computeIfAbsent(StringWriter.class, $ -> newBucket($, StringWriter::new, $sw -> $sw.getBuffer().setLength(0), retention(MAX_CHARS, $sw -> $sw.getBuffer().capacity(), $sw -> $sw.getBuffer().trimToSize())));
     }
 
 } /* ENDCLASS */
@@ -2,6 +2,8 @@ package com.kasisoft.libs.common.pools;
 
 import jakarta.validation.constraints.*;
 
+import java.util.concurrent.locks.*;
+
 import java.lang.ref.*;
 
 import java.util.function.*;
@@ -9,17 +11,28 @@ import java.util.function.*;
 import java.util.*;
 
 /**
- * Collector for often used objects like collections, maps etc. .
+ * Collector for often used arrays. The records are organized in power of two size classes, so
+ * allocating and freeing is constant in time and records of every size can be reused.
  *
  * @author daniel.kasmeroglu@kasisoft.com
  */
+@SuppressWarnings("unchecked")
 public class Buffer<T> {
 
-    private List<SoftReference<T>> references;
-    private List<Integer>          lengths;
-    private Function<Integer, T>   creator;
-    private Function<T, Integer>   getLength;
-    private Consumer<T>            reset;
+    private static final int MIN_SHIFT         = 9;
+    private static final int MAX_SHIFT         = 30;
+    private static final int DEFAULT_PER_CLASS = 16;
+
+    private SizeClass<T>[]        sizeClasses;
+    private ReferenceQueue<T>     cleared;
+    private Function<Integer, T>  creator;
+    private Function<T, Integer>  getLength;
+    private Consumer<T>           reset;
+    private int                   bytesPerElement;
+    private int                   maxPerClass;
+    private BufferBudget          budget;
+    private volatile PoolMetrics  metrics;
+    private volatile LeakDetector leakDetector;
 
     /**
      * Initializes this bucket.
@@ -32,70 +45,265 @@ public class Buffer<T> {
      *            A function that provides the length per record.
      */
     public Buffer(@NotNull Function<Integer, T> producer, @NotNull Consumer<T> resetter, @NotNull Function<T, Integer> getLength) {
-        references     = new LinkedList<>();
-        lengths        = new LinkedList<>();
-        creator        = producer;
-        reset          = resetter;
-        this.getLength = getLength;
+        this(producer, resetter, getLength, 1, DEFAULT_PER_CLASS, null);
     }
 
-    public void compact() {
-        synchronized (references) {
-            for (var i = references.size() - 1; i >= 0; i--) {
-                var reference = references.get(i);
-                var content   = reference.get();
-                if (content == null) {
-                    references.remove(i);
-                    lengths.remove(i);
-                }
+    /**
+     * Initializes this bucket.
+     *
+     * @param producer
+     *            Supplier for new elements. The requested size is always a power of two.
+     * @param resetter
+     *            Cleaning function for elements.
+     * @param getLength
+     *            A function that provides the length per record.
+     * @param bytesPerElement
+     *            The number of bytes per element of a record. Used to account for the budget.
+     * @param maxPerClass
+     *            The maximum number of records retained per size class.
+     * @param budget
+     *            A budget that limits the amount of retained bytes. Might be shared across multiple buffers.
+     *            If <code>null</code> the amount is only limited by the number of records per size class.
+     */
+    public Buffer(@NotNull Function<Integer, T> producer, @NotNull Consumer<T> resetter, @NotNull Function<T, Integer> getLength, @Min(1) int bytesPerElement, @Min(0) int maxPerClass, BufferBudget budget) {
+        sizeClasses          = (SizeClass<T>[]) new SizeClass<?>[MAX_SHIFT + 1];
+        for (var i = MIN_SHIFT; i <= MAX_SHIFT; i++) {
+            sizeClasses[i] = new SizeClass<>(this);
+        }
+        cleared              = new ReferenceQueue<>();
+        creator              = producer;
+        reset                = resetter;
+        this.getLength       = getLength;
+        this.bytesPerElement = Math.max(1, bytesPerElement);
+        this.maxPerClass     = Math.max(0, maxPerClass);
+        this.budget          = budget;
+    }
+
+    /**
+     * Initializes a buffer which manages it's records on it's own, so the size classes are not being
+     * created. Such a buffer must override all methods accessing the records ({@link #allocate(int)},
+     * {@link #free(Object)}, {@link #getSize()}, {@link #compact()} and {@link #reset()}).
+     *
+     * @param getLength
+     *            A function that provides the length per record.
+     * @param bytesPerElement
+     *            The number of bytes per element of a record.
+     */
+    protected Buffer(@NotNull Function<T, Integer> getLength, @Min(1) int bytesPerElement) {
+        this.getLength       = getLength;
+        this.bytesPerElement = Math.max(1, bytesPerElement);
+        this.maxPerClass     = 0;
+    }
+
+    /**
+     * Returns the size of the records handed out for the supplied size.
+     *
+     * @param size
+     *            The requested size.
+     * @return The size of the records handed out for the supplied size. It's always a power of two unless
+     *         the supplied size is too large to be pooled.
+     */
+    public static int sizeFor(int size) {
+        var shift = allocationShift(size);
+        return shift > MAX_SHIFT ? size : 1 << shift;
+    }
+
+    /**
+     * Returns the size class that can serve the requested size.
+     */
+    private static int allocationShift(int size) {
+        if (size <= (1 << MIN_SHIFT)) {
+            return MIN_SHIFT;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Returns the size class a record of the supplied length can serve or -1 if it cannot be pooled.
+     */
+    private static int retentionShift(int length) {
+        if (length < (1 << MIN_SHIFT)) {
+            return -1;
+        }
+        var result = 31 - Integer.numberOfLeadingZeros(length);
+        return result > MAX_SHIFT ? -1 : result;
+    }
+
+    /**
+     * Returns the metrics of this buffer.
+     *
+     * @return The metrics of this buffer. <code>null</code> if disabled.
+     */
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables/disables the metrics for this buffer.
+     *
+     * @param newMetrics
+     *            The metrics to maintain. <code>null</code> disables the metrics.
+     */
+    public void setMetrics(PoolMetrics newMetrics) {
+        metrics = newMetrics;
+    }
+
+    public LeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    /**
+     * Enables/disables the tracking of records which haven't been freed.
+     *
+     * @param detector
+     *            The detector recording the allocations. <code>null</code> disables the tracking.
+     */
+    public void setLeakDetector(LeakDetector detector) {
+        leakDetector = detector;
+    }
+
+    /**
+     * Informs the metrics and the leak detector about an allocation.
+     *
+     * @param object
+     *            The allocated record.
+     * @param hit
+     *            <code>true</code> The record has been taken from the pool.
+     * @param bytes
+     *            The size of the record in bytes.
+     */
+    protected void allocated(@NotNull T object, boolean hit, long bytes) {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            if (hit) {
+                poolMetrics.onHit(bytes);
+            } else {
+                poolMetrics.onMiss();
             }
         }
+        var detector = leakDetector;
+        if (detector != null) {
+            detector.track(object);
+        }
     }
 
     /**
-     * Creates a new object (potentially a reused one).
+     * Informs the metrics and the leak detector that a record has been freed.
      *
-     * @return A new object. The returned object might be larget than requested.
+     * @param object
+     *            The freed record.
+     * @param retained
+     *            <code>true</code> The record has been put into the pool.
+     * @param bytes
+     *            The size of the record in bytes.
      */
-    @NotNull
-    public T allocate(int size) {
-        T result = null;
-        synchronized (references) {
-            while ((result == null) && (!references.isEmpty())) {
-                // look for a buffer with a sufficient size
-                var idx = findSizableBuffer(size);
-                if (idx != -1) {
-                    var reference = references.remove(0);
-                    lengths.remove(0);
-                    result = reference.get();
-                    reference.clear();
-                } else {
-                    break;
-                }
+    protected void freed(@NotNull T object, boolean retained, long bytes) {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            if (retained) {
+                poolMetrics.onRetain(bytes);
+            } else {
+                poolMetrics.onDrop();
             }
         }
-        if (result == null) {
-            result = creator.apply(size);
+        var detector = leakDetector;
+        if (detector != null) {
+            detector.untrack(object);
+        }
+    }
+
+    /**
+     * Informs the metrics that a pooled record has been collected by the garbage collector.
+     *
+     * @param bytes
+     *            The size of the record in bytes.
+     */
+    protected void collected(long bytes) {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            poolMetrics.onGcClear(bytes);
+        }
+    }
+
+    /**
+     * Informs the metrics that all records have been dropped.
+     */
+    protected void dropped() {
+        var poolMetrics = metrics;
+        if (poolMetrics != null) {
+            poolMetrics.onReset();
+        }
+    }
+
+    /**
+     * Returns the number of records currently stored.
+     *
+     * @return The number of records currently stored.
+     */
+    public int getSize() {
+        expunge();
+        var result = 0;
+        for (var i = MIN_SHIFT; i <= MAX_SHIFT; i++) {
+            result += sizeClasses[i].count;
         }
         return result;
     }
 
-    private int findSizableBuffer(int size) {
-        synchronized (references) {
-            var idx = Collections.binarySearch(lengths, size);
-            // find an index with a size equal or higher the requested size
-            if (idx < 0) {
-                idx = -idx - 1;
-            }
-            while (idx < lengths.size()) {
-                // look for a buffer that's still exist
-                if (references.get(idx).get() != null) {
-                    return idx;
-                }
-                idx++;
+    /**
+     * Drops the references to records which have been collected by the garbage collector.
+     */
+    public void compact() {
+        expunge();
+        for (var i = MIN_SHIFT; i <= MAX_SHIFT; i++) {
+            sizeClasses[i].compact();
+        }
+    }
+
+    /**
+     * Drops all records.
+     */
+    public void reset() {
+        expunge();
+        for (var i = MIN_SHIFT; i <= MAX_SHIFT; i++) {
+            sizeClasses[i].clear();
+        }
+        dropped();
+    }
+
+    /**
+     * Accounts for all records that have been collected by the garbage collector.
+     */
+    private void expunge() {
+        var reference = (SizedReference<T>) cleared.poll();
+        while (reference != null) {
+            if (sizeClasses[reference.shift].release(reference)) {
+                collected(reference.bytes);
             }
-            return -1;
+            reference = (SizedReference<T>) cleared.poll();
+        }
+    }
+
+    /**
+     * Creates a new object (potentially a reused one).
+     *
+     * @return A new object. The returned object might be larget than requested.
+     */
+    @NotNull
+    public T allocate(int size) {
+        expunge();
+        var shift  = allocationShift(size);
+        T   result = null;
+        if (shift <= MAX_SHIFT) {
+            result = sizeClasses[shift].poll();
+        }
+        var hit = result != null;
+        if (!hit) {
+            result = creator.apply(shift <= MAX_SHIFT ? 1 << shift : size);
         }
+        if ((metrics != null) || (leakDetector != null)) {
+            allocated(result, hit, (long) getLength.apply(result) * bytesPerElement);
+        }
+        return result;
     }
 
     /**
@@ -106,21 +314,25 @@ public class Buffer<T> {
      */
     public void free(T object) {
         if (object != null) {
-            synchronized (references) {
-
+            var length   = getLength.apply(object);
+            var shift    = retentionShift(length);
+            var bytes    = (long) length * bytesPerElement;
+            var retained = false;
+            if ((shift != -1) && ((budget == null) || budget.tryReserve(bytes))) {
                 // clear the buffer
                 reset.accept(object);
-
-                // get the length of the buffer
-                var length = getLength.apply(object);
-                var idx    = Collections.binarySearch(lengths, length);
-                if (idx < 0) {
-                    idx = -idx - 1;
+                retained = sizeClasses[shift].offer(new SizedReference<>(object, cleared, shift, bytes));
+                if (!retained) {
+                    release(bytes);
                 }
-                references.add(idx, new SoftReference<>(object));
-                lengths.add(idx, length);
-
             }
+            freed(object, retained, bytes);
+        }
+    }
+
+    private void release(long bytes) {
+        if (budget != null) {
+            budget.release(bytes);
         }
     }
 
@@ -188,4 +400,128 @@ public class Buffer<T> {
         });
     }
 
+    /**
+     * A soft reference which remembers the information needed for the accounting.
+     */
+    private static class SizedReference<T> extends SoftReference<T> {
+
+        int     shift;
+        long    bytes;
+        boolean released;
+
+        SizedReference(T referent, ReferenceQueue<T> queue, int shift, long bytes) {
+            super(referent, queue);
+            this.shift = shift;
+            this.bytes = bytes;
+        }
+
+    } /* ENDCLASS */
+
+    /**
+     * The records which are capable to serve a certain power of two. Each size class is guarded by it's
+     * own lock, so allocations of different sizes don't contend with each other.
+     */
+    private static class SizeClass<T> {
+
+        Buffer<T>                       owner;
+        ReentrantLock                   lock       = new ReentrantLock();
+        ArrayDeque<SizedReference<T>>   references = new ArrayDeque<>();
+        int                             count      = 0;
+
+        SizeClass(@NotNull Buffer<T> owner) {
+            this.owner = owner;
+        }
+
+        boolean offer(@NotNull SizedReference<T> reference) {
+            lock.lock();
+            try {
+                if (count >= owner.maxPerClass) {
+                    return false;
+                }
+                if (references.size() >= 2 * owner.maxPerClass) {
+                    // there are too many references cleared by the gc
+                    compactImpl();
+                }
+                references.push(reference);
+                count++;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        T poll() {
+            lock.lock();
+            try {
+                var reference = references.poll();
+                while (reference != null) {
+                    var result = reference.get();
+                    if (!reference.released) {
+                        reference.released = true;
+                        count--;
+                        owner.release(reference.bytes);
+                        if (result == null) {
+                            owner.collected(reference.bytes);
+                        }
+                    }
+                    reference.clear();
+                    if (result != null) {
+                        return result;
+                    }
+                    reference = references.poll();
+                }
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean release(@NotNull SizedReference<T> reference) {
+            lock.lock();
+            try {
+                if (!reference.released) {
+                    reference.released = true;
+                    count--;
+                    owner.release(reference.bytes);
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void compact() {
+            lock.lock();
+            try {
+                compactImpl();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void compactImpl() {
+            references.removeIf($ -> $.released || ($.get() == null));
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                var reference = references.poll();
+                while (reference != null) {
+                    if (!reference.released) {
+                        reference.released = true;
+                        count--;
+                        owner.release(reference.bytes);
+                    }
+                    reference.clear();
+                    reference = references.poll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    } /* ENDCLASS */
+
 } /* ENDCLASS */
@@ -0,0 +1,88 @@
+package com.kasisoft.libs.common.pools;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * A limit for the number of bytes which can be retained by one or more {@link Buffer} instances.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class BufferBudget {
+
+    private AtomicLong    used;
+    private volatile long limit;
+
+    /**
+     * Initializes this budget.
+     *
+     * @param limit
+     *            The maximum number of bytes that can be retained.
+     */
+    public BufferBudget(@Min(0) long limit) {
+        this.used  = new AtomicLong();
+        this.limit = Math.max(0L, limit);
+    }
+
+    /**
+     * Returns the number of bytes currently retained.
+     *
+     * @return The number of bytes currently retained.
+     */
+    public long getUsed() {
+        return used.get();
+    }
+
+    /**
+     * Returns the maximum number of bytes that can be retained.
+     *
+     * @return The maximum number of bytes that can be retained.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Changes the maximum number of bytes that can be retained. Lowering the limit doesn't drop
+     * buffers that are already retained.
+     *
+     * @param newLimit
+     *            The maximum number of bytes that can be retained.
+     */
+    public void setLimit(@Min(0) long newLimit) {
+        limit = Math.max(0L, newLimit);
+    }
+
+    /**
+     * Reserves the supplied amount of bytes if possible.
+     *
+     * @param bytes
+     *            The number of bytes that shall be retained.
+     * @return <code>true</code> The bytes have been reserved.
+     */
+    public boolean tryReserve(@Min(0) long bytes) {
+        var max = limit;
+        while (true) {
+            var current = used.get();
+            var updated = current + bytes;
+            if ((updated < current) || (updated > max)) {
+                return false;
+            }
+            if (used.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back the supplied amount of bytes.
+     *
+     * @param bytes
+     *            The number of bytes that are no longer retained.
+     */
+    public void release(@Min(0) long bytes) {
+        used.addAndGet(-bytes);
+    }
+
+} /* ENDCLASS */
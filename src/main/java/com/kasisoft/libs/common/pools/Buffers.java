@@ -1,86 +1,163 @@
 package com.kasisoft.libs.common.pools;
 
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.function.*;
+
 import java.util.*;
 
+import java.nio.*;
+
 /**
  * @author daniel.kasmeroglu@kasisoft.com
  */
 @SuppressWarnings("unchecked")
 public class Buffers {
 
-    private static Map<Class<?>, Buffer<?>> BUFFERS = new HashMap<>();
+    private static final int  MAX_PER_CLASS     = 16;
+    private static final long MAX_DIRECT_RETAIN = 64L * 1024 * 1024;
+
+    private static Map<Class<?>, Buffer<?>> BUFFERS = new ConcurrentHashMap<>();
+
+    private static boolean      metricsEnabled = false;
+    private static LeakDetector leakDetector   = null;
+
+    // the amount of memory that can be retained by all buffers of this registry
+    private static BufferBudget BUDGET = new BufferBudget(Runtime.getRuntime().maxMemory() / 8);
+
+    /**
+     * Returns the budget shared by all buffers of this registry.
+     *
+     * @return The budget shared by all buffers of this registry.
+     */
+    @NotNull
+    public static BufferBudget getBudget() {
+        return BUDGET;
+    }
+
+    /**
+     * Changes the maximum number of bytes retained by all buffers of this registry.
+     *
+     * @param limit
+     *            The maximum number of bytes.
+     */
+    public static void setByteBudget(@Min(0) long limit) {
+        BUDGET.setLimit(limit);
+    }
+
+    /**
+     * Enables/disables the metrics for all buffers of this registry. Enabled metrics are published through
+     * the platform MBean server.
+     *
+     * @param enable
+     *            <code>true</code> Maintain the metrics.
+     */
+    public static synchronized void setMetricsEnabled(boolean enable) {
+        metricsEnabled = enable;
+        BUFFERS.forEach(($type, $buffer) -> configureMetrics($type, $buffer));
+    }
+
+    public static boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * Changes the leak detector used for all buffers of this registry.
+     *
+     * @param detector
+     *            The detector recording the allocations. <code>null</code> disables the tracking.
+     */
+    public static synchronized void setLeakDetector(LeakDetector detector) {
+        leakDetector = detector;
+        BUFFERS.values().forEach($ -> $.setLeakDetector(detector));
+    }
+
+    public static LeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    private static void configureMetrics(@NotNull Class<?> type, @NotNull Buffer<?> buffer) {
+        var current = buffer.getMetrics();
+        if (metricsEnabled && (current == null)) {
+            var metrics = new PoolMetrics("Buffer<%s>".formatted(type.getSimpleName()));
+            metrics.register();
+            buffer.setMetrics(metrics);
+        } else if ((!metricsEnabled) && (current != null)) {
+            current.unregister();
+            buffer.setMetrics(null);
+        }
+    }
+
+    private static <B extends Buffer<?>> B configure(@NotNull Class<?> type, @NotNull B buffer) {
+        configureMetrics(type, buffer);
+        buffer.setLeakDetector(leakDetector);
+        return buffer;
+    }
+
+    private static <T> Buffer<T> newBuffer(@NotNull Class<?> type, @NotNull Function<Integer, T> producer, @NotNull Consumer<T> resetter, @NotNull Function<T, Integer> getLength, int bytesPerElement) {
+        return configure(type, new Buffer<>(producer, resetter, getLength, bytesPerElement, MAX_PER_CLASS, BUDGET));
+    }
 
     public static Buffer<boolean[]> booleanArray() {
         return (Buffer<boolean[]>) BUFFERS.computeIfAbsent(boolean[].class, $type -> {
-            return new Buffer<>($ -> new boolean[upsize($)], $ -> Arrays.fill($, false), $ -> $.length);
+            return newBuffer($type, $ -> new boolean[$], $ -> Arrays.fill($, false), $ -> $.length, 1);
         });
     }
 
     public static Buffer<char[]> charArray() {
         return (Buffer<char[]>) BUFFERS.computeIfAbsent(char[].class, $type -> {
-            return new Buffer<>($ -> new char[upsize($)], $ -> Arrays.fill($, (char) 0), $ -> $.length);
+            return newBuffer($type, $ -> new char[$], $ -> Arrays.fill($, (char) 0), $ -> $.length, Character.BYTES);
         });
     }
 
     public static Buffer<byte[]> byteArray() {
         return (Buffer<byte[]>) BUFFERS.computeIfAbsent(byte[].class, $type -> {
-            return new Buffer<>($ -> new byte[upsize($)], $ -> Arrays.fill($, (byte) 0), $ -> $.length);
+            return newBuffer($type, $ -> new byte[$], $ -> Arrays.fill($, (byte) 0), $ -> $.length, Byte.BYTES);
         });
     }
 
     public static Buffer<short[]> shortArray() {
         return (Buffer<short[]>) BUFFERS.computeIfAbsent(short[].class, $type -> {
-            return new Buffer<>($ -> new short[upsize($)], $ -> Arrays.fill($, (short) 0), $ -> $.length);
+            return newBuffer($type, $ -> new short[$], $ -> Arrays.fill($, (short) 0), $ -> $.length, Short.BYTES);
         });
     }
 
     public static Buffer<int[]> intArray() {
         return (Buffer<int[]>) BUFFERS.computeIfAbsent(int[].class, $type -> {
-            return new Buffer<>($ -> new int[upsize($)], $ -> Arrays.fill($, 0), $ -> $.length);
+            return newBuffer($type, $ -> new int[$], $ -> Arrays.fill($, 0), $ -> $.length, Integer.BYTES);
         });
     }
 
     public static Buffer<long[]> longArray() {
         return (Buffer<long[]>) BUFFERS.computeIfAbsent(long[].class, $type -> {
-            return new Buffer<>($ -> new long[upsize($)], $ -> Arrays.fill($, 0l), $ -> $.length);
+            return newBuffer($type, $ -> new long[$], $ -> Arrays.fill($, 0l), $ -> $.length, Long.BYTES);
         });
     }
 
     public static Buffer<float[]> floatArray() {
         return (Buffer<float[]>) BUFFERS.computeIfAbsent(float[].class, $type -> {
-            return new Buffer<>($ -> new float[upsize($)], $ -> Arrays.fill($, 0l), $ -> $.length);
+            return newBuffer($type, $ -> new float[$], $ -> Arrays.fill($, 0l), $ -> $.length, Float.BYTES);
         });
     }
 
     public static Buffer<double[]> doubleArray() {
         return (Buffer<double[]>) BUFFERS.computeIfAbsent(double[].class, $type -> {
-            return new Buffer<>($ -> new double[upsize($)], $ -> Arrays.fill($, 0l), $ -> $.length);
+            return newBuffer($type, $ -> new double[$], $ -> Arrays.fill($, 0l), $ -> $.length, Double.BYTES);
         });
     }
 
-    private static int upsize(int size) {
-        int result = size;
-        if (size >= 4096) {
-            result = upsize(size, 4096);
-        } else if (size >= 2048) {
-            result = upsize(size, 2048);
-        } else if (size >= 1024) {
-            result = upsize(size, 1024);
-        } else {
-            result = upsize(size, 512);
-        }
-        return result;
-    }
-
-    private static int upsize(int size, int blocksize) {
-        int count = size / blocksize;
-        int rest  = size % blocksize;
-        if (rest > 0) {
-            rest = blocksize;
-        } else {
-            rest = 0;
-        }
-        return count * blocksize + rest;
+    /**
+     * Returns the pool for direct {@link ByteBuffer}s. It allows to allocate up to a quarter of the maximum
+     * heap size and retains up to 64MB.
+     *
+     * @return The pool for direct {@link ByteBuffer}s.
+     */
+    public static DirectBuffer directByteBuffer() {
+        return (DirectBuffer) BUFFERS.computeIfAbsent(ByteBuffer.class, $type -> {
+            return configure($type, new DirectBuffer(Runtime.getRuntime().maxMemory() / 4, MAX_DIRECT_RETAIN));
+        });
     }
 
 } /* ENDCLASS */
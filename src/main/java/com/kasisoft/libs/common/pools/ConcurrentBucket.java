@@ -0,0 +1,302 @@
+package com.kasisoft.libs.common.pools;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.lang.ref.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+/**
+ * A {@link Bucket} which doesn't serialize it's callers. Each platform thread owns a small magazine of
+ * elements which serves most allocate/free pairs without any synchronization or allocation. Elements
+ * that don't fit into the magazine are pushed as soft references onto a shared lock-free stack.
+ * Virtual threads are bypassing the magazine as they are short lived and can exist in huge numbers, so
+ * they are working against the shared stack only.
+ *
+ * The limit of a {@link RetentionPolicy} applies to the shared stack and to each magazine separately.
+ * The elements of a magazine are dropped together with it's thread, so they are not counted against
+ * the shared stack.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ConcurrentBucket<T> extends Bucket<T> {
+
+    private static final int DEFAULT_MAGAZINE_SIZE = 8;
+
+    private AtomicReference<Node<T>> head;
+    private AtomicInteger            size;
+    private AtomicInteger            generation;
+    private ThreadLocal<Magazine>    magazines;
+    private Set<Reference<Magazine>> registry;
+    private ReferenceQueue<Magazine> collectedMagazines;
+    private int                      magazineSize;
+
+    /**
+     * Initializes this bucket.
+     *
+     * @param producer
+     *            Supplier for new elements.
+     * @param resetter
+     *            Cleaning function for elements.
+     */
+    public ConcurrentBucket(@NotNull Supplier<T> producer, @NotNull Consumer<T> resetter) {
+        this(producer, resetter, DEFAULT_MAGAZINE_SIZE);
+    }
+
+    /**
+     * Initializes this bucket.
+     *
+     * @param producer
+     *            Supplier for new elements.
+     * @param resetter
+     *            Cleaning function for elements.
+     * @param magazineSize
+     *            The number of elements cached per platform thread. 0 disables the magazines.
+     */
+    public ConcurrentBucket(@NotNull Supplier<T> producer, @NotNull Consumer<T> resetter, @Min(0) int magazineSize) {
+        super(producer, resetter);
+        this.head               = new AtomicReference<>();
+        this.size               = new AtomicInteger();
+        this.generation         = new AtomicInteger();
+        this.magazineSize       = Math.max(0, magazineSize);
+        this.registry           = ConcurrentHashMap.newKeySet();
+        this.collectedMagazines = new ReferenceQueue<>();
+        this.magazines          = ThreadLocal.withInitial(this::newMagazine);
+    }
+
+    private Magazine newMagazine() {
+        Reference<? extends Magazine> collected;
+        while ((collected = collectedMagazines.poll()) != null) {
+            registry.remove(collected);
+        }
+        var result = new Magazine(Thread.currentThread(), magazineSize, generation.get());
+        // the registry must not keep the magazine alive after it's thread died
+        registry.add(new WeakReference<>(result, collectedMagazines));
+        return result;
+    }
+
+    /**
+     * Drops all pooled elements. Magazines of other threads are invalidated lazily the next time these
+     * threads are accessing this bucket.
+     */
+    @Override
+    public void reset() {
+        generation.incrementAndGet();
+        var node = head.getAndSet(null);
+        while (node != null) {
+            node.reference.clear();
+            node = node.next;
+        }
+        size.set(0);
+        var poolMetrics = getMetrics();
+        if (poolMetrics != null) {
+            poolMetrics.onReset();
+        }
+    }
+
+    /**
+     * Returns the number of elements currently stored including the magazines of all living threads.
+     * The value is approximate while other threads are modifying this bucket.
+     *
+     * @return The number of elements currently stored.
+     */
+    @Override
+    public int getSize() {
+        var result  = Math.max(0, size.get());
+        var current = generation.get();
+        for (var reference : registry) {
+            var magazine = reference.get();
+            if ((magazine != null) && (magazine.generation == current) && magazine.owner.isAlive()) {
+                result += magazine.count;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public T allocate() {
+        T   result   = null;
+        var magazine = magazine();
+        if (magazine != null) {
+            result = (T) magazine.pop();
+        }
+        while (result == null) {
+            var node = pop();
+            if (node == null) {
+                break;
+            }
+            result = node.reference.get();
+            node.reference.clear();
+            if (result == null) {
+                collected();
+            }
+        }
+        var hit = result != null;
+        if (!hit) {
+            result = create();
+        }
+        allocated(result, hit);
+        return result;
+    }
+
+    @Override
+    protected void freePrepared(@NotNull T object, boolean retainable) {
+        var retained = false;
+        if (retainable) {
+            var policy   = getRetentionPolicy();
+            var magazine = magazine();
+            if ((magazine != null) && (!policy.isFull(magazine.count)) && magazine.push(object)) {
+                retained = true;
+            } else if (!policy.isFull(size.get())) {
+                push(new Node<>(new PooledReference<>(object)));
+                size.incrementAndGet();
+                retained = true;
+            }
+        }
+        freed(object, retained);
+        evictIfDue();
+    }
+
+    /**
+     * Drops all objects of the shared stack which haven't been used for the idle time specified by the
+     * retention policy. The magazines are not affected as their size is small.
+     *
+     * @return The number of evicted objects.
+     */
+    @Override
+    public int evict() {
+        var maxIdle = getRetentionPolicy().maxIdle();
+        if (maxIdle == null) {
+            return 0;
+        }
+        var     result = 0;
+        var     now    = System.nanoTime();
+        var     nanos  = maxIdle.toNanos();
+        Node<T> first  = null;
+        Node<T> last   = null;
+        // detach the stack, so concurrent pops only see the nodes which are pushed in the meantime
+        var     node   = head.getAndSet(null);
+        while (node != null) {
+            if (node.reference.isIdle(now, nanos)) {
+                node.reference.clear();
+                result++;
+            } else {
+                // a detached node might still be seen by a concurrent pop, so it must never be published
+                // again (ABA). the remaining references are moved into new nodes instead.
+                var copy = new Node<>(node.reference);
+                if (last == null) {
+                    first = copy;
+                } else {
+                    last.next = copy;
+                }
+                last = copy;
+            }
+            node = node.next;
+        }
+        if (first != null) {
+            // the new nodes are not visible to other threads yet, so they are pushed back in one step
+            Node<T> current;
+            do {
+                current   = head.get();
+                last.next = current;
+            } while (!head.compareAndSet(current, first));
+        }
+        size.addAndGet(-result);
+        evicted(result);
+        return result;
+    }
+
+    private Magazine magazine() {
+        if ((magazineSize == 0) || Thread.currentThread().isVirtual()) {
+            return null;
+        }
+        var result  = magazines.get();
+        var current = generation.get();
+        if (result.generation != current) {
+            // this bucket has been reset, so the cached elements must not be handed out anymore
+            result.clear(current);
+        }
+        return result;
+    }
+
+    private void push(@NotNull Node<T> node) {
+        Node<T> current;
+        do {
+            current   = head.get();
+            node.next = current;
+        } while (!head.compareAndSet(current, node));
+    }
+
+    private Node<T> pop() {
+        Node<T> current;
+        do {
+            current = head.get();
+            if (current == null) {
+                return null;
+            }
+        } while (!head.compareAndSet(current, current.next));
+        size.decrementAndGet();
+        return current;
+    }
+
+    private static class Node<T> {
+
+        PooledReference<T> reference;
+        volatile Node<T>   next;
+
+        Node(PooledReference<T> reference) {
+            this.reference = reference;
+        }
+
+    } /* ENDCLASS */
+
+    private static class Magazine {
+
+        Thread   owner;
+        Object[] elements;
+        int      count;
+        int      generation;
+
+        Magazine(Thread owner, int capacity, int generation) {
+            this.owner      = owner;
+            this.elements   = new Object[capacity];
+            this.count      = 0;
+            this.generation = generation;
+        }
+
+        boolean push(Object element) {
+            if (count < elements.length) {
+                elements[count++] = element;
+                return true;
+            }
+            return false;
+        }
+
+        Object pop() {
+            if (count > 0) {
+                var result = elements[--count];
+                elements[count] = null;
+                return result;
+            }
+            return null;
+        }
+
+        void clear(int newGeneration) {
+            for (var i = 0; i < count; i++) {
+                elements[i] = null;
+            }
+            count      = 0;
+            generation = newGeneration;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
@@ -0,0 +1,354 @@
+package com.kasisoft.libs.common.pools;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.locks.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+import java.nio.*;
+
+import java.lang.invoke.*;
+
+import java.lang.ref.*;
+
+/**
+ * A pool for direct {@link ByteBuffer}s which are expensive to create and aren't visible to the garbage
+ * collector in terms of size. Unlike {@link Buffer} the records are strongly referenced, so the amount
+ * of retained off-heap memory is deterministic and explicitly limited. The memory of buffers which are
+ * dropped (because they exceed the retention limit, the pool has been reset or closed) is released
+ * immediately rather than waiting for the garbage collector. So a freed buffer (including it's views)
+ * must not be used anymore. Handed out buffers are only weakly referenced, so a buffer which is
+ * collected without being freed gives it's capacity back to the limit of this pool.
+ *
+ * Only buffers handed out by this pool are accepted by {@link #free(ByteBuffer)}. Other buffers and
+ * buffers which have already been freed are ignored.
+ *
+ * The contents of freed buffers are not cleared. Only position, limit and mark are being reset.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class DirectBuffer extends Buffer<ByteBuffer> implements AutoCloseable {
+
+    // frees the memory of a direct buffer (sun.misc.Unsafe#invokeCleaner)
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    private ReentrantLock                        lock;
+    private Map<Integer, ArrayDeque<ByteBuffer>> sizeClasses;
+    private Set<HandedOut>                       handedOut;
+    private ReferenceQueue<ByteBuffer>           collected;
+    private AtomicLong                           allocated;
+    private long                                 retained;
+    private long                                 maxCapacity;
+    private long                                 maxRetained;
+    private boolean                              closed;
+    private Consumer<Exception>                  leakHandler;
+
+    /**
+     * Initializes this pool.
+     *
+     * @param maxCapacity
+     *            The maximum number of bytes allocated by this pool (handed out and retained).
+     * @param maxRetained
+     *            The maximum number of bytes retained by this pool.
+     */
+    public DirectBuffer(@Min(0) long maxCapacity, @Min(0) long maxRetained) {
+        super(ByteBuffer::capacity, 1);
+        this.lock        = new ReentrantLock();
+        this.sizeClasses = new HashMap<>();
+        this.handedOut   = new HashSet<>();
+        this.collected   = new ReferenceQueue<>();
+        this.allocated   = new AtomicLong();
+        this.retained    = 0L;
+        this.maxCapacity = maxCapacity;
+        this.maxRetained = Math.min(maxRetained, maxCapacity);
+        this.closed      = false;
+        this.leakHandler = $ -> {};
+    }
+
+    /**
+     * Enables/disables the debug mode. While enabled the allocation site of each handed out buffer is
+     * being recorded, so buffers that haven't been freed can be identified.
+     *
+     * @param enable
+     *            <code>true</code> Record the allocation sites.
+     */
+    public void setDebug(boolean enable) {
+        setLeakDetector(enable ? new LeakDetector(leakHandler) : null);
+    }
+
+    /**
+     * Changes the handler which is invoked for each buffer that hasn't been freed. In debug mode it's
+     * invoked when such a buffer has been collected or this pool is being closed. The exception provides
+     * the allocation site.
+     *
+     * @param handler
+     *            The handler for leaked buffers.
+     */
+    public void setLeakHandler(Consumer<Exception> handler) {
+        leakHandler = handler != null ? handler : $ -> {};
+        var detector = getLeakDetector();
+        if (detector != null) {
+            detector.setLeakHandler(leakHandler);
+        }
+    }
+
+    /**
+     * Returns the allocation sites of all buffers which are handed out. Only available in debug mode.
+     *
+     * @return The allocation sites of all buffers which are handed out.
+     */
+    @NotNull
+    public List<Exception> getLeaks() {
+        var detector = getLeakDetector();
+        return detector != null ? detector.getOutstanding() : Collections.emptyList();
+    }
+
+    /**
+     * Returns the number of bytes allocated by this pool which are handed out or retained.
+     *
+     * @return The number of bytes allocated by this pool.
+     */
+    public long getAllocated() {
+        expunge();
+        return allocated.get();
+    }
+
+    /**
+     * Returns the number of bytes retained by this pool.
+     *
+     * @return The number of bytes retained by this pool.
+     */
+    public long getRetained() {
+        lock.lock();
+        try {
+            return retained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        lock.lock();
+        try {
+            return sizeClasses.values().stream().mapToInt(ArrayDeque::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void compact() {
+        // nothing to do as the records are strongly referenced
+    }
+
+    @Override
+    public void reset() {
+        var dropped = new ArrayList<ByteBuffer>();
+        lock.lock();
+        try {
+            sizeClasses.values().forEach(dropped::addAll);
+            allocated.addAndGet(-retained);
+            retained = 0L;
+            sizeClasses.clear();
+        } finally {
+            lock.unlock();
+        }
+        dropped.forEach(DirectBuffer::release);
+        dropped();
+    }
+
+    /**
+     * Creates a new buffer (potentially a reused one).
+     *
+     * @param size
+     *            The minimum capacity of the buffer.
+     * @return A cleared buffer. It's capacity might be larger than requested.
+     * @throws KclException
+     *             The pool has been closed or the capacity limit would be exceeded.
+     */
+    @Override
+    @NotNull
+    public ByteBuffer allocate(int size) {
+        expunge();
+        var        capacity = sizeFor(size);
+        ByteBuffer result   = null;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new KclException(error_pool_closed);
+            }
+            var records = sizeClasses.get(capacity);
+            if ((records != null) && (!records.isEmpty())) {
+                result    = records.pop();
+                retained -= capacity;
+                handedOut.add(new HandedOut(result, collected));
+            }
+        } finally {
+            lock.unlock();
+        }
+        var hit = result != null;
+        if (!hit) {
+            reserve(capacity);
+            result = ByteBuffer.allocateDirect(capacity);
+            lock.lock();
+            try {
+                handedOut.add(new HandedOut(result, collected));
+            } finally {
+                lock.unlock();
+            }
+        }
+        allocated(result, hit, capacity);
+        return result;
+    }
+
+    private void reserve(int capacity) {
+        while (true) {
+            var current = allocated.get();
+            if (current + capacity > maxCapacity) {
+                throw new KclException(error_direct_buffer_exhausted.formatted(capacity, current, maxCapacity));
+            }
+            if (allocated.compareAndSet(current, current + capacity)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void free(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        var capacity = buffer.capacity();
+        var keep     = false;
+        lock.lock();
+        try {
+            if (!handedOut.remove(new HandedOut(buffer, null))) {
+                // the buffer doesn't belong to this pool or has already been freed
+                return;
+            }
+            buffer.clear();
+            if ((!closed) && (sizeFor(capacity) == capacity) && (retained + capacity <= maxRetained)) {
+                sizeClasses.computeIfAbsent(capacity, $ -> new ArrayDeque<>()).push(buffer);
+                retained += capacity;
+                keep      = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!keep) {
+            allocated.addAndGet(-capacity);
+            release(buffer);
+        }
+        freed(buffer, keep, capacity);
+    }
+
+    /**
+     * Gives the capacity of all buffers back which have been collected without being freed. Their memory
+     * has already been released by the garbage collector.
+     */
+    private void expunge() {
+        var released = 0L;
+        lock.lock();
+        try {
+            var reference = (HandedOut) collected.poll();
+            while (reference != null) {
+                if (handedOut.remove(reference)) {
+                    released += reference.capacity;
+                }
+                reference = (HandedOut) collected.poll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (released > 0L) {
+            allocated.addAndGet(-released);
+        }
+    }
+
+    /**
+     * Gives the memory of a buffer back without waiting for the garbage collector.
+     */
+    private static void release(@NotNull ByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invokeExact(buffer);
+            } catch (Throwable ex) {
+                // the memory will be given back by the garbage collector
+            }
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            var unsafeClass = Class.forName("sun.misc.Unsafe");
+            var field       = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            var method      = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            return MethodHandles.lookup().unreflect(method).bindTo(field.get(null));
+        } catch (Exception ex) {
+            // the memory will be given back by the garbage collector
+            return null;
+        }
+    }
+
+    /**
+     * Drops all retained buffers. Buffers which are freed afterwards won't be retained either. In debug
+     * mode the leak handler will be invoked for each buffer that hasn't been freed.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        reset();
+        getLeaks().forEach(leakHandler);
+    }
+
+    private static class HandedOut extends WeakReference<ByteBuffer> {
+
+        int hash;
+        int capacity;
+
+        HandedOut(ByteBuffer referent, ReferenceQueue<ByteBuffer> queue) {
+            super(referent, queue);
+            // buffers are compared by their content, so the identity is needed to recognize them
+            this.hash     = System.identityHashCode(referent);
+            this.capacity = referent.capacity();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof HandedOut other) {
+                var referent = get();
+                return (referent != null) && (referent == other.get());
+            }
+            return false;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
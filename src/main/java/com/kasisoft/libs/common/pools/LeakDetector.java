@@ -0,0 +1,145 @@
+package com.kasisoft.libs.common.pools;
+
+import static com.kasisoft.libs.common.internal.Messages.*;
+
+import jakarta.validation.constraints.*;
+
+import java.util.concurrent.*;
+
+import java.util.function.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.lang.ref.*;
+
+/**
+ * Records the allocation site of pooled objects until they are freed. Objects which are collected by
+ * the garbage collector without being freed are reported to a leak handler. The tracked objects are
+ * only weakly referenced, so the detector doesn't keep them alive.
+ *
+ * This is meant for debugging purposes as each allocation records a stacktrace.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class LeakDetector {
+
+    private Set<Tracked>           tracked;
+    private ReferenceQueue<Object> collected;
+    private Consumer<Exception>    leakHandler;
+
+    public LeakDetector() {
+        this(null);
+    }
+
+    /**
+     * Initializes this detector.
+     *
+     * @param handler
+     *            The handler receiving the allocation sites of leaked objects.
+     */
+    public LeakDetector(Consumer<Exception> handler) {
+        tracked     = ConcurrentHashMap.newKeySet();
+        collected   = new ReferenceQueue<>();
+        leakHandler = handlerOrDefault(handler);
+    }
+
+    /**
+     * Changes the handler which receives the allocation sites of objects which have been collected
+     * without being freed.
+     *
+     * @param handler
+     *            The new handler.
+     */
+    public void setLeakHandler(Consumer<Exception> handler) {
+        leakHandler = handlerOrDefault(handler);
+    }
+
+    @NotNull
+    private static Consumer<Exception> handlerOrDefault(Consumer<Exception> handler) {
+        return handler != null ? handler : $ -> {};
+    }
+
+    @NotNull
+    public Consumer<Exception> getLeakHandler() {
+        return leakHandler;
+    }
+
+    /**
+     * Records the allocation site of the supplied object.
+     *
+     * @param object
+     *            The object which has been handed out.
+     */
+    public void track(@NotNull Object object) {
+        expunge();
+        var allocation = new Exception(error_pool_object_not_freed.formatted(object.getClass().getName()));
+        tracked.add(new Tracked(object, collected, allocation));
+    }
+
+    /**
+     * Forgets about the supplied object as it has been freed.
+     *
+     * @param object
+     *            The object which has been freed.
+     */
+    public void untrack(@NotNull Object object) {
+        tracked.remove(new Tracked(object, null, null));
+    }
+
+    /**
+     * Returns the allocation sites of all objects that have not been freed yet.
+     *
+     * @return The allocation sites of all objects that have not been freed yet.
+     */
+    @NotNull
+    public List<Exception> getOutstanding() {
+        expunge();
+        return tracked.stream().map($ -> $.allocation).collect(Collectors.toList());
+    }
+
+    /**
+     * Reports all objects which have been collected without being freed.
+     */
+    public void expunge() {
+        var reference = (Tracked) collected.poll();
+        while (reference != null) {
+            if (tracked.remove(reference)) {
+                leakHandler.accept(reference.allocation);
+            }
+            reference = (Tracked) collected.poll();
+        }
+    }
+
+    private static class Tracked extends WeakReference<Object> {
+
+        int       hash;
+        Exception allocation;
+
+        Tracked(Object referent, ReferenceQueue<Object> queue, Exception allocation) {
+            super(referent, queue);
+            this.hash       = System.identityHashCode(referent);
+            this.allocation = allocation;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Tracked other) {
+                var referent = get();
+                return (referent != null) && (referent == other.get());
+            }
+            return false;
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDCLASS */
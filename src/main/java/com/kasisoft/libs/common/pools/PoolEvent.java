@@ -0,0 +1,31 @@
+package com.kasisoft.libs.common.pools;
+
+/**
+ * The events reported by the pools while metrics are enabled.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public enum PoolEvent {
+
+    /** An allocation has been served by a pooled object. */
+    Hit,
+
+    /** An allocation required to create a new object. */
+    Miss,
+
+    /** A freed object has been retained for reuse. */
+    Retain,
+
+    /** A freed object has been dropped. */
+    Drop,
+
+    /** A pooled object has been collected by the garbage collector. */
+    GcClear,
+
+    /** A pooled object has been evicted as it hasn't been used for a while. */
+    Evict,
+
+    /** All pooled objects have been dropped. */
+    Reset;
+
+} /* ENDENUM */
@@ -0,0 +1,26 @@
+package com.kasisoft.libs.common.pools;
+
+import jakarta.validation.constraints.*;
+
+/**
+ * A listener which gets informed about the activities of a pool.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+@FunctionalInterface
+public interface PoolListener {
+
+    /**
+     * Will be invoked for each activity of a pool.
+     *
+     * @param metrics
+     *            The metrics of the pool (already updated).
+     * @param event
+     *            The kind of activity.
+     * @param bytes
+     *            The number of bytes of the affected object if the pool is able to determine it, 0
+     *            otherwise.
+     */
+    void onPoolEvent(@NotNull PoolMetrics metrics, @NotNull PoolEvent event, long bytes);
+
+} /* ENDINTERFACE */
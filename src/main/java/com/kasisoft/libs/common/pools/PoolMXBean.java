@@ -0,0 +1,38 @@
+package com.kasisoft.libs.common.pools;
+
+/**
+ * Management interface for the metrics of a pool.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public interface PoolMXBean {
+
+    String getName();
+
+    long getAllocations();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getFrees();
+
+    long getDrops();
+
+    long getGcClears();
+
+    long getEvictions();
+
+    int getSize();
+
+    int getPeakSize();
+
+    long getRetainedBytes();
+
+    long getPeakRetainedBytes();
+
+    void resetCounters();
+
+} /* ENDINTERFACE */
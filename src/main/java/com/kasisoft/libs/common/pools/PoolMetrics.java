@@ -0,0 +1,241 @@
+package com.kasisoft.libs.common.pools;
+
+import com.kasisoft.libs.common.*;
+
+import jakarta.validation.constraints.*;
+
+import javax.management.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.lang.management.*;
+
+/**
+ * Metrics of a single pool. The pools only maintain these values if metrics have been enabled, so
+ * there's no overhead otherwise.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class PoolMetrics implements PoolMXBean {
+
+    private static final String DOMAIN = "com.kasisoft.libs.common.pools";
+
+    private String             name;
+    private LongAdder          hits;
+    private LongAdder          misses;
+    private LongAdder          frees;
+    private LongAdder          drops;
+    private LongAdder          gcClears;
+    private LongAdder          evictions;
+    private AtomicInteger      size;
+    private AtomicInteger      peakSize;
+    private AtomicLong         retainedBytes;
+    private AtomicLong         peakRetainedBytes;
+    private List<PoolListener> listeners;
+
+    /**
+     * Initializes these metrics.
+     *
+     * @param name
+     *            The name of the pool.
+     */
+    public PoolMetrics(@NotBlank String name) {
+        this.name              = name;
+        this.hits              = new LongAdder();
+        this.misses            = new LongAdder();
+        this.frees             = new LongAdder();
+        this.drops             = new LongAdder();
+        this.gcClears          = new LongAdder();
+        this.evictions         = new LongAdder();
+        this.size              = new AtomicInteger();
+        this.peakSize          = new AtomicInteger();
+        this.retainedBytes     = new AtomicLong();
+        this.peakRetainedBytes = new AtomicLong();
+        this.listeners         = new CopyOnWriteArrayList<>();
+    }
+
+    public void addListener(@NotNull PoolListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull PoolListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes these metrics through the platform MBean server.
+     */
+    public void register() {
+        try {
+            var server     = ManagementFactory.getPlatformMBeanServer();
+            var objectName = getObjectName();
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(this, objectName);
+            }
+        } catch (Exception ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server.
+     */
+    public void unregister() {
+        try {
+            var server     = ManagementFactory.getPlatformMBeanServer();
+            var objectName = getObjectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception ex) {
+            throw KclException.wrap(ex);
+        }
+    }
+
+    @NotNull
+    public ObjectName getObjectName() throws MalformedObjectNameException {
+        return new ObjectName("%s:type=Pool,name=%s".formatted(DOMAIN, ObjectName.quote(name)));
+    }
+
+    public void onHit(long bytes) {
+        hits.increment();
+        size.decrementAndGet();
+        retainedBytes.addAndGet(-bytes);
+        fire(PoolEvent.Hit, bytes);
+    }
+
+    public void onMiss() {
+        misses.increment();
+        fire(PoolEvent.Miss, 0L);
+    }
+
+    public void onRetain(long bytes) {
+        frees.increment();
+        peakSize.accumulateAndGet(size.incrementAndGet(), Math::max);
+        peakRetainedBytes.accumulateAndGet(retainedBytes.addAndGet(bytes), Math::max);
+        fire(PoolEvent.Retain, bytes);
+    }
+
+    public void onDrop() {
+        frees.increment();
+        drops.increment();
+        fire(PoolEvent.Drop, 0L);
+    }
+
+    public void onGcClear(long bytes) {
+        gcClears.increment();
+        size.decrementAndGet();
+        retainedBytes.addAndGet(-bytes);
+        fire(PoolEvent.GcClear, bytes);
+    }
+
+    public void onEvict(long bytes) {
+        evictions.increment();
+        size.decrementAndGet();
+        retainedBytes.addAndGet(-bytes);
+        fire(PoolEvent.Evict, bytes);
+    }
+
+    public void onReset() {
+        size.set(0);
+        retainedBytes.set(0L);
+        fire(PoolEvent.Reset, 0L);
+    }
+
+    private void fire(@NotNull PoolEvent event, long bytes) {
+        if (!listeners.isEmpty()) {
+            listeners.forEach($ -> $.onPoolEvent(this, event, bytes));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getAllocations() {
+        return hits.sum() + misses.sum();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        var hitCount = hits.sum();
+        var total    = hitCount + misses.sum();
+        return total > 0 ? (double) hitCount / total : 0.0;
+    }
+
+    @Override
+    public long getFrees() {
+        return frees.sum();
+    }
+
+    @Override
+    public long getDrops() {
+        return drops.sum();
+    }
+
+    @Override
+    public long getGcClears() {
+        return gcClears.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public int getSize() {
+        return Math.max(0, size.get());
+    }
+
+    @Override
+    public int getPeakSize() {
+        return peakSize.get();
+    }
+
+    @Override
+    public long getRetainedBytes() {
+        return Math.max(0L, retainedBytes.get());
+    }
+
+    @Override
+    public long getPeakRetainedBytes() {
+        return peakRetainedBytes.get();
+    }
+
+    @Override
+    public void resetCounters() {
+        hits.reset();
+        misses.reset();
+        frees.reset();
+        drops.reset();
+        gcClears.reset();
+        evictions.reset();
+        peakSize.set(getSize());
+        peakRetainedBytes.set(getRetainedBytes());
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics [name=%s, hits=%d, misses=%d, frees=%d, drops=%d, gcClears=%d, evictions=%d, size=%d, retainedBytes=%d]".formatted(
+            name, getHits(), getMisses(), getFrees(), getDrops(), getGcClears(), getEvictions(), getSize(), getRetainedBytes()
+        );
+    }
+
+} /* ENDCLASS */
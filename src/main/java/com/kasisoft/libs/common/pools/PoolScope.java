@@ -0,0 +1,111 @@
+package com.kasisoft.libs.common.pools;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.util.*;
+
+/**
+ * A scope which keeps the objects borrowed through {@link Bucket#forInstance(Function)} until the scope
+ * ends. Each object is taken from it's bucket once per scope and reused by all subsequent calls within
+ * that scope, so nested library calls (f.e. within a request) don't need to access the shared buckets
+ * over and over again. Ending the scope returns all objects to their buckets.
+ *
+ * A scope is bound to the thread that opened it. Nested scopes just join the outermost one. Unlike a
+ * per-thread cache the objects are only kept while the scope is active, so it's suitable for huge
+ * numbers of short living virtual threads.
+ *
+ * <pre>
+ * PoolScope.run(() -> handleRequest(request));
+ * </pre>
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public final class PoolScope {
+
+    private static final ThreadLocal<PoolScope> CURRENT = new ThreadLocal<>();
+
+    private Map<Bucket<?>, ArrayDeque<Object>> borrowed;
+
+    private PoolScope() {
+        borrowed = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns <code>true</code> if the current thread is running within a scope.
+     *
+     * @return <code>true</code> <=> The current thread is running within a scope.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static PoolScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the supplied runnable within a scope.
+     *
+     * @param runnable
+     *            The runnable that is supposed to be executed.
+     */
+    public static void run(@NotNull Runnable runnable) {
+        call(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the supplied function within a scope.
+     *
+     * @param supplier
+     *            The function that is supposed to be executed.
+     * @return The result of the supplied function.
+     */
+    public static <R> R call(@NotNull Supplier<R> supplier) {
+        if (CURRENT.get() != null) {
+            // join the outer scope
+            return supplier.get();
+        }
+        var scope = new PoolScope();
+        CURRENT.set(scope);
+        try {
+            return supplier.get();
+        } finally {
+            CURRENT.remove();
+            scope.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T borrow(@NotNull Bucket<T> bucket) {
+        var objects = borrowed.get(bucket);
+        if ((objects != null) && (!objects.isEmpty())) {
+            return (T) objects.pop();
+        }
+        return bucket.allocate();
+    }
+
+    <T> void giveBack(@NotNull Bucket<T> bucket, T object) {
+        if (object == null) {
+            return;
+        }
+        if (bucket.prepare(object)) {
+            borrowed.computeIfAbsent(bucket, $ -> new ArrayDeque<>()).push(object);
+        } else {
+            // the bucket doesn't want to retain this object
+            bucket.freePrepared(object, false);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void release() {
+        // the objects have already been prepared when they were given back
+        borrowed.forEach(($bucket, $objects) -> $objects.forEach($ -> ((Bucket) $bucket).freePrepared($, true)));
+        borrowed.clear();
+    }
+
+} /* ENDCLASS */
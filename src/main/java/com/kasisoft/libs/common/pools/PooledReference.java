@@ -0,0 +1,23 @@
+package com.kasisoft.libs.common.pools;
+
+import java.lang.ref.*;
+
+/**
+ * A soft reference to a pooled object which remembers when it has been pooled.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+class PooledReference<T> extends SoftReference<T> {
+
+    long timestamp;
+
+    PooledReference(T referent) {
+        super(referent);
+        this.timestamp = System.nanoTime();
+    }
+
+    boolean isIdle(long now, long maxIdle) {
+        return now - timestamp > maxIdle;
+    }
+
+} /* ENDCLASS */
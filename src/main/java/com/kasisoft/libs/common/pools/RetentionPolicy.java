@@ -0,0 +1,106 @@
+package com.kasisoft.libs.common.pools;
+
+import jakarta.validation.constraints.*;
+
+import java.util.function.*;
+
+import java.time.*;
+
+/**
+ * Controls which freed objects are retained by a {@link Bucket}. This keeps the footprint of a bucket
+ * predictable as pooled objects usually keep their inflated capacity after being reset.
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public record RetentionPolicy<T>(
+    // the maximum number of pooled objects (-1 = unlimited). applies to each magazine of a ConcurrentBucket separately.
+    int              maxPooled,
+    // the maximum capacity of a retained object (-1 = unlimited)
+    int              maxCapacity,
+    // determines the capacity of a used object (before it's being reset)
+    ToIntFunction<T> capacity,
+    // shrinks an oversized object after it has been reset. oversized objects are dropped if missing.
+    Consumer<T>      trimmer,
+    // pooled objects which haven't been used for this duration are evicted (null = never)
+    Duration         maxIdle
+) {
+
+    private static final RetentionPolicy<?> UNBOUNDED = new RetentionPolicy<>(-1, -1, null, null, null);
+
+    /**
+     * Returns a policy retaining all objects.
+     *
+     * @return A policy retaining all objects.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public static <T> RetentionPolicy<T> unbounded() {
+        return (RetentionPolicy<T>) UNBOUNDED;
+    }
+
+    /**
+     * Returns <code>true</code> if the supplied object exceeds the maximum capacity.
+     *
+     * @param object
+     *            The object which is about to be freed.
+     * @return <code>true</code> <=> The object exceeds the maximum capacity.
+     */
+    public boolean isOversized(@NotNull T object) {
+        return (maxCapacity >= 0) && (capacity != null) && (capacity.applyAsInt(object) > maxCapacity);
+    }
+
+    /**
+     * Returns <code>true</code> if the supplied number of pooled objects is exhausting the limit.
+     *
+     * @param pooled
+     *            The current number of pooled objects.
+     * @return <code>true</code> <=> No more objects are allowed to be pooled.
+     */
+    public boolean isFull(int pooled) {
+        return (maxPooled >= 0) && (pooled >= maxPooled);
+    }
+
+    @NotNull
+    public static <T> RetentionPolicyBuilder<T> builder() {
+        return new RetentionPolicyBuilder<>();
+    }
+
+    public static class RetentionPolicyBuilder<T> {
+
+        private int              maxPooled   = -1;
+        private int              maxCapacity = -1;
+        private ToIntFunction<T> capacity    = null;
+        private Consumer<T>      trimmer     = null;
+        private Duration         maxIdle     = null;
+
+        private RetentionPolicyBuilder() {
+        }
+
+        public RetentionPolicyBuilder<T> maxPooled(int maxPooled) {
+            this.maxPooled = maxPooled;
+            return this;
+        }
+
+        public RetentionPolicyBuilder<T> maxCapacity(int maxCapacity, @NotNull ToIntFunction<T> capacity) {
+            this.maxCapacity = maxCapacity;
+            this.capacity    = capacity;
+            return this;
+        }
+
+        public RetentionPolicyBuilder<T> trimmer(Consumer<T> trimmer) {
+            this.trimmer = trimmer;
+            return this;
+        }
+
+        public RetentionPolicyBuilder<T> maxIdle(Duration maxIdle) {
+            this.maxIdle = maxIdle;
+            return this;
+        }
+
+        public RetentionPolicy<T> build() {
+            return new RetentionPolicy<>(maxPooled, maxCapacity, capacity, trimmer, maxIdle);
+        }
+
+    } /* ENDCLASS */
+
+} /* ENDRECORD */
@@ -42,7 +42,9 @@ module com.kasisoft.libs.common {
     uses FileType;
 
     requires transitive java.desktop;
+    requires transitive java.management;
     requires transitive java.sql;
     requires transitive jakarta.validation;
+    requires jdk.unsupported;
 
 } /* ENDMODULE */
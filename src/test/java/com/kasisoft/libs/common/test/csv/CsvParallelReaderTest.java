@@ -0,0 +1,188 @@
+package com.kasisoft.libs.common.test.csv;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.utils.*;
+
+import com.kasisoft.libs.common.*;
+import com.kasisoft.libs.common.csv.*;
+
+import java.util.concurrent.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Test for the class {@link CsvParallelReader}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvParallelReaderTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(CsvParallelReaderTest.class);
+
+    private static final int           ROWS           = 2000;
+
+    private static ForkJoinPool        pool;
+
+    @BeforeAll
+    public static void setup() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void cleanup() {
+        pool.shutdown();
+    }
+
+    private Path createCsv(String name, Encoding encoding) throws IOException {
+        var builder = new StringBuilder("\n  \nid,name,amount\n");
+        for (var i = 0; i < ROWS; i++) {
+            switch (i % 4) {
+            case 0  -> builder.append("%d,\"multi\nline, \"\"%d\"\"\",%d\n".formatted(i, i, i * 3));
+            case 1  -> builder.append("%d,'single\r\nquoted',%d\r\n".formatted(i, i * 3));
+            case 2  -> builder.append("%d,pl\"ai\nn\",\n".formatted(i));
+            default -> builder.append("%d,\"\"\"\n\"\"\"x,%d\n\n".formatted(i, i * 3));
+            }
+        }
+        var result = TEST_RESOURCES.getTempPath(name);
+        Files.write(result, encoding.encode(builder.toString()));
+        return result;
+    }
+
+    private List<List<String>> readSequential(CsvOptions options, Path path) {
+        try (var reader = new CsvReader(options, path)) {
+            return reader.stream().map(Arrays::asList).collect(Collectors.toList());
+        }
+    }
+
+    private List<List<String>> readParallel(CsvParallelReader reader) {
+        var result = Collections.synchronizedList(new ArrayList<List<String>>());
+        reader.read($ -> result.add(Arrays.asList($)));
+        return result;
+    }
+
+    @Test
+    public void ordered() throws IOException {
+
+        var options  = CsvOptions.builder().titleRow().build();
+        var path     = createCsv("ordered.csv", Encoding.UTF8);
+        var expected = readSequential(options, path);
+        assertThat(expected.size(), is(ROWS));
+        assertThat(expected.get(2), is(Arrays.asList("2", "pl\"ai\nn\"", null)));
+
+        var reader   = new CsvParallelReader(options, path);
+        reader.setPool(pool);
+        reader.setChunkSize(1024);
+        assertThat(reader.getTitles(), is(List.of("id", "name", "amount")));
+        assertThat(readParallel(reader), is(expected));
+
+    }
+
+    @Test
+    public void unordered() throws IOException {
+
+        var options  = CsvOptions.builder().titleRow().build();
+        var path     = createCsv("unordered.csv", Encoding.UTF8);
+        var expected = readSequential(options, path);
+
+        var reader   = new CsvParallelReader(options, path);
+        reader.setPool(pool);
+        reader.setChunkSize(1024);
+        reader.setOrdered(false);
+
+        var records  = readParallel(reader);
+        records.sort(Comparator.comparing($ -> Integer.valueOf($.get(0))));
+        assertThat(records, is(expected));
+
+    }
+
+    @Test
+    public void withoutTitles() throws IOException {
+
+        var options  = CsvOptions.builder().build();
+        var path     = createCsv("notitles.csv", Encoding.UTF8);
+        var expected = readSequential(options, path);
+        assertThat(expected.size(), is(ROWS + 1));
+
+        var reader   = new CsvParallelReader(options, path);
+        reader.setPool(pool);
+        reader.setChunkSize(1024);
+        assertThat(reader.getTitles(), is(empty()));
+        assertThat(readParallel(reader), is(expected));
+
+    }
+
+    @Test
+    public void sequentialEncoding() throws IOException {
+
+        var options  = CsvOptions.builder().titleRow().encoding(Encoding.UTF16).build();
+        var path     = createCsv("utf16.csv", Encoding.UTF16);
+        var expected = readSequential(options, path);
+
+        var reader   = new CsvParallelReader(options, path);
+        reader.setPool(pool);
+        reader.setChunkSize(1024);
+        assertThat(reader.getTitles(), is(List.of("id", "name", "amount")));
+        assertThat(readParallel(reader), is(expected));
+
+    }
+
+    @Test
+    public void objects() throws IOException {
+
+        var options = CsvOptions.builder()
+            .titleRow()
+            .column(CsvColumn.<Integer>builder().type(Integer.class).title("id").build())
+            .column(CsvColumn.<String>builder().title("name").build())
+            .column(CsvColumn.<Long>builder().type(Long.class).adapter(TypeConverters::convertStringToLong).defaultValue(0L).title("amount").build())
+            .build();
+
+        var reader  = new CsvParallelReader(options, createCsv("objects.csv", Encoding.UTF8));
+        reader.setPool(pool);
+        reader.setChunkSize(1024);
+
+        var sum     = new long[1];
+        var count   = new int[1];
+        reader.readObjects($ -> {
+            sum[0] += (Long) $[2];
+            count[0]++;
+        });
+        assertThat(count[0], is(ROWS));
+        // every fourth row lacks the amount and gets the default value
+        var expected = IntStream.range(0, ROWS).filter($ -> $ % 4 != 2).mapToLong($ -> $ * 3L).sum();
+        assertThat(sum[0], is(expected));
+
+    }
+
+    @Test
+    public void inconsistentColumnCount() throws IOException {
+
+        var path    = TEST_RESOURCES.getTempPath("inconsistent.csv");
+        Files.writeString(path, "a,b\n1,2\n3\n4,5\n");
+
+        var reader  = new CsvParallelReader(CsvOptions.builder().titleRow().build(), path);
+        reader.setPool(pool);
+        assertThrows(KclException.class, () -> readParallel(reader));
+
+        var errors  = new ArrayList<String>();
+        reader.setErrorHandlerForInconsistentColumnCount(errors::add);
+        assertThat(readParallel(reader), is(List.of(List.of("1", "2"), List.of("4", "5"))));
+        assertThat(errors.size(), is(1));
+
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,232 @@
+package com.kasisoft.libs.common.test.csv;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.utils.*;
+
+import com.kasisoft.libs.common.*;
+import com.kasisoft.libs.common.csv.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.charset.*;
+
+import java.io.*;
+
+/**
+ * Test for the class {@link CsvReader}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvReaderTest {
+
+    private static final String CSV =
+        "id,name,amount\n" +
+        "1,  \"first, entry\" ,12\n" +
+        "\n" +
+        "2,\"quoted \"\"text\"\"\",\r\n" +
+        "3,\"multi\nline\",44\n";
+
+    private List<List<String>> readAll(CsvReader reader) {
+        return reader.stream().map(Arrays::asList).collect(Collectors.toList());
+    }
+
+    @Test
+    public void records() {
+
+        var options = CsvOptions.builder().titleRow().build();
+        try (var reader = new CsvReader(options, new StringReader(CSV))) {
+
+            assertThat(reader.getTitles(), is(List.of("id", "name", "amount")));
+
+            var records = readAll(reader);
+            assertThat(records.size(), is(3));
+            assertThat(records.get(0), is(Arrays.asList("1", "first, entry", "12")));
+            assertThat(records.get(1), is(Arrays.asList("2", "quoted \"text\"", null)));
+            assertThat(records.get(2), is(Arrays.asList("3", "multi\nline", "44")));
+
+        }
+
+    }
+
+    @Test
+    public void smallBuffer() {
+
+        // records are spanning multiple buffer fills
+        var options = CsvOptions.builder().titleRow().build();
+        try (var reader = new CsvReader(options, new StringReader(CSV), 16)) {
+            assertThat(readAll(reader).size(), is(3));
+        }
+
+    }
+
+    @Test
+    public void channel() {
+
+        var options = CsvOptions.builder().titleRow().build();
+        var channel = Channels.newChannel(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+        try (var reader = new CsvReader(options, channel)) {
+            assertThat(readAll(reader).size(), is(3));
+        }
+
+    }
+
+    @Test
+    public void fieldViews() {
+
+        var options = CsvOptions.builder().titleRow().build();
+        var names   = new ArrayList<String>();
+        var lengths = new ArrayList<Integer>();
+        try (var reader = new CsvReader(options, new StringReader(CSV))) {
+            reader.read($ -> {
+                names.add($.getField(1).toString());
+                lengths.add($.getField(2).length());
+                assertThat($.isNull(2), is($.getField(2).length() == 0));
+            });
+        }
+        assertThat(names, is(List.of("first, entry", "quoted \"text\"", "multi\nline")));
+        assertThat(lengths, is(List.of(2, 0, 2)));
+
+    }
+
+    @Test
+    public void objects() {
+
+        var options = CsvOptions.builder()
+            .titleRow()
+            .column(CsvColumn.<Integer>builder().type(Integer.class).title("id").build())
+            .column(CsvColumn.<String>builder().title("name").build())
+            .column(CsvColumn.<Long>builder().type(Long.class).adapter(TypeConverters::convertStringToLong).defaultValue(0L).title("amount").build())
+            .build();
+
+        try (var reader = new CsvReader(options, new StringReader(CSV))) {
+            var rows = reader.objects().collect(Collectors.toList());
+            assertThat(rows.size(), is(3));
+            assertThat(rows.get(0)[0], is(1));
+            assertThat(rows.get(0)[2], is(12L));
+            assertThat(rows.get(1)[2], is(0L));
+        }
+
+    }
+
+    @Test
+    public void numericObjects() {
+
+        var options = CsvOptions.builder()
+            .column(CsvColumn.<Integer>builder().type(Integer.class).build())
+            .column(CsvColumn.<Long>builder().type(Long.class).build())
+            .column(CsvColumn.<Double>builder().type(Double.class).build())
+            .column(CsvColumn.<Float>builder().type(Float.class).build())
+            .column(CsvColumn.<Byte>builder().type(Byte.class).defaultValue((byte) -1).build())
+            .build();
+
+        var random   = new Random(7L);
+        var csv      = new StringBuilder();
+        var expected = new ArrayList<Object[]>();
+        String[][] fixed = {
+            {"2147483647", "9223372036854775807", "-0", "-0.0", "127"},
+            {"-2147483648", "-9223372036854775808", "1e-3", "NaN", "-128"},
+            {"+5", "0", "123456789012345678", "0.1", "7"},
+            {"-0", "-1", "0.30000000000000004", "16777217", "0"},
+        };
+        for (var row : fixed) {
+            csv.append(String.join(",", row)).append('\n');
+            expected.add(new Object[] {
+                TypeConverters.convertStringToInteger(row[0]), TypeConverters.convertStringToLong(row[1]), TypeConverters.convertStringToDouble(row[2]),
+                TypeConverters.convertStringToFloat(row[3]), TypeConverters.convertStringToByte(row[4])
+            });
+        }
+        for (var i = 0; i < 2000; i++) {
+            var row = new String[] {
+                String.valueOf(random.nextInt()), String.valueOf(random.nextLong()), String.format(Locale.ROOT, "%.6f", (random.nextDouble() - 0.5) * 1000),
+                String.valueOf(random.nextInt(100000) / 1000.0f), String.valueOf(random.nextInt(256) - 128)
+            };
+            if (i % 7 == 0) {
+                row[2] = String.valueOf(random.nextDouble() * 1e9);
+            }
+            csv.append(String.join(",", row)).append('\n');
+            expected.add(new Object[] {
+                TypeConverters.convertStringToInteger(row[0]), TypeConverters.convertStringToLong(row[1]), TypeConverters.convertStringToDouble(row[2]),
+                TypeConverters.convertStringToFloat(row[3]), TypeConverters.convertStringToByte(row[4])
+            });
+        }
+
+        try (var reader = new CsvReader(options, new StringReader(csv.toString()))) {
+            var rows = reader.objects().collect(Collectors.toList());
+            assertThat(rows.size(), is(expected.size()));
+            for (var i = 0; i < rows.size(); i++) {
+                assertThat(rows.get(i), is(expected.get(i)));
+            }
+        }
+
+        // invalid or out of range values are passed to the error handler
+        var errors = new ArrayList<String>();
+        try (var reader = new CsvReader(options, new StringReader("2147483648,1x,abc,-,128\n"))) {
+            reader.setErrorHandlerForInvalidCellValue(errors::add);
+            var rows = reader.objects().collect(Collectors.toList());
+            assertThat(rows.get(0), is(new Object[] {null, null, null, null, (byte) -1}));
+            assertThat(errors.size(), is(5));
+        }
+
+    }
+
+    @Test
+    public void fillMissingColumns() {
+
+        var csv = "a,b,c\n1\n2,3\n";
+
+        try (var reader = new CsvReader(CsvOptions.builder().titleRow().build(), new StringReader(csv))) {
+            assertThrows(KclException.class, () -> readAll(reader));
+        }
+
+        var errors = new ArrayList<String>();
+        try (var reader = new CsvReader(CsvOptions.builder().titleRow().build(), new StringReader(csv))) {
+            reader.setErrorHandlerForInconsistentColumnCount(errors::add);
+            assertThat(readAll(reader).size(), is(0));
+            assertThat(errors.size(), is(2));
+        }
+
+        try (var reader = new CsvReader(CsvOptions.builder().titleRow().fillMissingColumns().build(), new StringReader(csv))) {
+            var records = readAll(reader);
+            assertThat(records.get(0), is(Arrays.asList("1", null, null)));
+            assertThat(records.get(1), is(Arrays.asList("2", "3", null)));
+        }
+
+    }
+
+    @Test
+    public void quotedContent() {
+        // quoted fields are trimmed as well and only lines with a quoted empty field aren't blank
+        try (var reader = new CsvReader(CsvOptions.builder().build(), new StringReader("\" a \"\n\"\"\n \n''\n"))) {
+            var records = readAll(reader);
+            assertThat(records.size(), is(3));
+            assertThat(records.get(0), is(Arrays.asList("a")));
+            assertThat(records.get(1), is(Arrays.asList((String) null)));
+            assertThat(records.get(2), is(Arrays.asList((String) null)));
+        }
+    }
+
+    @Test
+    public void missingClosingQuote() {
+        try (var reader = new CsvReader(CsvOptions.builder().build(), new StringReader("a,\"b\n"))) {
+            assertThrows(KclException.class, () -> readAll(reader));
+        }
+    }
+
+    @Test
+    public void maxLines() {
+        var options = CsvOptions.builder().titleRow().maxLines(3).build();
+        try (var reader = new CsvReader(options, new StringReader(CSV))) {
+            assertThat(readAll(reader).size(), is(2));
+        }
+    }
+
+} /* ENDCLASS */
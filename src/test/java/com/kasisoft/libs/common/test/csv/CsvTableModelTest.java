@@ -15,6 +15,14 @@ import com.kasisoft.libs.common.io.*;
 import com.kasisoft.libs.common.*;
 import com.kasisoft.libs.common.csv.*;
 
+import javax.swing.event.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.io.*;
+
 /**
  * @author daniel.kasmeroglu@kasisoft.com
  */
@@ -98,4 +106,413 @@ public class CsvTableModelTest {
 
     }
 
+    @Test
+    public void loadDeclaredColumns() {
+
+        var csv     = "amount,name\n1.5,a\n,b\n7\n-2.25,\"c,d\"\n";
+        var options = CsvOptions.builder()
+            .column(CsvColumn.<String>builder().type(String.class).adapter(String::valueOf).nullable().title("name").build())
+            .column(CsvColumn.<Double>builder().type(Double.class).defaultValue(0.0).title("amount").build())
+            .titleRow()
+            .build();
+
+        // the declared columns are ordered by the title row
+        var model   = new CsvTableModel(options);
+        model.setErrorHandlerForInconsistentColumnCount($ -> {/* skip the record */});
+        model.load(new ByteArrayInputStream(csv.getBytes()));
+        assertThat(model.getColumnName(0), is("amount"));
+        assertThat(model.getColumnClass(0).getName(), is(Double.class.getName()));
+        assertThat(model.getRowCount(), is(3));
+        assertThat(model.getValueAt(0, 0), is(1.5));
+        assertThat(model.getValueAt(1, 0), is(0.0));
+        assertThat(model.getValueAt(2, "name"), is("c,d"));
+
+        // incomplete records are inconsistent
+        assertThrows(KclException.class, () -> new CsvTableModel(options).load(new ByteArrayInputStream(csv.getBytes())));
+
+        // undeclared titles are still guessed
+        var guessed = new CsvTableModel(options);
+        guessed.load(new ByteArrayInputStream("amount,count\n1.5,7\n2.5,8\n".getBytes()));
+        assertThat(guessed.getColumnClass(1).getName(), is(Byte.class.getName()));
+        assertThat(guessed.getValueAt(1, "count"), is((byte) 8));
+
+    }
+
+    private CsvTableModel loadText1() {
+        var model = new CsvTableModel(CsvOptions.builder().fillMissingColumns().build());
+        IoSupportFunctions.forInputStreamDo(TEST_RESOURCES.getResource("text1.csv"), model::load);
+        return model;
+    }
+
+    @Test
+    public void aggregations() {
+
+        var model = loadText1();
+
+        assertThat(model.getColumnName(2), is("Column 2"));
+        assertThat(model.sum("Column 2"), is(2223.0));
+        assertThat(model.min(2).getAsDouble(), is(-44.0));
+        assertThat(model.max(2).getAsDouble(), is(1123.0));
+        assertThat(model.statistics(2).getCount(), is(8L));
+        assertThat(model.histogram(2, -100.0, 1200.0, 2), is(new int[] {6, 2}));
+        assertThat(model.<Integer, Short>reduce(0, ($result, $value) -> $result + $value, "Column 2"), is(2223));
+
+        assertThat(model.frequencies(2).get((short) 12), is(2));
+        assertThat(model.frequencies(1).get("cell_4_2"), is(1));
+
+        assertThrows(KclException.class, () -> model.sum(0));
+
+        // the title row isn't part of the rows, so each row is aggregated
+        var titled = new CsvTableModel(CsvOptions.builder().titleRow().build());
+        titled.load(new ByteArrayInputStream("name,val\na,1\nb,2\nc,3".getBytes()));
+        assertThat(titled.getRowCount(), is(3));
+        assertThat(titled.sum("val"), is(6.0));
+        assertThat(titled.min("val").getAsDouble(), is(1.0));
+        assertThat(titled.statistics("val").getCount(), is(3L));
+        assertThat(titled.histogram("val", 0.0, 4.0, 2), is(new int[] {1, 2}));
+        assertThat(titled.frequencies("name").get("a"), is(1));
+        assertThat(titled.findRow("name", "a"), is(0));
+
+    }
+
+    @Test
+    public void modifications() {
+
+        var model  = loadText1();
+        var events = Collections.synchronizedList(new ArrayList<TableModelEvent>());
+        model.addTableModelListener(events::add);
+
+        model.setValueAt((short) 100, 0, 2);
+        assertThat(model.sum(2), is(2289.0));
+
+        // a value which doesn't fit the column type is still accepted
+        model.setValueAt("text", 1, 2);
+        assertThat(model.getValueAt(1, 2), is("text"));
+        assertThat(model.getValueAt(0, 2), is((short) 100));
+
+        model.addRow(new Object[] {"a", "b", (short) 5});
+        assertThat(model.getRowCount(), is(9));
+        assertThat(model.getValueAt(8, "Column 0"), is("a"));
+
+        model.removeRow(0);
+        model.removeRow($ -> !"a".equals($[0]));
+        assertThat(model.getRowCount(), is(7));
+        assertThat(model.getValueAt(0, 2), is("text"));
+
+        model.<String, String, String>joinColumns("Column 0", "Column 1", ($left, $right) -> $left + $right, "joined");
+        assertThat(model.getColumnCount(), is(2));
+        assertThat(model.getColumnName(1), is("joined"));
+        assertThat(model.getValueAt(0, 1), is("cell_2_1cell_2_2"));
+
+        model.removeColumn("Column 2");
+        assertThat(model.getColumnCount(), is(1));
+        assertThat(model.getValueAt(0, "joined"), is("cell_2_1cell_2_2"));
+
+        assertThat(events.stream().filter($ -> $.getType() == TableModelEvent.INSERT).count(), is(1L));
+        assertThat(events.stream().filter($ -> $.getFirstRow() == TableModelEvent.HEADER_ROW).count(), is(2L));
+
+    }
+
+    @Test
+    public void snapshot() {
+
+        var model    = loadText1();
+        var snapshot = model.snapshot();
+
+        model.setValueAt((short) 100, 0, 2);
+        model.removeRow(1);
+        model.removeColumn(0);
+
+        // the snapshot isn't affected by the changes of the model
+        assertThat(snapshot.getRowCount(), is(8));
+        assertThat(snapshot.getColumnCount(), is(3));
+        assertThat(snapshot.getValueAt(0, 2), is((short) 34));
+        assertThat(snapshot.sum(2), is(2223.0));
+
+        // and vice versa
+        snapshot.setValueAt("changed", 0, 0);
+        assertThat(snapshot.getValueAt(0, 0), is("changed"));
+        assertThat(model.getRowCount(), is(7));
+        assertThat(model.getValueAt(0, 0), is("cell_1_2"));
+        assertThat(model.getValueAt(0, 1), is((short) 100));
+
+    }
+
+    @Test
+    public void incrementalChanges() {
+
+        // enough rows to span several chunks of the stores
+        var random   = new Random(5L);
+        var options  = CsvOptions.builder()
+            .column(CsvColumn.<String>builder().type(String.class).title("key").build())
+            .column(CsvColumn.<Integer>builder().type(Integer.class).adapter(Integer::valueOf).title("amount").build())
+            .build();
+        var model    = new CsvTableModel(options);
+        model.createIndex("key", false);
+        model.createIndex("amount", true);
+        var keys     = new ArrayList<String>();
+        var amounts  = new ArrayList<Integer>();
+        for (var i = 0; i < 10000; i++) {
+            keys.add("k%d".formatted(i % 50));
+            amounts.add(i);
+            model.addRow(new Object[] {keys.get(i), amounts.get(i)});
+        }
+
+        var snapshot = model.snapshot();
+        for (var i = 0; i < 200; i++) {
+            var row = random.nextInt(model.getRowCount());
+            model.setValueAt("changed", row, 0);
+            model.setValueAt(-row, row, 1);
+        }
+        model.removeRow($ -> ((Integer) $[1]) % 3 != 0);
+        for (var i = 0; i < 5000; i++) {
+            model.addRow(new Object[] {"k0", 20000 + i});
+        }
+
+        // the snapshot still provides the content at the time it has been created
+        assertThat(snapshot.getRowCount(), is(10000));
+        for (var i = 0; i < 10000; i++) {
+            assertThat(snapshot.getValueAt(i, 0), is(keys.get(i)));
+            assertThat(snapshot.getValueAt(i, 1), is(amounts.get(i)));
+        }
+        assertThat(snapshot.findRows("key", "k7").length, is(200));
+        assertThat(snapshot.findRows("key", "changed").length, is(0));
+        assertThat(snapshot.findRange("amount", 4090, 4100), is(new int[] {4090, 4091, 4092, 4093, 4094, 4095, 4096, 4097, 4098, 4099, 4100}));
+
+        // the indexes of the model match a full scan
+        var plain = model.snapshot();
+        plain.dropIndex(0);
+        plain.dropIndex(1);
+        assertThat(model.findRows("key", "k0"), is(plain.findRows("key", "k0")));
+        assertThat(model.findRows("key", "changed"), is(plain.findRows("key", "changed")));
+        assertThat(model.findRange("amount", -5000, 30000), is(plain.findRange("amount", -5000, 30000)));
+
+        // changes of the snapshot don't affect the model
+        snapshot.setValueAt("k1", 4096, 0);
+        snapshot.addRow(new Object[] {"k1", 1});
+        assertThat(snapshot.findRows("key", "k1").length, is(202));
+        assertThat(model.findRows("key", "k1"), is(plain.findRows("key", "k1")));
+        assertThat(model.getRowCount(), is(plain.getRowCount()));
+
+    }
+
+    @Test
+    public void concurrentReads() throws Exception {
+
+        var model    = loadText1();
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var readers = new ArrayList<Future<Integer>>();
+            for (var i = 0; i < 3; i++) {
+                readers.add(executor.submit(() -> {
+                    var inconsistent = 0;
+                    for (var j = 0; j < 2000; j++) {
+                        // each operation processes a single version, so each row is complete
+                        inconsistent += model.<Integer>reduce(0, ($count, $row) -> $count + (($row[0] == null) != ($row[2] == null) ? 1 : 0));
+                    }
+                    return inconsistent;
+                }));
+            }
+            var writer = executor.submit(() -> {
+                for (var j = 0; j < 200; j++) {
+                    model.addRow(new Object[] {"a", "b", (short) j});
+                    model.removeRow(model.getRowCount() - 1);
+                }
+            });
+            writer.get();
+            for (var reader : readers) {
+                assertThat(reader.get(), is(0));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(model.getRowCount(), is(8));
+
+    }
+
+    @Test
+    public void indexes() {
+
+        var model = loadText1();
+        assertThat(model.getColumnIndex("Column 2"), is(2));
+        assertThat(model.getColumnIndex("unknown"), is(-1));
+
+        model.createIndex("Column 1", false);
+        model.createIndex("Column 2", true);
+        assertThat(model.hasIndex(1), is(true));
+        assertThat(model.hasIndex(0), is(false));
+
+        // numerical values are compared by their value
+        assertThat(model.findRows("Column 2", 12L), is(model.snapshot().findRows(2, (short) 12)));
+        assertThat(model.findRows("Column 2", 12).length, is(2));
+        assertThat(model.findRow("Column 1", "cell_4_2"), is(3));
+        assertThat(model.findRow("Column 1", "missing"), is(-1));
+        assertThat(model.findRange("Column 2", 0, 100), is(new int[] {0, 1, 2, 4, 5}));
+
+        model.setValueAt((short) 50, 0, 2);
+        model.removeRow(1);
+        model.addRow(new Object[] {"x", "cell_4_2", (short) 60});
+        assertThat(model.findRange("Column 2", 0, 100), is(new int[] {0, 1, 3, 4, 7}));
+        assertThat(model.findRows("Column 1", "cell_4_2"), is(new int[] {2, 7}));
+
+        // the indexes of the remaining columns are kept
+        model.removeColumn(0);
+        assertThat(model.hasIndex("Column 2"), is(true));
+        assertThat(model.findRow("Column 2", 60), is(7));
+
+    }
+
+    @Test
+    public void failedChanges() {
+
+        var options = CsvOptions.builder()
+            .titleRow()
+            .column(CsvColumn.<String> builder().type(String.class).adapter(String::valueOf).nullable().title("name").build())
+            .column(CsvColumn.<Long> builder().type(Long.class).adapter(TypeConverters::convertStringToLong).defaultValue(0L).title("amount").build())
+            .build();
+        var model   = new CsvTableModel(options);
+        model.load(new ByteArrayInputStream("name,amount\na,1\nb,2\n".getBytes()));
+
+        // the current content is kept if loading fails
+        assertThrows(KclException.class, () -> model.load(new ByteArrayInputStream("name,amount\nc,3\nd,invalid\n".getBytes())));
+        assertThat(model.getRowCount(), is(2));
+        assertThat(model.getColumnCount(), is(2));
+        assertThat(model.getValueAt(1, "amount"), is(2L));
+
+        // rows are added completely or not at all
+        assertThrows(KclException.class, () -> model.addRow(new Object[] {"c", 3L, "superfluous"}));
+        model.addRow(new Object[] {"c"});
+        assertThat(model.getRowCount(), is(3));
+        assertThat(model.getValueAt(2, "amount"), is(0L));
+        assertThat(model.getValueAt(2, "name"), is("c"));
+
+        // a column which has been converted for a rejected row is restored
+        model.createIndex("name", false);
+        var invalid = new Object() {
+
+            @Override
+            public int hashCode() {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public String toString() {
+                return "invalid";
+            }
+
+        };
+        assertThrows(KclException.class, () -> model.addRow(new Object[] {invalid, "text"}));
+        assertThat(model.getRowCount(), is(3));
+        assertThat(model.sum("amount"), is(3.0));
+        assertThat(model.findRow("name", "c"), is(2));
+
+        // the index of a converted column is rebuilt
+        model.createIndex("amount", false);
+        model.addRow(new Object[] {"d", "text"});
+        assertThat(model.findRow("amount", "text"), is(3));
+        assertThat(model.findRow("amount", 2L), is(1));
+
+        // unknown columns are rejected
+        assertThrows(KclException.class, () -> model.getValueAt(0, "unknown"));
+        assertThrows(KclException.class, () -> model.findRow("unknown", "a"));
+        assertThrows(KclException.class, () -> model.findRows("unknown", "a"));
+        assertThrows(KclException.class, () -> model.findRange("unknown", 0L, 1L));
+        assertThrows(KclException.class, () -> model.hasIndex("unknown"));
+
+    }
+
+    @Test
+    public void indexKeysByColumnType() {
+
+        var model = new CsvTableModel(CsvOptions.builder().titleRow().build());
+        model.load(new ByteArrayInputStream("fraction,count\n12.0,7\n1.5,12\n12,12\n".getBytes()));
+        assertThat(model.getColumnClass(0).getName(), is(Float.class.getName()));
+
+        // the probes are converted into the type of the column
+        assertThat(model.findRows("fraction", 12), is(new int[] {0, 2}));
+        assertThat(model.findRows("count", 12.0), is(new int[] {1, 2}));
+        assertThat(model.findRows("count", 12.5).length, is(0));
+
+        model.createIndex("fraction", false);
+        model.createIndex("count", false);
+        assertThat(model.findRows("fraction", 12), is(new int[] {0, 2}));
+        assertThat(model.findRows("fraction", 1.5), is(new int[] {1}));
+        assertThat(model.findRows("count", 12.0), is(new int[] {1, 2}));
+        assertThat(model.findRow("count", 7L), is(0));
+
+        for (var i = 0; i < 100; i++) {
+            model.addRow(new Object[] {(float) i, (byte) (i % 3)});
+        }
+        assertThat(model.findRows("fraction", 12).length, is(3));
+        assertThat(model.findRows("count", 2).length, is(33));
+
+    }
+
+    @Test
+    public void indexMaintenance() {
+
+        var random = new Random(3L);
+        var csv    = new StringBuilder("key,amount\n");
+        for (var i = 0; i < 300; i++) {
+            csv.append("k%d,%d\n".formatted(random.nextInt(20), random.nextInt(1000)));
+        }
+        var model  = new CsvTableModel(CsvOptions.builder().titleRow().build());
+        model.load(new ByteArrayInputStream(csv.toString().getBytes()));
+        model.createIndex("key", false);
+        model.createIndex("amount", true);
+
+        for (var i = 0; i < 400; i++) {
+            switch (random.nextInt(4)) {
+            case 0:
+                model.setValueAt("k%d".formatted(random.nextInt(20)), random.nextInt(model.getRowCount()), 0);
+                break;
+            case 1:
+                model.setValueAt((short) random.nextInt(1000), random.nextInt(model.getRowCount()), 1);
+                break;
+            case 2:
+                model.addRow(new Object[] {"k%d".formatted(random.nextInt(20)), (short) random.nextInt(1000)});
+                break;
+            default:
+                model.removeRow(random.nextInt(model.getRowCount()));
+                break;
+            }
+            if (i % 50 == 0) {
+                var bound = random.nextInt(1000);
+                model.removeRow((Short $value) -> ($value < bound) || ($value > bound + 300), 1);
+            }
+            var plain = model.snapshot();
+            plain.dropIndex(0);
+            plain.dropIndex(1);
+            var key   = "k%d".formatted(random.nextInt(20));
+            var lower = random.nextInt(1000);
+            assertThat(model.findRows(0, key), is(plain.findRows(0, key)));
+            assertThat(model.findRow(0, key), is(plain.findRow(0, key)));
+            assertThat(model.findRange(1, lower, lower + 100), is(plain.findRange(1, lower, lower + 100)));
+        }
+
+    }
+
+    @Test
+    public void save() {
+
+        var model = loadText1();
+
+        var out   = new StringWriter();
+        try (var writer = new CsvWriter(model.getOptions(), out)) {
+            writer.writeAll(model, true);
+        }
+
+        var lines = out.toString().split("\n");
+        assertThat(lines[0], is("Column 0,Column 1,Column 2"));
+        assertThat(lines[1], is("cell_1_1,cell_1_2,34"));
+        assertThat(lines[2], is("cell_2_1,cell_2_2,90"));
+
+        var saved = new ByteArrayOutputStream();
+        model.save(saved, model.getOptions().encoding());
+        var text  = new String(saved.toByteArray(), model.getOptions().encoding().getCharset());
+        assertThat(text, startsWith("\"Column 0\",\"Column 1\",\"Column 2\"\n\"cell_1_1\",\"cell_1_2\",\"34\"\n"));
+        assertThat(text, containsString("\"cell_7_1\"\"next\""));
+
+    }
+
 } /* ENDCLASS */
@@ -0,0 +1,125 @@
+package com.kasisoft.libs.common.test.csv;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.*;
+import com.kasisoft.libs.common.csv.*;
+
+import javax.swing.event.*;
+
+import java.util.*;
+
+import java.nio.charset.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Test for the class {@link CsvTailer}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvTailerTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(CsvTailerTest.class);
+
+    private void append(Path path, String text) throws IOException {
+        Files.writeString(path, text, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<List<String>> poll(CsvTailer tailer) {
+        var result = new ArrayList<List<String>>();
+        tailer.poll($ -> result.add(Arrays.asList($)));
+        return result;
+    }
+
+    @Test
+    public void records() throws IOException {
+
+        var path   = TEST_RESOURCES.getTempPath("records.csv");
+        Files.deleteIfExists(path);
+        append(path, "");
+
+        var tailer = new CsvTailer(CsvOptions.builder().titleRow().build(), path);
+        assertThat(poll(tailer), is(empty()));
+
+        append(path, "id,name\n1,first\n2,\"multi");
+        assertThat(poll(tailer), is(List.of(List.of("1", "first"))));
+        assertThat(tailer.getTitles(), is(List.of("id", "name")));
+        assertThat(tailer.getOffset(), is(16L));
+
+        // the incomplete record is kept back until it's line break arrives
+        append(path, "\nline\"");
+        assertThat(poll(tailer), is(empty()));
+
+        append(path, "\n3,third\n");
+        assertThat(poll(tailer), is(List.of(List.of("2", "multi\nline"), List.of("3", "third"))));
+        assertThat(poll(tailer), is(empty()));
+
+        // a truncated file is followed from the beginning
+        Files.writeString(path, "id,name\n4,fourth\n");
+        assertThat(poll(tailer), is(List.of(List.of("4", "fourth"))));
+
+    }
+
+    @Test
+    public void columnCount() throws IOException {
+
+        var path   = TEST_RESOURCES.getTempPath("columns.csv");
+        Files.writeString(path, "1,2\n3\n");
+
+        var tailer = new CsvTailer(CsvOptions.builder().build(), path);
+        assertThrows(KclException.class, () -> poll(tailer));
+
+        var errors = new ArrayList<String>();
+        tailer.reset();
+        tailer.setErrorHandlerForInconsistentColumnCount(errors::add);
+        assertThat(poll(tailer), is(List.of(List.of("1", "2"))));
+        assertThat(errors.size(), is(1));
+
+    }
+
+    @Test
+    public void tableModel() throws IOException {
+
+        var path   = TEST_RESOURCES.getTempPath("model.csv");
+        Files.writeString(path, "id,amount\n1,10\n2,20\n");
+
+        var model  = new CsvTableModel(CsvOptions.builder().titleRow().build());
+        var events = new ArrayList<TableModelEvent>();
+        model.addTableModelListener(events::add);
+
+        var tailer = new CsvTailer(model.getOptions(), path);
+        assertThat(tailer.poll(model), is(2));
+        assertThat(model.getColumnCount(), is(2));
+        assertThat(model.getColumnName(1), is("amount"));
+        assertThat(model.getValueAt(1, 1), is((byte) 20));
+
+        append(path, "3,30\n4,40\n");
+        assertThat(tailer.poll(model), is(2));
+        assertThat(model.getRowCount(), is(4));
+        assertThat(model.getValueAt(3, 1), is((byte) 40));
+
+        assertThat(events.size(), is(2));
+        assertThat(events.get(1).getType(), is(TableModelEvent.INSERT));
+        assertThat(events.get(1).getFirstRow(), is(2));
+        assertThat(events.get(1).getLastRow(), is(3));
+
+    }
+
+    @Test
+    public void unsupportedEncoding() {
+        var options = CsvOptions.builder().encoding(Encoding.UTF16).build();
+        assertThrows(KclException.class, () -> new CsvTailer(options, TEST_RESOURCES.getTempPath("utf16.csv")));
+    }
+
+} /* ENDCLASS */
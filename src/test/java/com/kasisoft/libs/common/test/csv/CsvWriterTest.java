@@ -0,0 +1,154 @@
+package com.kasisoft.libs.common.test.csv;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.csv.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.io.*;
+
+import java.sql.*;
+
+/**
+ * Test for the class {@link CsvWriter}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CsvWriterTest {
+
+    private static final CsvOptions OPTIONS = CsvOptions.builder().build();
+
+    private String write(CsvQuoting quoting, Object[] ... rows) {
+        var result = new StringWriter();
+        try (var writer = new CsvWriter(OPTIONS, result)) {
+            writer.setQuoting(quoting);
+            writer.writeAll(Arrays.asList(rows).iterator());
+        }
+        return result.toString();
+    }
+
+    @Test
+    public void minimalQuoting() {
+        var csv = write(CsvQuoting.Minimal,
+            new Object[] {"plain", "with,comma", "with \"quote\"", "", null, " padded"},
+            new Object[] {"multi\nline", "it's", 12, -7L, 1.5, 0.1f, true}
+        );
+        assertThat(csv, is(
+            "plain,\"with,comma\",\"with \"\"quote\"\"\",,, padded\n" +
+            "\"multi\nline\",\"it's\",12,-7,1.5,0.1,true\n"
+        ));
+    }
+
+    @Test
+    public void alwaysQuoting() {
+        var csv = write(CsvQuoting.Always, new Object[] {"a\"b", null, 42, Long.MIN_VALUE});
+        assertThat(csv, is("\"a\"\"b\",,\"42\",\"-9223372036854775808\"\n"));
+    }
+
+    @Test
+    public void numbers() {
+        var result = new StringWriter();
+        try (var writer = new CsvWriter(OPTIONS, result)) {
+            for (var value : new long[] {0L, 9L, 10L, -10L, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+                writer.writeField(value);
+            }
+            writer.writeField(-0.25);
+            writer.endRow();
+        }
+        assertThat(result.toString(), is("0,9,10,-10,1234567890123,9223372036854775807,-9223372036854775808,-0.25\n"));
+    }
+
+    @Test
+    public void roundtrip() {
+
+        var rows = new ArrayList<Object[]>();
+        for (var i = 0; i < 5000; i++) {
+            rows.add(new Object[] {"id-%d".formatted(i), "text, \"%d\"\nnext".formatted(i), i * 7L});
+        }
+
+        var out  = new StringWriter();
+        try (var writer = new CsvWriter(OPTIONS, out)) {
+            writer.writeAll(rows.iterator());
+        }
+
+        try (var reader = new CsvReader(OPTIONS, new StringReader(out.toString()))) {
+            var records = reader.stream().collect(Collectors.toList());
+            assertThat(records.size(), is(rows.size()));
+            for (var i = 0; i < records.size(); i++) {
+                assertThat(records.get(i)[0], is(rows.get(i)[0]));
+                assertThat(records.get(i)[1], is(rows.get(i)[1]));
+                assertThat(records.get(i)[2], is(String.valueOf(rows.get(i)[2])));
+            }
+        }
+
+    }
+
+    @Test
+    public void roundtripLimits() {
+
+        var out = new StringWriter();
+        try (var writer = new CsvWriter(OPTIONS, out)) {
+            writer.writeRow(new Object[] {" padded ", "", null});
+            writer.writeRow(new Object[] {""});
+            writer.writeRow(new Object[] {null});
+            writer.writeRow(new Object[] {"last"});
+        }
+        assertThat(out.toString(), is(" padded ,,\n\"\"\n\"\"\nlast\n"));
+
+        // fields are trimmed and empty fields become null, but records consisting of an empty field are kept
+        var options = CsvOptions.builder().fillMissingColumns().build();
+        try (var reader = new CsvReader(options, new StringReader(out.toString()))) {
+            var records = reader.stream().collect(Collectors.toList());
+            assertThat(records.size(), is(4));
+            assertThat(records.get(0), is(new String[] {"padded", null, null}));
+            assertThat(records.get(1), is(new String[] {null, null, null}));
+            assertThat(records.get(2), is(new String[] {null, null, null}));
+            assertThat(records.get(3), is(new String[] {"last", null, null}));
+        }
+
+    }
+
+    @Test
+    public void withoutQuotes() {
+
+        var options = CsvOptions.builder().singleQuotes(false).doubleQuotes(false).build();
+        var out     = new StringWriter();
+        try (var writer = new CsvWriter(options, out)) {
+            writer.writeRow(new Object[] {"it's", "a \"b\"", 1});
+            assertThrows(KclException.class, () -> writer.writeField("a,b"));
+            assertThrows(KclException.class, () -> writer.writeField("a\nb"));
+            writer.endRow();
+            writer.writeNull();
+            assertThrows(KclException.class, writer::endRow);
+        }
+        assertThat(out.toString(), startsWith("it's,a \"b\",1\n"));
+
+    }
+
+    @Test
+    public void resultSet() throws SQLException {
+
+        try (var connection = DriverManager.getConnection("jdbc:h2:mem:csvwriter")) {
+            try (var statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE items (id INT, name VARCHAR(32), price DOUBLE, weight REAL)");
+                statement.execute("INSERT INTO items VALUES (1, 'first', 1.25, 0.1), (2, 'se,cond', NULL, NULL)");
+                var out = new StringWriter();
+                try (var writer = new CsvWriter(OPTIONS, out); var resultSet = statement.executeQuery("SELECT * FROM items ORDER BY id")) {
+                    writer.writeAll(resultSet, true);
+                }
+                assertThat(out.toString(), is("ID,NAME,PRICE,WEIGHT\n1,first,1.25,0.1\n2,\"se,cond\",,\n"));
+            }
+        }
+
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,172 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import org.junit.jupiter.params.provider.*;
+
+import org.junit.jupiter.params.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.util.stream.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.attribute.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Test for the class {@link AtomicFileWriter}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class AtomicFileWriterTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(AtomicFileWriterTest.class);
+
+    private static long countTemporaryFiles(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.filter($ -> $.getFileName().toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Durability.class)
+    public void saveBytes(Durability durability) throws Exception {
+        var file   = TEST_RESOURCES.getTempPath("atomic-%s.bin".formatted(durability));
+        Files.write(file, new byte[100]);
+        var writer = new AtomicFileWriter();
+        writer.setDurability(durability);
+        writer.saveBytes(file, new byte[] {1, 2, 3});
+        assertThat(Files.readAllBytes(file), is(new byte[] {1, 2, 3}));
+        assertThat(countTemporaryFiles(file.getParent()), is(0L));
+    }
+
+    @Test
+    public void writeText() throws Exception {
+        var file   = TEST_RESOURCES.getTempPath("atomic.txt");
+        var writer = new AtomicFileWriter();
+        writer.writeText(file, Encoding.UTF8, "Hello Wörld");
+        assertThat(Files.readString(file), is("Hello Wörld"));
+        writer.saveChars(file, Encoding.ISO88591, "Hello Wörld".toCharArray());
+        assertThat(Files.readString(file, Encoding.ISO88591.getCharset()), is("Hello Wörld"));
+    }
+
+    @Test
+    public void failure() throws Exception {
+        var dir  = TEST_RESOURCES.getTempPath("atomic-failure");
+        Files.createDirectories(dir);
+        var file = dir.resolve("content.txt");
+        Files.writeString(file, "original");
+        var ex   = assertThrows(KclException.class, () -> new AtomicFileWriter().write(file, $ -> {
+            $.write("partial".getBytes());
+            throw new IOException("broken");
+        }));
+        assertThat(ex.getCause().getMessage(), is("broken"));
+        // the original content is untouched and the temporary file is gone
+        assertThat(Files.readString(file), is("original"));
+        assertThat(countTemporaryFiles(dir), is(0L));
+    }
+
+    @Test
+    public void groupCommit() throws Exception {
+        var dir  = TEST_RESOURCES.getTempPath("atomic-group");
+        Files.createDirectories(dir);
+        var pool = new ForkJoinPool(8);
+        try {
+            pool.submit(() -> IntStream.range(0, 200).parallel().forEach($ -> {
+                IoSupportFunctions.writeText(dir.resolve("file%d.txt".formatted($)), Encoding.UTF8, "content %d".formatted($), Durability.All);
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        for (var i = 0; i < 200; i++) {
+            assertThat(Files.readString(dir.resolve("file%d.txt".formatted(i))), is("content %d".formatted(i)));
+        }
+        assertThat(countTemporaryFiles(dir), is(0L));
+    }
+
+    @Test
+    public void groupCommitWithVirtualThreads() throws Exception {
+        var dir    = TEST_RESOURCES.getTempPath("atomic-virtual");
+        Files.createDirectories(dir);
+        var writer = new AtomicFileWriter();
+        writer.setGroupCommit(true);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < 200; i++) {
+                var file = dir.resolve("file%d.txt".formatted(i));
+                var text = "content %d".formatted(i);
+                executor.submit(() -> writer.writeText(file, Encoding.UTF8, text));
+            }
+        }
+        for (var i = 0; i < 200; i++) {
+            assertThat(Files.readString(dir.resolve("file%d.txt".formatted(i))), is("content %d".formatted(i)));
+        }
+    }
+
+    @Test
+    public void keepPermissions() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        var file        = TEST_RESOURCES.getTempPath("atomic-permissions.txt");
+        Files.writeString(file, "secret");
+        var permissions = PosixFilePermissions.fromString("rw-------");
+        Files.setPosixFilePermissions(file, permissions);
+        var owner       = Files.getOwner(file);
+        new AtomicFileWriter().writeText(file, Encoding.UTF8, "new secret");
+        assertThat(Files.readString(file), is("new secret"));
+        assertThat(Files.getPosixFilePermissions(file), is(permissions));
+        assertThat(Files.getOwner(file), is(owner));
+    }
+
+    @Test
+    public void symbolicLink() throws Exception {
+        var file = TEST_RESOURCES.getTempPath("atomic-linked.txt");
+        var link = TEST_RESOURCES.getTempPath("atomic-link.txt");
+        Files.writeString(file, "before");
+        Files.deleteIfExists(link);
+        try {
+            Files.createSymbolicLink(link, file.getFileName());
+        } catch (UnsupportedOperationException | IOException ex) {
+            assumeTrue(false, "symbolic links are not supported");
+        }
+        new AtomicFileWriter().writeText(link, Encoding.UTF8, "after");
+        // the link is kept and the linked file got the content
+        assertTrue(Files.isSymbolicLink(link));
+        assertThat(Files.readString(file), is("after"));
+        assertThat(countTemporaryFiles(file.getParent()), is(0L));
+    }
+
+    @Test
+    public void interrupted() throws Exception {
+        var file = TEST_RESOURCES.getTempPath("atomic-interrupted.txt");
+        assertThrows(KclException.class, () -> new AtomicFileWriter().write(file, $ -> {
+            throw new InterruptedException();
+        }));
+        // the interruption must not get lost
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    public void ioSupportFunctions() throws Exception {
+        var file = TEST_RESOURCES.getTempPath("atomic-functions.bin").toFile();
+        IoSupportFunctions.saveBytes(file, new byte[] {4, 5}, Durability.Data);
+        assertThat(IoSupportFunctions.loadAllBytes(file), is(new byte[] {4, 5}));
+        IoSupportFunctions.saveChars(file, Encoding.UTF8, "text".toCharArray(), Durability.None);
+        assertThat(IoSupportFunctions.readText(file), is("text"));
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,205 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.impl.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.nio.file.*;
+
+import java.net.*;
+
+/**
+ * Test for the class {@link CachingIoSupport}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class CachingIoSupportTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(CachingIoSupportTest.class);
+
+    private static Path createFile(String name, String content) throws Exception {
+        var result = TEST_RESOURCES.getTempPath(name);
+        Files.writeString(result, content);
+        return result;
+    }
+
+    @Test
+    public void loadAllBytes() throws Exception {
+
+        var file      = createFile("cached1.txt", "first");
+        var cache     = new ResourceCache(1024);
+        var ioSupport = new CachingIoSupport<Path>(new PathIoSupport(), cache);
+
+        assertThat(ioSupport.loadAllBytes(file), is("first".getBytes()));
+        assertThat(ioSupport.loadAllBytes(file), is("first".getBytes()));
+        assertThat(ioSupport.loadAllBytes(file, 2), is("rst".getBytes()));
+        assertThat(cache.getHits(), is(2L));
+        assertThat(cache.getMisses(), is(1L));
+        assertThat(cache.getSize(), is(5L));
+
+        // the cached content cannot be modified
+        ioSupport.loadAllBytes(file)[0] = 'X';
+        assertThat(ioSupport.loadAllBytes(file), is("first".getBytes()));
+
+        // a changed file is loaded again
+        Files.writeString(file, "second");
+        assertThat(ioSupport.loadAllBytes(file), is("second".getBytes()));
+        assertThat(cache.getMisses(), is(2L));
+
+    }
+
+    @Test
+    public void readText() throws Exception {
+
+        var file      = createFile("cached2.txt", "text");
+        var cache     = new ResourceCache(1024);
+        var ioSupport = new CachingIoSupport<Path>(new PathIoSupport(), cache);
+
+        assertThat(ioSupport.readText(file), is("text"));
+        assertThat(ioSupport.readText(file, Encoding.UTF8), is("text"));
+        assertThat(ioSupport.readText(file, Encoding.ISO88591), is("text"));
+        // the default encoding and utf-8 share the same entry
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getCount(), is(2));
+        assertThat(cache.getHitRate(), is(closeTo(1.0 / 3.0, 0.001)));
+
+    }
+
+    @Test
+    public void invalidateOnWrite() throws Exception {
+
+        var file      = createFile("cached3.txt", "before");
+        var cache     = new ResourceCache(1024);
+        var ioSupport = new CachingIoSupport<Path>(new PathIoSupport(), cache);
+        var modified  = Files.getLastModifiedTime(file);
+
+        assertThat(ioSupport.readText(file), is("before"));
+        // same size and modification time, so only the write through the decorator reveals the change
+        ioSupport.writeText(file, "after!");
+        Files.setLastModifiedTime(file, modified);
+        assertThat(cache.getCount(), is(0));
+        assertThat(ioSupport.readText(file), is("after!"));
+
+    }
+
+    @Test
+    public void eviction() throws Exception {
+
+        var cache     = new ResourceCache(20);
+        var ioSupport = new CachingIoSupport<Path>(new PathIoSupport(), cache);
+        var file1     = createFile("cached4.txt", "0123456789");
+        var file2     = createFile("cached5.txt", "0123456789");
+        var file3     = createFile("cached6.txt", "0123456789");
+        var large     = createFile("cached7.txt", "0123456789012345678901234567890");
+
+        ioSupport.loadAllBytes(file1);
+        ioSupport.loadAllBytes(file2);
+        // file1 becomes the most recently used one
+        ioSupport.loadAllBytes(file1);
+        ioSupport.loadAllBytes(file3);
+        assertThat(cache.getEvictions(), is(1L));
+        assertThat(cache.getSize(), is(20L));
+
+        ioSupport.loadAllBytes(file1);
+        assertThat(cache.getHits(), is(2L));
+        ioSupport.loadAllBytes(file2);
+        assertThat(cache.getHits(), is(2L));
+
+        // too large for the cache
+        ioSupport.loadAllBytes(large);
+        assertThat(cache.getSize(), is(lessThanOrEqualTo(20L)));
+
+    }
+
+    @Test
+    public void urlKeys() throws Exception {
+
+        // the handler fails if the equality of the urls would be used (it resolves the host)
+        var handler = new URLStreamHandler() {
+
+            @Override
+            protected URLConnection openConnection(URL url) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected int hashCode(URL url) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected boolean equals(URL left, URL right) {
+                throw new UnsupportedOperationException();
+            }
+
+        };
+        var url1    = URL.of(URI.create("test://unresolvable.invalid/data"), handler);
+        var url2    = URL.of(URI.create("test://unresolvable.invalid/data"), handler);
+        var cache   = new ResourceCache(1024);
+
+        assertThat(cache.<String>get(url1, "text", 1L, $ -> $.length(), () -> "cached"), is("cached"));
+        assertThat(cache.<String>get(url2, "text", 1L, $ -> $.length(), () -> "loaded"), is("cached"));
+        assertThat(cache.getHits(), is(1L));
+
+        cache.invalidate(url2);
+        assertThat(cache.getCount(), is(0));
+        assertThat(cache.getSize(), is(0L));
+
+    }
+
+    @Test
+    public void jarUrl() throws Exception {
+
+        var source  = TEST_RESOURCES.getTempPath("cached-jar");
+        Files.createDirectories(source);
+        Files.writeString(source.resolve("entry.txt"), "zipped");
+        var zipFile = TEST_RESOURCES.getTempPath("cached.jar");
+        IoFunctions.zip(zipFile, source, null);
+
+        var url       = URI.create("jar:%s!/entry.txt".formatted(zipFile.toUri())).toURL();
+        var cache     = new ResourceCache(1024);
+        var ioSupport = new CachingIoSupport<URL>(new URLIoSupport(), cache);
+        assertNotNull(ioSupport.getVersion(url));
+        assertThat(ioSupport.readText(url), is("zipped"));
+        assertThat(ioSupport.readText(url), is("zipped"));
+        assertThat(cache.getHits(), is(1L));
+
+        // resources without a version are not cached
+        var other = new CachingIoSupport<URL>(new URLIoSupport(), new ResourceCache(1024));
+        var jrt   = String.class.getResource("String.class");
+        assertNull(other.getVersion(jrt));
+        other.loadAllBytes(jrt);
+        assertThat(other.getCache().getCount(), is(0));
+
+    }
+
+    @Test
+    public void ioSupportFunctions() throws Exception {
+        var file = createFile("cached8.txt", "shared");
+        try {
+            var cache = IoSupportFunctions.enableCache(1024);
+            assertThat(IoSupportFunctions.getCache(), is(sameInstance(cache)));
+            assertThat(IoSupportFunctions.readText(file), is("shared"));
+            assertThat(IoSupportFunctions.readText(file), is("shared"));
+            assertThat(IoSupportFunctions.ioSupport(Path.class), instanceOf(CachingIoSupport.class));
+            assertThat(cache.getHits(), is(1L));
+        } finally {
+            IoSupportFunctions.disableCache();
+        }
+        assertNull(IoSupportFunctions.getCache());
+        assertThat(IoSupportFunctions.ioSupport(Path.class), instanceOf(PathIoSupport.class));
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,179 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.util.stream.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+import java.net.*;
+
+/**
+ * Test for the class {@link IoBatch}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class IoBatchTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(IoBatchTest.class);
+
+    private Map<Path, String> createTexts(String prefix, int count) {
+        var result = new LinkedHashMap<Path, String>();
+        for (var i = 0; i < count; i++) {
+            result.put(TEST_RESOURCES.getTempPath("%s%d.txt".formatted(prefix, i)), "Text number %d".formatted(i));
+        }
+        return result;
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+
+        var texts   = createTexts("batch", 200);
+        var written = IoSupportFunctions.writeText(texts, Encoding.UTF8).get();
+        assertTrue(written.isSuccessful());
+        assertThat(written.values().size(), is(200));
+
+        var loaded  = IoSupportFunctions.readText(texts.keySet(), Encoding.UTF8).get();
+        assertTrue(loaded.isSuccessful());
+        // the order of the resources is kept
+        assertThat(new ArrayList<>(loaded.values().keySet()), is(new ArrayList<>(texts.keySet())));
+        assertThat(loaded.values(), is(texts));
+
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+
+        var contents = new LinkedHashMap<URI, byte[]>();
+        for (var i = 0; i < 50; i++) {
+            contents.put(TEST_RESOURCES.getTempPath("bytes%d.bin".formatted(i)).toUri(), new byte[] {(byte) i, 1, 2, 3});
+        }
+        var saved    = IoSupportFunctions.saveBytes(contents).get();
+        assertTrue(saved.isSuccessful());
+        assertThat(saved.values().get(contents.keySet().iterator().next()), is(4));
+
+        var loaded   = IoSupportFunctions.loadAllBytes(contents.keySet()).get();
+        assertTrue(loaded.isSuccessful());
+        for (var entry : contents.entrySet()) {
+            assertThat(loaded.values().get(entry.getKey()), is(entry.getValue()));
+        }
+
+    }
+
+    @Test
+    public void failures() throws Exception {
+
+        var texts   = createTexts("failure", 5);
+        IoSupportFunctions.writeText(texts, null).get();
+
+        var sources = new ArrayList<Object>(texts.keySet());
+        var missing = TEST_RESOURCES.getTempPath("missing.txt");
+        sources.add(2, missing);
+        sources.add("unsupported");
+
+        var loaded  = new IoBatch().loadAllBytes(sources).get();
+        assertFalse(loaded.isSuccessful());
+        assertThat(loaded.values().size(), is(5));
+        assertThat(loaded.failures().keySet(), contains(missing, "unsupported"));
+        assertThat(loaded.failures().get("unsupported"), instanceOf(KclException.class));
+
+    }
+
+    @Test
+    public void duplicates() throws Exception {
+        var batch = new IoBatch();
+        assertThrows(KclException.class, () -> batch.run(List.of("a", "b", "a"), String::length));
+        assertThat(batch.run(List.of("a", "bb"), String::length).get().values(), is(Map.of("a", 1, "bb", 2)));
+    }
+
+    @Test
+    public void urlDuplicates() throws Exception {
+
+        // the handler fails if the equality of the urls would be used (it resolves the host)
+        var handler = new URLStreamHandler() {
+
+            @Override
+            protected URLConnection openConnection(URL url) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected int hashCode(URL url) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            protected boolean equals(URL left, URL right) {
+                throw new UnsupportedOperationException();
+            }
+
+        };
+        var url1    = URL.of(URI.create("test://unresolvable.invalid/first"), handler);
+        var url2    = URL.of(URI.create("test://unresolvable.invalid/second"), handler);
+        var copy    = URL.of(URI.create("test://unresolvable.invalid/first"), handler);
+        var batch   = new IoBatch();
+        assertThrows(KclException.class, () -> batch.run(List.of(url1, url2, copy), URL::getPath));
+
+        var result  = batch.run(List.of(url1, url2), URL::getPath).get();
+        assertThat(result.values().size(), is(2));
+        assertThat(result.values().get(copy), is("/first"));
+        assertThat(result.values().get(url2), is("/second"));
+        assertThat(result.values().keySet(), contains(sameInstance(url1), sameInstance(url2)));
+
+    }
+
+    @Test
+    public void concurrency() throws Exception {
+
+        var active  = new AtomicInteger();
+        var maximum = new AtomicInteger();
+        var batch   = new IoBatch();
+        batch.setConcurrency(3);
+
+        var result  = batch.run(IntStream.range(0, 50).mapToObj("value%d"::formatted).toList(), $ -> {
+            maximum.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            active.decrementAndGet();
+            return $.length();
+        }).get(30, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccessful());
+        assertThat(maximum.get(), is(lessThanOrEqualTo(3)));
+        assertThat(maximum.get(), is(greaterThan(0)));
+
+    }
+
+    @Test
+    public void submit() throws Exception {
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var batch = new IoBatch();
+            batch.setExecutor(executor);
+            assertThat(batch.submit("text", String::length).get(), is(4));
+            var future = batch.submit("text", $ -> { throw new IllegalStateException($); });
+            var ex     = assertThrows(ExecutionException.class, future::get);
+            assertThat(ex.getCause(), instanceOf(KclException.class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+} /* ENDCLASS */
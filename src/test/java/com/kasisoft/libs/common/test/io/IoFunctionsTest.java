@@ -8,6 +8,8 @@ import org.junit.jupiter.params.provider.*;
 
 import org.junit.jupiter.params.*;
 
+import org.junit.jupiter.api.condition.*;
+
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.MethodOrderer.*;
 
@@ -24,6 +26,8 @@ import java.util.stream.*;
 
 import java.util.*;
 
+import java.nio.channels.*;
+
 import java.nio.file.*;
 
 import java.io.*;
@@ -127,6 +131,95 @@ public class IoFunctionsTest {
         assertThat(writer.toString(), is(CONTENT_FOR_READERS));
     }
 
+    @Test
+    @Order(71)
+    public void copy__FileStreams() throws Exception {
+        var data   = new byte[300_000];
+        for (var i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + i / 7);
+        }
+        var source = TEST_RESOURCES.getTempPath("copy1.bin");
+        var dest   = TEST_RESOURCES.getTempPath("copy2.bin");
+        Files.write(source, data);
+        try (var instream = new FileInputStream(source.toFile()); var outstream = new FileOutputStream(dest.toFile())) {
+            // the stream position must be respected and advanced
+            instream.skip(1000);
+            outstream.write(data, 0, 10);
+            IoFunctions.copy(instream, outstream);
+            assertThat(instream.read(), is(-1));
+            outstream.write(data, 0, 5);
+        }
+        var expected = new ByteArrayOutputStream();
+        expected.write(data, 0, 10);
+        expected.write(data, 1000, data.length - 1000);
+        expected.write(data, 0, 5);
+        assertThat(Files.readAllBytes(dest), is(expected.toByteArray()));
+    }
+
+    @Test
+    @Order(72)
+    public void copy__FileStreamsMixed() throws Exception {
+        var asBytes = Encoding.UTF8.encode(CONTENT_FOR_STREAMS);
+        var source  = TEST_RESOURCES.getTempPath("copy3.bin");
+        var dest    = TEST_RESOURCES.getTempPath("copy4.bin");
+        Files.write(source, asBytes);
+        var byteout = new ByteArrayOutputStream();
+        try (var instream = new FileInputStream(source.toFile())) {
+            IoFunctions.copy(instream, byteout, 8);
+        }
+        assertThat(byteout.toByteArray(), is(asBytes));
+        try (var outstream = new FileOutputStream(dest.toFile())) {
+            IoFunctions.copy(new ByteArrayInputStream(asBytes), outstream, 8);
+        }
+        assertThat(Files.readAllBytes(dest), is(asBytes));
+    }
+
+    @Test
+    @Order(73)
+    @EnabledOnOs(OS.LINUX)
+    public void copy__FileStreamsWithoutSize() throws Exception {
+
+        // procfs doesn't report a size for it's files
+        var byteout = new ByteArrayOutputStream();
+        try (var instream = new FileInputStream("/proc/self/status")) {
+            IoFunctions.copy(instream, byteout);
+        }
+        assertThat(byteout.toString(), containsString("Pid:"));
+
+        // a named pipe only provides it's content while it's being written
+        var data = new byte[100_000];
+        Arrays.fill(data, (byte) 'x');
+        var fifo = TEST_RESOURCES.getTempPath("copy5.fifo");
+        Files.createDirectories(fifo.getParent());
+        Files.deleteIfExists(fifo);
+        assertThat(new ProcessBuilder("mkfifo", fifo.toString()).start().waitFor(), is(0));
+        var writer = new Thread(() -> {
+            try (var outstream = new FileOutputStream(fifo.toFile())) {
+                outstream.write(data);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.start();
+        byteout = new ByteArrayOutputStream();
+        try (var instream = new FileInputStream(fifo.toFile())) {
+            IoFunctions.copy(instream, byteout);
+        }
+        writer.join();
+        assertThat(byteout.toByteArray(), is(data));
+
+    }
+
+    @Test
+    @Order(73)
+    public void copy__Channels() throws Exception {
+        var asBytes = Encoding.UTF8.encode(CONTENT_FOR_STREAMS);
+        var byteout = new ByteArrayOutputStream();
+        var count   = IoFunctions.copy(Channels.newChannel(new ByteArrayInputStream(asBytes)), Channels.newChannel(byteout), 8);
+        assertThat(count, is((long) asBytes.length));
+        assertThat(byteout.toByteArray(), is(asBytes));
+    }
+
     @Test
     @Order(80)
     public void copyFile() {
@@ -190,6 +283,48 @@ public class IoFunctionsTest {
 
     }
 
+    @Test
+    @Order(121)
+    public void copyDir__Parallel() {
+        var dir      = TEST_RESOURCES.getResource("simpleton");
+        var dest     = TEST_RESOURCES.getTempPath("copydir1");
+        var expected = IoFunctions.listPathes(dir);
+        IoFunctions.copyDir(dir, dest, 4);
+        assertThat(IoFunctions.listPathes(dest), is(expected));
+        for (var path : expected) {
+            if (!path.endsWith("/")) {
+                assertThat(IoSupportFunctions.loadAllBytes(dest.resolve(path)), is(IoSupportFunctions.loadAllBytes(dir.resolve(path))));
+            }
+        }
+    }
+
+    @Test
+    @Order(122)
+    public void deleteDir() {
+        var dir   = TEST_RESOURCES.getResource("simpleton");
+        var dest1 = TEST_RESOURCES.getTempPath("deletedir1");
+        var dest2 = TEST_RESOURCES.getTempPath("deletedir2");
+        IoFunctions.copyDir(dir, dest1);
+        IoFunctions.copyDir(dir, dest2);
+        IoFunctions.deleteDir(dest1);
+        IoFunctions.deleteDir(dest2, 4);
+        assertFalse(Files.exists(dest1));
+        assertFalse(Files.exists(dest2));
+    }
+
+    @Test
+    @Order(123)
+    public void moveDir__Parallel() {
+        var dir      = TEST_RESOURCES.getResource("simpleton");
+        var source   = TEST_RESOURCES.getTempPath("movedir1");
+        var dest     = TEST_RESOURCES.getTempPath("movedir2");
+        var expected = IoFunctions.listPathes(dir);
+        IoFunctions.copyDir(dir, source, 4);
+        IoFunctions.moveDir(source, dest, 4);
+        assertFalse(Files.exists(source));
+        assertThat(IoFunctions.listPathes(dest), is(expected));
+    }
+
     @Test
     @Order(130)
     public void gzip() throws Exception {
@@ -8,6 +8,8 @@ import org.junit.jupiter.params.provider.*;
 
 import org.junit.jupiter.params.*;
 
+import org.junit.jupiter.api.condition.*;
+
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.MethodOrderer.*;
 
@@ -25,6 +27,8 @@ import java.util.stream.*;
 
 import java.util.*;
 
+import java.nio.channels.*;
+
 import java.nio.file.*;
 
 import java.net.*;
@@ -814,4 +818,79 @@ public class IoSupportFunctionsTest {
         assertThat(read, is(CONTENT_HTTP_XSD));
     }
 
+    public static Stream<Arguments> data_transfer() throws Exception {
+        var file1 = TEST_RESOURCES.getTempPath("transfer1.txt");
+        var file2 = TEST_RESOURCES.getTempPath("transfer2.txt");
+        var file3 = TEST_RESOURCES.getTempPath("transfer3.txt");
+        var file4 = TEST_RESOURCES.getTempPath("transfer4.txt");
+        var file5 = TEST_RESOURCES.getTempPath("transfer5.txt");
+        var file6 = TEST_RESOURCES.getTempPath("transfer6.txt");
+        return Stream.of(
+            Arguments.of(ioPath, file1, file2),
+            Arguments.of(ioFile, file3.toFile(), file4.toFile()),
+            Arguments.of(ioURI, file5.toUri(), file6.toUri())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("data_transfer")
+    @Order(450)
+    public <T> void transfer(IoSupport<T> ioSupport, T source, T destination) {
+        var asBytes = Encoding.UTF8.encode(CONTENT_HTTP_XSD);
+        var count   = ioSupport.transfer(Channels.newChannel(new ByteArrayInputStream(asBytes)), source);
+        assertThat(count, is((long) asBytes.length));
+        var byteout = new ByteArrayOutputStream();
+        count       = ioSupport.transfer(source, Channels.newChannel(byteout));
+        assertThat(count, is((long) asBytes.length));
+        assertThat(byteout.toByteArray(), is(asBytes));
+        // an existing destination is being replaced
+        ioSupport.saveBytes(destination, new byte[asBytes.length * 2]);
+        count       = ioSupport.transfer(source, destination);
+        assertThat(count, is((long) asBytes.length));
+        assertThat(ioSupport.loadAllBytes(destination), is(asBytes));
+    }
+
+    public static Stream<Arguments> data_loadAll__Exact() throws Exception {
+        var file1 = TEST_RESOURCES.getTempPath("exact1.txt");
+        var file2 = TEST_RESOURCES.getTempPath("exact2.txt");
+        var file3 = TEST_RESOURCES.getTempPath("exact3.txt");
+        return Stream.of(
+            Arguments.of(ioPath, file1),
+            Arguments.of(ioFile, file2.toFile()),
+            Arguments.of(ioURI, file3.toUri())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("data_loadAll__Exact")
+    @Order(460)
+    public <T> void loadAll__Exact(IoSupport<T> ioSupport, T source) {
+        // multibyte characters force the decoded array to be trimmed
+        var builder = new StringBuilder();
+        while (builder.length() < 300_000) {
+            builder.append(CONTENT_HTTP_XSD).append("\u00e4\u00f6\u00fc\u20ac\n");
+        }
+        var text  = builder.toString();
+        var bytes = Encoding.UTF8.encode(text);
+        ioSupport.saveBytes(source, bytes);
+        assertThat(ioSupport.loadAllBytes(source), is(bytes));
+        assertThat(ioSupport.loadAllBytes(source, 1000), is(Arrays.copyOfRange(bytes, 1000, bytes.length)));
+        assertThat(ioSupport.loadAllChars(source, Encoding.UTF8), is(text.toCharArray()));
+        assertThat(ioSupport.loadAllChars(source, Encoding.UTF8, 1000), is(text.substring(1000).toCharArray()));
+        assertThat(ioSupport.loadAllChars(source, Encoding.ISO88591), is(new String(bytes, Encoding.ISO88591.getCharset()).toCharArray()));
+        assertThat(ioSupport.readText(source, Encoding.UTF8), is(text));
+    }
+
+    @Test
+    @Order(470)
+    @EnabledOnOs(OS.LINUX)
+    public void loadAll__WithoutSize() {
+        // procfs doesn't report a size for it's files
+        var status = Paths.get("/proc/self/status");
+        assertThat(new String(IoSupportFunctions.loadAllBytes(status), Encoding.UTF8.getCharset()), startsWith("Name:"));
+        assertThat(new String(IoSupportFunctions.loadAllBytes(status, 5), Encoding.UTF8.getCharset()), not(startsWith("Name:")));
+        assertThat(new String(IoSupportFunctions.loadAllChars(status, Encoding.UTF8)), containsString("Pid:"));
+        assertThat(IoSupportFunctions.readText(status.toFile(), Encoding.UTF8), containsString("Pid:"));
+    }
+
 } /* ENDCLASS */
@@ -0,0 +1,147 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.datatypes.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.util.concurrent.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.nio.channels.*;
+
+import java.nio.file.*;
+
+import java.nio.*;
+
+import java.net.*;
+
+/**
+ * Test for the class {@link MappedView}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class MappedViewTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(MappedViewTest.class);
+
+    private static byte[] createContent(int size) {
+        var result = new byte[size];
+        for (var i = 0; i < size; i++) {
+            result[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        return result;
+    }
+
+    private static Path createFile(String name, byte[] content) throws Exception {
+        var result = TEST_RESOURCES.getTempPath(name);
+        Files.write(result, content);
+        return result;
+    }
+
+    @Test
+    public void read() throws Exception {
+        var content = createContent(100_000);
+        try (var view = new MappedView(createFile("mapped1.bin", content))) {
+            assertThat(view.size(), is((long) content.length));
+            assertThat(view.getSegmentCount(), is(1));
+            assertThat(view.get(12345L), is(content[12345]));
+            assertThat(view.read(500L, 1000), is(Arrays.copyOfRange(content, 500, 1500)));
+            // the end of the content has been reached
+            assertThat(view.read(99_900L, 1000), is(Arrays.copyOfRange(content, 99_900, 100_000)));
+            assertThat(view.read(100_000L, new byte[10], 0, 10), is(-1));
+            assertThat(view.getInt(8L), is(ByteBuffer.wrap(content).getInt(8)));
+            assertThat(view.getLong(16L), is(ByteBuffer.wrap(content).getLong(16)));
+            assertThrows(IndexOutOfBoundsException.class, () -> view.get(100_000L));
+        }
+    }
+
+    @Test
+    public void segments() throws Exception {
+        var content = createContent(100_000);
+        try (var channel = FileChannel.open(createFile("mapped2.bin", content)); var view = new MappedView(channel, 4096)) {
+            assertThat(view.getSegmentCount(), is(25));
+            // parts spanning several segments
+            assertThat(view.read(4000L, 10_000), is(Arrays.copyOfRange(content, 4000, 14_000)));
+            assertThat(view.getInt(4094L), is(ByteBuffer.wrap(content).getInt(4094)));
+            assertThat(view.getLong(8190L), is(ByteBuffer.wrap(content).getLong(8190)));
+            var spanning = view.slice(4090L, 20);
+            assertTrue(spanning.isReadOnly());
+            assertThat(spanning.remaining(), is(20));
+            assertThat(spanning.get(10), is(content[4100]));
+            var shared = view.slice(100L, 200);
+            assertTrue(shared.isDirect());
+            assertThat(shared.get(0), is(content[100]));
+        }
+    }
+
+    @Test
+    public void concurrentReads() throws Exception {
+        var content = createContent(1_000_000);
+        var pool    = new ForkJoinPool(4);
+        try (var channel = FileChannel.open(createFile("mapped3.bin", content)); var view = new MappedView(channel, 65536)) {
+            var mismatches = pool.submit(() -> IntStream.range(0, 2000).parallel()
+                .filter($ -> {
+                    var position = ($ * 7919L) % (content.length - 300);
+                    return !Arrays.equals(view.read(position, 300), Arrays.copyOfRange(content, (int) position, (int) position + 300));
+                })
+                .count()
+            ).get();
+            assertThat(mismatches, is(0L));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void empty() throws Exception {
+        try (var view = new MappedView(createFile("mapped4.bin", new byte[0]))) {
+            assertThat(view.size(), is(0L));
+            assertThat(view.read(0L, 10).length, is(0));
+        }
+    }
+
+    @Test
+    public void closed() throws Exception {
+        var view = new MappedView(createFile("mapped5.bin", createContent(100)));
+        view.close();
+        assertThrows(IllegalStateException.class, () -> view.read(0L, 10));
+    }
+
+    @Test
+    public void newMappedView() throws Exception {
+        var content = createContent(5000);
+        var file    = createFile("mapped6.bin", content);
+        try (var view = IoSupportFunctions.newMappedView(file.toFile())) {
+            assertThat(view.read(0L, 5000), is(content));
+        }
+        try (var view = IoSupportFunctions.newMappedView(file.toUri())) {
+            assertThat(view.read(0L, 5000), is(content));
+        }
+        try (var view = IoSupportFunctions.newMappedView(file.toUri().toURL())) {
+            assertThat(view.read(0L, 5000), is(content));
+        }
+        assertThrows(KclException.class, () -> IoSupportFunctions.newMappedView(URI.create("http://localhost:1/missing").toURL()));
+    }
+
+    @Test
+    public void identify() throws Exception {
+        var file = createFile("mapped7.gz", new byte[] {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        try (var view = IoSupportFunctions.newMappedView(file)) {
+            assertThat(new FileTypeManager().identify(view), instanceOf(GzipFileType.class));
+        }
+    }
+
+} /* ENDCLASS */
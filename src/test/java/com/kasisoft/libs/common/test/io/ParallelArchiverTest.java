@@ -0,0 +1,181 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.constants.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.util.concurrent.*;
+
+import java.util.zip.*;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+/**
+ * Test for the class {@link ParallelArchiver}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ParallelArchiverTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(ParallelArchiverTest.class);
+
+    // shares the directory tree of the eager listing tests
+    private static final Path SIMPLETON = TestResources.createTestResources(IoFunctionsTest.class).getResource("simpleton");
+
+    private void assertSameContent(Path expected, Path actual) {
+        var pathes = IoFunctions.listPathes(expected);
+        assertThat(IoFunctions.listPathes(actual), is(pathes));
+        for (var path : pathes) {
+            if (!path.endsWith("/")) {
+                assertThat(path, IoSupportFunctions.loadAllBytes(actual.resolve(path)), is(IoSupportFunctions.loadAllBytes(expected.resolve(path))));
+            }
+        }
+    }
+
+    @Test
+    public void zip() throws Exception {
+
+        var zipFile  = TEST_RESOURCES.getTempPath("simpleton.zip");
+        var archiver = new ParallelArchiver();
+        archiver.setPool(new ForkJoinPool(3));
+        assertThat(archiver.zip(zipFile, SIMPLETON), is(IoFunctions.listPathes(SIMPLETON).size()));
+
+        // the archive must be readable by the jdk
+        var names = new ArrayList<String>();
+        try (var zip = new ZipFile(zipFile.toFile(), Encoding.IBM437.getCharset())) {
+            var entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                var entry = entries.nextElement();
+                names.add(entry.getName());
+                if (!entry.isDirectory()) {
+                    try (var instream = zip.getInputStream(entry)) {
+                        assertThat(instream.readAllBytes(), is(IoSupportFunctions.loadAllBytes(SIMPLETON.resolve(entry.getName()))));
+                    }
+                }
+            }
+        }
+        assertThat(names, is(IoFunctions.listPathes(SIMPLETON)));
+
+        // and by the sequential extraction
+        var dest = TEST_RESOURCES.getTempPath("simpleton-sequential");
+        IoFunctions.unzip(zipFile, dest);
+        assertSameContent(SIMPLETON, dest);
+
+    }
+
+    @Test
+    public void zipFailure() throws Exception {
+
+        var zipFile  = TEST_RESOURCES.getTempPath("failure.zip");
+        Files.createDirectories(zipFile.getParent());
+        Files.write(zipFile, new byte[] {1, 2, 3});
+
+        var archiver = new ParallelArchiver();
+        archiver.setProgress(($e, $c) -> {
+            if ($c == 2) {
+                throw new IllegalStateException("aborted");
+            }
+        });
+        assertThrows(KclException.class, () -> archiver.zip(zipFile, SIMPLETON));
+
+        // neither a truncated archive nor a temporary file is left
+        assertThat(Files.readAllBytes(zipFile), is(new byte[] {1, 2, 3}));
+        try (var files = Files.list(zipFile.getParent())) {
+            assertThat(files.filter($ -> $.getFileName().toString().endsWith(".tmp")).count(), is(0L));
+        }
+
+    }
+
+    @Test
+    public void unzip() {
+
+        var zipFile = TEST_RESOURCES.getTempPath("simpleton-sequential.zip");
+        IoFunctions.zip(zipFile, SIMPLETON, null);
+
+        var dest     = TEST_RESOURCES.getTempPath("simpleton-parallel");
+        var count    = new int[1];
+        var archiver = new ParallelArchiver();
+        archiver.setProgress(($e, $c) -> {
+            synchronized (count) {
+                count[0] = Math.max(count[0], $c);
+            }
+        });
+        var extracted = archiver.unzip(zipFile, dest);
+        assertThat(extracted, is(IoFunctions.listPathes(SIMPLETON).size()));
+        assertThat(count[0], is(extracted));
+        assertSameContent(SIMPLETON, dest);
+
+    }
+
+    @Test
+    public void filter() {
+
+        var zipFile  = TEST_RESOURCES.getTempPath("filtered.zip");
+        var archiver = new ParallelArchiver();
+        archiver.setFilter($ -> $.getName().startsWith("folder2/"));
+        assertThat(archiver.zip(zipFile, SIMPLETON), is(4));
+        assertThat(IoFunctions.listZipFile(zipFile), is(Arrays.asList("folder2/", "folder2/file1.txt", "folder2/file2.jpg", "folder2/file3.mp4")));
+
+        var dest = TEST_RESOURCES.getTempPath("filtered");
+        archiver.setFilter($ -> $.getName().endsWith(".jpg"));
+        assertThat(archiver.unzip(zipFile, dest), is(1));
+        assertThat(IoFunctions.listPathes(dest), is(Arrays.asList("folder2/", "folder2/file2.jpg")));
+
+    }
+
+    @Test
+    public void largeEntries() throws Exception {
+
+        var source = TEST_RESOURCES.getTempPath("large");
+        Files.createDirectories(source);
+        // exceeds the limit for entries compressed in memory
+        var data   = new byte[9 * 1024 * 1024];
+        for (var i = 0; i < data.length; i++) {
+            data[i] = (byte) ((i / 1024) ^ (i % 251));
+        }
+        Files.write(source.resolve("large.bin"), data);
+        Files.writeString(source.resolve("small.txt"), "small");
+
+        var zipFile  = TEST_RESOURCES.getTempPath("large.zip");
+        var archiver = new ParallelArchiver();
+        archiver.setEncoding(Encoding.UTF8);
+        archiver.zip(zipFile, source);
+
+        try (var zip = new ZipFile(zipFile.toFile())) {
+            var entry = zip.getEntry("large.bin");
+            assertNotNull(entry);
+            assertThat(entry.getSize(), is((long) data.length));
+        }
+
+        var dest = TEST_RESOURCES.getTempPath("large-extracted");
+        archiver.unzip(zipFile, dest);
+        assertSameContent(source, dest);
+
+    }
+
+    @Test
+    public void outsideOfDestination() throws Exception {
+        var zipFile = TEST_RESOURCES.getTempPath("evil.zip");
+        try (var zipout = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            zipout.putNextEntry(new ZipEntry("../evil.txt"));
+            zipout.write(1);
+            zipout.closeEntry();
+        }
+        var dest = TEST_RESOURCES.getTempPath("evil");
+        assertThrows(KclException.class, () -> new ParallelArchiver().unzip(zipFile, dest));
+        assertFalse(Files.exists(dest.resolveSibling("evil.txt")));
+    }
+
+} /* ENDCLASS */
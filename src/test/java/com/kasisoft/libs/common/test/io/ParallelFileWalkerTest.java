@@ -0,0 +1,176 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.nio.file.attribute.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Test for the class {@link ParallelFileWalker}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ParallelFileWalkerTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(ParallelFileWalkerTest.class);
+
+    private Path createTree(String name, int dirs, int files) throws Exception {
+        var result = TEST_RESOURCES.getTempPath(name);
+        for (var i = 0; i < dirs; i++) {
+            var dir = result.resolve("dir%d/sub%d".formatted(i % 5, i));
+            Files.createDirectories(dir);
+            for (var j = 0; j < files; j++) {
+                Files.writeString(dir.resolve("file%d.txt".formatted(j)), "content %d/%d".formatted(i, j));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void ordering() throws Exception {
+
+        var root     = createTree("ordering", 20, 50);
+        var visited  = ConcurrentHashMap.<Path>newKeySet();
+        var finished = ConcurrentHashMap.<Path>newKeySet();
+        var errors   = new ConcurrentLinkedQueue<String>();
+        var files    = new AtomicInteger();
+
+        var visitor  = new CustomFileVisitor();
+        visitor.setOnPreDirectory($ -> {
+            if (($.getParent() != null) && (!$.equals(root)) && (!visited.contains($.getParent()))) {
+                errors.add("parent not visited before " + $);
+            }
+            visited.add($);
+        });
+        visitor.setOnFile($ -> {
+            if (!visited.contains($.getParent())) {
+                errors.add("directory not visited before " + $);
+            }
+            if (finished.contains($.getParent())) {
+                errors.add("directory finished before " + $);
+            }
+            files.incrementAndGet();
+        });
+        visitor.setOnPostDirectory($ -> {
+            try (var entries = Files.list($)) {
+                entries.filter(Files::isDirectory).filter($d -> !finished.contains($d)).forEach($d -> errors.add("subdirectory not finished before " + $));
+            } catch (Exception ex) {
+                errors.add(ex.getMessage());
+            }
+            finished.add($);
+        });
+
+        var walker = new ParallelFileWalker(root, visitor);
+        walker.setParallelism(4);
+        walker.run();
+
+        assertThat(errors, is(empty()));
+        assertThat(files.get(), is(20 * 50));
+        // the root, the five 'dir' directories and their twenty 'sub' directories
+        assertThat(finished.size(), is(26));
+
+    }
+
+    @Test
+    public void stop() throws Exception {
+
+        var root    = createTree("stopping", 10, 100);
+        var files   = new AtomicInteger();
+        var visitor = new CustomFileVisitor();
+        visitor.setOnFile($ -> {
+            if (files.incrementAndGet() == 50) {
+                visitor.stop();
+            }
+        });
+
+        var walker = new ParallelFileWalker(root, visitor);
+        walker.setParallelism(4);
+        walker.run();
+
+        assertThat(walker.isStopped(), is(true));
+        // tasks which are already running complete their current entry only
+        assertThat(files.get(), is(lessThan(50 + walker.getParallelism())));
+
+    }
+
+    @Test
+    public void skipSubtree() throws Exception {
+
+        var root     = createTree("skipping", 10, 5);
+        var files    = ConcurrentHashMap.<Path>newKeySet();
+        var finished = ConcurrentHashMap.<Path>newKeySet();
+        var visitor  = new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return switch (dir.getFileName().toString()) {
+                    case "dir0" -> FileVisitResult.SKIP_SUBTREE;
+                    case "dir1" -> FileVisitResult.SKIP_SIBLINGS;
+                    default     -> FileVisitResult.CONTINUE;
+                };
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) {
+                finished.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+        };
+
+        var walker = new ParallelFileWalker(root, visitor);
+        walker.setParallelism(3);
+        walker.run();
+
+        // dir0 and dir1 contain two 'sub' directories each which must not be entered
+        assertThat(files.size(), is(6 * 5));
+        assertThat(files.stream().filter($ -> root.relativize($).startsWith("dir0") || root.relativize($).startsWith("dir1")).count(), is(0L));
+        assertThat(finished, not(hasItem(root.resolve("dir0"))));
+        assertThat(finished, not(hasItem(root.resolve("dir1"))));
+        assertThat(finished, hasItem(root.resolve("dir2")));
+
+    }
+
+    @Test
+    public void errorHandler() throws Exception {
+
+        var root    = createTree("failing", 5, 10);
+        var failed  = new AtomicInteger();
+        var visitor = new CustomFileVisitor();
+        visitor.setOnFile($ -> {
+            throw new IllegalStateException($.toString());
+        });
+        visitor.setErrorHandler($ -> {
+            failed.incrementAndGet();
+            return FileVisitResult.CONTINUE;
+        });
+
+        var walker = new ParallelFileWalker(root, visitor);
+        walker.setParallelism(3);
+        walker.run();
+
+        assertThat(failed.get(), is(50));
+
+    }
+
+} /* ENDCLASS */
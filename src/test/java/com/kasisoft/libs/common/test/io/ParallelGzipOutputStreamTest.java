@@ -0,0 +1,120 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.params.provider.*;
+
+import org.junit.jupiter.params.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.concurrent.*;
+
+import java.util.zip.*;
+
+import java.nio.file.*;
+
+import java.io.*;
+
+/**
+ * Test for the class {@link ParallelGzipOutputStream}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class ParallelGzipOutputStreamTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(ParallelGzipOutputStreamTest.class);
+
+    // compressible content with repetitions spanning several blocks
+    private static byte[] createContent(int size) {
+        var result = new byte[size];
+        var seed   = 17;
+        for (var i = 0; i < size; i++) {
+            seed      = seed * 1103515245 + 12345;
+            result[i] = (byte) ('a' + ((seed >>> 16) & 0x07));
+        }
+        return result;
+    }
+
+    private static byte[] gzip(byte[] content, int blockSize) throws IOException {
+        var byteout = new ByteArrayOutputStream();
+        try (var outstream = new ParallelGzipOutputStream(byteout, Deflater.DEFAULT_COMPRESSION, blockSize, new ForkJoinPool(3))) {
+            // odd chunks so blocks are filled partially
+            for (var offset = 0; offset < content.length; offset += 1000) {
+                outstream.write(content, offset, Math.min(1000, content.length - offset));
+            }
+        }
+        return byteout.toByteArray();
+    }
+
+    private static byte[] ungzip(byte[] gzipped) throws IOException {
+        try (var instream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            return instream.readAllBytes();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1000, 16 * 1024, 64 * 1024, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE})
+    public void roundtrip(int blockSize) throws Exception {
+        var content = createContent(500_000);
+        assertThat(ungzip(gzip(content, blockSize)), is(content));
+    }
+
+    @Test
+    public void empty() throws Exception {
+        assertThat(ungzip(gzip(new byte[0], 1024)).length, is(0));
+    }
+
+    @Test
+    public void singleBytes() throws Exception {
+        var content = createContent(5000);
+        var byteout = new ByteArrayOutputStream();
+        try (var outstream = new ParallelGzipOutputStream(byteout, Deflater.BEST_SPEED, 512, null)) {
+            for (var value : content) {
+                outstream.write(value);
+            }
+            outstream.flush();
+        }
+        assertThat(ungzip(byteout.toByteArray()), is(content));
+    }
+
+    @Test
+    public void ratio() throws Exception {
+        var content = createContent(1_000_000);
+        var byteout = new ByteArrayOutputStream();
+        try (var outstream = new GZIPOutputStream(byteout)) {
+            outstream.write(content);
+        }
+        var parallel = gzip(content, 64 * 1024);
+        // the dictionaries keep the ratio close to the sequential compression
+        assertTrue(parallel.length < byteout.size() * 1.05, "%d vs. %d".formatted(parallel.length, byteout.size()));
+    }
+
+    @Test
+    public void closed() throws Exception {
+        var outstream = new ParallelGzipOutputStream(new ByteArrayOutputStream());
+        outstream.close();
+        outstream.close();
+        assertThrows(IOException.class, () -> outstream.write(1));
+    }
+
+    @Test
+    public void gzipFile() throws Exception {
+        var source  = TEST_RESOURCES.getTempPath("content.bin");
+        var content = createContent(300_000);
+        Files.write(source, content);
+        var gzipped = IoFunctions.gzip(source, null, new ForkJoinPool(2));
+        assertThat(gzipped.getFileName().toString(), is("content.bin.gz"));
+        assertThat(IoFunctions.loadUngzipped(gzipped), is(content));
+        try (var instream = IoFunctions.newUngzippedInputStream(gzipped)) {
+            assertThat(instream.readAllBytes(), is(content));
+        }
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,110 @@
+package com.kasisoft.libs.common.test.io;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.test.*;
+
+import com.kasisoft.libs.common.io.*;
+
+import java.util.stream.*;
+
+import java.util.*;
+
+import java.nio.file.*;
+
+/**
+ * Test for the class {@link StreamingFileWalker}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class StreamingFileWalkerTest {
+
+    private static final TestResources TEST_RESOURCES = TestResources.createTestResources(StreamingFileWalkerTest.class);
+
+    // shares the directory tree of the eager listing tests
+    private static final Path SIMPLETON = TestResources.createTestResources(IoFunctionsTest.class).getResource("simpleton");
+
+    private List<String> relative(StreamingFileWalker walker) {
+        try (var pathes = walker.stream()) {
+            return pathes.map($ -> {
+                var result = SIMPLETON.relativize($).toString().replace('\\', '/');
+                return Files.isDirectory($) ? result + "/" : result;
+            }).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void all() {
+        var walker = new StreamingFileWalker(SIMPLETON);
+        var result = relative(walker);
+        // the same entries as the eager listing
+        assertThat(result.stream().sorted().collect(Collectors.toList()), is(IoFunctions.listPathes(SIMPLETON)));
+        // directories precede their content
+        for (var i = 0; i < result.size(); i++) {
+            var path   = result.get(i);
+            var parent = path.substring(0, path.lastIndexOf('/', path.length() - 2) + 1);
+            if (!parent.isEmpty()) {
+                assertThat(path, result.indexOf(parent), is(lessThan(i)));
+            }
+        }
+    }
+
+    @Test
+    public void sorted() {
+        var walker = new StreamingFileWalker(SIMPLETON);
+        walker.setSorted(true);
+        walker.setIncludeDirs(false);
+        assertThat(relative(walker), is(Arrays.asList(
+            "file1.txt", "file2.txt",
+            "folder1/file1.txt", "folder1/file2.txt", "folder1/file3.txt",
+            "folder1/subfolder1/file1.txt", "folder1/subfolder1/file2.txt",
+            "folder1/subfolder1/subsubfolder1/file1.txt", "folder1/subfolder1/subsubfolder1/file2.png",
+            "folder1/subfolder1/subsubfolder1/file3.tif", "folder1/subfolder1/subsubfolder1/file4.jpg",
+            "folder1/subfolder2/file4.txt", "folder1/subfolder2/file5.txt",
+            "folder2/file1.txt", "folder2/file2.jpg", "folder2/file3.mp4",
+            "folder3/file1.txt"
+        )));
+    }
+
+    @Test
+    public void pattern() {
+        for (var glob : Arrays.asList("*.txt", "folder1/**", "folder1/*/file1.txt", "**.jpg", "folder2/*")) {
+            var pattern  = IoFunctions.compileFilesystemPattern(glob);
+            var expected = IoFunctions.listPathes(SIMPLETON, $ -> pattern.matcher($).matches());
+            var walker   = new StreamingFileWalker(SIMPLETON);
+            walker.setPattern(glob);
+            var result   = relative(walker);
+            Collections.sort(result);
+            assertThat(glob, result, is(expected));
+        }
+    }
+
+    @Test
+    public void earlyTermination() {
+        try (var pathes = IoFunctions.streamPathes(SIMPLETON, "**.mp4", false)) {
+            var found = pathes.findFirst();
+            assertThat(found.isPresent(), is(true));
+            assertThat(found.get().getFileName().toString(), is("file3.mp4"));
+        }
+        try (var pathes = IoFunctions.streamPathes(SIMPLETON)) {
+            assertThat(pathes.limit(3).count(), is(3L));
+        }
+    }
+
+    @Test
+    public void missingDirectory() {
+        var missing = TEST_RESOURCES.getTempPath("missing-directory");
+        var errors  = new ArrayList<Exception>();
+        var walker  = new StreamingFileWalker(missing);
+        walker.setErrorHandler($ -> {
+            errors.add($);
+            return FileVisitResult.CONTINUE;
+        });
+        assertThat(relative(walker), is(empty()));
+        assertThat(errors.size(), is(1));
+    }
+
+} /* ENDCLASS */
@@ -4,10 +4,22 @@ import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import org.junit.jupiter.params.provider.*;
+
+import org.junit.jupiter.params.*;
+
 import org.junit.jupiter.api.*;
 
 import com.kasisoft.libs.common.pools.*;
 
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+import java.time.*;
+
 /**
  * Test for the class {@link Bucket}
  *
@@ -65,4 +77,276 @@ public class BucketTest {
 
     }
 
+    @ParameterizedTest
+    @EnumSource(BucketType.class)
+    public void newBucket(BucketType type) {
+
+        var bucket = Bucket.<StringBuilder>newBucket(type, StringBuilder::new, $ -> $.setLength(0));
+        assertThat(bucket.getSize(), is(0));
+
+        var obj1 = bucket.allocate();
+        obj1.append("Data-1");
+
+        bucket.free(obj1);
+        assertThat(bucket.getSize(), is(1));
+
+        var obj2 = bucket.allocate();
+        assertThat(obj2, is(sameInstance(obj1)));
+        assertThat(obj2.length(), is(0));
+        assertThat(bucket.getSize(), is(0));
+
+        bucket.free(obj2);
+        bucket.reset();
+        assertThat(bucket.getSize(), is(0));
+        assertThat(bucket.allocate(), is(not(sameInstance(obj1))));
+
+    }
+
+    @Test
+    public void concurrentBucketOverflow() {
+
+        var bucket  = new ConcurrentBucket<List<String>>(ArrayList::new, List::clear, 2);
+        var objects = new ArrayList<List<String>>();
+        for (var i = 0; i < 5; i++) {
+            objects.add(bucket.allocate());
+        }
+        objects.forEach(bucket::free);
+        assertThat(bucket.getSize(), is(5));
+
+        var reused = Collections.newSetFromMap(new IdentityHashMap<List<String>, Boolean>());
+        for (var i = 0; i < 5; i++) {
+            reused.add(bucket.allocate());
+        }
+        assertThat(bucket.getSize(), is(0));
+        assertThat(reused.size(), is(5));
+
+    }
+
+    @Test
+    public void concurrentBucketWithVirtualThreads() throws Exception {
+
+        var bucket = new ConcurrentBucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0));
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<String>>();
+            for (var i = 0; i < 1000; i++) {
+                var value = i;
+                futures.add(executor.submit(() -> bucket.forInstance($ -> $.append(value).toString())));
+            }
+            for (var i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).get(), is(String.valueOf(i)));
+            }
+        }
+        assertThat(bucket.getSize(), is(greaterThan(0)));
+
+    }
+
+    @Test
+    public void concurrentBucketWithShortLivedThreads() throws Exception {
+
+        var bucket = new ConcurrentBucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0), 1);
+        bucket.setRetentionPolicy(RetentionPolicy.<StringBuilder>builder().maxPooled(4).build());
+        for (var i = 0; i < 200; i++) {
+            Thread.ofPlatform().start(() -> bucket.free(bucket.allocate())).join();
+        }
+
+        // the magazines of the terminated threads are no longer counted
+        assertThat(bucket.getSize(), is(0));
+
+        // the shared stack still retains objects, so they can be reused by other threads
+        var obj1  = bucket.allocate();
+        var obj2  = bucket.allocate();
+        bucket.free(obj1);
+        bucket.free(obj2);
+        assertThat(bucket.getSize(), is(2));
+
+        var other = new AtomicReference<StringBuilder>();
+        Thread.ofPlatform().start(() -> other.set(bucket.allocate())).join();
+        assertThat(other.get(), is(sameInstance(obj2)));
+        assertThat(bucket.getSize(), is(1));
+
+    }
+
+    private Bucket<StringBuilder> stringBuilderBucket(BucketType type, RetentionPolicy<StringBuilder> policy) {
+        // the magazines are disabled, so all objects are subject to the eviction
+        var result = switch (type) {
+            case Concurrent -> new ConcurrentBucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0), 0);
+            default -> new Bucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0));
+        };
+        result.setRetentionPolicy(policy);
+        return result;
+    }
+
+    @ParameterizedTest
+    @EnumSource(BucketType.class)
+    public void retentionMaxPooled(BucketType type) {
+
+        var bucket = stringBuilderBucket(type, RetentionPolicy.<StringBuilder>builder().maxPooled(2).build());
+        var obj1   = bucket.allocate();
+        var obj2   = bucket.allocate();
+        var obj3   = bucket.allocate();
+
+        bucket.free(obj1);
+        bucket.free(obj2);
+        bucket.free(obj3);
+        assertThat(bucket.getSize(), is(2));
+
+    }
+
+    @ParameterizedTest
+    @EnumSource(BucketType.class)
+    public void retentionWithTerminatedThreads(BucketType type) throws Exception {
+
+        // the magazines are enabled, so the objects of the threads are kept within them
+        var bucket = Bucket.<StringBuilder>newBucket(type, StringBuilder::new, $ -> $.setLength(0));
+        bucket.setRetentionPolicy(RetentionPolicy.<StringBuilder>builder().maxPooled(2).build());
+        for (var i = 0; i < 100; i++) {
+            Thread.ofPlatform().start(() -> {
+                var obj1 = bucket.allocate();
+                var obj2 = bucket.allocate();
+                bucket.free(obj1);
+                bucket.free(obj2);
+            }).join();
+        }
+        // the objects within the magazines are dropped together with their threads
+        assertThat(bucket.getSize(), is(type == BucketType.Concurrent ? 0 : 2));
+
+        // the limit still applies to the magazine and the shared stack of the current thread
+        var objects = new ArrayList<StringBuilder>();
+        for (var i = 0; i < 5; i++) {
+            objects.add(bucket.allocate());
+        }
+        objects.forEach(bucket::free);
+        assertThat(bucket.getSize(), is(type == BucketType.Concurrent ? 4 : 2));
+
+    }
+
+    @ParameterizedTest
+    @EnumSource(BucketType.class)
+    public void retentionMaxCapacity(BucketType type) {
+
+        var dropping = stringBuilderBucket(type, RetentionPolicy.<StringBuilder>builder().maxCapacity(100, StringBuilder::capacity).build());
+        var obj1     = dropping.allocate();
+        obj1.append("A".repeat(500));
+        dropping.free(obj1);
+        assertThat(dropping.getSize(), is(0));
+
+        var small    = dropping.allocate();
+        small.append("small");
+        dropping.free(small);
+        assertThat(dropping.getSize(), is(1));
+
+        var trimming = stringBuilderBucket(type, RetentionPolicy.<StringBuilder>builder().maxCapacity(100, StringBuilder::capacity).trimmer(StringBuilder::trimToSize).build());
+        var obj2     = trimming.allocate();
+        obj2.append("A".repeat(500));
+        trimming.free(obj2);
+        assertThat(trimming.getSize(), is(1));
+
+        var obj3     = trimming.allocate();
+        assertThat(obj3, is(sameInstance(obj2)));
+        assertThat(obj3.capacity(), is(lessThanOrEqualTo(100)));
+
+    }
+
+    @ParameterizedTest
+    @EnumSource(BucketType.class)
+    public void retentionMaxIdle(BucketType type) throws Exception {
+
+        var bucket = stringBuilderBucket(type, RetentionPolicy.<StringBuilder>builder().maxIdle(Duration.ofMillis(50)).build());
+        var obj1   = bucket.allocate();
+        var obj2   = bucket.allocate();
+        bucket.free(obj1);
+        Thread.sleep(100);
+
+        // freeing triggers the eviction as it's due
+        bucket.free(obj2);
+        assertThat(bucket.getSize(), is(1));
+        assertThat(bucket.allocate(), is(sameInstance(obj2)));
+
+        bucket.free(obj2);
+        Thread.sleep(100);
+        assertThat(bucket.evict(), is(1));
+        assertThat(bucket.getSize(), is(0));
+
+    }
+
+    @Test
+    public void concurrentEvictWhilePopping() throws Exception {
+
+        var bucket  = new ConcurrentBucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0), 0);
+        bucket.setRetentionPolicy(RetentionPolicy.<StringBuilder>builder().maxIdle(Duration.ofNanos(20_000)).build());
+
+        var inUse   = ConcurrentHashMap.<StringBuilder>newKeySet();
+        var failure = new AtomicReference<Throwable>();
+        var running = new AtomicBoolean(true);
+        var workers = new ArrayList<Thread>();
+        for (var t = 0; t < 4; t++) {
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    var objects = new ArrayList<StringBuilder>();
+                    for (var i = 0; i < 20_000; i++) {
+                        for (var j = 0; j < 4; j++) {
+                            var object = bucket.allocate();
+                            // an object must neither be handed out twice nor come back without being cleaned
+                            assertTrue(inUse.add(object));
+                            assertThat(object.length(), is(0));
+                            object.append(i);
+                            objects.add(object);
+                        }
+                        for (var object : objects) {
+                            inUse.remove(object);
+                            bucket.free(object);
+                        }
+                        objects.clear();
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            }));
+        }
+        var evictor = Thread.ofPlatform().start(() -> {
+            while (running.get()) {
+                bucket.evict();
+            }
+        });
+        for (var worker : workers) {
+            worker.join();
+        }
+        running.set(false);
+        evictor.join();
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+
+        // the size must match the number of pooled objects
+        var metrics = new PoolMetrics("stress");
+        bucket.setRetentionPolicy(null);
+        bucket.setMetrics(metrics);
+        var pooled  = bucket.getSize();
+        var drained = Collections.newSetFromMap(new IdentityHashMap<StringBuilder, Boolean>());
+        for (var i = 0; i < pooled; i++) {
+            drained.add(bucket.allocate());
+        }
+        assertThat(metrics.getHits(), is((long) pooled));
+        assertThat(drained.size(), is(pooled));
+        assertThat(bucket.getSize(), is(0));
+        bucket.allocate();
+        assertThat(metrics.getMisses(), is(1L));
+
+    }
+
+    @Test
+    public void registryRetention() {
+
+        var bucket = Buckets.stringBuilder();
+        bucket.reset();
+
+        var obj1   = bucket.allocate();
+        obj1.append("A".repeat(1024 * 1024));
+        bucket.free(obj1);
+
+        // the oversized instance has been trimmed before it got pooled
+        assertThat(obj1.capacity(), is(lessThan(1024 * 1024)));
+
+    }
+
 } /* ENDCLASS */
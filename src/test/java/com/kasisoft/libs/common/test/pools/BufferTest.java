@@ -0,0 +1,111 @@
+package com.kasisoft.libs.common.test.pools;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.pools.*;
+
+import java.util.*;
+
+/**
+ * Test for the class {@link Buffer}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class BufferTest {
+
+    private Buffer<byte[]> newBuffer(int maxPerClass, BufferBudget budget) {
+        return new Buffer<>($ -> new byte[$], $ -> Arrays.fill($, (byte) 0), $ -> $.length, 1, maxPerClass, budget);
+    }
+
+    @Test
+    public void sizeFor() {
+        assertThat(Buffer.sizeFor(0), is(512));
+        assertThat(Buffer.sizeFor(1), is(512));
+        assertThat(Buffer.sizeFor(512), is(512));
+        assertThat(Buffer.sizeFor(513), is(1024));
+        assertThat(Buffer.sizeFor(5000), is(8192));
+        assertThat(Buffer.sizeFor(3 * 1024 * 1024), is(4 * 1024 * 1024));
+    }
+
+    @Test
+    public void allocate() {
+
+        var buffer = newBuffer(4, null);
+
+        var data1 = buffer.allocate(1000);
+        assertThat(data1.length, is(1024));
+        data1[0] = 1;
+
+        buffer.free(data1);
+        assertThat(buffer.getSize(), is(1));
+
+        // a different size class doesn't reuse the record
+        var data2 = buffer.allocate(2000);
+        assertThat(data2.length, is(2048));
+        assertThat(buffer.getSize(), is(1));
+
+        var data3 = buffer.allocate(600);
+        assertThat(data3, is(sameInstance(data1)));
+        assertThat(data3[0], is((byte) 0));
+        assertThat(buffer.getSize(), is(0));
+
+    }
+
+    @Test
+    public void largeBuffers() {
+
+        var buffer = newBuffer(4, null);
+        var size   = 8 * 1024 * 1024;
+
+        var data1  = buffer.allocate(size - 5);
+        assertThat(data1.length, is(size));
+        buffer.free(data1);
+
+        var data2  = buffer.allocate(size);
+        assertThat(data2, is(sameInstance(data1)));
+
+    }
+
+    @Test
+    public void maxPerClass() {
+
+        var buffer = newBuffer(2, null);
+        buffer.free(new byte[1024]);
+        buffer.free(new byte[1024]);
+        buffer.free(new byte[1024]);
+        assertThat(buffer.getSize(), is(2));
+
+        // too small to be pooled
+        buffer.free(new byte[100]);
+        assertThat(buffer.getSize(), is(2));
+
+    }
+
+    @Test
+    public void budget() {
+
+        var budget  = new BufferBudget(3000);
+        var buffer1 = newBuffer(8, budget);
+        var buffer2 = newBuffer(8, budget);
+
+        buffer1.free(new byte[1024]);
+        buffer2.free(new byte[1024]);
+        assertThat(budget.getUsed(), is(2048L));
+
+        // exceeds the budget
+        buffer2.free(new byte[1024]);
+        assertThat(buffer2.getSize(), is(1));
+        assertThat(budget.getUsed(), is(2048L));
+
+        buffer1.allocate(1024);
+        assertThat(budget.getUsed(), is(1024L));
+
+        buffer2.reset();
+        assertThat(budget.getUsed(), is(0L));
+
+    }
+
+} /* ENDCLASS */
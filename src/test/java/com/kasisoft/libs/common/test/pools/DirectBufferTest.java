@@ -0,0 +1,179 @@
+package com.kasisoft.libs.common.test.pools;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.pools.*;
+
+import com.kasisoft.libs.common.*;
+
+import java.util.*;
+
+import java.nio.*;
+
+import java.lang.management.*;
+
+import java.lang.ref.*;
+
+/**
+ * Test for the class {@link DirectBuffer}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class DirectBufferTest {
+
+    @Test
+    public void allocate() {
+
+        try (var buffer = new DirectBuffer(1024 * 1024, 8192)) {
+
+            var data1 = buffer.allocate(1000);
+            assertTrue(data1.isDirect());
+            assertThat(data1.capacity(), is(1024));
+            data1.putInt(42);
+
+            buffer.free(data1);
+            assertThat(buffer.getSize(), is(1));
+            assertThat(buffer.getRetained(), is(1024L));
+
+            var data2 = buffer.allocate(800);
+            assertThat(data2, is(sameInstance(data1)));
+            assertThat(data2.position(), is(0));
+            assertThat(data2.limit(), is(1024));
+            assertThat(buffer.getAllocated(), is(1024L));
+
+        }
+
+    }
+
+    @Test
+    public void limits() {
+
+        try (var buffer = new DirectBuffer(4096, 2048)) {
+
+            var data1 = buffer.allocate(2048);
+            var data2 = buffer.allocate(2048);
+            assertThrows(KclException.class, () -> buffer.allocate(512));
+
+            buffer.free(data1);
+            // exceeds the retained limit, so the buffer is dropped
+            buffer.free(data2);
+            assertThat(buffer.getSize(), is(1));
+            assertThat(buffer.getAllocated(), is(2048L));
+
+            buffer.allocate(512);
+            assertThat(buffer.getAllocated(), is(2560L));
+
+        }
+
+    }
+
+    @Test
+    public void close() {
+
+        var leaks  = new ArrayList<Exception>();
+        var buffer = new DirectBuffer(1024 * 1024, 1024 * 1024);
+        buffer.setDebug(true);
+        buffer.setLeakHandler(leaks::add);
+
+        var data1 = buffer.allocate(512);
+        var data2 = buffer.allocate(4000);
+        buffer.free(data1);
+        assertThat(buffer.getLeaks().size(), is(1));
+
+        buffer.close();
+        assertThat(leaks.size(), is(1));
+        // the leaked buffer must not be collected before the pool has been closed
+        Reference.reachabilityFence(data2);
+        assertThat(buffer.getSize(), is(0));
+        assertThat(buffer.getRetained(), is(0L));
+        assertThrows(KclException.class, () -> buffer.allocate(512));
+
+    }
+
+    @Test
+    public void collectedWithoutFree() throws Exception {
+
+        var leaks = new ArrayList<Exception>();
+        try (var buffer = new DirectBuffer(8192, 8192)) {
+            buffer.setDebug(true);
+            buffer.setLeakHandler(leaks::add);
+
+            buffer.allocate(4096);
+            buffer.allocate(4096);
+            assertThat(buffer.getAllocated(), is(8192L));
+            assertThrows(KclException.class, () -> buffer.allocate(1024));
+
+            // the buffers haven't been freed but their capacity is given back once they are collected
+            for (var i = 0; (i < 50) && (buffer.getAllocated() > 0L); i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertThat(buffer.getAllocated(), is(0L));
+            assertThat(buffer.getLeaks(), is(empty()));
+            assertThat(leaks.size(), is(2));
+            assertThat(buffer.allocate(8192).capacity(), is(8192));
+        }
+
+    }
+
+    @Test
+    public void foreignAndDuplicateFrees() {
+
+        try (var buffer = new DirectBuffer(1024 * 1024, 1024 * 1024)) {
+
+            var data = buffer.allocate(1024);
+            buffer.free(data);
+            // neither a second free nor a buffer of another origin must change the accounting
+            buffer.free(data);
+            buffer.free(ByteBuffer.allocateDirect(1024));
+            buffer.free(ByteBuffer.allocate(1024));
+            assertThat(buffer.getSize(), is(1));
+            assertThat(buffer.getRetained(), is(1024L));
+            assertThat(buffer.getAllocated(), is(1024L));
+
+            buffer.reset();
+            buffer.reset();
+            assertThat(buffer.getRetained(), is(0L));
+            assertThat(buffer.getAllocated(), is(0L));
+
+            // the buffer was dropped by the reset, so it's no longer accepted
+            buffer.free(data);
+            assertThat(buffer.getSize(), is(0));
+            assertThat(buffer.getAllocated(), is(0L));
+
+        }
+
+    }
+
+    @Test
+    public void releaseOnClose() {
+
+        var direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+            .filter($ -> "direct".equals($.getName()))
+            .findFirst()
+            .orElseThrow();
+
+        var buffer = new DirectBuffer(64 * 1024 * 1024, 64 * 1024 * 1024);
+        buffer.free(buffer.allocate(16 * 1024 * 1024));
+        var before = direct.getMemoryUsed();
+
+        // the memory is given back without waiting for the garbage collector
+        buffer.close();
+        assertThat(direct.getMemoryUsed(), is(lessThanOrEqualTo(before - 16 * 1024 * 1024)));
+
+    }
+
+    @Test
+    public void forInstance() {
+        var result = Buffers.directByteBuffer().forInstance(100, $ -> {
+            $.put((byte) 7).flip();
+            return $.get();
+        });
+        assertThat(result, is((byte) 7));
+    }
+
+} /* ENDCLASS */
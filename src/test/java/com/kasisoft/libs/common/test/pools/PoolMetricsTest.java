@@ -0,0 +1,109 @@
+package com.kasisoft.libs.common.test.pools;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.pools.*;
+
+import java.util.*;
+
+import java.lang.management.*;
+
+/**
+ * Test for the class {@link PoolMetrics}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class PoolMetricsTest {
+
+    @Test
+    public void bucket() {
+
+        var metrics = new PoolMetrics("bucket");
+        var bucket  = new Bucket<>(StringBuilder::new, $ -> $.setLength(0));
+        bucket.setMetrics(metrics);
+
+        var sb1 = bucket.allocate();
+        var sb2 = bucket.allocate();
+        bucket.free(sb1);
+        bucket.free(sb2);
+        bucket.allocate();
+
+        assertThat(metrics.getMisses(), is(2L));
+        assertThat(metrics.getHits(), is(1L));
+        assertThat(metrics.getAllocations(), is(3L));
+        assertThat(metrics.getFrees(), is(2L));
+        assertThat(metrics.getSize(), is(1));
+        assertThat(metrics.getPeakSize(), is(2));
+        assertThat(metrics.getHitRate(), is(closeTo(1.0 / 3.0, 0.0001)));
+
+        metrics.resetCounters();
+        assertThat(metrics.getAllocations(), is(0L));
+        assertThat(metrics.getPeakSize(), is(1));
+
+    }
+
+    @Test
+    public void buffer() {
+
+        var events  = new ArrayList<PoolEvent>();
+        var metrics = new PoolMetrics("buffer");
+        metrics.addListener(($metrics, $event, $bytes) -> events.add($event));
+
+        var buffer  = new Buffer<>($ -> new byte[$], $ -> Arrays.fill($, (byte) 0), $ -> $.length, 1, 1, null);
+        buffer.setMetrics(metrics);
+
+        var data1 = buffer.allocate(1024);
+        var data2 = buffer.allocate(1024);
+        buffer.free(data1);
+        // exceeds the number of records per size class
+        buffer.free(data2);
+        assertThat(metrics.getRetainedBytes(), is(1024L));
+        assertThat(metrics.getDrops(), is(1L));
+
+        buffer.reset();
+        assertThat(metrics.getSize(), is(0));
+        assertThat(metrics.getRetainedBytes(), is(0L));
+        assertThat(metrics.getPeakRetainedBytes(), is(1024L));
+        assertThat(events, is(List.of(PoolEvent.Miss, PoolEvent.Miss, PoolEvent.Retain, PoolEvent.Drop, PoolEvent.Reset)));
+
+    }
+
+    @Test
+    public void register() throws Exception {
+
+        var metrics = new PoolMetrics("register");
+        var server  = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.register();
+        assertTrue(server.isRegistered(metrics.getObjectName()));
+        assertThat(server.getAttribute(metrics.getObjectName(), "Name"), is("register"));
+
+        metrics.unregister();
+        assertFalse(server.isRegistered(metrics.getObjectName()));
+
+    }
+
+    @Test
+    public void leakDetector() {
+
+        var detector = new LeakDetector();
+        var bucket   = new Bucket<>(StringBuilder::new, $ -> $.setLength(0));
+        bucket.setLeakDetector(detector);
+
+        var sb1 = bucket.allocate();
+        var sb2 = bucket.allocate();
+        assertThat(detector.getOutstanding().size(), is(2));
+
+        bucket.free(sb1);
+        assertThat(detector.getOutstanding().size(), is(1));
+
+        bucket.free(sb2);
+        assertThat(detector.getOutstanding().size(), is(0));
+
+    }
+
+} /* ENDCLASS */
@@ -0,0 +1,110 @@
+package com.kasisoft.libs.common.test.pools;
+
+import static org.hamcrest.MatcherAssert.*;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import com.kasisoft.libs.common.pools.*;
+
+import java.util.concurrent.atomic.*;
+
+import java.util.concurrent.*;
+
+import java.util.*;
+
+/**
+ * Test for the class {@link PoolScope}
+ *
+ * @author daniel.kasmeroglu@kasisoft.com
+ */
+public class PoolScopeTest {
+
+    @Test
+    public void reuseWithinScope() {
+
+        var metrics = new PoolMetrics("scope");
+        var bucket  = new ConcurrentBucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0));
+        bucket.setMetrics(metrics);
+
+        var instances = Collections.newSetFromMap(new IdentityHashMap<StringBuilder, Boolean>());
+        PoolScope.run(() -> {
+            assertTrue(PoolScope.isActive());
+            for (var i = 0; i < 10; i++) {
+                var value = i;
+                var text  = bucket.forInstance($ -> {
+                    instances.add($);
+                    return $.append(value).toString();
+                });
+                assertThat(text, is(String.valueOf(i)));
+            }
+        });
+        assertFalse(PoolScope.isActive());
+
+        // the bucket has only been accessed once
+        assertThat(instances.size(), is(1));
+        assertThat(metrics.getAllocations(), is(1L));
+        assertThat(metrics.getFrees(), is(1L));
+        assertThat(bucket.getSize(), is(1));
+
+    }
+
+    @Test
+    public void resetOncePerReturn() {
+
+        var resets = new AtomicInteger();
+        var bucket = new Bucket<StringBuilder>(StringBuilder::new, $ -> {
+            resets.incrementAndGet();
+            $.setLength(0);
+        });
+        PoolScope.run(() -> {
+            for (var i = 0; i < 3; i++) {
+                bucket.forInstance($ -> $.append("text").toString());
+            }
+        });
+
+        // each return to the scope cleans the object but the release of the scope doesn't
+        assertThat(resets.get(), is(3));
+        assertThat(bucket.getSize(), is(1));
+
+    }
+
+    @Test
+    public void nestedCalls() {
+
+        var bucket = new Bucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0));
+        var result = PoolScope.call(() -> bucket.forInstance($outer -> {
+            var inner = PoolScope.call(() -> bucket.forInstance($inner -> {
+                assertThat($inner, is(not(sameInstance($outer))));
+                return $inner.append("inner").toString();
+            }));
+            return $outer.append("outer-").append(inner).toString();
+        }));
+        assertThat(result, is("outer-inner"));
+        assertThat(bucket.getSize(), is(2));
+
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+
+        var bucket = new ConcurrentBucket<StringBuilder>(StringBuilder::new, $ -> $.setLength(0));
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<String>>();
+            for (var i = 0; i < 1000; i++) {
+                var value = i;
+                futures.add(executor.submit(() -> PoolScope.call(() -> {
+                    var first = bucket.forInstance($ -> $.append(value).toString());
+                    return bucket.forInstance($ -> $.append(first).append(first).toString());
+                })));
+            }
+            for (var i = 0; i < futures.size(); i++) {
+                assertThat(futures.get(i).get(), is("%d%d".formatted(i, i)));
+            }
+        }
+        assertThat(bucket.getSize(), is(greaterThan(0)));
+
+    }
+
+} /* ENDCLASS */